@@ -0,0 +1,38 @@
+package algo.arctang.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recorded MAINNET responses (ASA params and metadata) of the assets MainnetARCTests uses, so the benchmarks
+ * measure the local work only and run without a network
+ */
+public class Fixtures {
+
+	public static final long ARC3_ASSETID = 387411719L;
+	public static final long ARC19_ASSETID = 865610737L;
+	public static final long ARC69_ASSETID = 490139078L;
+
+	public static String getASAJSON(long assetid) {
+		return read(assetid + ".asa.json");
+	}
+
+	/**
+	 * The IPFS metadata for ARC3 and ARC19, the latest acfg note for ARC69
+	 */
+	public static String getMetadataJSON(long assetid) {
+		return read(assetid + ".metadata.json");
+	}
+
+	private static String read(String name) {
+		try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+			if (null == in) throw new IllegalStateException("Missing fixture " + name);
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
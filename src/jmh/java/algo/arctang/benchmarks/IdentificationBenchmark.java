@@ -0,0 +1,72 @@
+package algo.arctang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * ARC standard identification as done for every asset by QUERY, VERIFY and SCAN. Telling an ARC69 asset
+ * apart from the ASA params alone needs the indexer (for the latest acfg note), so ARC69 is only measured
+ * through the metadata.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentificationBenchmark {
+
+	private String arc3_asa_json;
+	private String arc19_asa_json;
+	private String arc3_metadata;
+	private String arc19_metadata;
+	private String arc69_metadata;
+
+	@Setup
+	public void setup() {
+		arc3_asa_json = Fixtures.getASAJSON(Fixtures.ARC3_ASSETID);
+		arc19_asa_json = Fixtures.getASAJSON(Fixtures.ARC19_ASSETID);
+		arc3_metadata = Fixtures.getMetadataJSON(Fixtures.ARC3_ASSETID);
+		arc19_metadata = Fixtures.getMetadataJSON(Fixtures.ARC19_ASSETID);
+		arc69_metadata = Fixtures.getMetadataJSON(Fixtures.ARC69_ASSETID);
+	}
+
+	@Benchmark
+	public AVMNFTStandard fromASAJSON_ARC3() {
+		return AVMUtils.identifyARCStandardFromASAJSON(null, arc3_asa_json);
+	}
+
+	@Benchmark
+	public AVMNFTStandard fromASAJSON_ARC19() {
+		return AVMUtils.identifyARCStandardFromASAJSON(null, arc19_asa_json);
+	}
+
+	@Benchmark
+	public AVMNFTStandard fromMetadata_ARC3() {
+		return AVMUtils.identifyARCStandardFromMetadata(arc3_metadata);
+	}
+
+	@Benchmark
+	public AVMNFTStandard fromMetadata_ARC19() {
+		return AVMUtils.identifyARCStandardFromMetadata(arc19_metadata);
+	}
+
+	@Benchmark
+	public AVMNFTStandard fromMetadata_ARC69() {
+		return AVMUtils.identifyARCStandardFromMetadata(arc69_metadata);
+	}
+
+}
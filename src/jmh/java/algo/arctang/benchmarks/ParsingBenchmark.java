@@ -0,0 +1,69 @@
+package algo.arctang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crypto.forestfish.objects.avm.model.nft.ARC19Asset;
+import crypto.forestfish.objects.avm.model.nft.ARC3Asset;
+import crypto.forestfish.objects.avm.model.nft.ARC69Asset;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * Mapping of the raw ASA params JSON to the ARC asset objects and resolving the metadata CID of an ARC19
+ * template from the reserve address
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+
+	private String arc3_asa_json;
+	private String arc19_asa_json;
+	private String arc69_asa_json;
+	private String arc19_url;
+	private String arc19_reserve;
+
+	@Setup
+	public void setup() {
+		arc3_asa_json = Fixtures.getASAJSON(Fixtures.ARC3_ASSETID);
+		arc19_asa_json = Fixtures.getASAJSON(Fixtures.ARC19_ASSETID);
+		arc69_asa_json = Fixtures.getASAJSON(Fixtures.ARC69_ASSETID);
+		ARC19Asset arc19asset = AVMUtils.createARC19Asset(arc19_asa_json);
+		arc19_url = arc19asset.getAssetURL();
+		arc19_reserve = arc19asset.getReserve().toString();
+	}
+
+	@Benchmark
+	public ARC3Asset createARC3Asset() {
+		return AVMUtils.createARC3Asset(arc3_asa_json);
+	}
+
+	@Benchmark
+	public ARC19Asset createARC19Asset() {
+		return AVMUtils.createARC19Asset(arc19_asa_json);
+	}
+
+	@Benchmark
+	public ARC69Asset createARC69Asset() {
+		return AVMUtils.createARC69Asset(arc69_asa_json);
+	}
+
+	@Benchmark
+	public String extractARC19CID() {
+		return AVMUtils.extractCIDFromARC19URLAndReserveAddress(arc19_url, arc19_reserve);
+	}
+
+}
@@ -0,0 +1,86 @@
+package algo.arctang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import algo.arctang.objects.verify.ARCVerificationResult;
+import algo.arctang.objects.verify.MediaReference;
+import algo.arctang.objects.verify.VerifyTask;
+import algo.arctang.utils.VerifyUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.utils.CryptUtils;
+
+/**
+ * The local work VERIFY does per asset once everything is fetched: hashing the metadata, relating the
+ * metadata name to the unit name and scoring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifyScoringBenchmark {
+
+	// set in setup() rather than constants, so JIT can not fold the calls on them
+	private String unit_name;
+	private String metadata_name;
+	// longest asset names allowed by the protocol, the worst case for the name relation
+	private String long_name_a;
+	private String long_name_b;
+
+	private String arc3_metadata;
+	private VerifyTask arc3_task;
+
+	@Setup
+	public void setup() {
+		unit_name = "NFTARC3";
+		metadata_name = "ARC3";
+		long_name_a = "Alchemon Electric Zip Common 046";
+		long_name_b = "ALCH0046 Zip the Electric Alchem";
+		arc3_metadata = Fixtures.getMetadataJSON(Fixtures.ARC3_ASSETID);
+		arc3_task = new VerifyTask(Fixtures.ARC3_ASSETID);
+		arc3_task.setAsa_json(Fixtures.getASAJSON(Fixtures.ARC3_ASSETID));
+		arc3_task.setStandard(AVMNFTStandard.ARC3);
+		arc3_task.setMetadata_json(arc3_metadata);
+		arc3_task.setMetadata_sha256(VerifyUtils.sha256Base64(arc3_metadata));
+		arc3_task.setMedia(VerifyUtils.getMediaReferences(Fixtures.ARC3_ASSETID, AVMNFTStandard.ARC3, arc3_metadata));
+		for (MediaReference media: arc3_task.getMedia()) media.setSha256(media.getIntegrity().substring("sha256-".length()));
+	}
+
+	@Benchmark
+	public byte[] sha256Metadata() {
+		return CryptUtils.calculateSHA256(arc3_metadata);
+	}
+
+	@Benchmark
+	public String sha256Base64Metadata() {
+		return VerifyUtils.sha256Base64(arc3_metadata);
+	}
+
+	@Benchmark
+	public boolean nameRelation() {
+		return VerifyUtils.isRelated(unit_name, metadata_name);
+	}
+
+	@Benchmark
+	public int longestCommonSubsequence() {
+		return VerifyUtils.longestCommonSubsequence(long_name_a, long_name_b);
+	}
+
+	@Benchmark
+	public ARCVerificationResult scoreARC3() {
+		return VerifyUtils.score(arc3_task);
+	}
+
+}
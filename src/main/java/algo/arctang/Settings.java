@@ -7,6 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import algo.arctang.enums.Action;
+import algo.arctang.enums.MetricsFormat;
+import algo.arctang.enums.OutputFormat;
 import crypto.forestfish.enums.avm.AVMChain;
 import crypto.forestfish.enums.avm.AVMNFTStandard;
 import crypto.forestfish.objects.avm.AlgoIndexerNode;
@@ -46,6 +48,7 @@ public class Settings {
 	private boolean probe_arcstandard = false;
 	private boolean metadata = false;
 	private boolean metadata_trail = false;
+	private boolean trail_diff = false;
 	private boolean imageurl = false;
 	
 	private String walletname;
@@ -72,6 +75,26 @@ public class Settings {
 	private boolean clearfreeze = false;
 	private boolean clearclawback = false;
 	private String address;
+	private int concurrency = 8;
+	private boolean nocache = false;
+	private boolean refresh = false;
+	private int ipfscache_mb = 256;
+	private int media_inflight_mb = 32;
+	private String assetid_file;
+	private String assetid_range;
+	private String creator;
+	private int[] stage_concurrency;
+	private String bind = "127.0.0.1";
+	private int port = 8080;
+	private int server_threads = 32;
+	private String manifest;
+	private String results_file;
+	private String transfer_file;
+	private String local_content;
+	private ArrayList<String> traits;
+	private MetricsFormat metrics;
+	private String metrics_file;
+	private OutputFormat output;
 	
 	private boolean debug = false;
 	
@@ -164,12 +187,15 @@ public class Settings {
 				(this.getAction() == Action.MINT) ||
 				(this.getAction() == Action.RECONFIG) ||
 				(this.getAction() == Action.TRANSFER) ||
-				(this.getAction() == Action.VERIFY) ||
+				((this.getAction() == Action.VERIFY) && (null == this.getLocal_content())) ||
 				(this.getAction() == Action.NETCONFIG) ||
 				(this.getAction() == Action.OPTIN) ||
 				(this.getAction() == Action.DESTROY) ||
 				(this.getAction() == Action.METADATAUPDATE) ||
 				(this.getAction() == Action.LIST) ||
+				(this.getAction() == Action.SCAN) ||
+				(this.getAction() == Action.SERVE) ||
+				(this.getAction() == Action.RARITY) ||
 				false) {
 
 			// require chain
@@ -240,16 +266,41 @@ public class Settings {
 			
 		}
 		
-		if ((this.getAction() == Action.QUERY) && (null == this.getAssetid())) {
+		if ((this.getAction() == Action.QUERY) && (null != this.getTraits())) {
+			if ((null == this.getCreator()) || (null != this.getAssetid())) {
+				LOGGER.error("Need to provide --creator (and no --assetid) when using QUERY with --trait");
+				SystemUtils.halt();
+			}
+			for (String trait: this.getTraits()) {
+				if (trait.indexOf('=') <= 0) {
+					LOGGER.error("Invalid --trait " + trait + ", expected key=value");
+					SystemUtils.halt();
+				}
+			}
+			// check for valid Algorand address
+			AVMUtils.createAddressFromSTR(this.getCreator());
+		}
+
+		if (this.isRefresh() && ((this.getAction() != Action.QUERY) || (null == this.getTraits()))) {
+			LOGGER.error("The --refresh option can only be used together with QUERY and --trait");
+			SystemUtils.halt();
+		}
+
+		if ((this.getAction() == Action.QUERY) && (null == this.getAssetid()) && (null == this.getTraits())) {
 			LOGGER.error("Need to provide --assetid when using QUERY action");
 			SystemUtils.halt();
 		}
 		
-		if ((this.getAction() == Action.QUERY) && !this.isImageurl() && !this.isMetadata() && !this.isMetadata_trail() && !this.isRaw() && !this.isProbe_arcstandard()) {
+		if ((this.getAction() == Action.QUERY) && (null == this.getTraits()) && !this.isImageurl() && !this.isMetadata() && !this.isMetadata_trail() && !this.isRaw() && !this.isProbe_arcstandard()) {
 			LOGGER.error("Need to provide --imageurl, --metadata, --metadata_trail, --raw or --probe_arcstandard when using QUERY action");
 			SystemUtils.halt();
 		}
 
+		if (this.isTrail_diff() && !this.isMetadata_trail()) {
+			LOGGER.error("The --trail_diff option can only be used together with --metadata_trail");
+			SystemUtils.halt();
+		}
+
 		if ((this.getAction() == Action.WALLETCONFIG)) {
 			
 			if (null == this.getWalletname()) {
@@ -274,6 +325,22 @@ public class Settings {
 				LOGGER.error("Need to provide --walletname when using the OPTIN action");
 				SystemUtils.halt();
 			}
+			int sources = 0;
+			if (null != this.getAssetid()) sources++;
+			if (null != this.getAssetid_file()) sources++;
+			if (null != this.getCreator()) sources++;
+			if (sources != 1) {
+				LOGGER.error("Need to provide exactly one of --assetid, --assetid_file or --creator when using the OPTIN action");
+				SystemUtils.halt();
+			}
+			if ((null != this.getAssetid_file()) && !new File(this.getAssetid_file()).exists()) {
+				LOGGER.error("The --assetid_file " + this.getAssetid_file() + " does not exist");
+				SystemUtils.halt();
+			}
+			// check for valid Algorand address
+			if (null != this.getCreator()) {
+				AVMUtils.createAddressFromSTR(this.getCreator());
+			}
 		}
 		
 		if ((this.getAction() == Action.LIST)) {
@@ -291,19 +358,168 @@ public class Settings {
 			}
 		}
 		
-		if ((this.getAction() == Action.TRANSFER)) {
+		if ((null != this.getMetrics_file()) && (this.getMetrics() != MetricsFormat.JSON) && (this.getMetrics() != MetricsFormat.PROMETHEUS)) {
+			LOGGER.error("Need to provide --metrics json or prometheus when using --metrics_file");
+			SystemUtils.halt();
+		}
+
+		if (null != this.getOutput()) {
+			if ((this.getAction() != Action.QUERY) && (this.getAction() != Action.VERIFY) && (this.getAction() != Action.LIST) && (this.getAction() != Action.SCAN) && (this.getAction() != Action.RARITY)) {
+				LOGGER.error("The --output option is only supported by the QUERY, VERIFY, LIST, SCAN and RARITY actions");
+				SystemUtils.halt();
+			}
+			if ((this.getAction() == Action.QUERY) && this.isParsed()) {
+				LOGGER.error("The --output option can not be combined with --parsed, use --raw for the ASA params as a record");
+				SystemUtils.halt();
+			}
+		}
+
+		if ((this.getAction() == Action.VERIFY) && (null != this.getLocal_content())) {
+			if (!new File(this.getLocal_content()).exists()) {
+				LOGGER.error("The --local_content " + this.getLocal_content() + " does not exist");
+				SystemUtils.halt();
+			}
+			if ((this.getArcstandard() != AVMNFTStandard.ARC3) && (this.getArcstandard() != AVMNFTStandard.ARC69)) {
+				LOGGER.error("Need to provide --arcstandard ARC3 or ARC69 when using the VERIFY action with --local_content");
+				SystemUtils.halt();
+			}
+			if ((null != this.getAssetid()) || (null != this.getAssetid_file()) || (null != this.getAssetid_range()) || (null != this.getCreator())) {
+				LOGGER.error("The VERIFY action with --local_content checks a collection before it is minted, it can not be combined with --assetid, --assetid_file, --assetid_range or --creator");
+				SystemUtils.halt();
+			}
+			if ((null != this.getManifest()) && !new File(this.getManifest()).exists()) {
+				LOGGER.error("The --manifest " + this.getManifest() + " does not exist");
+				SystemUtils.halt();
+			}
+		}
+
+		if ((this.getAction() == Action.VERIFY) && (null == this.getLocal_content())) {
+			int sources = 0;
+			if (null != this.getAssetid()) sources++;
+			if (null != this.getAssetid_file()) sources++;
+			if (null != this.getAssetid_range()) sources++;
+			if (null != this.getCreator()) sources++;
+			if (sources != 1) {
+				LOGGER.error("Need to provide exactly one of --assetid, --assetid_file, --assetid_range or --creator when using the VERIFY action");
+				SystemUtils.halt();
+			}
+			if ((null != this.getAssetid_file()) && !new File(this.getAssetid_file()).exists()) {
+				LOGGER.error("The --assetid_file " + this.getAssetid_file() + " does not exist");
+				SystemUtils.halt();
+			}
+			// check for valid Algorand address
+			if (null != this.getCreator()) {
+				AVMUtils.createAddressFromSTR(this.getCreator());
+			}
+		}
+
+		if ((this.getAction() == Action.RARITY)) {
+			int sources = 0;
+			if (null != this.getAssetid_file()) sources++;
+			if (null != this.getAssetid_range()) sources++;
+			if (null != this.getCreator()) sources++;
+			if (sources != 1) {
+				LOGGER.error("Need to provide exactly one of --assetid_file, --assetid_range or --creator when using the RARITY action");
+				SystemUtils.halt();
+			}
+			if ((null != this.getAssetid_file()) && !new File(this.getAssetid_file()).exists()) {
+				LOGGER.error("The --assetid_file " + this.getAssetid_file() + " does not exist");
+				SystemUtils.halt();
+			}
+			// check for valid Algorand address
+			if (null != this.getCreator()) {
+				AVMUtils.createAddressFromSTR(this.getCreator());
+			}
+		}
+
+		if ((this.getAction() == Action.SCAN)) {
+			if (null == this.getCreator()) {
+				LOGGER.error("Need to provide --creator when using the SCAN action");
+				SystemUtils.halt();
+			}
+			// check for valid Algorand address
+			AVMUtils.createAddressFromSTR(this.getCreator());
+		}
+
+		if ((this.getAction() == Action.SERVE)) {
+			if ((this.getPort() < 0) || (this.getPort() > 65535)) {
+				LOGGER.error("The --port value needs to be between 0 and 65535");
+				SystemUtils.halt();
+			}
+			if (this.getServer_threads() < 1) {
+				LOGGER.error("The --server_threads value needs to be at least 1");
+				SystemUtils.halt();
+			}
+		}
+
+		if ((this.getAction() == Action.MINT) && (null != this.getManifest())) {
 			if (null == this.getWalletname()) {
-				LOGGER.error("Need to provide --walletname when using the TRANSFER action");
+				LOGGER.error("Need to provide --walletname when using the MINT action");
 				SystemUtils.halt();
 			}
-			if (null == this.getTo()) {
-				LOGGER.error("Need to provide --to for the target account when using the TRANSFER action");
+			if ((this.getArcstandard() != AVMNFTStandard.ARC3) && (this.getArcstandard() != AVMNFTStandard.ARC69)) {
+				LOGGER.error("Need to provide --arcstandard ARC3 or ARC69 when using the MINT action with --manifest");
 				SystemUtils.halt();
 			}
-			if (!AVMUtils.isValidAlgorandAddress(this.getTo())) {
-				LOGGER.error("The --to argument needs to be a valid Algorand account, you provided " + this.getTo());
+			File f = new File(this.getManifest());
+			if (!f.exists()) {
+				LOGGER.error("The --manifest " + this.getManifest() + " does not exist");
+				SystemUtils.halt();
+			}
+			if (f.isDirectory() && (this.getArcstandard() != AVMNFTStandard.ARC69)) {
+				LOGGER.error("A --manifest folder of metadata files is only supported for ARC69, ARC3 mints need a CSV manifest with the metadata CIDs");
+				SystemUtils.halt();
+			}
+			if (null == this.getResults_file()) this.setResults_file(f.getPath() + ".results.csv");
+		}
+
+		if (this.getIpfscache_mb() < 1) {
+			LOGGER.error("The --ipfscache_mb value needs to be at least 1");
+			SystemUtils.halt();
+		}
+
+		if ((this.getMedia_inflight_mb() < 1) || (this.getMedia_inflight_mb() > 2047)) {
+			LOGGER.error("The --media_inflight_mb value needs to be between 1 and 2047");
+			SystemUtils.halt();
+		}
+
+		if (this.getConcurrency() < 1) {
+			LOGGER.error("The --concurrency value needs to be at least 1");
+			SystemUtils.halt();
+		}
+
+		if (this.getAction() == Action.CONVERT) {
+			if ((null == this.getFrom_erc_folder()) || !new File(this.getFrom_erc_folder()).isDirectory()) {
+				LOGGER.error("Need to provide an existing --from_erc_folder when using the CONVERT action");
+				SystemUtils.halt();
+			}
+			if ((null == this.getTo_arc3_folder()) && (null == this.getTo_arc69_folder())) {
+				LOGGER.error("Need to provide --to_arc3_folder or --to_arc69_folder when using the CONVERT action");
+				SystemUtils.halt();
+			}
+		}
+
+		if ((this.getAction() == Action.TRANSFER)) {
+			if (null == this.getWalletname()) {
+				LOGGER.error("Need to provide --walletname when using the TRANSFER action");
 				SystemUtils.halt();
 			}
+			if (null != this.getTransfer_file()) {
+				if (!new File(this.getTransfer_file()).exists()) {
+					LOGGER.error("The --transfer_file " + this.getTransfer_file() + " does not exist");
+					SystemUtils.halt();
+				}
+				if (null == this.getResults_file()) this.setResults_file(this.getTransfer_file() + ".results.csv");
+			} else {
+				if (null == this.getTo()) {
+					LOGGER.error("Need to provide --to for the target account when using the TRANSFER action");
+					SystemUtils.halt();
+				}
+				if (!AVMUtils.isValidAlgorandAddress(this.getTo())) {
+					LOGGER.error("The --to argument needs to be a valid Algorand account, you provided " + this.getTo());
+					SystemUtils.halt();
+				}
+			}
 		}
 
 		return;
@@ -584,4 +800,172 @@ public class Settings {
 		this.metadata_trail = metadata_trail;
 	}
 
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public boolean isNocache() {
+		return nocache;
+	}
+
+	public void setNocache(boolean nocache) {
+		this.nocache = nocache;
+	}
+
+	public boolean isRefresh() {
+		return refresh;
+	}
+
+	public void setRefresh(boolean refresh) {
+		this.refresh = refresh;
+	}
+
+	public int getIpfscache_mb() {
+		return ipfscache_mb;
+	}
+
+	public void setIpfscache_mb(int ipfscache_mb) {
+		this.ipfscache_mb = ipfscache_mb;
+	}
+
+	public String getLocal_content() {
+		return local_content;
+	}
+
+	public void setLocal_content(String local_content) {
+		this.local_content = local_content;
+	}
+
+	public ArrayList<String> getTraits() {
+		return traits;
+	}
+
+	public void setTraits(ArrayList<String> traits) {
+		this.traits = traits;
+	}
+
+	public MetricsFormat getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(MetricsFormat metrics) {
+		this.metrics = metrics;
+	}
+
+	public String getMetrics_file() {
+		return metrics_file;
+	}
+
+	public void setMetrics_file(String metrics_file) {
+		this.metrics_file = metrics_file;
+	}
+
+	public OutputFormat getOutput() {
+		return output;
+	}
+
+	public void setOutput(OutputFormat output) {
+		this.output = output;
+	}
+
+	public int getMedia_inflight_mb() {
+		return media_inflight_mb;
+	}
+
+	public void setMedia_inflight_mb(int media_inflight_mb) {
+		this.media_inflight_mb = media_inflight_mb;
+	}
+
+	public String getAssetid_file() {
+		return assetid_file;
+	}
+
+	public void setAssetid_file(String assetid_file) {
+		this.assetid_file = assetid_file;
+	}
+
+	public String getAssetid_range() {
+		return assetid_range;
+	}
+
+	public void setAssetid_range(String assetid_range) {
+		this.assetid_range = assetid_range;
+	}
+
+	public String getCreator() {
+		return creator;
+	}
+
+	public void setCreator(String creator) {
+		this.creator = creator;
+	}
+
+	public int[] getStage_concurrency() {
+		return stage_concurrency;
+	}
+
+	public void setStage_concurrency(int[] stage_concurrency) {
+		this.stage_concurrency = stage_concurrency;
+	}
+
+	public boolean isTrail_diff() {
+		return trail_diff;
+	}
+
+	public void setTrail_diff(boolean trail_diff) {
+		this.trail_diff = trail_diff;
+	}
+
+	public String getBind() {
+		return bind;
+	}
+
+	public void setBind(String bind) {
+		this.bind = bind;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getServer_threads() {
+		return server_threads;
+	}
+
+	public void setServer_threads(int server_threads) {
+		this.server_threads = server_threads;
+	}
+
+	public String getManifest() {
+		return manifest;
+	}
+
+	public void setManifest(String manifest) {
+		this.manifest = manifest;
+	}
+
+	public String getResults_file() {
+		return results_file;
+	}
+
+	public void setResults_file(String results_file) {
+		this.results_file = results_file;
+	}
+
+	public String getTransfer_file() {
+		return transfer_file;
+	}
+
+	public void setTransfer_file(String transfer_file) {
+		this.transfer_file = transfer_file;
+	}
+
 }
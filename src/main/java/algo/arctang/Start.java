@@ -1,7 +1,13 @@
 package algo.arctang;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
@@ -15,24 +21,58 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.algorand.algosdk.crypto.Address;
-import com.algorand.algosdk.v2.client.model.AssetHolding;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import algo.arctang.enums.AVMNodeType;
 import algo.arctang.enums.Action;
+import algo.arctang.enums.MetricsFormat;
+import algo.arctang.enums.OutputFormat;
+import algo.arctang.enums.TransferStatus;
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.cache.HoldingsIndex;
+import algo.arctang.objects.cache.MetadataTrailStore;
+import algo.arctang.objects.connector.AVMConnectorManager;
+import algo.arctang.objects.convert.ConvertEngine;
+import algo.arctang.objects.convert.ConvertSummary;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.ipfs.GatewayScoreboard;
+import algo.arctang.objects.ipfs.IPFSBlobStore;
+import algo.arctang.objects.ipfs.LocalContentIndex;
+import algo.arctang.objects.ipfs.MediaHasher;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.mint.MintItem;
+import algo.arctang.objects.output.RecordWriter;
+import algo.arctang.objects.rarity.RarityEngine;
+import algo.arctang.objects.scan.CreatorAssetIterator;
+import algo.arctang.objects.scan.ScannedAsset;
+import algo.arctang.objects.server.ArctangServer;
+import algo.arctang.objects.traits.TraitIndex;
+import algo.arctang.objects.transfer.TransferItem;
+import algo.arctang.objects.txn.AtomicGroupSubmitter;
+import algo.arctang.objects.txn.TxResult;
+import algo.arctang.objects.verify.OfflineVerifier;
+import algo.arctang.objects.verify.VerifyPipeline;
+import algo.arctang.objects.verify.VerifySummary;
+import algo.arctang.utils.ARCUtils;
+import algo.arctang.utils.AssetIDUtils;
+import algo.arctang.utils.JSONDiffUtils;
+import algo.arctang.utils.MintUtils;
+import algo.arctang.utils.OptinUtils;
+import algo.arctang.utils.TraitUtils;
+import algo.arctang.utils.TransferUtils;
 import crypto.forestfish.enums.avm.AVMChain;
 import crypto.forestfish.enums.avm.AVMNFTStandard;
 import crypto.forestfish.objects.avm.AVMASAMutables;
 import crypto.forestfish.objects.avm.AVMCreateAssetResult;
 import crypto.forestfish.objects.avm.AlgoLocalWallet;
 import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
-import crypto.forestfish.objects.avm.model.asa.ASAContentOnchainReply;
 import crypto.forestfish.objects.avm.model.nft.ARC19Asset;
 import crypto.forestfish.objects.avm.model.nft.ARC3Asset;
 import crypto.forestfish.objects.avm.model.nft.ARC69Asset;
 import crypto.forestfish.objects.avm.model.nft.ASAVerificationStatus;
 import crypto.forestfish.objects.avm.model.nft.metadata.ARC3MetaData;
 import crypto.forestfish.objects.avm.model.nft.metadata.ARC69ARC19MetaData;
-import crypto.forestfish.objects.avm.model.nft.metadata.MetaDataEntry;
-import crypto.forestfish.objects.ipfs.connector.IPFSConnector;
 import crypto.forestfish.utils.AVMUtils;
 import crypto.forestfish.utils.CryptUtils;
 import crypto.forestfish.utils.DateUtils;
@@ -50,6 +90,15 @@ public class Start {
 
 		Settings settings = parseCliArgs(args);
 
+		// reported from a shutdown hook so every exit path is covered
+		if (null != settings.getMetrics()) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> MetricsRegistry.get().report(settings.getMetrics(), settings.getMetrics_file())));
+		}
+
+		// machine readable records own stdout, everything else printed moves to stderr
+		PrintStream stdout = System.out;
+		if (null != settings.getOutput()) System.setOut(System.err);
+
 		// Early exit if NETCONFIG/WALLETCONFIG actions
 		if ((settings.getAction() == Action.NETCONFIG) || (settings.getAction() == Action.WALLETCONFIG)){
 			LOGGER.info("Exiting ..");
@@ -59,74 +108,277 @@ public class Start {
 		/**
 		 *  Connect to Algorand blockchain
 		 */
-		AVMBlockChainConnector connector = null;
-		if (settings.getAction() != Action.CONVERT) {
-			connector = new AVMBlockChainConnector(settings.getChainInfo());
-			Long lastRound = AVMUtils.getLastRound(connector);
-			LOGGER.debug("lastRound: " + lastRound);
-			Long lastRoundIndexer = AVMUtils.getIndexerHealthCheck(connector);
-			LOGGER.debug("lastRoundIndexer: " + lastRoundIndexer);
+		AVMConnectorManager connector_manager = null;
+		ASAParamsCache asa_cache = null;
+		if ((settings.getAction() != Action.CONVERT) && (null == settings.getLocal_content())) {
+			// no remote calls up front, node health is only checked once a lookup fails
+			connector_manager = new AVMConnectorManager(settings.getChain(), settings.getChainInfo(), !settings.isNocache());
+			asa_cache = new ASAParamsCache(settings.getChain(), !settings.isNocache());
+			asa_cache.setConnector_manager(connector_manager);
 		}
 
+		// IPFS content is immutable by CID, check the local blob store before racing the best known gateways
+		IPFSBlobStore ipfs_store = null;
+		if (!settings.isNocache()) ipfs_store = new IPFSBlobStore(".avm/ipfs", settings.getIpfscache_mb() * 1024L * 1024L);
+		CachedIPFSConnector ipfs_connector = new CachedIPFSConnector(ipfs_store, new MediaHasher(settings.getMedia_inflight_mb() * 1024L * 1024L), new GatewayScoreboard(!settings.isNocache()));
+
 		/**
 		 * QUERY action
 		 */
 
 		// raw output
 		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isRaw()) {
-			String asa_json = AVMUtils.getASARawJSONResponse(connector, settings.getAssetid());
-			System.out.println(asa_json);
+			String asa_json = asa_cache.getASARawJSONResponse(settings.getAssetid());
+			if ((null == asa_json) || asa_json.isEmpty()) connector_manager.diagnose("Unable to get the ASA params for assetID " + settings.getAssetid());
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					ObjectNode record = RecordWriter.createRecord();
+					record.put("assetid", settings.getAssetid());
+					record.set("params", JSONDiffUtils.parse(asa_json));
+					output.write(record);
+				}
+			} else {
+				System.out.println(asa_json);
+			}
 		}
 
 		// parsed output
 		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isParsed()) {
-			AVMNFTStandard standard = AVMUtils.identifyARCStandardFromASAAssetID(connector, settings.getAssetid());
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			String asa_json = asa_cache.getASARawJSONResponse(connector, settings.getAssetid());
+			AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
 			AVMUtils.printARCInfo(connector, standard, settings.getAssetid());
 		}
 
 		// arctype output
 		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isProbe_arcstandard()) {
-			AVMNFTStandard standard = AVMUtils.identifyARCStandard(connector, settings.getAssetid());
-			System.out.println("ASA identified as: " + standard);
+			AVMNFTStandard standard = connector_manager.call(AVMNodeType.ALGOD, "arcstandard", c -> AVMUtils.identifyARCStandard(c, settings.getAssetid()));
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					ObjectNode record = RecordWriter.createRecord();
+					record.put("assetid", settings.getAssetid());
+					record.put("standard", String.valueOf(standard));
+					output.write(record);
+				}
+			} else {
+				System.out.println("ASA identified as: " + standard);
+			}
 		}
 
 		// metadata
 		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isMetadata()) {
-			String metajson = AVMUtils.getARCMetadataFromASAAssetID(connector, settings.getAssetid());
-			System.out.println(JSONUtils.prettyPrint(metajson));
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			String metajson = ARCUtils.getARCMetadataFromASAAssetID(connector, asa_cache, ipfs_connector, settings.getAssetid());
+			if (null == metajson) connector_manager.diagnose("Unable to get the metadata for assetID " + settings.getAssetid());
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					ObjectNode record = RecordWriter.createRecord();
+					record.put("assetid", settings.getAssetid());
+					record.set("metadata", JSONDiffUtils.parse(metajson));
+					output.write(record);
+				}
+			} else {
+				System.out.println(JSONUtils.prettyPrint(metajson));
+			}
 		}
 
 		// metadata_trail
-		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isMetadata_trail()) {
-			ArrayList<MetaDataEntry> metajsons = AVMUtils.getARCMetadataHistoryFromASAAssetID(connector, settings.getAssetid());
+		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isMetadata_trail() && (null != settings.getOutput())) {
+			// one record per version, or per change with --trail_diff, the metadata is embedded as parsed
+			MetadataTrailStore trail_store = new MetadataTrailStore(settings.getChain(), !settings.isNocache());
+			boolean complete;
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+				JsonNode[] previous = new JsonNode[1];
+				complete = trail_store.streamTrail(connector, asa_cache, ipfs_connector, settings.getAssetid(), metaentry -> {
+					JsonNode current = JSONDiffUtils.parse(metaentry.getMetajson());
+					if (settings.isTrail_diff()) {
+						JSONDiffUtils.diff(previous[0], current, (op, path, before, after) -> {
+							ObjectNode record = RecordWriter.createRecord();
+							record.put("txid", metaentry.getTx_id());
+							record.put("round", metaentry.getTx_confirmedRound());
+							record.put("op", String.valueOf(op));
+							record.put("path", path);
+							record.set("before", before);
+							record.set("after", after);
+							output.write(record);
+						});
+						previous[0] = current;
+					} else {
+						ObjectNode record = RecordWriter.createRecord();
+						record.put("txid", metaentry.getTx_id());
+						record.put("round", metaentry.getTx_confirmedRound());
+						record.put("round_time", metaentry.getTx_roundTime());
+						record.set("metadata", current);
+						output.write(record);
+					}
+				});
+			}
+			if (!complete) {
+				LOGGER.warn("The metadata trail may be incomplete, see the warnings above");
+				connector_manager.diagnose("Unable to get the metadata trail for assetID " + settings.getAssetid());
+			}
+		}
+		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isMetadata_trail() && (null == settings.getOutput())) {
+			MetadataTrailStore trail_store = new MetadataTrailStore(settings.getChain(), !settings.isNocache());
 			String delim = "========";
-			String outstr = "";
-			for (MetaDataEntry metaentry: metajsons) {
-				outstr = delim + " txid=" + metaentry.getTx_id() + " block=" + metaentry.getTx_confirmedRound() + " UTCtime=" + DateUtils.epochInSecondsToUTC(metaentry.getTx_roundTime()) + " " + delim;
+			StringBuilder outstr = new StringBuilder();
+			JsonNode[] previous = new JsonNode[1];
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			boolean complete = trail_store.streamTrail(connector, asa_cache, ipfs_connector, settings.getAssetid(), metaentry -> {
+				outstr.setLength(0);
+				outstr.append(delim + " txid=" + metaentry.getTx_id() + " block=" + metaentry.getTx_confirmedRound() + " UTCtime=" + DateUtils.epochInSecondsToUTC(metaentry.getTx_roundTime()) + " " + delim);
 				System.out.println(outstr);
-				System.out.println(JSONUtils.prettyPrint(metaentry.getMetajson()));
-			}
+				if (settings.isTrail_diff()) {
+					// each version is parsed once and only compared against the one before it
+					JsonNode current = JSONDiffUtils.parse(metaentry.getMetajson());
+					JSONDiffUtils.diff(previous[0], current, (op, path, before, after) -> {
+						if (op == JSONDiffUtils.CHANGED) {
+							System.out.println(op + " " + path + " " + JSONDiffUtils.toCompactString(before) + " -> " + JSONDiffUtils.toCompactString(after));
+						} else {
+							System.out.println(op + " " + path + " " + JSONDiffUtils.toCompactString((null != after) ? after : before));
+						}
+					});
+					previous[0] = current;
+				} else {
+					System.out.println(JSONUtils.prettyPrint(metaentry.getMetajson()));
+				}
+			});
 			System.out.println("=".repeat(outstr.length()));
+			if (!complete) {
+				LOGGER.warn("The metadata trail above may be incomplete, see the earlier warnings");
+				connector_manager.diagnose("Unable to get the metadata trail for assetID " + settings.getAssetid());
+			}
+		}
+
+		// trait filter, answered from the local trait index of the collection
+		if ((settings.getAction() == Action.QUERY) && (null != settings.getTraits())) {
+			// a stored index answers without any remote call, --refresh brings it up to date first
+			TraitIndex trait_index = null;
+			if (!settings.isNocache() && !settings.isRefresh()) trait_index = TraitUtils.readTraitIndex(settings.getChain(), settings.getCreator());
+			if (null == trait_index) {
+				AVMBlockChainConnector connector = connector_manager.getConnector();
+				trait_index = TraitUtils.getTraitIndex(connector, asa_cache, ipfs_connector, settings.getChain(), settings.getCreator(), settings.getConcurrency(), !settings.isNocache());
+			}
+			long[] matches = trait_index.query(settings.getTraits());
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					for (long assetid: matches) {
+						ObjectNode record = RecordWriter.createRecord();
+						record.put("assetid", assetid);
+						output.write(record);
+					}
+				}
+			} else {
+				for (long assetid: matches) System.out.println(assetid);
+			}
+			LOGGER.info(matches.length + " of " + trait_index.getAssetCount() + " assets created by " + settings.getCreator() + " match " + String.join(" and ", settings.getTraits()));
 		}
 
 		// imageurl
 		if ((settings.getAction() == Action.QUERY) && (null != settings.getAssetid()) && settings.isImageurl()) {
-			String image_url = AVMUtils.getARCImageURL(connector, settings.getAssetid());
-			System.out.println(image_url);
+			String image_url = connector_manager.call(AVMNodeType.ALGOD, "imageurl", c -> AVMUtils.getARCImageURL(c, settings.getAssetid()));
+			if (null == image_url) connector_manager.diagnose("Unable to get the image url for assetID " + settings.getAssetid());
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					ObjectNode record = RecordWriter.createRecord();
+					record.put("assetid", settings.getAssetid());
+					record.put("image_url", image_url);
+					output.write(record);
+				}
+			} else {
+				System.out.println(image_url);
+			}
 		}
 
 		// verify
 		if ((settings.getAction() == Action.VERIFY) && (null != settings.getAssetid())) {
+			AVMBlockChainConnector connector = connector_manager.getConnector();
 			ASAVerificationStatus vstatus = AVMUtils.verifyARCAsset(connector, settings.getAssetid());
-			System.out.println(vstatus.toString());
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					output.write(vstatus);
+				}
+			} else {
+				System.out.println(vstatus.toString());
+			}
+		}
+
+		// verify, batch mode with one JSON line per asset
+		if ((settings.getAction() == Action.VERIFY) && (null == settings.getAssetid()) && (null == settings.getLocal_content())) {
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			Iterator<Long> assetids = getAssetIDs(settings, connector);
+			int[] stage_concurrency = settings.getStage_concurrency();
+			if (null == stage_concurrency) stage_concurrency = VerifyPipeline.getDefaultStageConcurrency(settings.getConcurrency());
+			VerifyPipeline pipeline = new VerifyPipeline(connector, asa_cache, ipfs_connector, stage_concurrency, 64);
+			VerifySummary summary;
+			if (null != settings.getOutput()) {
+				// the summary is not a result row, it goes to the log
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					summary = pipeline.run(assetids, output::write);
+					LOGGER.info("summary: " + JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(summary)));
+				}
+			} else {
+				summary = pipeline.run(assetids, result -> System.out.println(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(result))));
+				System.out.println("{\"summary\":" + JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(summary)) + "}");
+			}
+			if (!summary.isComplete()) {
+				LOGGER.error("The list of assetids was cut short, only " + summary.getTotal() + " assets were verified");
+				connector_manager.diagnose("Unable to list the assets to verify");
+				SystemUtils.halt();
+			}
+		}
+
+		// rarity, one JSON line per asset in rank order once the whole collection is in
+		if (settings.getAction() == Action.RARITY) {
+			long start = System.currentTimeMillis();
+			RarityEngine rarity = new RarityEngine();
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			boolean complete = TraitUtils.resolveMetadata(connector, asa_cache, ipfs_connector, getAssetIDs(settings, connector), settings.getConcurrency(), rarity::add);
+			if (!complete) LOGGER.warn("Not every asset could be listed and resolved, the rarity only covers the assets resolved");
+			long[] count = new long[1];
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					rarity.score(output::write);
+					count[0] = output.getCount();
+				}
+			} else {
+				rarity.score(result -> {
+					System.out.println(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(result)));
+					count[0]++;
+				});
+			}
+			LOGGER.info("Ranked " + count[0] + " assets by " + rarity.getTraitCount() + " traits in " + (System.currentTimeMillis() - start) + " ms, " + rarity.getSkipped() + " skipped without JSON metadata");
+		}
+
+		// verify, offline against a local folder or CAR archive before the collection is minted
+		if ((settings.getAction() == Action.VERIFY) && (null != settings.getLocal_content())) {
+			try (LocalContentIndex index = LocalContentIndex.open(settings.getLocal_content(), settings.getConcurrency())) {
+				LOGGER.info("Indexed " + index.getContents().size() + " files in " + settings.getLocal_content() + ", root CIDs " + index.getRoot_cids());
+				List<MintItem> items = (null != settings.getManifest()) ? MintUtils.readManifest(settings.getManifest()) : OfflineVerifier.getItems(index, settings.getArcstandard());
+				OfflineVerifier verifier = new OfflineVerifier(index, settings.getArcstandard(), settings.getConcurrency());
+				if (null != settings.getOutput()) {
+					try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+						VerifySummary summary = verifier.run(items, (item, result) -> output.write(OfflineVerifier.toRecord(item, result)));
+						LOGGER.info("summary: " + JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(summary)));
+					}
+				} else {
+					VerifySummary summary = verifier.run(items, (item, result) -> System.out.println(OfflineVerifier.toJSONLine(item, result)));
+					System.out.println("{\"summary\":" + JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(summary)) + "}");
+				}
+			} catch (IOException e) {
+				LOGGER.error("Unable to verify the local content " + settings.getLocal_content() + ": " + e.getMessage());
+				SystemUtils.halt();
+			}
 		}
 
 		// opt-in
 		if ((settings.getAction() == Action.OPTIN) && (null != settings.getAssetid()) && (null != settings.getWalletname())) {
 
+			AVMBlockChainConnector connector = connector_manager.getConnector();
 			// First we make sure the assetid represents an ARC
-			String asa_json = AVMUtils.getASARawJSONResponse(connector, settings.getAssetid());
-			AVMNFTStandard standard = AVMUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+			String asa_json = asa_cache.getASARawJSONResponse(connector, settings.getAssetid());
+			AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
 			if (false ||
 					(standard == AVMNFTStandard.ARC3) ||
 					(standard == AVMNFTStandard.ARC19) ||
@@ -147,19 +399,71 @@ public class Start {
 			LOGGER.info("Using wallet with address " + wallet.getAddress());
 
 			// Check if we already have an opt-in for this asset
-			boolean optin = AVMUtils.isAccountOptinForASA(connector, wallet.fetchAccount().getAddress(), settings.getAssetid());
+			boolean optin = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_optin", () -> AVMUtils.isAccountOptinForASA(connector, wallet.fetchAccount().getAddress(), settings.getAssetid()));
 			LOGGER.info("optin status for account " + wallet.fetchAccount().getAddress() + " for assetid " + settings.getAssetid() + ": " + optin);
 
 			// Perform the opt-in to the ASA
 			if (!optin) {
 				LOGGER.info("ASA optin tx request for account " + wallet.fetchAccount().getAddress() + " and assetid " + settings.getAssetid());
-				String txhash_optin = AVMUtils.sendTXOptInToAsset(connector, wallet, settings.getAssetid(), true);
-				LOGGER.info("We just opted in to ARC ASA with assetID " + settings.getAssetid() + ", txhash_optin: " + txhash_optin);
+				String txhash_optin = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_optin", () -> AVMUtils.sendTXOptInToAsset(connector, wallet, settings.getAssetid(), false));
+				Long confirmed_round = connector_manager.getConfirmationTracker().await(txhash_optin);
+				LOGGER.info("We just opted in to ARC ASA with assetID " + settings.getAssetid() + ", txhash_optin: " + txhash_optin + ", confirmed in round " + confirmed_round);
+			}
+		}
+
+		// opt-in, bulk mode for a list of assets or a whole collection
+		if ((settings.getAction() == Action.OPTIN) && ((null != settings.getAssetid_file()) || (null != settings.getCreator())) && (null != settings.getWalletname())) {
+
+			// Make sure the wallet exists
+			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(settings.getWalletname());
+			if (null == wallet) {
+				LOGGER.error("Unable to find wallet with name " + settings.getWalletname());
+				SystemUtils.halt();
+			}
+			LOGGER.info("Using wallet with address " + wallet.getAddress());
+
+			Iterator<Long> assetids = null;
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			try {
+				if (null != settings.getAssetid_file()) assetids = AssetIDUtils.fromFile(settings.getAssetid_file());
+				if (null != settings.getCreator()) assetids = AssetIDUtils.fromCreator(connector, settings.getCreator());
+			} catch (Exception e) {
+				LOGGER.error("Unable to read the assetids to opt-in to: " + e.getMessage());
+				SystemUtils.halt();
+			}
+
+			List<Long> missing = OptinUtils.getMissingARCOptins(connector, asa_cache, wallet.getAddress(), assetids, settings.getConcurrency());
+			if (null == missing) {
+				connector_manager.diagnose("Unable to get the ASA holdings for account " + wallet.getAddress() + " or the assets to opt-in to");
+				SystemUtils.halt();
+			}
+
+			// every group is atomic, make sure the account can cover all of them before signing
+			Address account = wallet.fetchAccount().getAddress();
+			Long spendable = OptinUtils.getSpendableMicroAlgos(connector, account);
+			long required = missing.size() * (OptinUtils.OPTIN_MIN_BALANCE_MICROALGOS + OptinUtils.MIN_FEE_MICROALGOS);
+			if ((null != spendable) && (spendable < required)) {
+				LOGGER.error("Opting in to " + missing.size() + " assets requires " + required + " microalgos above the minimum balance, the account only has " + spendable);
+				SystemUtils.halt();
+			}
+
+			LOGGER.info("ASA optin tx requests for account " + wallet.getAddress() + " and " + missing.size() + " assets");
+			List<AtomicGroupSubmitter.TxBuilder> builders = new ArrayList<AtomicGroupSubmitter.TxBuilder>();
+			for (Long assetid: missing) builders.add(OptinUtils.createTransactionBuilder(assetid, account));
+			List<TxResult> results = new AtomicGroupSubmitter(connector, connector_manager.getConfirmationTracker(), wallet, AtomicGroupSubmitter.MAX_GROUP_SIZE).submit(builders);
+			int optins = 0;
+			for (int i=0; i<missing.size(); i++) {
+				if (results.get(i).isConfirmed()) {
+					optins++;
+				} else {
+					LOGGER.warn("Opt-in to assetID " + missing.get(i) + " failed: " + results.get(i).getError());
+				}
 			}
+			LOGGER.info("We just opted in to " + optins + " of " + missing.size() + " ARC ASAs");
 		}
 
 		// transfer
-		if ((settings.getAction() == Action.TRANSFER) && (null != settings.getAssetid()) && (null != settings.getWalletname()) && (null != settings.getTo())) {
+		if ((settings.getAction() == Action.TRANSFER) && (null != settings.getAssetid()) && (null != settings.getWalletname()) && (null != settings.getTo()) && (null == settings.getTransfer_file())) {
 
 			// Make sure the wallet exists
 			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(settings.getWalletname());
@@ -177,34 +481,80 @@ public class Start {
 				SystemUtils.halt();
 			}
 
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			Address receiver = to_addr;
 			// Check if the target account has an opt-in for this asset
-			boolean optin = AVMUtils.isAccountOptinForASA(connector, to_addr, settings.getAssetid());
+			boolean optin = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_optin", () -> AVMUtils.isAccountOptinForASA(connector, receiver, settings.getAssetid()));
 			LOGGER.info("OPTIN status for account " + settings.getTo() + " for assetid " + settings.getAssetid() + ": " + optin);
 
 			// Make sure we have 1 of the asset
-			BigInteger asa_balance = AVMUtils.getAccountBalanceForASA(connector, wallet.fetchAccount().getAddress(), settings.getAssetid());
+			BigInteger asa_balance = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_balance", () -> AVMUtils.getAccountBalanceForASA(connector, wallet.fetchAccount().getAddress(), settings.getAssetid()));
 			LOGGER.info("Wallet " + settings.getWalletname() + " ASAs ID " + settings.getAssetid() + " owns " + asa_balance + " of ASA with ID " + settings.getAssetid());
 
 			if (asa_balance.compareTo(BigInteger.ONE) >= 1) {
 				LOGGER.info("Sending ASA to " + settings.getTo() + " from wallet " + settings.getWalletname());
-				String txhash = AVMUtils.sendTXTransferASA(connector, wallet, to_addr, settings.getAssetid(), BigInteger.ONE, true);
-				LOGGER.info("ASA transfer completed with txhash: " + txhash);
+				String txhash = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_transfer", () -> AVMUtils.sendTXTransferASA(connector, wallet, receiver, settings.getAssetid(), BigInteger.ONE, false));
+				Long confirmed_round = connector_manager.getConfirmationTracker().await(txhash);
+				LOGGER.info("ASA transfer completed with txhash: " + txhash + ", confirmed in round " + confirmed_round);
 			}
 
 		}
 
-		// arc3 convert
-		if ((settings.getAction() == Action.CONVERT) && (null != settings.getFrom_erc_folder()) && (null != settings.getTo_arc3_folder())) {
-			IPFSConnector ipfs_connector = new IPFSConnector();
-			boolean convert_success = NFTUtils.convertERC721MetadataFolderToARC(ipfs_connector, settings.getFrom_erc_folder(), settings.getTo_arc3_folder(), AVMNFTStandard.ARC3, false);
-			LOGGER.info("convertion successful: " + convert_success);
+		// bulk transfer
+		if ((settings.getAction() == Action.TRANSFER) && (null != settings.getWalletname()) && (null != settings.getTransfer_file())) {
+
+			// Make sure the wallet exists
+			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(settings.getWalletname());
+			if (null == wallet) {
+				LOGGER.error("Unable to find wallet with name " + settings.getWalletname());
+				SystemUtils.halt();
+			}
+
+			List<TransferItem> items = null;
+			try {
+				items = TransferUtils.readTransfers(settings.getTransfer_file());
+			} catch (Exception e) {
+				LOGGER.error("Unable to read the transfer file " + settings.getTransfer_file() + ": " + e.getMessage());
+				SystemUtils.halt();
+			}
+
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			// sort out missing opt-ins and balances before a single tx is signed
+			List<TransferItem> pending = TransferUtils.precheck(connector, wallet.getAddress(), items, settings.getConcurrency());
+			LOGGER.info("Sending " + pending.size() + " of " + items.size() + " transfers from wallet " + settings.getWalletname() + ", " + TransferUtils.count(items, TransferStatus.SKIPPED) + " skipped (no opt-in), " + TransferUtils.count(items, TransferStatus.FAILED) + " failed the precheck");
+
+			Address sender = wallet.fetchAccount().getAddress();
+			List<AtomicGroupSubmitter.TxBuilder> builders = new ArrayList<AtomicGroupSubmitter.TxBuilder>();
+			for (TransferItem item: pending) builders.add(TransferUtils.createTransactionBuilder(item, sender));
+			TransferUtils.applyResults(pending, new AtomicGroupSubmitter(connector, connector_manager.getConfirmationTracker(), wallet, AtomicGroupSubmitter.MAX_GROUP_SIZE).submit(builders));
+
+			String counts = "Sent " + TransferUtils.count(items, TransferStatus.SENT) + ", skipped " + TransferUtils.count(items, TransferStatus.SKIPPED) + ", failed " + TransferUtils.count(items, TransferStatus.FAILED) + " transfers";
+			try {
+				TransferUtils.writeResults(settings.getResults_file(), items);
+				LOGGER.info(counts + ", results written to " + settings.getResults_file());
+			} catch (IOException e) {
+				LOGGER.error("Unable to write the results to " + settings.getResults_file() + ": " + e.getMessage());
+				for (TransferItem item: items) System.out.println(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(item)));
+				LOGGER.info(counts);
+			}
 		}
 
-		// arc69 convert
-		if ((settings.getAction() == Action.CONVERT) && (null != settings.getFrom_erc_folder()) && (null != settings.getTo_arc69_folder())) {
-			IPFSConnector ipfs_connector = new IPFSConnector();
-			boolean convert_success = NFTUtils.convertERC721MetadataFolderToARC(ipfs_connector, settings.getFrom_erc_folder(), settings.getTo_arc69_folder(), AVMNFTStandard.ARC69, false);
-			LOGGER.info("convert status: " + convert_success);
+		// arc3/arc69 convert
+		if ((settings.getAction() == Action.CONVERT) && (null != settings.getFrom_erc_folder())) {
+			String[] to_folders = {settings.getTo_arc3_folder(), settings.getTo_arc69_folder()};
+			AVMNFTStandard[] standards = {AVMNFTStandard.ARC3, AVMNFTStandard.ARC69};
+			for (int i=0; i<to_folders.length; i++) {
+				if (null == to_folders[i]) continue;
+				ConvertSummary summary = null;
+				try {
+					summary = new ConvertEngine(ipfs_connector, standards[i], settings.getConcurrency()).run(Paths.get(settings.getFrom_erc_folder()), Paths.get(to_folders[i]));
+				} catch (IOException e) {
+					LOGGER.error("Unable to convert " + settings.getFrom_erc_folder() + " to " + to_folders[i] + ": " + e.getMessage());
+					SystemUtils.halt();
+				}
+				System.out.println("{\"summary\":" + JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(summary)) + "}");
+				if (summary.getFailed() > 0L) LOGGER.warn(summary.getFailed() + " files failed to convert to " + standards[i] + ", re-run the same command to retry them");
+			}
 		}
 
 		// arc reconfig
@@ -218,8 +568,9 @@ public class Start {
 			}
 			LOGGER.info("Using wallet with address " + wallet.getAddress() + " for reconfig");
 
-			String asa_json = AVMUtils.getASARawJSONResponse(connector, settings.getAssetid());
-			AVMNFTStandard standard = AVMUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			String asa_json = asa_cache.getASARawJSONResponse(connector, settings.getAssetid());
+			AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
 
 			AVMASAMutables mutables = null;
 			if (standard == AVMNFTStandard.ARC3) {
@@ -352,18 +703,24 @@ public class Start {
 						LOGGER.error("You need to preserve the reserve address for ARC19 ASA to make it immutable (and useful)");
 						SystemUtils.halt();
 					} else {
-						boolean success = AVMUtils.makeASAImmutableLeavingReserve(connector, wallet, settings.getAssetid(), true, mutables.getReserve());
+						Address reserve = mutables.getReserve();
+						boolean success = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_reconfig", () -> AVMUtils.makeASAImmutableLeavingReserve(connector, wallet, settings.getAssetid(), true, reserve));
+						asa_cache.invalidate(settings.getAssetid());
 						LOGGER.info("IMMUTABLE ASA action result (leaving reserve): " + success);
 					}
 				} else {
-					boolean success = AVMUtils.makeASAImmutable(connector, wallet, settings.getAssetid(), true);
+					boolean success = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_reconfig", () -> AVMUtils.makeASAImmutable(connector, wallet, settings.getAssetid(), true));
+					asa_cache.invalidate(settings.getAssetid());
 					LOGGER.info("IMMUTABLE ASA action result: " + success);
 				}
 
 			} else {
 				// perform the RECONFIG action
-				String txhash = AVMUtils.reconfigureARCASA(connector, wallet, settings.getAssetid(), mutables, true);
-				LOGGER.info("RECONFIG txhash: " + txhash);
+				AVMASAMutables reconfigured = mutables;
+				String txhash = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_reconfig", () -> AVMUtils.reconfigureARCASA(connector, wallet, settings.getAssetid(), reconfigured, false));
+				Long confirmed_round = connector_manager.getConfirmationTracker().await(txhash);
+				asa_cache.invalidate(settings.getAssetid());
+				LOGGER.info("RECONFIG txhash: " + txhash + ", confirmed in round " + confirmed_round);
 			}
 
 		}
@@ -379,8 +736,11 @@ public class Start {
 			}
 			LOGGER.info("Using wallet with address " + wallet.getAddress() + " to destroy asset");
 
-			String txhash = AVMUtils.destroyASA(connector, wallet, settings.getAssetid(), true);
-			LOGGER.info("Completed destroy action with txhash: " + txhash);
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			String txhash = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_destroy", () -> AVMUtils.destroyASA(connector, wallet, settings.getAssetid(), false));
+			Long confirmed_round = connector_manager.getConfirmationTracker().await(txhash);
+			asa_cache.invalidate(settings.getAssetid());
+			LOGGER.info("Completed destroy action with txhash: " + txhash + ", confirmed in round " + confirmed_round);
 		}
 
 		// arc metadataupdate
@@ -394,9 +754,10 @@ public class Start {
 			}
 			LOGGER.info("Using wallet with address " + wallet.getAddress() + " for metadataupdate");
 
-			String asa_json = AVMUtils.getASARawJSONResponse(connector, settings.getAssetid());
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			String asa_json = asa_cache.getASARawJSONResponse(connector, settings.getAssetid());
 
-			AVMNFTStandard standard = AVMUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+			AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
 			LOGGER.info("Standard determined to be: " + standard);
 			if (standard == AVMNFTStandard.ARC69) {
 
@@ -422,14 +783,16 @@ public class Start {
 				}
 
 				// perform the METADATAUPDATE action
-				String txhash = AVMUtils.reconfigureARC69ASAWithNote(connector, wallet, settings.getAssetid(), mutables, true, JSONUtils.compactPrint(metajson));
-				LOGGER.info("METADATAUPDATE txhash: " + txhash);
+				String txhash = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_reconfig", () -> AVMUtils.reconfigureARC69ASAWithNote(connector, wallet, settings.getAssetid(), mutables, false, JSONUtils.compactPrint(metajson)));
+				Long confirmed_round = connector_manager.getConfirmationTracker().await(txhash);
+				asa_cache.invalidate(settings.getAssetid());
+				LOGGER.info("METADATAUPDATE txhash: " + txhash + ", confirmed in round " + confirmed_round);
 			}
 
 		}
 
 		// arc mint
-		if ((settings.getAction() == Action.MINT) && (null != settings.getArcstandard()) && (null != settings.getWalletname())) {
+		if ((settings.getAction() == Action.MINT) && (null != settings.getArcstandard()) && (null != settings.getWalletname()) && (null == settings.getManifest())) {
 
 			// Make sure the wallet exists
 			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(settings.getWalletname());
@@ -442,6 +805,7 @@ public class Start {
 			String unitName = "";
 			String assetName = "";
 
+			AVMBlockChainConnector connector = connector_manager.getConnector();
 			// arc3 mint
 			if (settings.getArcstandard() == AVMNFTStandard.ARC3) {
 
@@ -452,7 +816,6 @@ public class Start {
 				}
 
 				// Make sure metadata exists and aligns with specified ARC standard
-				IPFSConnector ipfs_connector = new IPFSConnector();	
 				String metadata_json = ipfs_connector.getStringContent("ipfs://" + settings.getMetadata_cid());
 				System.out.println(JSONUtils.prettyPrint(metadata_json));
 				AVMNFTStandard identified_standard = AVMUtils.identifyARCStandardFromMetadata(metadata_json);
@@ -531,7 +894,7 @@ public class Start {
 				arc3params.setClawback(wallet.fetchAccount().getAddress());
 
 				// perform the mint
-				AVMCreateAssetResult result = AVMUtils.createARC3ASA(connector, wallet, arc3params);
+				AVMCreateAssetResult result = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_create", () -> AVMUtils.createARC3ASA(connector, wallet, arc3params));
 				LOGGER.info("result: " + result.toString());
 			}
 
@@ -622,14 +985,68 @@ public class Start {
 				arc69params.setClawback(wallet.fetchAccount().getAddress());
 
 				// perform the mint
-				AVMCreateAssetResult result = AVMUtils.createARC69ASA(connector, wallet, arc69params, JSONUtils.compactPrint(metajson));
+				AVMCreateAssetResult result = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "send_create", () -> AVMUtils.createARC69ASA(connector, wallet, arc69params, JSONUtils.compactPrint(metajson)));
 				LOGGER.info("result: " + result.toString());
 			}
 
 		}
 
+		// bulk arc mint
+		if ((settings.getAction() == Action.MINT) && (null != settings.getManifest())) {
+
+			// Make sure the wallet exists
+			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(settings.getWalletname());
+			if (null == wallet) {
+				LOGGER.error("Unable to find wallet with name " + settings.getWalletname());
+				SystemUtils.halt();
+			}
+			LOGGER.info("Using wallet with address " + wallet.getAddress() + " for minting");
+
+			List<MintItem> items = null;
+			try {
+				items = MintUtils.readManifest(settings.getManifest());
+			} catch (Exception e) {
+				LOGGER.error("Unable to read the manifest " + settings.getManifest() + ": " + e.getMessage());
+				SystemUtils.halt();
+			}
+
+			// validate everything before a single tx is signed
+			MintUtils.prepare(items, settings.getArcstandard(), ipfs_connector, settings.getConcurrency());
+			Address creator = wallet.fetchAccount().getAddress();
+			List<AtomicGroupSubmitter.TxBuilder> builders = new ArrayList<AtomicGroupSubmitter.TxBuilder>();
+			for (MintItem item: items) {
+				if (item.isValid()) {
+					builders.add(MintUtils.createTransactionBuilder(item, creator));
+				} else {
+					LOGGER.warn("Skipping manifest row " + item.getRow() + ": " + item.getError());
+				}
+			}
+			LOGGER.info(builders.size() + " of " + items.size() + " manifest rows are valid, minting " + settings.getArcstandard() + " assets in groups of " + AtomicGroupSubmitter.MAX_GROUP_SIZE);
+
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+
+			// every group is atomic, make sure the creator can cover all of them before signing
+			Long spendable = OptinUtils.getSpendableMicroAlgos(connector, creator);
+			long required = builders.size() * (MintUtils.CREATE_MIN_BALANCE_MICROALGOS + OptinUtils.MIN_FEE_MICROALGOS);
+			if ((null != spendable) && (spendable < required)) {
+				LOGGER.error("Minting " + builders.size() + " assets requires " + required + " microalgos above the minimum balance, the account only has " + spendable);
+				SystemUtils.halt();
+			}
+
+			List<TxResult> results = new AtomicGroupSubmitter(connector, connector_manager.getConfirmationTracker(), wallet, AtomicGroupSubmitter.MAX_GROUP_SIZE).submit(builders);
+			long minted = results.stream().filter(TxResult::isConfirmed).count();
+			try {
+				MintUtils.writeResults(settings.getResults_file(), items, results);
+				LOGGER.info("Minted " + minted + " of " + items.size() + " assets, results written to " + settings.getResults_file());
+			} catch (IOException e) {
+				LOGGER.error("Unable to write the results to " + settings.getResults_file() + ": " + e.getMessage());
+				for (TxResult result: results) System.out.println(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(result)));
+				LOGGER.info("Minted " + minted + " of " + items.size() + " assets");
+			}
+		}
+
 		// arc list
-		if ((settings.getAction() == Action.LIST) && (null != settings.getWalletname()) || (null != settings.getAddress())) {
+		if ((settings.getAction() == Action.LIST) && ((null != settings.getWalletname()) || (null != settings.getAddress()))) {
 			String address = null;
 			if (null != settings.getWalletname()) {
 				// Make sure the wallet exists
@@ -642,19 +1059,72 @@ public class Start {
 			}
 			if (null != settings.getAddress()) address = settings.getAddress();
 
-			System.out.println("ARC ASAs owned by " + address + ":");
-			List<AssetHolding> asa_holdings = AVMUtils.getASAOwnershipInfoForAccount(connector, AVMUtils.createAddressFromSTR(address));
-			for (AssetHolding asa: asa_holdings) {
-				if (AVMUtils.checkIfASAExists(connector, asa.assetId)) {
-					String json = AVMUtils.getASARawJSONResponse(connector, asa.assetId);
-					AVMNFTStandard standard = AVMUtils.identifyARCStandardFromASAJSON(connector, json);
-					ASAContentOnchainReply reply = AVMUtils.getASAJSON(json);
-					if ((!asa.amount.equals(BigInteger.ZERO)) && (standard != AVMNFTStandard.UNKNOWN)) System.out.println(AVMUtils.printASAAssetOwnership(asa.amount, reply, standard));
-				} else {
-					LOGGER.warn("Asset no longer exists! assetID: " + asa.assetId);
+			HoldingsIndex holdings_index = new HoldingsIndex(settings.getChain(), !settings.isNocache());
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			if (null != settings.getOutput()) {
+				try (RecordWriter output = new RecordWriter(settings.getOutput(), stdout)) {
+					holdings_index.streamARCAssetHoldings(connector, asa_cache, address, settings.getConcurrency(), output::write);
 				}
+			} else {
+				System.out.println("ARC ASAs owned by " + address + ":");
+				holdings_index.streamARCAssetHoldings(connector, asa_cache, address, settings.getConcurrency(), holding -> System.out.println(holding.getOwnership_info()));
 			}
 		}
+
+		// creator scan
+		if ((settings.getAction() == Action.SCAN) && (null != settings.getCreator())) {
+			long start = System.currentTimeMillis();
+			long count = 0L;
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			try (CreatorAssetIterator assets = new CreatorAssetIterator(connector, settings.getCreator()); RecordWriter output = (null != settings.getOutput()) ? new RecordWriter(settings.getOutput(), stdout) : null) {
+				while (assets.hasNext()) {
+					ScannedAsset asset = new ScannedAsset(assets.next());
+					if (null != output) output.write(asset);
+					else System.out.println(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(asset)));
+					count++;
+				}
+				LOGGER.info("Scanned " + count + " assets created by " + settings.getCreator() + " (" + assets.getPages() + " pages) in " + (System.currentTimeMillis() - start) + " ms");
+			} catch (IllegalStateException e) {
+				LOGGER.error("The scan is incomplete, only " + count + " assets were listed: " + e.getMessage());
+				connector_manager.diagnose("Unable to list the assets created by " + settings.getCreator());
+				SystemUtils.halt();
+			}
+		}
+
+		// server mode, blocks until the JVM is shut down
+		if (settings.getAction() == Action.SERVE) {
+			AVMBlockChainConnector connector = connector_manager.getConnector();
+			ArctangServer server = new ArctangServer(connector, asa_cache, ipfs_connector, settings.getConcurrency(), new InetSocketAddress(settings.getBind(), settings.getPort()), settings.getServer_threads());
+			try {
+				server.start();
+			} catch (IOException e) {
+				LOGGER.error("Unable to start the server on " + settings.getBind() + ":" + settings.getPort() + ": " + e.getMessage());
+				SystemUtils.halt();
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				server.stop();
+				ipfs_connector.close();
+			}));
+			server.join();
+		}
+
+		ipfs_connector.close();
+	}
+
+	/**
+	 * The assetids of the batch actions, from exactly one of --assetid_file, --assetid_range or --creator
+	 */
+	private static Iterator<Long> getAssetIDs(Settings settings, AVMBlockChainConnector connector) {
+		Iterator<Long> assetids = null;
+		try {
+			if (null != settings.getAssetid_file()) assetids = AssetIDUtils.fromFile(settings.getAssetid_file());
+			if (null != settings.getAssetid_range()) assetids = AssetIDUtils.fromRange(settings.getAssetid_range());
+			if (null != settings.getCreator()) assetids = AssetIDUtils.fromCreator(connector, settings.getCreator());
+		} catch (Exception e) {
+			LOGGER.error("Unable to read the assetids: " + e.getMessage());
+			SystemUtils.halt();
+		}
+		return assetids;
 	}
 
 	private static Settings parseCliArgs(String[] args) {
@@ -667,7 +1137,7 @@ public class Start {
 		options.addOption(chainOption);
 
 		// action
-		Option actionOption = new Option(null, "action", true, "Action to perform (QUERY, VERIFY, TRANSFER, MINT, WALLETCONFIG, NETCONFIG, OPTIN, CONVERT, DESTROY, RECONFIG, METADATAUPDATE)");
+		Option actionOption = new Option(null, "action", true, "Action to perform (QUERY, VERIFY, TRANSFER, MINT, WALLETCONFIG, NETCONFIG, OPTIN, CONVERT, DESTROY, RECONFIG, METADATAUPDATE, LIST, SCAN, SERVE, RARITY)");
 		actionOption.setRequired(true);
 		options.addOption(actionOption);
 
@@ -831,6 +1301,90 @@ public class Start {
 		Option addressOption = new Option(null, "address", true, "Can be used with LIST action to specify a wallet you do not own");
 		options.addOption(addressOption);
 
+		// nocache
+		Option nocacheOption = new Option(null, "nocache", false, "Bypass the local ASA params cache in .avm/cache and the IPFS blob store in .avm/ipfs");
+		options.addOption(nocacheOption);
+
+		// ipfscache_mb
+		Option ipfscachembOption = new Option(null, "ipfscache_mb", true, "Size limit in MB of the local IPFS blob store in .avm/ipfs (defaults to 256)");
+		options.addOption(ipfscachembOption);
+
+		// media_inflight_mb
+		Option mediainflightmbOption = new Option(null, "media_inflight_mb", true, "Max MB of media being hashed at once across all concurrent downloads, used by VERIFY and CONVERT (defaults to 32)");
+		options.addOption(mediainflightmbOption);
+
+		// concurrency
+		Option concurrencyOption = new Option(null, "concurrency", true, "Max number of concurrent remote lookups, used by the LIST and VERIFY actions and as the number of CONVERT workers (defaults to 8)");
+		options.addOption(concurrencyOption);
+
+		// trail_diff
+		Option traildiffOption = new Option(null, "trail_diff", false, "Print only the changed JSON paths between consecutive versions when used with --metadata_trail");
+		options.addOption(traildiffOption);
+
+		// assetid_file
+		Option assetidfileOption = new Option(null, "assetid_file", true, "File with one assetid per line to VERIFY, OPTIN to or rank by RARITY");
+		options.addOption(assetidfileOption);
+
+		// assetid_range
+		Option assetidrangeOption = new Option(null, "assetid_range", true, "Inclusive range of assetids to VERIFY or rank by RARITY, ie 1000-2000");
+		options.addOption(assetidrangeOption);
+
+		// creator
+		Option creatorOption = new Option(null, "creator", true, "VERIFY, OPTIN to, SCAN or rank by RARITY all assets created by this address");
+		options.addOption(creatorOption);
+
+		// stage_concurrency
+		Option stageconcurrencyOption = new Option(null, "stage_concurrency", true, "Threads for the batch VERIFY params,metadata,media,hash stages, ie 8,8,4,4 (defaults derived from --concurrency)");
+		options.addOption(stageconcurrencyOption);
+
+		// bind
+		Option bindOption = new Option(null, "bind", true, "Address the SERVE action listens on (defaults to 127.0.0.1)");
+		options.addOption(bindOption);
+
+		// port
+		Option portOption = new Option(null, "port", true, "Port the SERVE action listens on (defaults to 8080)");
+		options.addOption(portOption);
+
+		// server_threads
+		Option serverthreadsOption = new Option(null, "server_threads", true, "Max number of requests handled concurrently by the SERVE action (defaults to 32)");
+		options.addOption(serverthreadsOption);
+
+		// manifest
+		Option manifestOption = new Option(null, "manifest", true, "Bulk MINT from a CSV manifest (columns metadata,asset_name,unit_name,mediadata_url) or a folder of ARC69 metadata files");
+		options.addOption(manifestOption);
+
+		// results_file
+		Option resultsfileOption = new Option(null, "results_file", true, "CSV file the bulk MINT and TRANSFER results are written to (defaults to the input path + .results.csv)");
+		options.addOption(resultsfileOption);
+
+		// transfer_file
+		Option transferfileOption = new Option(null, "transfer_file", true, "Bulk TRANSFER from a CSV file with receiver,assetid,amount rows");
+		options.addOption(transferfileOption);
+
+		// local_content
+		Option localcontentOption = new Option(null, "local_content", true, "VERIFY a collection offline against a local folder or .car archive of its IPFS content, needs --arcstandard and optionally a --manifest");
+		options.addOption(localcontentOption);
+
+		// trait
+		Option traitOption = new Option(null, "trait", true, "QUERY the assets of a --creator with this trait, ie --trait 'Background=Dusty Pink Portal', can be repeated");
+		options.addOption(traitOption);
+
+		// refresh
+		Option refreshOption = new Option(null, "refresh", false, "Bring the stored trait index up to date with the assetconfig transactions of the --creator before a --trait QUERY");
+		options.addOption(refreshOption);
+
+		// metrics
+		Option metricsOption = new Option(null, "metrics", true, "Report the calls, errors, bytes and latency percentiles of every remote operation on exit: summary, json or prometheus");
+		options.addOption(metricsOption);
+
+		// metrics_file
+		Option metricsfileOption = new Option(null, "metrics_file", true, "Write the --metrics json or prometheus report to this file instead of stdout");
+		options.addOption(metricsfileOption);
+
+		// output
+		Option outputOption = new Option(null, "output", true, "Write the results of QUERY, VERIFY, LIST, SCAN and RARITY as machine readable records: jsonl or csv");
+		options.addOption(outputOption);
+
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd;
@@ -857,6 +1411,9 @@ public class Start {
 				if (cmd.getOptionValue("action").equalsIgnoreCase("DESTROY")) settings.setAction(Action.DESTROY);
 				if (cmd.getOptionValue("action").equalsIgnoreCase("METADATAUPDATE")) settings.setAction(Action.METADATAUPDATE);
 				if (cmd.getOptionValue("action").equalsIgnoreCase("LIST")) settings.setAction(Action.LIST);
+				if (cmd.getOptionValue("action").equalsIgnoreCase("SCAN")) settings.setAction(Action.SCAN);
+				if (cmd.getOptionValue("action").equalsIgnoreCase("SERVE")) settings.setAction(Action.SERVE);
+				if (cmd.getOptionValue("action").equalsIgnoreCase("RARITY")) settings.setAction(Action.RARITY);
 			}
 
 			if (cmd.hasOption("arcstandard")) {
@@ -920,6 +1477,99 @@ public class Start {
 
 			if (cmd.hasOption("address")) settings.setAddress(cmd.getOptionValue("address"));
 
+			if (cmd.hasOption("nocache")) settings.setNocache(true);
+			if (cmd.hasOption("ipfscache_mb")) {
+				try {
+					settings.setIpfscache_mb(Integer.parseInt(cmd.getOptionValue("ipfscache_mb")));
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the ipfscache_mb parameter");
+					SystemUtils.halt();
+				}
+			}
+			if (cmd.hasOption("media_inflight_mb")) {
+				try {
+					settings.setMedia_inflight_mb(Integer.parseInt(cmd.getOptionValue("media_inflight_mb")));
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the media_inflight_mb parameter");
+					SystemUtils.halt();
+				}
+			}
+			if (cmd.hasOption("concurrency")) {
+				try {
+					settings.setConcurrency(Integer.parseInt(cmd.getOptionValue("concurrency")));
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the concurrency parameter");
+					SystemUtils.halt();
+				}
+			}
+
+			if (cmd.hasOption("trail_diff")) settings.setTrail_diff(true);
+
+			if (cmd.hasOption("assetid_file")) settings.setAssetid_file(cmd.getOptionValue("assetid_file"));
+			if (cmd.hasOption("assetid_range")) settings.setAssetid_range(cmd.getOptionValue("assetid_range"));
+			if (cmd.hasOption("creator")) settings.setCreator(cmd.getOptionValue("creator"));
+			if (cmd.hasOption("stage_concurrency")) {
+				try {
+					String[] stages = cmd.getOptionValue("stage_concurrency").split(",");
+					if (stages.length != VerifyPipeline.STAGE_NAMES.length) throw new IllegalArgumentException();
+					int[] stage_concurrency = new int[stages.length];
+					for (int i=0; i<stages.length; i++) {
+						stage_concurrency[i] = Integer.parseInt(stages[i].trim());
+						if (stage_concurrency[i] < 1) throw new IllegalArgumentException();
+					}
+					settings.setStage_concurrency(stage_concurrency);
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the stage_concurrency parameter, expected 4 comma separated values of at least 1");
+					SystemUtils.halt();
+				}
+			}
+
+			if (cmd.hasOption("bind")) settings.setBind(cmd.getOptionValue("bind"));
+			if (cmd.hasOption("port")) {
+				try {
+					settings.setPort(Integer.parseInt(cmd.getOptionValue("port")));
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the port parameter");
+					SystemUtils.halt();
+				}
+			}
+			if (cmd.hasOption("server_threads")) {
+				try {
+					settings.setServer_threads(Integer.parseInt(cmd.getOptionValue("server_threads")));
+				} catch (Exception e) {
+					LOGGER.error("Unable to parse the server_threads parameter");
+					SystemUtils.halt();
+				}
+			}
+
+			if (cmd.hasOption("manifest")) settings.setManifest(cmd.getOptionValue("manifest"));
+			if (cmd.hasOption("results_file")) settings.setResults_file(cmd.getOptionValue("results_file"));
+			if (cmd.hasOption("transfer_file")) settings.setTransfer_file(cmd.getOptionValue("transfer_file"));
+			if (cmd.hasOption("local_content")) settings.setLocal_content(cmd.getOptionValue("local_content"));
+
+			if (cmd.hasOption("trait")) settings.setTraits(new ArrayList<String>(Arrays.asList(cmd.getOptionValues("trait"))));
+			if (cmd.hasOption("refresh")) settings.setRefresh(true);
+
+			if (cmd.hasOption("metrics")) {
+				if (cmd.getOptionValue("metrics").equalsIgnoreCase("SUMMARY")) settings.setMetrics(MetricsFormat.SUMMARY);
+				if (cmd.getOptionValue("metrics").equalsIgnoreCase("JSON")) settings.setMetrics(MetricsFormat.JSON);
+				if (cmd.getOptionValue("metrics").equalsIgnoreCase("PROMETHEUS")) settings.setMetrics(MetricsFormat.PROMETHEUS);
+				if (null == settings.getMetrics()) {
+					LOGGER.error("Unable to parse the metrics parameter, expected summary, json or prometheus");
+					SystemUtils.halt();
+				}
+			}
+			if (cmd.hasOption("metrics_file")) settings.setMetrics_file(cmd.getOptionValue("metrics_file"));
+
+			if (cmd.hasOption("output")) {
+				if (cmd.getOptionValue("output").equalsIgnoreCase("JSONL")) settings.setOutput(OutputFormat.JSONL);
+				if (cmd.getOptionValue("output").equalsIgnoreCase("CSV")) settings.setOutput(OutputFormat.CSV);
+				if (null == settings.getOutput()) {
+					LOGGER.error("Unable to parse the output parameter, expected jsonl or csv");
+					SystemUtils.halt();
+				}
+			}
+
 			settings.sanityCheck();
 			if (settings.isDebug()) settings.print();
 
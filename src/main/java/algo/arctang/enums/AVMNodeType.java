@@ -0,0 +1,6 @@
+package algo.arctang.enums;
+
+public enum AVMNodeType {
+	ALGOD,
+	INDEXER
+}
@@ -12,5 +12,8 @@ public enum Action {
 	WALLETCONFIG,
 	NETCONFIG,
 	METADATAUPDATE,
-	LIST
+	LIST,
+	SCAN,
+	SERVE,
+	RARITY
 }
\ No newline at end of file
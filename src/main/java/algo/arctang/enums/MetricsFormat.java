@@ -0,0 +1,7 @@
+package algo.arctang.enums;
+
+public enum MetricsFormat {
+	SUMMARY,
+	JSON,
+	PROMETHEUS
+}
@@ -0,0 +1,6 @@
+package algo.arctang.enums;
+
+public enum OutputFormat {
+	JSONL,
+	CSV
+}
@@ -0,0 +1,8 @@
+package algo.arctang.enums;
+
+public enum TransferStatus {
+	PENDING,
+	SENT,
+	SKIPPED,
+	FAILED
+}
@@ -0,0 +1,78 @@
+package algo.arctang.objects;
+
+import java.math.BigInteger;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+public class ARCAssetHolding {
+
+	private Long assetid;
+	private BigInteger amount;
+	private AVMNFTStandard standard;
+	private String name;
+	private String unit_name;
+	private String ownership_info;
+
+	public ARCAssetHolding() {
+		super();
+	}
+
+	public ARCAssetHolding(Long assetid, BigInteger amount, AVMNFTStandard standard, String name, String unit_name, String ownership_info) {
+		super();
+		this.assetid = assetid;
+		this.amount = amount;
+		this.standard = standard;
+		this.name = name;
+		this.unit_name = unit_name;
+		this.ownership_info = ownership_info;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public BigInteger getAmount() {
+		return amount;
+	}
+
+	public void setAmount(BigInteger amount) {
+		this.amount = amount;
+	}
+
+	public AVMNFTStandard getStandard() {
+		return standard;
+	}
+
+	public void setStandard(AVMNFTStandard standard) {
+		this.standard = standard;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getUnit_name() {
+		return unit_name;
+	}
+
+	public void setUnit_name(String unit_name) {
+		this.unit_name = unit_name;
+	}
+
+	public String getOwnership_info() {
+		return ownership_info;
+	}
+
+	public void setOwnership_info(String ownership_info) {
+		this.ownership_info = ownership_info;
+	}
+
+}
@@ -0,0 +1,215 @@
+package algo.arctang.objects.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.crypto.Address;
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.Enums;
+import com.algorand.algosdk.v2.client.model.TransactionsResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.enums.AVMNodeType;
+import algo.arctang.objects.connector.AVMConnectorManager;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.objects.avm.AVMASAMutables;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Local cache of raw ASA params JSON, stored as one file per assetid under .avm/cache/[chain]/asa.
+ *
+ * Entries for ASAs with manager, reserve, freeze and clawback all cleared can never change and are served as is.
+ * Mutable entries remember the indexer round they were last validated at and are refetched only if an
+ * assetconfig transaction for the ASA has been confirmed after that round.
+ */
+public class ASAParamsCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ASAParamsCache.class);
+
+	// Mutable entries validated within this window are served without asking the indexer again
+	private static final long REVALIDATION_INTERVAL_MS = 30000L;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Path cachedir;
+	private final boolean enabled;
+
+	// when set, remote calls are routed across the configured nodes and its recently seen indexer round (if any)
+	// is used as validation round for fresh mutable entries. Without one the entry starts at round 0 and
+	// converges on its first revalidation.
+	private AVMConnectorManager connector_manager = null;
+
+	public ASAParamsCache(AVMChain chain, boolean enabled) {
+		this(".avm/cache/" + chain.toString() + "/asa", enabled);
+	}
+
+	public ASAParamsCache(String cachedir, boolean enabled) {
+		super();
+		this.cachedir = Paths.get(cachedir);
+		this.enabled = enabled;
+		if (enabled) {
+			try {
+				Files.createDirectories(this.cachedir);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to create ASA cache folder " + cachedir + ", caching disabled: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Lookup through the connector manager only, a cache hit never creates a node connector
+	 */
+	public String getASARawJSONResponse(Long assetid) {
+		return getASARawJSONResponse(null, assetid);
+	}
+
+	public String getASARawJSONResponse(AVMBlockChainConnector connector, Long assetid) {
+		if (!enabled) return fetch(connector, assetid);
+
+		ASAParamsCacheEntry entry = readEntry(assetid);
+		if (null == entry) return refresh(connector, assetid, getRoundHint());
+		if (entry.isImmutable()) return entry.getAsa_json();
+		if ((System.currentTimeMillis() - entry.getValidated_at()) < REVALIDATION_INTERVAL_MS) return entry.getAsa_json();
+
+		// Mutable ASA, check for assetconfig transactions since we last validated
+		TransactionsResponse acfgs = getConfigTransactionsSince(connector, assetid, entry.getValidated_round());
+		if (null == acfgs) return refresh(connector, assetid, entry.getValidated_round());
+		if (acfgs.transactions.isEmpty()) {
+			entry.setValidated_round(acfgs.currentRound);
+			entry.setValidated_at(System.currentTimeMillis());
+			writeEntry(entry);
+			return entry.getAsa_json();
+		}
+		LOGGER.debug("assetID " + assetid + " has been reconfigured since round " + entry.getValidated_round() + ", refreshing cache entry");
+		return refresh(connector, assetid, acfgs.currentRound);
+	}
+
+	public void invalidate(Long assetid) {
+		if (!enabled) return;
+		try {
+			Files.deleteIfExists(entryPath(assetid));
+		} catch (IOException e) {
+			LOGGER.warn("Unable to invalidate cache entry for assetID " + assetid + ": " + e.getMessage());
+		}
+	}
+
+	public void setConnector_manager(AVMConnectorManager connector_manager) {
+		this.connector_manager = connector_manager;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * True if the manager, reserve, freeze and clawback addresses are all cleared in the raw ASA params JSON
+	 */
+	public static boolean isAllImmutable(String asa_json) {
+		try {
+			JsonNode params = MAPPER.readTree(asa_json).path("params");
+			AVMASAMutables mutables = new AVMASAMutables(
+					getAddress(params, "manager"),
+					getAddress(params, "reserve"),
+					getAddress(params, "freeze"),
+					getAddress(params, "clawback"));
+			return mutables.allImmutable();
+		} catch (Exception e) {
+			LOGGER.warn("Unable to parse ASA params JSON: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static Address getAddress(JsonNode params, String key) {
+		String value = params.path(key).asText("");
+		if (value.isEmpty()) return null;
+		return AVMUtils.createAddressFromSTR(value);
+	}
+
+	private String refresh(AVMBlockChainConnector connector, Long assetid, Long validated_round) {
+		String asa_json = fetch(connector, assetid);
+		if ((null == asa_json) || asa_json.isEmpty()) {
+			invalidate(assetid);
+			return asa_json;
+		}
+		writeEntry(new ASAParamsCacheEntry(assetid, asa_json, isAllImmutable(asa_json), validated_round, System.currentTimeMillis()));
+		return asa_json;
+	}
+
+	private Long getRoundHint() {
+		Long round = (null == connector_manager) ? null : connector_manager.getCachedIndexerRound();
+		return (null == round) ? 0L : round;
+	}
+
+	private String fetch(AVMBlockChainConnector connector, Long assetid) {
+		if (null == connector_manager) return MetricsRegistry.get().time(MetricsRegistry.ALGOD, "asa_params", () -> AVMUtils.getASARawJSONResponse(connector, assetid));
+		return connector_manager.call(AVMNodeType.ALGOD, "asa_params", c -> AVMUtils.getASARawJSONResponse(c, assetid));
+	}
+
+	private TransactionsResponse getConfigTransactionsSince(AVMBlockChainConnector connector, Long assetid, Long round) {
+		try {
+			if (null != connector_manager) return connector_manager.call(AVMNodeType.INDEXER, "asa_acfg_since", c -> queryConfigTransactionsSince(c, assetid, round));
+			return MetricsRegistry.get().time(MetricsRegistry.INDEXER, "asa_acfg_since", () -> queryConfigTransactionsSince(connector, assetid, round));
+		} catch (Exception e) {
+			LOGGER.warn("Unable to revalidate assetID " + assetid + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	// throws on failure so a routed call can retry on another node
+	private static TransactionsResponse queryConfigTransactionsSince(AVMBlockChainConnector connector, Long assetid, Long round) {
+		Response<TransactionsResponse> response;
+		try {
+			response = connector.getIndexer_instance().searchForTransactions()
+					.assetId(assetid)
+					.txType(Enums.TxType.ACFG)
+					.minRound(round + 1L)
+					.limit(1L)
+					.execute();
+		} catch (Exception e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		if (!response.isSuccessful()) throw new IllegalStateException(response.message());
+		return response.body();
+	}
+
+	private Path entryPath(Long assetid) {
+		return cachedir.resolve(assetid + ".json");
+	}
+
+	private ASAParamsCacheEntry readEntry(Long assetid) {
+		Path p = entryPath(assetid);
+		if (!Files.exists(p)) return null;
+		try {
+			ASAParamsCacheEntry entry = JSONUtils.createPOJOFromJSON(Files.readString(p, StandardCharsets.UTF_8), ASAParamsCacheEntry.class);
+			if ((null == entry) || (null == entry.getAsa_json())) return null;
+			return entry;
+		} catch (Exception e) {
+			LOGGER.warn("Ignoring unreadable cache entry for assetID " + assetid + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private void writeEntry(ASAParamsCacheEntry entry) {
+		Path p = entryPath(entry.getAssetid());
+		try {
+			// write+rename so concurrent readers never see a partial entry
+			Path tmp = Files.createTempFile(cachedir, entry.getAssetid() + ".", ".tmp");
+			Files.writeString(tmp, JSONUtils.createJSONFromPOJO(entry), StandardCharsets.UTF_8);
+			Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write cache entry for assetID " + entry.getAssetid() + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package algo.arctang.objects.cache;
+
+public class ASAParamsCacheEntry {
+
+	private Long assetid;
+	private String asa_json;
+	private boolean immutable = false;
+	private Long validated_round = 0L;
+	private Long validated_at = 0L;
+
+	public ASAParamsCacheEntry() {
+		super();
+	}
+
+	public ASAParamsCacheEntry(Long assetid, String asa_json, boolean immutable, Long validated_round, Long validated_at) {
+		super();
+		this.assetid = assetid;
+		this.asa_json = asa_json;
+		this.immutable = immutable;
+		this.validated_round = validated_round;
+		this.validated_at = validated_at;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public String getAsa_json() {
+		return asa_json;
+	}
+
+	public void setAsa_json(String asa_json) {
+		this.asa_json = asa_json;
+	}
+
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	public void setImmutable(boolean immutable) {
+		this.immutable = immutable;
+	}
+
+	public Long getValidated_round() {
+		return validated_round;
+	}
+
+	public void setValidated_round(Long validated_round) {
+		this.validated_round = validated_round;
+	}
+
+	public Long getValidated_at() {
+		return validated_at;
+	}
+
+	public void setValidated_at(Long validated_at) {
+		this.validated_at = validated_at;
+	}
+
+}
@@ -0,0 +1,48 @@
+package algo.arctang.objects.cache;
+
+import java.util.ArrayList;
+
+import algo.arctang.objects.ARCAssetHolding;
+
+public class AccountHoldings {
+
+	private String address;
+	private Long round;
+	private ArrayList<ARCAssetHolding> holdings = new ArrayList<ARCAssetHolding>();
+
+	public AccountHoldings() {
+		super();
+	}
+
+	public AccountHoldings(String address, Long round, ArrayList<ARCAssetHolding> holdings) {
+		super();
+		this.address = address;
+		this.round = round;
+		this.holdings = holdings;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public void setAddress(String address) {
+		this.address = address;
+	}
+
+	public Long getRound() {
+		return round;
+	}
+
+	public void setRound(Long round) {
+		this.round = round;
+	}
+
+	public ArrayList<ARCAssetHolding> getHoldings() {
+		return holdings;
+	}
+
+	public void setHoldings(ArrayList<ARCAssetHolding> holdings) {
+		this.holdings = holdings;
+	}
+
+}
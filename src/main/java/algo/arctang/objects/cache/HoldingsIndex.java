@@ -0,0 +1,234 @@
+package algo.arctang.objects.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.AssetHolding;
+import com.algorand.algosdk.v2.client.model.AssetHoldingsResponse;
+import com.algorand.algosdk.v2.client.model.Transaction;
+import com.algorand.algosdk.v2.client.model.TransactionsResponse;
+
+import algo.arctang.objects.ARCAssetHolding;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.utils.ListUtils;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Local ARC holdings per address, stored under .avm/cache/[chain]/holdings as [address].json together
+ * with the indexer round the holdings are complete up to.
+ *
+ * The first LIST of an address resolves every holding. Later runs ask the indexer for the transactions of
+ * the address confirmed after the stored round (min-round filter) and only look up the assets those touch,
+ * so an unchanged wallet costs a single remote call whatever its size.
+ */
+public class HoldingsIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HoldingsIndex.class);
+
+	private static final long PAGE_SIZE = 1000L;
+
+	// past this many pages of new transactions a rebuild is cheaper than replaying them
+	private static final int MAX_DELTA_PAGES = 10;
+
+	private final Path indexdir;
+	private final boolean enabled;
+
+	public HoldingsIndex(AVMChain chain, boolean enabled) {
+		this(".avm/cache/" + chain.toString() + "/holdings", enabled);
+	}
+
+	public HoldingsIndex(String indexdir, boolean enabled) {
+		super();
+		this.indexdir = Paths.get(indexdir);
+		this.enabled = enabled;
+		if (enabled) {
+			try {
+				Files.createDirectories(this.indexdir);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to create holdings index folder " + indexdir + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Hands out the ARC holdings of the address in account order, newly received assets last. The index
+	 * is only advanced when every lookup succeeded, a partial refresh is repeated on the next run.
+	 */
+	public void streamARCAssetHoldings(AVMBlockChainConnector connector, ASAParamsCache asa_cache, String address, int concurrency, Consumer<ARCAssetHolding> consumer) {
+		AccountHoldings index = enabled ? read(address) : null;
+		if ((null != index) && refresh(connector, asa_cache, index, concurrency)) {
+			for (ARCAssetHolding holding: index.getHoldings()) consumer.accept(holding);
+			return;
+		}
+		rebuild(connector, asa_cache, address, concurrency, consumer);
+	}
+
+	public void invalidate(String address) {
+		if (!enabled) return;
+		try {
+			Files.deleteIfExists(indexPath(address));
+		} catch (IOException e) {
+			LOGGER.warn("Unable to invalidate the holdings index for " + address + ": " + e.getMessage());
+		}
+	}
+
+	private void rebuild(AVMBlockChainConnector connector, ASAParamsCache asa_cache, String address, int concurrency, Consumer<ARCAssetHolding> consumer) {
+		// the round is taken before the holdings so transactions in between are replayed, not missed
+		Long round = null;
+		if (enabled) {
+			TransactionsResponse probe = getTransactions(connector, address, 0L, null, 1L);
+			if (null != probe) round = probe.currentRound;
+		}
+		ArrayList<ARCAssetHolding> holdings = new ArrayList<ARCAssetHolding>();
+		boolean complete = ListUtils.getARCAssetHoldings(connector, asa_cache, address, concurrency, holding -> {
+			holdings.add(holding);
+			consumer.accept(holding);
+		});
+		if (complete && (null != round)) write(new AccountHoldings(address, round, holdings));
+	}
+
+	/**
+	 * Applies the transactions confirmed after the index round to the index. Returns false if the indexer
+	 * could not be queried or the delta is too large, in which case the index has to be rebuilt.
+	 */
+	private boolean refresh(AVMBlockChainConnector connector, ASAParamsCache asa_cache, AccountHoldings index, int concurrency) {
+		TreeSet<Long> assetids = new TreeSet<Long>();
+		Long current_round = null;
+		String next_token = null;
+		int pages = 0;
+		do {
+			if (++pages > MAX_DELTA_PAGES) {
+				LOGGER.info("More than " + (MAX_DELTA_PAGES * PAGE_SIZE) + " new transactions for " + index.getAddress() + ", rebuilding its holdings index");
+				return false;
+			}
+			TransactionsResponse page = getTransactions(connector, index.getAddress(), index.getRound() + 1L, next_token, PAGE_SIZE);
+			if (null == page) return false;
+			if (null == current_round) current_round = page.currentRound;
+			addAffectedAssets(page.transactions, assetids);
+			next_token = page.nextToken;
+			if (page.transactions.isEmpty()) next_token = null;
+		} while ((null != next_token) && !next_token.isEmpty());
+		if (assetids.isEmpty()) {
+			if ((null != current_round) && (current_round > index.getRound())) {
+				index.setRound(current_round);
+				write(index);
+			}
+			return true;
+		}
+
+		// the current balance of each touched asset, a missing or zero balance drops it from the index
+		List<AssetHolding> changed = new ArrayList<AssetHolding>();
+		for (Long assetid: assetids) {
+			AssetHoldingsResponse response = getHolding(connector, index.getAddress(), assetid);
+			if (null == response) return false;
+			for (AssetHolding asa: response.assets) {
+				if (assetid.equals(asa.assetId) && !Boolean.TRUE.equals(asa.deleted)) changed.add(asa);
+			}
+		}
+		LinkedHashMap<Long, ARCAssetHolding> updated = new LinkedHashMap<Long, ARCAssetHolding>();
+		boolean complete = ListUtils.getARCAssetHoldings(connector, asa_cache, changed, concurrency, holding -> updated.put(holding.getAssetid(), holding));
+
+		// keep the account order, entries which were already held stay in place
+		ArrayList<ARCAssetHolding> merged = new ArrayList<ARCAssetHolding>();
+		for (ARCAssetHolding holding: index.getHoldings()) {
+			if (!assetids.contains(holding.getAssetid())) merged.add(holding);
+			else if (updated.containsKey(holding.getAssetid())) merged.add(updated.remove(holding.getAssetid()));
+		}
+		merged.addAll(updated.values());
+		LOGGER.debug("Refreshed " + assetids.size() + " assets of the holdings index for " + index.getAddress() + " up to round " + current_round);
+
+		index.setHoldings(merged);
+		if (complete && (null != current_round)) {
+			index.setRound(current_round);
+			write(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the assets whose balance a transaction may have changed: transfers (including opt-ins,
+	 * opt-outs and clawbacks), creations and destructions, also inside app calls
+	 */
+	static void addAffectedAssets(List<Transaction> transactions, TreeSet<Long> assetids) {
+		if (null == transactions) return;
+		for (Transaction tx: transactions) {
+			if ((null != tx.assetTransferTransaction) && (null != tx.assetTransferTransaction.assetId)) assetids.add(tx.assetTransferTransaction.assetId);
+			if ((null != tx.assetConfigTransaction) && (null != tx.assetConfigTransaction.assetId) && (tx.assetConfigTransaction.assetId > 0L)) assetids.add(tx.assetConfigTransaction.assetId);
+			if ((null != tx.createdAssetIndex) && (tx.createdAssetIndex > 0L)) assetids.add(tx.createdAssetIndex);
+			addAffectedAssets(tx.innerTxns, assetids);
+		}
+	}
+
+	private TransactionsResponse getTransactions(AVMBlockChainConnector connector, String address, long min_round, String next_token, long limit) {
+		try {
+			Response<TransactionsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "account_txns", () -> connector.getIndexer_instance().searchForTransactions()
+					.address(AVMUtils.createAddressFromSTR(address))
+					.minRound(min_round)
+					.limit(limit)
+					.next(next_token)
+					.execute());
+			if (response.isSuccessful()) return response.body();
+			LOGGER.warn("Unable to get the transactions of " + address + ": " + response.message());
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the transactions of " + address + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private AssetHoldingsResponse getHolding(AVMBlockChainConnector connector, String address, Long assetid) {
+		try {
+			Response<AssetHoldingsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "account_asset", () -> connector.getIndexer_instance().lookupAccountAssets(AVMUtils.createAddressFromSTR(address))
+					.assetId(assetid)
+					.execute());
+			if (response.isSuccessful()) return response.body();
+			LOGGER.warn("Unable to get the holding of assetID " + assetid + " for " + address + ": " + response.message());
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the holding of assetID " + assetid + " for " + address + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private Path indexPath(String address) {
+		return indexdir.resolve(address + ".json");
+	}
+
+	AccountHoldings read(String address) {
+		try {
+			if (!Files.exists(indexPath(address))) return null;
+			AccountHoldings index = JSONUtils.createPOJOFromJSON(Files.readString(indexPath(address), StandardCharsets.UTF_8), AccountHoldings.class);
+			if ((null != index) && address.equals(index.getAddress()) && (null != index.getRound()) && (null != index.getHoldings())) return index;
+		} catch (Exception e) {
+			LOGGER.warn("Unable to read the holdings index for " + address + ": " + e.getMessage());
+		}
+		LOGGER.warn("Ignoring unreadable holdings index for " + address + ", rebuilding it");
+		return null;
+	}
+
+	void write(AccountHoldings index) {
+		if (!enabled) return;
+		try {
+			Path tmp = Files.createTempFile(indexdir, index.getAddress() + ".", ".tmp");
+			Files.writeString(tmp, JSONUtils.createJSONFromPOJO(index), StandardCharsets.UTF_8);
+			Files.move(tmp, indexPath(index.getAddress()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write the holdings index for " + index.getAddress() + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package algo.arctang.objects.cache;
+
+public class MetadataTrailEntry {
+
+	private String tx_id;
+	private Long tx_confirmedRound;
+	private Long tx_roundTime;
+	private String metajson;
+
+	public MetadataTrailEntry() {
+		super();
+	}
+
+	public MetadataTrailEntry(String tx_id, Long tx_confirmedRound, Long tx_roundTime, String metajson) {
+		super();
+		this.tx_id = tx_id;
+		this.tx_confirmedRound = tx_confirmedRound;
+		this.tx_roundTime = tx_roundTime;
+		this.metajson = metajson;
+	}
+
+	public String getTx_id() {
+		return tx_id;
+	}
+
+	public void setTx_id(String tx_id) {
+		this.tx_id = tx_id;
+	}
+
+	public Long getTx_confirmedRound() {
+		return tx_confirmedRound;
+	}
+
+	public void setTx_confirmedRound(Long tx_confirmedRound) {
+		this.tx_confirmedRound = tx_confirmedRound;
+	}
+
+	public Long getTx_roundTime() {
+		return tx_roundTime;
+	}
+
+	public void setTx_roundTime(Long tx_roundTime) {
+		this.tx_roundTime = tx_roundTime;
+	}
+
+	public String getMetajson() {
+		return metajson;
+	}
+
+	public void setMetajson(String metajson) {
+		this.metajson = metajson;
+	}
+
+}
@@ -0,0 +1,247 @@
+package algo.arctang.objects.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.Enums;
+import com.algorand.algosdk.v2.client.model.Transaction;
+import com.algorand.algosdk.v2.client.model.TransactionsResponse;
+
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.utils.ARCUtils;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Local, append-only metadata history per ASA, stored under .avm/cache/[chain]/trail as [assetid].jsonl
+ * with the indexer round the history is complete up to in [assetid].round.
+ *
+ * Stored entries are replayed first, then only assetconfig transactions confirmed after the checkpoint
+ * are requested (indexer min-round filter), resolved, appended and handed out one at a time.
+ */
+public class MetadataTrailStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetadataTrailStore.class);
+
+	private static final long PAGE_SIZE = 1000L;
+
+	private final Path traildir;
+	private final boolean enabled;
+
+	public MetadataTrailStore(AVMChain chain, boolean enabled) {
+		this(".avm/cache/" + chain.toString() + "/trail", enabled);
+	}
+
+	public MetadataTrailStore(String traildir, boolean enabled) {
+		super();
+		this.traildir = Paths.get(traildir);
+		this.enabled = enabled;
+		if (enabled) {
+			try {
+				Files.createDirectories(this.traildir);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to create metadata trail folder " + traildir + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Streams the full metadata history of the ASA, oldest first. Returns false if the history handed out
+	 * may be incomplete: the indexer could not be queried, the metadata of a version could not be resolved
+	 * or the history could not be stored. The checkpoint only moves when the whole history was resolved
+	 * and stored, so a later run picks up from the first version which is missing.
+	 */
+	public boolean streamTrail(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, Long assetid, Consumer<MetadataTrailEntry> consumer) {
+
+		// the stored trail is checked as a whole before any of it is handed out, a broken file is rebuilt
+		long checkpoint = 0L;
+		long last_round = 0L;
+		HashSet<String> last_round_txids = new HashSet<String>();
+		if (enabled && Files.exists(trailPath(assetid))) {
+			try {
+				last_round = readStoredTrail(assetid, last_round_txids, null);
+				checkpoint = readCheckpoint(assetid);
+			} catch (Exception e) {
+				LOGGER.warn("Unable to read the stored metadata trail for assetID " + assetid + ", rebuilding it: " + e.getMessage());
+				invalidate(assetid);
+				last_round = 0L;
+				last_round_txids.clear();
+			}
+		}
+		if (last_round > 0L) {
+			try {
+				readStoredTrail(assetid, new HashSet<String>(), consumer);
+			} catch (Exception e) {
+				LOGGER.warn("Unable to replay the stored metadata trail for assetID " + assetid + ": " + e.getMessage());
+				return false;
+			}
+		}
+
+		String asa_json = asa_cache.getASARawJSONResponse(connector, assetid);
+		if ((null == asa_json) || asa_json.isEmpty()) {
+			LOGGER.error("Unable to get the ASA params for assetID " + assetid);
+			return false;
+		}
+		AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+		String arc19_url = (standard == AVMNFTStandard.ARC19) ? AVMUtils.createARC19Asset(asa_json).getAssetURL() : null;
+
+		// the checkpoint is written after the entries, so a stored round past it may be incomplete
+		long min_round = Math.max(checkpoint + 1L, last_round);
+		String next_token = null;
+		Long current_round = null;
+		boolean resolved = true;
+		try (BufferedWriter writer = enabled ? Files.newBufferedWriter(trailPath(assetid), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND) : null) {
+			do {
+				TransactionsResponse page = getConfigTransactions(connector, assetid, min_round, next_token);
+				if (null == page) return false;
+				if (null == current_round) current_round = page.currentRound;
+				for (Transaction tx: page.transactions) {
+					if ((tx.confirmedRound == last_round) && last_round_txids.contains(tx.id)) continue;
+					String metajson;
+					try {
+						metajson = resolveMetadata(ipfs_connector, arc19_url, tx);
+					} catch (IllegalStateException e) {
+						// nothing after the missing version is stored, the next run resolves it again
+						LOGGER.warn("Unable to resolve the metadata of assetID " + assetid + " set in tx " + tx.id + ": " + e.getMessage());
+						resolved = false;
+						continue;
+					}
+					if (null == metajson) continue;
+					MetadataTrailEntry entry = new MetadataTrailEntry(tx.id, tx.confirmedRound, tx.roundTime, metajson);
+					if ((null != writer) && resolved) {
+						writer.write(JSONUtils.compactPrint(JSONUtils.createJSONFromPOJO(entry)));
+						writer.write("\n");
+						writer.flush();
+					}
+					consumer.accept(entry);
+				}
+				next_token = page.nextToken;
+				if (page.transactions.isEmpty()) next_token = null;
+			} while ((null != next_token) && !next_token.isEmpty());
+		} catch (IOException e) {
+			LOGGER.warn("Unable to store the metadata trail for assetID " + assetid + ": " + e.getMessage());
+			return false;
+		}
+
+		if (!resolved) return false;
+		if (enabled && (null != current_round)) writeCheckpoint(assetid, current_round);
+		return true;
+	}
+
+	/**
+	 * Reads the stored trail, handing every entry to the consumer if there is one. Collects the txids of
+	 * the last stored round and returns that round, throws if any line can not be read.
+	 */
+	private long readStoredTrail(Long assetid, HashSet<String> last_round_txids, Consumer<MetadataTrailEntry> consumer) throws IOException {
+		long last_round = 0L;
+		try (BufferedReader reader = Files.newBufferedReader(trailPath(assetid), StandardCharsets.UTF_8)) {
+			String line;
+			while (null != (line = reader.readLine())) {
+				if (line.isBlank()) continue;
+				MetadataTrailEntry entry = JSONUtils.createPOJOFromJSON(line, MetadataTrailEntry.class);
+				if ((null == entry) || (null == entry.getTx_id())) throw new IOException("Unreadable entry " + line);
+				if (entry.getTx_confirmedRound() > last_round) {
+					last_round = entry.getTx_confirmedRound();
+					last_round_txids.clear();
+				}
+				last_round_txids.add(entry.getTx_id());
+				if (null != consumer) consumer.accept(entry);
+			}
+		}
+		return last_round;
+	}
+
+	public void invalidate(Long assetid) {
+		if (!enabled) return;
+		try {
+			Files.deleteIfExists(trailPath(assetid));
+			Files.deleteIfExists(checkpointPath(assetid));
+		} catch (IOException e) {
+			LOGGER.warn("Unable to invalidate the metadata trail for assetID " + assetid + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * ARC19 metadata lives at the CID encoded in the reserve address set by the tx, ARC69 (and any other
+	 * standard using acfg notes) in the tx note. Returns null for txs which carry no metadata, throws an
+	 * IllegalStateException when the ARC19 metadata of the tx could not be fetched.
+	 */
+	private String resolveMetadata(CachedIPFSConnector ipfs_connector, String arc19_url, Transaction tx) {
+		if ((null != arc19_url) && (null != tx.assetConfigTransaction) && (null != tx.assetConfigTransaction.params) && (null != tx.assetConfigTransaction.params.reserve)) {
+			String cid = AVMUtils.extractCIDFromARC19URLAndReserveAddress(arc19_url, tx.assetConfigTransaction.params.reserve);
+			if (null != cid) {
+				// the note of an ARC19 reconfig is not its metadata, falling back to it would skip the version
+				String metajson = ipfs_connector.getStringContent("ipfs://" + cid);
+				if ((null == metajson) || metajson.isEmpty()) throw new IllegalStateException("unable to fetch ipfs://" + cid);
+				return metajson;
+			}
+		}
+		if ((null != tx.note) && (tx.note.length > 0)) {
+			String note = new String(tx.note, StandardCharsets.UTF_8).trim();
+			if (note.startsWith("{")) return note;
+		}
+		return null;
+	}
+
+	private TransactionsResponse getConfigTransactions(AVMBlockChainConnector connector, Long assetid, long min_round, String next_token) {
+		try {
+			Response<TransactionsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "asa_acfg", () -> connector.getIndexer_instance().searchForTransactions()
+					.assetId(assetid)
+					.txType(Enums.TxType.ACFG)
+					.minRound(min_round)
+					.limit(PAGE_SIZE)
+					.next(next_token)
+					.execute());
+			if (response.isSuccessful()) return response.body();
+			LOGGER.error("Unable to get the assetconfig transactions for assetID " + assetid + ": " + response.message());
+		} catch (Exception e) {
+			LOGGER.error("Unable to get the assetconfig transactions for assetID " + assetid + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private Path trailPath(Long assetid) {
+		return traildir.resolve(assetid + ".jsonl");
+	}
+
+	private Path checkpointPath(Long assetid) {
+		return traildir.resolve(assetid + ".round");
+	}
+
+	private long readCheckpoint(Long assetid) {
+		try {
+			if (Files.exists(checkpointPath(assetid))) return Long.parseLong(Files.readString(checkpointPath(assetid), StandardCharsets.UTF_8).trim());
+		} catch (Exception e) {
+			LOGGER.warn("Ignoring unreadable metadata trail checkpoint for assetID " + assetid + ": " + e.getMessage());
+		}
+		return 0L;
+	}
+
+	private void writeCheckpoint(Long assetid, long round) {
+		try {
+			Path tmp = Files.createTempFile(traildir, assetid + ".", ".tmp");
+			Files.writeString(tmp, Long.toString(round), StandardCharsets.UTF_8);
+			Files.move(tmp, checkpointPath(assetid), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write the metadata trail checkpoint for assetID " + assetid + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package algo.arctang.objects.connector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.enums.AVMNodeType;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.txn.ConfirmationTracker;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.objects.avm.AlgoIndexerNode;
+import crypto.forestfish.objects.avm.AlgoRelayNode;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.objects.avm.model.chain.AVMChainInfo;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Owns the blockchain connector of a session. The connector is only created when first asked for and no
+ * node health checks are done up front. Health checks run when a call has failed (to tell a missing asset
+ * from an unreachable or lagging node) and their result is cached in .avm/health/[chain].json for a short
+ * while, so a burst of failures or back to back invocations do not repeat them.
+ *
+ * When the chain info lists several algod and/or indexer nodes, read calls made through call() are routed
+ * by a NodeRouter to the node with the lowest moving latency. Only the ASA params lookups of ASAParamsCache
+ * (used by every action), the ARC standard and the image URL lookups go through call(). Account, transaction
+ * and creator listings on the indexer use the shared connector.
+ */
+public class AVMConnectorManager {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AVMConnectorManager.class);
+
+	private static final long HEALTH_TTL_MS = 60000L;
+
+	// an indexer this many rounds behind algod is reported as lagging
+	private static final long INDEXER_LAG_WARNING = 20L;
+
+	private final AVMChainInfo chainInfo;
+	private final Path healthpath;
+	private final boolean cache_enabled;
+
+	private AVMBlockChainConnector connector = null;
+	private ConfirmationTracker confirmation_tracker = null;
+	private NodeHealth health = null;
+
+	// one connector per node (connector i uses algod node i % #algod and indexer node i % #indexer)
+	private ArrayList<AVMBlockChainConnector> node_connectors = null;
+	private NodeRouter<AVMBlockChainConnector> algod_router = null;
+	private NodeRouter<AVMBlockChainConnector> indexer_router = null;
+	private ExecutorService hedge_executor = null;
+
+	public AVMConnectorManager(AVMChain chain, AVMChainInfo chainInfo, boolean cache_enabled) {
+		this(chainInfo, ".avm/health/" + chain.toString() + ".json", cache_enabled);
+	}
+
+	public AVMConnectorManager(AVMChainInfo chainInfo, String healthpath, boolean cache_enabled) {
+		super();
+		this.chainInfo = chainInfo;
+		this.healthpath = Paths.get(healthpath);
+		this.cache_enabled = cache_enabled;
+	}
+
+	public synchronized AVMBlockChainConnector getConnector() {
+		if (null == connector) connector = new AVMBlockChainConnector(chainInfo);
+		return connector;
+	}
+
+	/**
+	 * Shared tracker for all transactions submitted in this session, created on first use
+	 */
+	public synchronized ConfirmationTracker getConfirmationTracker() {
+		if (null == confirmation_tracker) confirmation_tracker = new ConfirmationTracker(getConnector());
+		return confirmation_tracker;
+	}
+
+	/**
+	 * Runs a read call against the best node of the given type, hedging it on the second best node when it is
+	 * slower than usual. A call which throws is retried once on the other node. With a single node this is a
+	 * plain (timed) call on the shared connector.
+	 */
+	public <T> T call(AVMNodeType type, String op, Function<AVMBlockChainConnector, T> fn) {
+		return MetricsRegistry.get().time((type == AVMNodeType.ALGOD) ? MetricsRegistry.ALGOD : MetricsRegistry.INDEXER, op, () -> route(type, op, fn));
+	}
+
+	private <T> T route(AVMNodeType type, String op, Function<AVMBlockChainConnector, T> fn) {
+		NodeRouter<AVMBlockChainConnector> router = getRouter(type);
+		if (router.size() == 0) return fn.apply(getConnector());
+		return router.call(op, fn);
+	}
+
+	/**
+	 * Latency estimates per node as 'type name ewma_ms p95_ms samples failures' lines, for debug output
+	 */
+	public synchronized ArrayList<String> getLatencySummary() {
+		ArrayList<String> lines = new ArrayList<String>();
+		for (AVMNodeType type: AVMNodeType.values()) {
+			for (NodeRouter.Node<AVMBlockChainConnector> node: getRouter(type).getNodes()) {
+				lines.add(type + " " + node.name + " " + Math.round(node.latency.getEwma_ms()) + " " + node.latency.getP95_ms() + " " + node.latency.getCount() + " " + node.latency.getFailures());
+			}
+		}
+		return lines;
+	}
+
+	private synchronized NodeRouter<AVMBlockChainConnector> getRouter(AVMNodeType type) {
+		if (null == node_connectors) {
+			node_connectors = new ArrayList<AVMBlockChainConnector>();
+			algod_router = new NodeRouter<AVMBlockChainConnector>(AVMNodeType.ALGOD.toString(), this::getHedgeExecutor);
+			indexer_router = new NodeRouter<AVMBlockChainConnector>(AVMNodeType.INDEXER.toString(), this::getHedgeExecutor);
+			ArrayList<AlgoRelayNode> relays = (null == chainInfo) ? null : chainInfo.getNodes();
+			ArrayList<AlgoIndexerNode> idxs = (null == chainInfo) ? null : chainInfo.getIdxnodes();
+			int n_algod = (null == relays) ? 0 : relays.size();
+			int n_idx = (null == idxs) ? 0 : idxs.size();
+			if ((n_algod > 1) || (n_idx > 1)) {
+				String json = JSONUtils.createJSONFromPOJO(chainInfo);
+				for (int i=0; i<Math.max(n_algod, n_idx); i++) {
+					AVMChainInfo single = JSONUtils.createPOJOFromJSON(json, AVMChainInfo.class);
+					if (n_algod > 0) {
+						ArrayList<AlgoRelayNode> relay = new ArrayList<AlgoRelayNode>();
+						relay.add(relays.get(i % n_algod));
+						single.setNodes(relay);
+					}
+					if (n_idx > 0) {
+						ArrayList<AlgoIndexerNode> idx = new ArrayList<AlgoIndexerNode>();
+						idx.add(idxs.get(i % n_idx));
+						single.setIdxnodes(idx);
+					}
+					node_connectors.add(new AVMBlockChainConnector(single));
+				}
+				for (int i=0; i<n_algod; i++) algod_router.add(relays.get(i).getUrl(), node_connectors.get(i));
+				for (int i=0; i<n_idx; i++) indexer_router.add(idxs.get(i).getUrl(), node_connectors.get(i));
+			}
+		}
+		return (type == AVMNodeType.ALGOD) ? algod_router : indexer_router;
+	}
+
+	private synchronized ExecutorService getHedgeExecutor() {
+		if (null == hedge_executor) hedge_executor = Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "avm-routed-call");
+			t.setDaemon(true);
+			return t;
+		});
+		return hedge_executor;
+	}
+
+	/**
+	 * Indexer round from a health check done within the TTL, null if there is none. Never triggers a remote call.
+	 */
+	public synchronized Long getCachedIndexerRound() {
+		NodeHealth cached = getCachedHealth();
+		return (null == cached) ? null : cached.getIndexer_round();
+	}
+
+	/**
+	 * To be called when a remote lookup failed, logs whether the nodes are reachable and in sync
+	 */
+	public synchronized NodeHealth diagnose(String context) {
+		NodeHealth current = checkHealth();
+		if (!current.isAlgodHealthy()) {
+			LOGGER.error(context + ": the algod node is not reachable, consider using --nodeurl or NETCONFIG to configure another node");
+		} else if (!current.isIndexerHealthy()) {
+			LOGGER.error(context + ": the indexer is not reachable, consider using --idxurl or NETCONFIG to configure another indexer");
+		} else if ((current.getAlgod_round() - current.getIndexer_round()) > INDEXER_LAG_WARNING) {
+			LOGGER.warn(context + ": the indexer is " + (current.getAlgod_round() - current.getIndexer_round()) + " rounds behind the algod node");
+		} else {
+			LOGGER.debug(context + ": nodes are healthy at round " + current.getAlgod_round());
+		}
+		return current;
+	}
+
+	public synchronized NodeHealth checkHealth() {
+		NodeHealth cached = getCachedHealth();
+		if (null != cached) return cached;
+		Long algod_round = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "status", () -> AVMUtils.getLastRound(getConnector()));
+		Long indexer_round = MetricsRegistry.get().time(MetricsRegistry.INDEXER, "health", () -> AVMUtils.getIndexerHealthCheck(getConnector()));
+		LOGGER.debug("lastRound: " + algod_round + " lastRoundIndexer: " + indexer_round);
+		health = new NodeHealth(algod_round, indexer_round, System.currentTimeMillis());
+		writeHealth(health);
+		return health;
+	}
+
+	private NodeHealth getCachedHealth() {
+		if ((null == health) && cache_enabled && Files.exists(healthpath)) {
+			try {
+				health = JSONUtils.createPOJOFromJSON(Files.readString(healthpath, StandardCharsets.UTF_8), NodeHealth.class);
+			} catch (Exception e) {
+				LOGGER.debug("Ignoring unreadable health check cache " + healthpath + ": " + e.getMessage());
+			}
+		}
+		if ((null != health) && ((System.currentTimeMillis() - health.getChecked_at()) < HEALTH_TTL_MS)) return health;
+		return null;
+	}
+
+	private void writeHealth(NodeHealth health) {
+		if (!cache_enabled) return;
+		try {
+			Files.createDirectories(healthpath.getParent());
+			Path tmp = Files.createTempFile(healthpath.getParent(), healthpath.getFileName().toString(), ".tmp");
+			Files.writeString(tmp, JSONUtils.createJSONFromPOJO(health), StandardCharsets.UTF_8);
+			Files.move(tmp, healthpath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.debug("Unable to cache health check in " + healthpath + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package algo.arctang.objects.connector;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class NodeHealth {
+
+	private Long algod_round;
+	private Long indexer_round;
+	private Long checked_at = 0L;
+
+	public NodeHealth() {
+		super();
+	}
+
+	public NodeHealth(Long algod_round, Long indexer_round, Long checked_at) {
+		super();
+		this.algod_round = algod_round;
+		this.indexer_round = indexer_round;
+		this.checked_at = checked_at;
+	}
+
+	@JsonIgnore
+	public boolean isAlgodHealthy() {
+		return null != algod_round;
+	}
+
+	@JsonIgnore
+	public boolean isIndexerHealthy() {
+		return null != indexer_round;
+	}
+
+	public Long getAlgod_round() {
+		return algod_round;
+	}
+
+	public void setAlgod_round(Long algod_round) {
+		this.algod_round = algod_round;
+	}
+
+	public Long getIndexer_round() {
+		return indexer_round;
+	}
+
+	public void setIndexer_round(Long indexer_round) {
+		this.indexer_round = indexer_round;
+	}
+
+	public Long getChecked_at() {
+		return checked_at;
+	}
+
+	public void setChecked_at(Long checked_at) {
+		this.checked_at = checked_at;
+	}
+
+}
@@ -0,0 +1,58 @@
+package algo.arctang.objects.connector;
+
+import java.util.Arrays;
+
+/**
+ * Moving latency estimate of a single node: an EWMA used for ranking plus the last SAMPLES latencies
+ * for the p95 used as hedging delay. Failures are recorded as a penalty sample.
+ */
+public class NodeLatency {
+
+	private static final int SAMPLES = 64;
+	private static final int MIN_SAMPLES_FOR_P95 = 16;
+	private static final double ALPHA = 0.2d;
+
+	// used as hedging delay until enough samples have been seen, and as the floor of the failure penalty
+	public static final long DEFAULT_HEDGE_DELAY_MS = 1000L;
+
+	private final long[] samples = new long[SAMPLES];
+	private int count = 0;
+	private int next = 0;
+	private double ewma_ms = 0.0d;
+	private long failures = 0L;
+
+	public synchronized void record(long latency_ms) {
+		ewma_ms = (count == 0) ? latency_ms : ((ALPHA * latency_ms) + ((1.0d - ALPHA) * ewma_ms));
+		samples[next] = latency_ms;
+		next = (next + 1) % SAMPLES;
+		if (count < SAMPLES) count++;
+	}
+
+	public synchronized void recordFailure() {
+		failures++;
+		record(2L * Math.max((long) ewma_ms, DEFAULT_HEDGE_DELAY_MS));
+	}
+
+	/**
+	 * Ranking score, nodes which have not been tried yet rank first so every node gets measured
+	 */
+	public synchronized double getEwma_ms() {
+		return ewma_ms;
+	}
+
+	public synchronized long getP95_ms() {
+		if (count < MIN_SAMPLES_FOR_P95) return DEFAULT_HEDGE_DELAY_MS;
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		return sorted[(int) Math.ceil(0.95d * count) - 1];
+	}
+
+	public synchronized int getCount() {
+		return count;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+}
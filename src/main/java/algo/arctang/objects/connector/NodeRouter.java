@@ -0,0 +1,146 @@
+package algo.arctang.objects.connector;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes a call to the node with the lowest moving latency out of a set of equivalent nodes. A call which
+ * has not completed within the p95 latency of that node gets a hedged duplicate on the second best node,
+ * a call which throws or returns null (the forestfish failure convention) is retried on the second best
+ * node, and the first non-null answer wins.
+ */
+class NodeRouter<C> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NodeRouter.class);
+
+	private final String type;
+	private final Supplier<ExecutorService> executor;
+	private final ArrayList<Node<C>> nodes = new ArrayList<Node<C>>();
+
+	static class Node<C> {
+		final String name;
+		final C connector;
+		final NodeLatency latency = new NodeLatency();
+
+		Node(String name, C connector) {
+			this.name = name;
+			this.connector = connector;
+		}
+	}
+
+	NodeRouter(String type, Supplier<ExecutorService> executor) {
+		super();
+		this.type = type;
+		this.executor = executor;
+	}
+
+	void add(String name, C connector) {
+		nodes.add(new Node<C>(name, connector));
+	}
+
+	int size() {
+		return nodes.size();
+	}
+
+	ArrayList<Node<C>> getNodes() {
+		return nodes;
+	}
+
+	NodeLatency getLatency(String name) {
+		for (Node<C> node: nodes) {
+			if (node.name.equals(name)) return node.latency;
+		}
+		return null;
+	}
+
+	<T> T call(String op, Function<C, T> fn) {
+		if (nodes.size() == 1) return timed(nodes.get(0), fn);
+
+		ArrayList<Node<C>> ranked = rank();
+		Node<C> first = ranked.get(0);
+		Node<C> second = ranked.get(1);
+		CompletableFuture<T> winner = new CompletableFuture<T>();
+		AtomicInteger pending = new AtomicInteger(2);
+		CompletableFuture<T> primary = attempt(first, fn, winner, pending);
+		try {
+			T result = primary.get(first.latency.getP95_ms(), TimeUnit.MILLISECONDS);
+			if (null != result) return result;
+			LOGGER.debug(op + " on " + type + " node " + first.name + " returned nothing, retrying on node " + second.name);
+		} catch (TimeoutException e) {
+			LOGGER.debug(op + " on " + type + " node " + first.name + " passed its p95 latency, hedging on node " + second.name);
+		} catch (ExecutionException e) {
+			LOGGER.debug(op + " on " + type + " node " + first.name + " failed, retrying on node " + second.name + ": " + e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		attempt(second, fn, winner, pending);
+		try {
+			return winner.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			LOGGER.warn(op + " failed on " + type + " nodes " + first.name + " and " + second.name + ": " + e.getCause().getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Nodes by ranking score, nodes which have not been tried yet come first so every node gets an estimate
+	 */
+	ArrayList<Node<C>> rank() {
+		// scores are taken once, other calls keep recording latencies while we sort
+		IdentityHashMap<Node<C>, Double> scores = new IdentityHashMap<Node<C>, Double>();
+		for (Node<C> node: nodes) scores.put(node, score(node));
+		ArrayList<Node<C>> ranked = new ArrayList<Node<C>>(nodes);
+		ranked.sort((a, b) -> Double.compare(scores.get(a), scores.get(b)));
+		return ranked;
+	}
+
+	private <T> CompletableFuture<T> attempt(Node<C> node, Function<C, T> fn, CompletableFuture<T> winner, AtomicInteger pending) {
+		CompletableFuture<T> attempt = CompletableFuture.supplyAsync(() -> timed(node, fn), executor.get());
+		attempt.whenComplete((result, error) -> {
+			// the first non-null answer wins, a null answer only counts once both attempts are done
+			if ((null == error) && (null != result)) winner.complete(result);
+			if (pending.decrementAndGet() == 0) {
+				if (null == error) {
+					winner.complete(result);
+				} else {
+					winner.completeExceptionally(error);
+				}
+			}
+		});
+		return attempt;
+	}
+
+	private static <C, T> T timed(Node<C> node, Function<C, T> fn) {
+		long start = System.nanoTime();
+		try {
+			T result = fn.apply(node.connector);
+			// a null answer is a failed call, a fast failure must not make the node look fast
+			if (null == result) node.latency.recordFailure();
+			else node.latency.record((System.nanoTime() - start) / 1000000L);
+			return result;
+		} catch (RuntimeException e) {
+			node.latency.recordFailure();
+			throw e;
+		}
+	}
+
+	private static double score(Node<?> node) {
+		return (node.latency.getCount() == 0) ? -1.0d : node.latency.getEwma_ms();
+	}
+
+}
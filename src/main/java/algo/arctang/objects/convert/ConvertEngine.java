@@ -0,0 +1,154 @@
+package algo.arctang.objects.convert;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.utils.ConvertUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+/**
+ * Converts a folder of ERC metadata files on a pool of workers. Each converted file is written to the
+ * target folder as soon as it is done (through a temporary file, so a killed run never leaves a partial
+ * file behind) and recorded in a journal in the target folder. A re-run skips the files in the journal,
+ * so only the failed and remaining files are converted again.
+ */
+public class ConvertEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConvertEngine.class);
+
+	public static final String JOURNAL_FILENAME = ".convert.journal";
+
+	private static final long PROGRESS_INTERVAL_SECONDS = 10L;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final CachedIPFSConnector ipfs_connector;
+	private final AVMNFTStandard standard;
+	private final int workers;
+
+	public ConvertEngine(CachedIPFSConnector ipfs_connector, AVMNFTStandard standard, int workers) {
+		super();
+		this.ipfs_connector = ipfs_connector;
+		this.standard = standard;
+		this.workers = workers;
+	}
+
+	public ConvertSummary run(Path from_folder, Path to_folder) throws IOException {
+		long start = System.currentTimeMillis();
+		ConvertSummary summary = new ConvertSummary();
+
+		Files.createDirectories(to_folder);
+		Path journal_path = to_folder.resolve(JOURNAL_FILENAME);
+		HashSet<String> done = readJournal(journal_path);
+
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(from_folder, "*.json")) {
+			for (Path file: stream) files.add(file);
+		}
+		files.sort(null);
+		summary.setTotal(files.size());
+
+		List<Path> todo = new ArrayList<Path>();
+		for (Path file: files) {
+			String filename = file.getFileName().toString();
+			if (done.contains(filename) && Files.exists(to_folder.resolve(filename))) continue;
+			todo.add(file);
+		}
+		summary.setAlready_converted(files.size() - todo.size());
+		if (summary.getAlready_converted() > 0L) LOGGER.info("Skipping " + summary.getAlready_converted() + " files already converted according to " + journal_path);
+		LOGGER.info("Converting " + todo.size() + " ERC metadata files to " + standard + " using " + workers + " workers");
+
+		AtomicLong converted = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "convert-progress");
+			t.setDaemon(true);
+			return t;
+		});
+		progress.scheduleAtFixedRate(() -> {
+			double elapsed_s = (System.currentTimeMillis() - start) / 1000.0d;
+			LOGGER.info(String.format("Converted %d/%d files (%.1f files/s), %d failed", converted.get(), todo.size(), converted.get() / elapsed_s, failed.get()));
+		}, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try (BufferedWriter journal = Files.newBufferedWriter(journal_path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (Path file: todo) {
+				executor.submit(() -> {
+					if (convert(file, to_folder, journal)) {
+						converted.incrementAndGet();
+					} else {
+						failed.incrementAndGet();
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while converting, re-run to continue where this run stopped");
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			progress.shutdownNow();
+		}
+
+		summary.setConverted(converted.get());
+		summary.setFailed(failed.get());
+		summary.finish(System.currentTimeMillis() - start);
+		return summary;
+	}
+
+	private boolean convert(Path file, Path to_folder, BufferedWriter journal) {
+		String filename = file.getFileName().toString();
+		try {
+			String erc_json = Files.readString(file, StandardCharsets.UTF_8);
+			ObjectNode arc = ConvertUtils.convertERC721ToARC(erc_json, standard, ipfs_connector::getSha256Base64);
+
+			Path target = to_folder.resolve(filename);
+			Path tmp = to_folder.resolve(filename + ".tmp");
+			Files.writeString(tmp, MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(arc), StandardCharsets.UTF_8);
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			synchronized (journal) {
+				journal.write(filename);
+				journal.newLine();
+				journal.flush();
+			}
+			LOGGER.debug("Converted " + file + " to " + target);
+			return true;
+		} catch (Exception e) {
+			LOGGER.warn("Unable to convert " + file + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static HashSet<String> readJournal(Path journal_path) throws IOException {
+		HashSet<String> done = new HashSet<String>();
+		if (!Files.exists(journal_path)) return done;
+		for (String line: Files.readAllLines(journal_path, StandardCharsets.UTF_8)) {
+			if (!line.isBlank()) done.add(line.trim());
+		}
+		return done;
+	}
+
+}
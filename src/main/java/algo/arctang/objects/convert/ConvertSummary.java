@@ -0,0 +1,69 @@
+package algo.arctang.objects.convert;
+
+public class ConvertSummary {
+
+	private long total = 0L;
+	private long converted = 0L;
+	private long already_converted = 0L;
+	private long failed = 0L;
+	private long elapsed_ms = 0L;
+	private double files_per_second = 0.0d;
+
+	public ConvertSummary() {
+		super();
+	}
+
+	public void finish(long elapsed_ms) {
+		this.elapsed_ms = elapsed_ms;
+		if (elapsed_ms > 0L) this.files_per_second = (1000.0d * converted) / elapsed_ms;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public long getConverted() {
+		return converted;
+	}
+
+	public void setConverted(long converted) {
+		this.converted = converted;
+	}
+
+	public long getAlready_converted() {
+		return already_converted;
+	}
+
+	public void setAlready_converted(long already_converted) {
+		this.already_converted = already_converted;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public void setFailed(long failed) {
+		this.failed = failed;
+	}
+
+	public long getElapsed_ms() {
+		return elapsed_ms;
+	}
+
+	public void setElapsed_ms(long elapsed_ms) {
+		this.elapsed_ms = elapsed_ms;
+	}
+
+	public double getFiles_per_second() {
+		return files_per_second;
+	}
+
+	public void setFiles_per_second(double files_per_second) {
+		this.files_per_second = files_per_second;
+	}
+
+}
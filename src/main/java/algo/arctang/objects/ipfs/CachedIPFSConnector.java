@@ -0,0 +1,325 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * Read-through IPFS access which checks the local IPFSBlobStore before going to the network.
+ *
+ * A fetch races the best few gateways of the GatewayScoreboard: the first response which checks out
+ * against its CID wins and the other requests are cancelled. Gateways which fail, time out or return
+ * mismatching content are demoted on the scoreboard, which is saved on close() so the next run starts
+ * from what this one learned instead of probing every gateway.
+ */
+public class CachedIPFSConnector {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CachedIPFSConnector.class);
+
+	public static final long DEFAULT_MAX_INFLIGHT_BYTES = 32L * 1024L * 1024L;
+
+	// number of gateways raced per fetch, the next best ones are only tried when all of these fail
+	public static final int RACE_WIDTH = 3;
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	// store key prefix for media hashes, IPFS content never changes so neither does its hash
+	private static final String HASH_KEY_PREFIX = "sha256:";
+
+	private final IPFSBlobStore store;
+	private final MediaHasher hasher;
+	private final GatewayScoreboard scoreboard;
+	private HttpClient http_client = null;
+
+	// counts the bytes read for the metrics, whatever the number of gateways read from
+	private static class CountingInputStream extends FilterInputStream {
+		private final LongAdder bytes;
+
+		CountingInputStream(InputStream in, LongAdder bytes) {
+			super(in);
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) bytes.increment();
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) bytes.add(read);
+			return read;
+		}
+	}
+
+	private static class Raced<T> {
+		final GatewayStats gateway;
+		final HttpResponse<T> response;
+
+		Raced(GatewayStats gateway, HttpResponse<T> response) {
+			this.gateway = gateway;
+			this.response = response;
+		}
+	}
+
+	public CachedIPFSConnector(IPFSBlobStore store) {
+		this(store, new MediaHasher(DEFAULT_MAX_INFLIGHT_BYTES), new GatewayScoreboard(false));
+	}
+
+	public CachedIPFSConnector(IPFSBlobStore store, MediaHasher hasher, GatewayScoreboard scoreboard) {
+		super();
+		this.store = store;
+		this.hasher = hasher;
+		this.scoreboard = scoreboard;
+	}
+
+	public String getStringContent(String url) {
+		String key = getIPFSPath(url);
+		if ((null != store) && (null != key)) {
+			byte[] blob = store.get(key);
+			if (null != blob) {
+				LOGGER.debug("Using locally stored content for " + url);
+				return new String(blob, StandardCharsets.UTF_8);
+			}
+		}
+
+		long start = System.nanoTime();
+		byte[] content = null;
+		if (null == key) {
+			HttpResponse<byte[]> response = fetch(url, HttpResponse.BodyHandlers.ofByteArray());
+			if (null != response) content = response.body();
+		} else {
+			Raced<byte[]> raced = race(key, HttpResponse.BodyHandlers.ofByteArray(), body -> !Boolean.FALSE.equals(CIDUtils.matches(key, body)), ConcurrentHashMap.newKeySet());
+			if (null != raced) content = raced.response.body();
+		}
+		MetricsRegistry.get().record(MetricsRegistry.IPFS, (null == key) ? "http_content" : "content", System.nanoTime() - start, (null == content) ? 0L : content.length, null == content);
+		if (null == content) {
+			LOGGER.warn("Unable to fetch content for " + url);
+			return null;
+		}
+		if ((null != store) && (null != key) && (content.length > 0)) store.put(key, content);
+		return new String(content, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the base64 encoded SHA-256 of the content behind an ipfs://, gateway or plain http(s) URL,
+	 * null if all attempts fail. The content is hashed as it streams in and never held in memory, only
+	 * the hash of IPFS content is kept in the local store.
+	 */
+	public String getSha256Base64(String url) {
+		String key = getIPFSPath(url);
+		if ((null != store) && (null != key)) {
+			byte[] hash = store.get(HASH_KEY_PREFIX + key);
+			if (null != hash) return new String(hash, StandardCharsets.UTF_8);
+		}
+
+		long start = System.nanoTime();
+		LongAdder bytes = new LongAdder();
+		String hash = fetchSha256Base64(url, key, bytes);
+		MetricsRegistry.get().record(MetricsRegistry.IPFS, (null == key) ? "http_hash" : "hash", System.nanoTime() - start, bytes.sum(), null == hash);
+		if ((null == hash) && !Thread.currentThread().isInterrupted()) LOGGER.warn("Unable to fetch content for " + url);
+		return hash;
+	}
+
+	private String fetchSha256Base64(String url, String key, LongAdder bytes) {
+		try {
+			if (null == key) {
+				HttpResponse<InputStream> response = fetch(url, HttpResponse.BodyHandlers.ofInputStream());
+				if (null != response) {
+					try (InputStream body = response.body()) {
+						return hasher.sha256Base64(new CountingInputStream(body, bytes));
+					}
+				}
+			} else {
+				// the winner is only known to be good once its content is hashed, otherwise race the rest
+				Set<GatewayStats> tried = ConcurrentHashMap.newKeySet();
+				Raced<InputStream> raced;
+				while (null != (raced = race(key, HttpResponse.BodyHandlers.ofInputStream(), null, tried))) {
+					String hash;
+					try (InputStream body = raced.response.body()) {
+						hash = hasher.sha256Base64(new CountingInputStream(body, bytes));
+					} catch (IOException e) {
+						LOGGER.debug("Unable to read " + key + " from " + raced.gateway.getGateway() + ": " + e.getMessage());
+						raced.gateway.recordFailure();
+						continue;
+					}
+					if (Boolean.FALSE.equals(CIDUtils.matchesRaw(key, hash))) {
+						LOGGER.warn("Gateway " + raced.gateway.getGateway() + " returned content not matching " + key + ", demoting it");
+						raced.gateway.recordMismatch();
+						continue;
+					}
+					if (null != store) store.put(HASH_KEY_PREFIX + key, hash.getBytes(StandardCharsets.UTF_8));
+					return hash;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (IOException e) {
+			LOGGER.debug("Unable to read " + url + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Races the best gateways not yet tried for the IPFS path. Gateways which answered are added to 'tried',
+	 * the ones cancelled because another gateway answered first are not so a later race can still use them.
+	 * Moves on to the next best gateways when none of them returns a valid response, null once all gateways
+	 * have been tried.
+	 */
+	private <T> Raced<T> race(String key, HttpResponse.BodyHandler<T> handler, Predicate<T> valid, Set<GatewayStats> tried) {
+		while (true) {
+			List<GatewayStats> gateways = scoreboard.getTop(RACE_WIDTH, tried);
+			if (gateways.isEmpty()) return null;
+
+			CompletableFuture<Raced<T>> winner = new CompletableFuture<Raced<T>>();
+			AtomicInteger remaining = new AtomicInteger(gateways.size());
+			List<CompletableFuture<HttpResponse<T>>> requests = new ArrayList<CompletableFuture<HttpResponse<T>>>();
+			for (GatewayStats gateway: gateways) {
+				long start = System.nanoTime();
+				HttpRequest request = HttpRequest.newBuilder(URI.create(gateway.getGateway() + key)).timeout(REQUEST_TIMEOUT).GET().build();
+				CompletableFuture<HttpResponse<T>> future = getHttpClient().sendAsync(request, handler);
+				requests.add(future);
+				future.whenComplete((response, error) -> {
+					long latency_ms = (System.nanoTime() - start) / 1000000L;
+					// losers cancelled after the race was decided are neither tried nor held against the gateway
+					if (!isCancellation(error)) tried.add(gateway);
+					if (null != error) {
+						if (!isCancellation(error)) {
+							LOGGER.debug("Unable to fetch " + key + " from " + gateway.getGateway() + ": " + error.getMessage());
+							gateway.recordFailure();
+						}
+					} else if (response.statusCode() != 200) {
+						LOGGER.debug("Got HTTP " + response.statusCode() + " for " + key + " from " + gateway.getGateway());
+						// 4xx (except rate limiting) means the content is missing, not that the gateway is unhealthy
+						if ((response.statusCode() >= 500) || (response.statusCode() == 429)) gateway.recordFailure();
+						discard(response);
+					} else if ((null != valid) && !valid.test(response.body())) {
+						LOGGER.warn("Gateway " + gateway.getGateway() + " returned content not matching " + key + ", demoting it");
+						gateway.recordMismatch();
+					} else {
+						gateway.recordSuccess(latency_ms);
+						if (!winner.complete(new Raced<T>(gateway, response))) discard(response);
+					}
+					if (remaining.decrementAndGet() == 0) winner.complete(null);
+				});
+			}
+
+			try {
+				Raced<T> raced = winner.get();
+				if (null != raced) return raced;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException e) {
+				LOGGER.debug("Unable to fetch " + key + ": " + e.getCause().getMessage());
+			} finally {
+				for (CompletableFuture<HttpResponse<T>> request: requests) request.cancel(true);
+			}
+		}
+	}
+
+	private <T> HttpResponse<T> fetch(String url, HttpResponse.BodyHandler<T> handler) {
+		try {
+			HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+			HttpResponse<T> response = getHttpClient().send(request, handler);
+			if (response.statusCode() == 200) return response;
+			LOGGER.debug("Got HTTP " + response.statusCode() + " for " + url);
+			discard(response);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			LOGGER.debug("Unable to fetch " + url + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private static boolean isCancellation(Throwable error) {
+		for (Throwable t=error; null != t; t=t.getCause()) {
+			if (t instanceof CancellationException) return true;
+		}
+		return false;
+	}
+
+	private static void discard(HttpResponse<?> response) {
+		if (response.body() instanceof InputStream) {
+			try {
+				((InputStream) response.body()).close();
+			} catch (IOException e) {
+				// nothing left to do with it
+			}
+		}
+	}
+
+	private synchronized HttpClient getHttpClient() {
+		if (null == http_client) http_client = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(10))
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+		return http_client;
+	}
+
+	/**
+	 * Saves the gateway scoreboard and closes the local store
+	 */
+	public void close() {
+		scoreboard.save();
+		if (null != store) store.close();
+	}
+
+	public GatewayScoreboard getScoreboard() {
+		return scoreboard;
+	}
+
+	public IPFSBlobStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the immutable 'cid[/path]' part of an ipfs:// or gateway (https://host/ipfs/..) URL, null for any other URL
+	 */
+	public static String getIPFSPath(String url) {
+		if (null == url) return null;
+		String path = null;
+		if (url.startsWith("ipfs://")) {
+			path = url.substring("ipfs://".length());
+			if (path.startsWith("ipfs/")) path = path.substring("ipfs/".length());
+		} else if ((url.startsWith("https://") || url.startsWith("http://")) && url.contains("/ipfs/")) {
+			path = url.substring(url.indexOf("/ipfs/") + "/ipfs/".length());
+		}
+		if (null == path) return null;
+		int cut = path.length();
+		if (path.indexOf('#') >= 0) cut = Math.min(cut, path.indexOf('#'));
+		if (path.indexOf('?') >= 0) cut = Math.min(cut, path.indexOf('?'));
+		path = path.substring(0, cut);
+		while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+		if (path.isEmpty()) return null;
+		return path;
+	}
+
+}
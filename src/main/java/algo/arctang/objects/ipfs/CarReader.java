@@ -0,0 +1,260 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * Read only block store over a CARv1 or CARv2 archive, as produced by 'ipfs dag export' or the pinning
+ * services. The archive is scanned once to index where each block is and to check every block against its
+ * CID, blocks are then read on demand so only the index is held in memory.
+ *
+ * The roots are taken to be the dag-pb and raw blocks no other block links to, which spares parsing the
+ * dag-cbor header and also works for archives holding several unrelated DAGs.
+ */
+public class CarReader implements AutoCloseable {
+
+	private static final byte[] CARV2_PRAGMA = {0x0a, (byte) 0xa1, 0x67, 0x76, 0x65, 0x72, 0x73, 0x69, 0x6f, 0x6e, 0x02};
+
+	private static final int MULTIHASH_IDENTITY = 0x00;
+	private static final int MULTIHASH_SHA2_256 = 0x12;
+
+	// blocks over 2MiB are not transferable over bitswap, anything larger is taken as a corrupt length
+	private static final int MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final HashMap<String, long[]> blocks = new HashMap<String, long[]>();
+	private final List<byte[]> roots = new ArrayList<byte[]>();
+	private final List<String> errors = new ArrayList<String>();
+
+	private CarReader(FileChannel channel) {
+		super();
+		this.channel = channel;
+	}
+
+	public static CarReader open(Path car) throws IOException {
+		CarReader reader = new CarReader(FileChannel.open(car, StandardOpenOption.READ));
+		try {
+			reader.scan(car);
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+		return reader;
+	}
+
+	/**
+	 * Returns the block content, null if the archive does not hold it
+	 */
+	public byte[] readBlock(byte[] cid) throws IOException {
+		byte[] inline = getIdentityContent(cid);
+		if (null != inline) return inline;
+		long[] location = blocks.get(CIDUtils.toString(cid));
+		if (null == location) return null;
+		ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, location[0] + buffer.position()) < 0) throw new EOFException("Truncated block " + CIDUtils.toString(cid));
+		}
+		return buffer.array();
+	}
+
+	public boolean contains(byte[] cid) {
+		return (null != getIdentityContent(cid)) || blocks.containsKey(CIDUtils.toString(cid));
+	}
+
+	public List<byte[]> getRoots() {
+		return roots;
+	}
+
+	public int getBlockCount() {
+		return blocks.size();
+	}
+
+	/**
+	 * Blocks which did not match their CID, they are left out of the index
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void scan(Path car) throws IOException {
+		long data_offset = 0L;
+		long data_end = Long.MAX_VALUE;
+		try (InputStream in = Files.newInputStream(car)) {
+			byte[] pragma = in.readNBytes(CARV2_PRAGMA.length);
+			if (Arrays.equals(pragma, CARV2_PRAGMA)) {
+				// CARv2: characteristics, data offset, data size and index offset follow the pragma
+				ByteBuffer header = ByteBuffer.wrap(in.readNBytes(40)).order(ByteOrder.LITTLE_ENDIAN);
+				if (header.capacity() != 40) throw new IOException("Truncated CARv2 header");
+				data_offset = header.getLong(16);
+				data_end = data_offset + header.getLong(24);
+			}
+		}
+
+		HashMap<String, byte[]> candidates = new HashMap<String, byte[]>();
+		HashSet<String> linked = new HashSet<String>();
+		try (Counting in = new Counting(new BufferedInputStream(Files.newInputStream(car), 1024 * 1024))) {
+			in.skipTo(data_offset);
+			long header_length = in.readVarint();
+			in.skipTo(in.position + header_length);
+			while ((in.position < data_end) && in.hasMore()) {
+				long section_length = in.readVarint();
+				long section_end = in.position + section_length;
+				byte[] cid = in.readCID();
+				long block_length = section_end - in.position;
+				if ((block_length < 0L) || (block_length > MAX_BLOCK_SIZE)) throw new IOException("Invalid block length " + block_length + " at offset " + in.position);
+				long block_offset = in.position;
+				byte[] block = in.readNBytes((int) block_length);
+				String key = CIDUtils.toString(cid);
+				byte[] digest = getDigest(cid);
+				if ((null != digest) && !Arrays.equals(digest, sha256(block))) {
+					errors.add("Block " + key + " does not match its CID");
+					continue;
+				}
+				blocks.put(key, new long[] {block_offset, block_length});
+				int codec = CIDUtils.getCodec(cid);
+				if ((codec == CIDUtils.CODEC_DAG_PB) || (codec == CIDUtils.CODEC_RAW)) candidates.put(key, cid);
+				if (codec == CIDUtils.CODEC_DAG_PB) {
+					for (PBNode.Link link: PBNode.decode(block).getLinks()) linked.add(CIDUtils.toString(link.getCid()));
+				}
+			}
+		}
+		for (String key: candidates.keySet()) {
+			if (!linked.contains(key)) roots.add(candidates.get(key));
+		}
+	}
+
+	// returns the digest of a sha2-256 CID, null for other hash functions which are then left unchecked
+	private static byte[] getDigest(byte[] cid) {
+		int[] pos = multihashStart(cid);
+		if (CIDUtils.readVarint(cid, pos) != MULTIHASH_SHA2_256) return null;
+		int length = (int) CIDUtils.readVarint(cid, pos);
+		return Arrays.copyOfRange(cid, pos[0], pos[0] + length);
+	}
+
+	private static byte[] getIdentityContent(byte[] cid) {
+		int[] pos = multihashStart(cid);
+		if (CIDUtils.readVarint(cid, pos) != MULTIHASH_IDENTITY) return null;
+		int length = (int) CIDUtils.readVarint(cid, pos);
+		return Arrays.copyOfRange(cid, pos[0], pos[0] + length);
+	}
+
+	private static int[] multihashStart(byte[] cid) {
+		int[] pos = new int[1];
+		if ((cid.length == 34) && ((cid[0] & 0xff) == MULTIHASH_SHA2_256)) return pos;
+		CIDUtils.readVarint(cid, pos);
+		CIDUtils.readVarint(cid, pos);
+		return pos;
+	}
+
+	private static byte[] sha256(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sequential reader which keeps track of its offset into the archive
+	 */
+	private static class Counting implements AutoCloseable {
+
+		private final InputStream in;
+		private long position = 0L;
+
+		Counting(InputStream in) {
+			this.in = in;
+		}
+
+		boolean hasMore() throws IOException {
+			in.mark(1);
+			int b = in.read();
+			in.reset();
+			return b >= 0;
+		}
+
+		int read() throws IOException {
+			int b = in.read();
+			if (b < 0) throw new EOFException("Truncated CAR archive");
+			position++;
+			return b;
+		}
+
+		byte[] readNBytes(int length) throws IOException {
+			byte[] bytes = in.readNBytes(length);
+			if (bytes.length != length) throw new EOFException("Truncated CAR archive");
+			position += length;
+			return bytes;
+		}
+
+		void skipTo(long offset) throws IOException {
+			while (position < offset) {
+				long skipped = in.skip(offset - position);
+				if (skipped <= 0L) {
+					read();
+				} else {
+					position += skipped;
+				}
+			}
+		}
+
+		long readVarint() throws IOException {
+			long value = 0L;
+			for (int shift=0; shift<63; shift+=7) {
+				int b = read();
+				value |= ((long) (b & 0x7f)) << shift;
+				if ((b & 0x80) == 0) return value;
+			}
+			throw new IOException("Invalid varint at offset " + position);
+		}
+
+		byte[] readCID() throws IOException {
+			ByteArrayOutputStream cid = new ByteArrayOutputStream();
+			in.mark(2);
+			int first = in.read();
+			int second = in.read();
+			in.reset();
+			if ((first == MULTIHASH_SHA2_256) && (second == 32)) return readNBytes(34);
+			CIDUtils.writeVarint(cid, readVarint());
+			CIDUtils.writeVarint(cid, readVarint());
+			long hash = readVarint();
+			long length = readVarint();
+			if ((length < 0L) || (length > 1024L)) throw new IOException("Invalid multihash length at offset " + position);
+			CIDUtils.writeVarint(cid, hash);
+			CIDUtils.writeVarint(cid, length);
+			byte[] digest = readNBytes((int) length);
+			cid.write(digest, 0, digest.length);
+			return cid.toByteArray();
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package algo.arctang.objects.ipfs;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Health and latency of the known IPFS gateways, kept across runs in .avm/ipfs/gateways.json so no run
+ * has to probe the gateways up front. The ranking comes from the outcome of real fetches: the fastest
+ * healthy gateways are tried first and gateways which failed or returned content not matching its CID are
+ * demoted for a while.
+ */
+public class GatewayScoreboard {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GatewayScoreboard.class);
+
+	public static final String[] DEFAULT_GATEWAYS = {
+			"https://ipfs.io/ipfs/",
+			"https://dweb.link/ipfs/",
+			"https://cloudflare-ipfs.com/ipfs/",
+			"https://gateway.pinata.cloud/ipfs/",
+			"https://nftstorage.link/ipfs/",
+			"https://w3s.link/ipfs/",
+			"https://4everland.io/ipfs/",
+			"https://ipfs.filebase.io/ipfs/"
+	};
+
+	private final Path scorepath;
+	private final boolean persist;
+	private final LinkedHashMap<String, GatewayStats> gateways = new LinkedHashMap<String, GatewayStats>();
+
+	public GatewayScoreboard(boolean persist) {
+		this(".avm/ipfs/gateways.json", DEFAULT_GATEWAYS, persist);
+	}
+
+	public GatewayScoreboard(String scorepath, String[] known_gateways, boolean persist) {
+		super();
+		this.scorepath = Paths.get(scorepath);
+		this.persist = persist;
+		for (String gateway: known_gateways) gateways.put(gateway, new GatewayStats(gateway));
+		if (persist) load();
+	}
+
+	/**
+	 * Returns the best 'count' gateways which are not in 'exclude', best first
+	 */
+	public synchronized List<GatewayStats> getTop(int count, Collection<GatewayStats> exclude) {
+		long now = System.currentTimeMillis();
+		List<GatewayStats> ranked = new ArrayList<GatewayStats>();
+		for (GatewayStats stats: gateways.values()) {
+			if (!exclude.contains(stats)) ranked.add(stats);
+		}
+		ranked.sort((a, b) -> Double.compare(a.getScore(now), b.getScore(now)));
+		return ranked.subList(0, Math.min(count, ranked.size()));
+	}
+
+	public synchronized List<GatewayStats> getGateways() {
+		return new ArrayList<GatewayStats>(gateways.values());
+	}
+
+	public synchronized void save() {
+		if (!persist) return;
+		try {
+			Files.createDirectories(scorepath.getParent());
+			Path tmp = Files.createTempFile(scorepath.getParent(), scorepath.getFileName().toString(), ".tmp");
+			Files.writeString(tmp, JSONUtils.createJSONFromPOJO(gateways.values().toArray(new GatewayStats[0])), StandardCharsets.UTF_8);
+			Files.move(tmp, scorepath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception e) {
+			LOGGER.debug("Unable to save the gateway scoreboard to " + scorepath + ": " + e.getMessage());
+		}
+	}
+
+	private void load() {
+		if (!Files.exists(scorepath)) return;
+		try {
+			GatewayStats[] saved = JSONUtils.createPOJOFromJSON(Files.readString(scorepath, StandardCharsets.UTF_8), GatewayStats[].class);
+			if (null == saved) return;
+			// gateways dropped from the known list are forgotten
+			for (GatewayStats stats: saved) {
+				if ((null != stats.getGateway()) && gateways.containsKey(stats.getGateway())) gateways.put(stats.getGateway(), stats);
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Ignoring unreadable gateway scoreboard " + scorepath + ": " + e.getMessage());
+		}
+	}
+
+}
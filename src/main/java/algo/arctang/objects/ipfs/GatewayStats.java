@@ -0,0 +1,127 @@
+package algo.arctang.objects.ipfs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Health and latency of a single IPFS gateway as kept in the gateway scoreboard. Failures put the gateway
+ * in a cooldown which doubles with every consecutive failure, content which does not match its CID puts
+ * it in a much longer one.
+ */
+public class GatewayStats {
+
+	private static final double ALPHA = 0.2d;
+
+	// latency assumed for gateways without a successful fetch yet
+	public static final double DEFAULT_LATENCY_MS = 1000.0d;
+
+	private static final long FAILURE_COOLDOWN_MS = 60000L;
+	private static final long MAX_FAILURE_COOLDOWN_MS = 3600000L;
+	private static final long MISMATCH_COOLDOWN_MS = 86400000L;
+
+	private String gateway;
+	private double ewma_ms = 0.0d;
+	private long successes = 0L;
+	private long failures = 0L;
+	private long mismatches = 0L;
+	private int consecutive_failures = 0;
+	private long demoted_until = 0L;
+
+	public GatewayStats() {
+		super();
+	}
+
+	public GatewayStats(String gateway) {
+		super();
+		this.gateway = gateway;
+	}
+
+	public synchronized void recordSuccess(long latency_ms) {
+		ewma_ms = (successes == 0L) ? latency_ms : ((ALPHA * latency_ms) + ((1.0d - ALPHA) * ewma_ms));
+		successes++;
+		consecutive_failures = 0;
+		demoted_until = 0L;
+	}
+
+	public synchronized void recordFailure() {
+		failures++;
+		consecutive_failures++;
+		long cooldown = FAILURE_COOLDOWN_MS << Math.min(consecutive_failures - 1, 10);
+		demoted_until = Math.max(demoted_until, System.currentTimeMillis() + Math.min(cooldown, MAX_FAILURE_COOLDOWN_MS));
+	}
+
+	public synchronized void recordMismatch() {
+		mismatches++;
+		demoted_until = System.currentTimeMillis() + MISMATCH_COOLDOWN_MS;
+	}
+
+	/**
+	 * Ranking score in ms, lower is better. Demoted gateways rank after all others.
+	 */
+	@JsonIgnore
+	public synchronized double getScore(long now) {
+		double latency = (successes == 0L) ? DEFAULT_LATENCY_MS : ewma_ms;
+		return (now < demoted_until) ? (latency + MISMATCH_COOLDOWN_MS) : latency;
+	}
+
+	@JsonIgnore
+	public synchronized boolean isDemoted(long now) {
+		return now < demoted_until;
+	}
+
+	public String getGateway() {
+		return gateway;
+	}
+
+	public void setGateway(String gateway) {
+		this.gateway = gateway;
+	}
+
+	public synchronized double getEwma_ms() {
+		return ewma_ms;
+	}
+
+	public synchronized void setEwma_ms(double ewma_ms) {
+		this.ewma_ms = ewma_ms;
+	}
+
+	public synchronized long getSuccesses() {
+		return successes;
+	}
+
+	public synchronized void setSuccesses(long successes) {
+		this.successes = successes;
+	}
+
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	public synchronized void setFailures(long failures) {
+		this.failures = failures;
+	}
+
+	public synchronized long getMismatches() {
+		return mismatches;
+	}
+
+	public synchronized void setMismatches(long mismatches) {
+		this.mismatches = mismatches;
+	}
+
+	public synchronized int getConsecutive_failures() {
+		return consecutive_failures;
+	}
+
+	public synchronized void setConsecutive_failures(int consecutive_failures) {
+		this.consecutive_failures = consecutive_failures;
+	}
+
+	public synchronized long getDemoted_until() {
+		return demoted_until;
+	}
+
+	public synchronized void setDemoted_until(long demoted_until) {
+		this.demoted_until = demoted_until;
+	}
+
+}
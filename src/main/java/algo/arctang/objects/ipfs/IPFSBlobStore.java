@@ -0,0 +1,270 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * Content addressed local store for IPFS content, keyed by CID (plus optional path within the CID).
+ *
+ * Blobs are appended to a single pack file and located through an append-only index file with one
+ * 'key offset length' record per line. Reads go through a read-only memory mapping of the pack. When the
+ * live content exceeds the size limit the least recently used blobs are evicted (tombstone records), and
+ * the pack is compacted once the dead space outgrows the limit.
+ *
+ * One process at a time writes to the store, it holds a lock on a separate lock file which is never
+ * renamed, so compaction keeps it. Other processes open the store read-only. Blobs stored under a
+ * checkable CID are verified on read, a damaged pack never serves content that does not match its CID.
+ */
+public class IPFSBlobStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IPFSBlobStore.class);
+
+	private static final String PACK_FILENAME = "blobs.pack";
+	private static final String INDEX_FILENAME = "blobs.idx";
+	private static final String LOCK_FILENAME = "blobs.lock";
+
+	// keeps the pack (at most 1.5x the limit plus one blob) within what a single mapping can address
+	private static final long MAX_STORE_BYTES = 1024L * 1024L * 1024L;
+
+	private final Path storedir;
+	private final Path packpath;
+	private final Path indexpath;
+	private final Path lockpath;
+	private final long max_bytes;
+
+	// key -> {offset, length}, in LRU order (eldest first)
+	private final LinkedHashMap<String, long[]> entries = new LinkedHashMap<String, long[]>(1024, 0.75f, true);
+	private long live_bytes = 0L;
+	private long index_records = 0L;
+
+	private FileChannel pack;
+	private FileChannel lockchannel;
+	private FileLock lock;
+	private BufferedWriter index;
+	private MappedByteBuffer mapped;
+	private boolean readonly = false;
+
+	public IPFSBlobStore(String storedir, long max_bytes) {
+		super();
+		this.storedir = Paths.get(storedir);
+		this.packpath = this.storedir.resolve(PACK_FILENAME);
+		this.indexpath = this.storedir.resolve(INDEX_FILENAME);
+		this.lockpath = this.storedir.resolve(LOCK_FILENAME);
+		this.max_bytes = Math.min(max_bytes, MAX_STORE_BYTES);
+		open();
+	}
+
+	public synchronized byte[] get(String key) {
+		long[] location = entries.get(key);
+		if ((null == location) || (null == pack)) return null;
+		try {
+			if ((null == mapped) || (location[0] + location[1] > mapped.capacity())) remap();
+			ByteBuffer view = mapped.duplicate();
+			view.position((int) location[0]);
+			byte[] blob = new byte[(int) location[1]];
+			view.get(blob);
+			if (Boolean.FALSE.equals(CIDUtils.matches(key, blob))) {
+				LOGGER.warn("Dropping " + key + " from the IPFS blob store, the stored content does not match the CID");
+				entries.remove(key);
+				live_bytes -= location[1];
+				appendIndexRecord(key, -1L, 0L);
+				if (null != index) index.flush();
+				return null;
+			}
+			// re-appending the record moves it to the most recently used position on the next load
+			appendIndexRecord(key, location[0], location[1]);
+			compactIfNeeded();
+			return blob;
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read " + key + " from the IPFS blob store: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public synchronized boolean contains(String key) {
+		return entries.containsKey(key);
+	}
+
+	public synchronized void put(String key, byte[] blob) {
+		if (readonly || (null == pack) || entries.containsKey(key)) return;
+		if (blob.length > (max_bytes / 4)) return;
+		try {
+			long offset = pack.size();
+			ByteBuffer buffer = ByteBuffer.wrap(blob);
+			while (buffer.hasRemaining()) pack.write(buffer, offset + buffer.position());
+			appendIndexRecord(key, offset, blob.length);
+			index.flush();
+			entries.put(key, new long[] {offset, blob.length});
+			live_bytes += blob.length;
+			evict();
+			compactIfNeeded();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to add " + key + " to the IPFS blob store: " + e.getMessage());
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getLiveBytes() {
+		return live_bytes;
+	}
+
+	public synchronized void close() {
+		try {
+			if (null != index) index.close();
+			if (null != lock) lock.release();
+			if (null != lockchannel) lockchannel.close();
+			if (null != pack) pack.close();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to close the IPFS blob store: " + e.getMessage());
+		}
+		index = null;
+		lock = null;
+		lockchannel = null;
+		pack = null;
+		mapped = null;
+	}
+
+	private void open() {
+		try {
+			Files.createDirectories(storedir);
+			pack = FileChannel.open(packpath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			lockchannel = FileChannel.open(lockpath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			try {
+				lock = lockchannel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				lock = null;
+			}
+			if (null == lock) {
+				LOGGER.info("IPFS blob store at " + storedir + " is in use by another process, opening it read-only");
+				readonly = true;
+			}
+			loadIndex(pack.size());
+			if (!readonly) index = Files.newBufferedWriter(indexpath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			evict();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to open the IPFS blob store at " + storedir + ": " + e.getMessage());
+			close();
+		}
+	}
+
+	private void loadIndex(long packsize) throws IOException {
+		if (!Files.exists(indexpath)) return;
+		try (BufferedReader reader = Files.newBufferedReader(indexpath, StandardCharsets.UTF_8)) {
+			String line;
+			while (null != (line = reader.readLine())) {
+				index_records++;
+				String[] record = line.split("\t");
+				if (record.length != 3) continue;
+				long offset;
+				long length;
+				try {
+					offset = Long.parseLong(record[1]);
+					length = Long.parseLong(record[2]);
+				} catch (NumberFormatException e) {
+					LOGGER.warn("Ignoring corrupt IPFS blob store index record: " + e.getMessage());
+					continue;
+				}
+				long[] previous = entries.remove(record[0]);
+				if (null != previous) live_bytes -= previous[1];
+				if ((offset < 0L) || (offset + length > packsize)) continue; // tombstone or truncated pack
+				entries.put(record[0], new long[] {offset, length});
+				live_bytes += length;
+			}
+		}
+	}
+
+	private void appendIndexRecord(String key, long offset, long length) throws IOException {
+		if (readonly || (null == index)) return;
+		// touch records are flushed along with the next put or on close
+		index.write(key + "\t" + offset + "\t" + length + "\n");
+		index_records++;
+	}
+
+	private void evict() throws IOException {
+		Iterator<Map.Entry<String, long[]>> it = entries.entrySet().iterator();
+		while ((live_bytes > max_bytes) && it.hasNext()) {
+			Map.Entry<String, long[]> eldest = it.next();
+			it.remove();
+			live_bytes -= eldest.getValue()[1];
+			appendIndexRecord(eldest.getKey(), -1L, 0L);
+		}
+		if (null != index) index.flush();
+	}
+
+	private void compactIfNeeded() throws IOException {
+		if ((pack.size() > (max_bytes + (max_bytes / 2))) || (index_records > (8L * (entries.size() + 1024L)))) compact();
+	}
+
+	private void remap() throws IOException {
+		mapped = pack.map(FileChannel.MapMode.READ_ONLY, 0, pack.size());
+	}
+
+	/**
+	 * Rewrites the pack and index with only the live blobs, in LRU order
+	 */
+	private void compact() throws IOException {
+		if (readonly) return;
+		LOGGER.debug("Compacting IPFS blob store, live bytes: " + live_bytes + ", pack size: " + pack.size());
+		remap();
+		Path newpackpath = storedir.resolve(PACK_FILENAME + ".tmp");
+		Path newindexpath = storedir.resolve(INDEX_FILENAME + ".tmp");
+		LinkedHashMap<String, long[]> compacted = new LinkedHashMap<String, long[]>(1024, 0.75f, true);
+		try (FileChannel newpack = FileChannel.open(newpackpath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				BufferedWriter newindex = Files.newBufferedWriter(newindexpath, StandardCharsets.UTF_8)) {
+			long offset = 0L;
+			for (Map.Entry<String, long[]> entry: entries.entrySet()) {
+				ByteBuffer view = mapped.duplicate();
+				view.position((int) entry.getValue()[0]);
+				view.limit((int) (entry.getValue()[0] + entry.getValue()[1]));
+				while (view.hasRemaining()) newpack.write(view);
+				newindex.write(entry.getKey() + "\t" + offset + "\t" + entry.getValue()[1] + "\n");
+				compacted.put(entry.getKey(), new long[] {offset, entry.getValue()[1]});
+				offset += entry.getValue()[1];
+			}
+		}
+
+		// the lock file is left alone, the store stays locked while the pack and index are swapped
+		index.close();
+		index = null;
+		pack.close();
+		pack = null;
+		mapped = null;
+		Files.move(newpackpath, packpath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(newindexpath, indexpath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		pack = FileChannel.open(packpath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if ((null == lock) || !lock.isValid()) {
+			LOGGER.warn("Lost the lock on the IPFS blob store at " + storedir + ", continuing read-only");
+			readonly = true;
+		} else {
+			index = Files.newBufferedWriter(indexpath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		}
+		entries.clear();
+		entries.putAll(compacted);
+		index_records = entries.size();
+	}
+
+}
@@ -0,0 +1,58 @@
+package algo.arctang.objects.ipfs;
+
+import java.util.ArrayList;
+
+/**
+ * A file of a local folder or CAR archive as indexed by LocalContentIndex
+ */
+public class LocalContent {
+
+	private String path;
+	private long size;
+	private String sha256;
+	private ArrayList<String> cids = new ArrayList<String>();
+
+	public LocalContent() {
+		super();
+	}
+
+	public LocalContent(String path, long size, String sha256) {
+		super();
+		this.path = path;
+		this.size = size;
+		this.sha256 = sha256;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+
+	public ArrayList<String> getCids() {
+		return cids;
+	}
+
+	public void setCids(ArrayList<String> cids) {
+		this.cids = cids;
+	}
+
+}
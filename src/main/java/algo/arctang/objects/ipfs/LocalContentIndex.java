@@ -0,0 +1,385 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * CID to file index over a local folder or CAR archive, so a collection can be checked before (or
+ * without) it is pinned and without any network access.
+ *
+ * For a folder every file is hashed once, in parallel, and gets both the CIDv0 and the CIDv1 'ipfs add'
+ * would give it with the default settings. Directory CIDs are computed the same way for plain UnixFS
+ * directories, folders large enough that kubo would shard them are only resolved by path. Content added
+ * with other settings (chunker, hash function) gets different CIDs, which is why lookups by sha256 are
+ * offered as a fallback. A CAR archive holds the actual blocks so all its CIDs are exact.
+ */
+public class LocalContentIndex implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LocalContentIndex.class);
+
+	// kubo switches to a HAMT sharded directory once the links of a directory would exceed this size
+	private static final int MAX_BASIC_DIRECTORY_SIZE = 262144;
+
+	private final Path root;
+	private final CarReader car;
+	private final HashMap<String, LocalContent> by_cid = new HashMap<String, LocalContent>();
+	private final HashMap<String, LocalContent> by_cid_path = new HashMap<String, LocalContent>();
+	private final HashMap<String, LocalContent> by_path = new HashMap<String, LocalContent>();
+	private final HashMap<String, LocalContent> by_sha256 = new HashMap<String, LocalContent>();
+	private final IdentityHashMap<LocalContent, byte[]> car_cids = new IdentityHashMap<LocalContent, byte[]>();
+	private final List<LocalContent> contents = new ArrayList<LocalContent>();
+	private final List<String> root_cids = new ArrayList<String>();
+
+	private LocalContentIndex(Path root, CarReader car) {
+		super();
+		this.root = root;
+		this.car = car;
+	}
+
+	/**
+	 * Opens a .car archive or indexes a folder, hashing its files on 'concurrency' threads
+	 */
+	public static LocalContentIndex open(String local_content, int concurrency) throws IOException {
+		Path path = Paths.get(local_content);
+		if (Files.isDirectory(path)) return fromFolder(path, concurrency);
+		return fromCar(path);
+	}
+
+	public static LocalContentIndex fromFolder(Path root, int concurrency) throws IOException {
+		LocalContentIndex index = new LocalContentIndex(root, null);
+
+		// hidden files are skipped, same as 'ipfs add -r' without --hidden
+		List<Path> files = new ArrayList<Path>();
+		List<Path> folders = new ArrayList<Path>();
+		try (Stream<Path> walk = Files.walk(root)) {
+			walk.filter(p -> !isHidden(root, p)).forEach(p -> {
+				if (Files.isRegularFile(p)) files.add(p);
+				if (Files.isDirectory(p)) folders.add(p);
+			});
+		}
+		files.sort(null);
+
+		ConcurrentHashMap<Path, UnixFSImporter.Node[]> nodes = new ConcurrentHashMap<Path, UnixFSImporter.Node[]>();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<LocalContent>> hashed = new ArrayList<Future<LocalContent>>();
+			for (Path file: files) hashed.add(executor.submit(() -> hashFile(root, file, nodes)));
+			for (Future<LocalContent> future: hashed) index.add(future.get(), null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while hashing " + root);
+		} catch (ExecutionException e) {
+			throw new IOException("Unable to hash the files in " + root + ": " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// directories bottom up, a sharded directory leaves all its parents unresolvable by CID too
+		folders.sort(Comparator.comparingInt((Path p) -> p.getNameCount()).reversed());
+		for (Path folder: folders) {
+			List<Path> children = new ArrayList<Path>();
+			try (Stream<Path> list = Files.list(folder)) {
+				list.filter(p -> !isHidden(root, p) && (Files.isRegularFile(p) || Files.isDirectory(p))).forEach(children::add);
+			}
+			children.sort(Comparator.comparing((Path p) -> p.getFileName().toString()));
+			List<String> names = new ArrayList<String>();
+			List<UnixFSImporter.Node> v0 = new ArrayList<UnixFSImporter.Node>();
+			List<UnixFSImporter.Node> v1 = new ArrayList<UnixFSImporter.Node>();
+			long estimated_size = 0L;
+			boolean resolvable = true;
+			for (Path child: children) {
+				UnixFSImporter.Node[] child_nodes = nodes.get(child);
+				if (null == child_nodes) {
+					resolvable = false;
+					break;
+				}
+				String name = child.getFileName().toString();
+				names.add(name);
+				v0.add(child_nodes[0]);
+				v1.add(child_nodes[1]);
+				estimated_size += name.getBytes(StandardCharsets.UTF_8).length + child_nodes[1].getCid().length;
+			}
+			if (!resolvable || (estimated_size > MAX_BASIC_DIRECTORY_SIZE)) {
+				LOGGER.debug("No CID for the directory " + folder + ", its content is only resolved by path");
+				continue;
+			}
+			UnixFSImporter.Node[] folder_nodes = {UnixFSImporter.directory(names, v0, false), UnixFSImporter.directory(names, v1, true)};
+			nodes.put(folder, folder_nodes);
+			String prefix = root.relativize(folder).toString().replace('\\', '/');
+			for (LocalContent content: index.contents) {
+				if (!prefix.isEmpty() && !content.getPath().startsWith(prefix + "/")) continue;
+				String relative = prefix.isEmpty() ? content.getPath() : content.getPath().substring(prefix.length() + 1);
+				for (UnixFSImporter.Node folder_node: folder_nodes) index.by_cid_path.put(CIDUtils.toString(folder_node.getCid()) + "/" + relative, content);
+			}
+			if (folder.equals(root)) {
+				for (UnixFSImporter.Node folder_node: folder_nodes) index.root_cids.add(CIDUtils.toString(folder_node.getCid()));
+			}
+		}
+		return index;
+	}
+
+	public static LocalContentIndex fromCar(Path archive) throws IOException {
+		CarReader car = CarReader.open(archive);
+		for (String error: car.getErrors()) LOGGER.warn(error);
+		LocalContentIndex index = new LocalContentIndex(null, car);
+		for (byte[] cid: car.getRoots()) {
+			index.root_cids.add(CIDUtils.toString(cid));
+			index.walk(cid, "", new ArrayList<String[]>());
+		}
+		index.contents.sort(Comparator.comparing(LocalContent::getPath));
+		return index;
+	}
+
+	/**
+	 * Exact lookup of an ipfs:// or gateway URL, by CID or by directory CID and path
+	 */
+	public LocalContent resolve(String url) {
+		String key = CachedIPFSConnector.getIPFSPath(url);
+		if (null == key) return null;
+		int slash = key.indexOf('/');
+		if (slash < 0) return by_cid.get(key);
+		return by_cid_path.get(key.substring(0, slash) + "/" + decode(key.substring(slash + 1)));
+	}
+
+	/**
+	 * Lookup of the path part of an ipfs:// or gateway URL relative to the content root, the directory CID
+	 * is not checked
+	 */
+	public LocalContent resolvePath(String url) {
+		String key = CachedIPFSConnector.getIPFSPath(url);
+		if ((null == key) || (key.indexOf('/') < 0)) return null;
+		return by_path.get(decode(key.substring(key.indexOf('/') + 1)));
+	}
+
+	public LocalContent findSha256(String sha256) {
+		return by_sha256.get(sha256);
+	}
+
+	/**
+	 * Finds the content a manifest entry refers to: an ipfs:// or gateway URL, a bare CID or CID/path, a path
+	 * relative to the content root or a local path inside the content folder
+	 */
+	public LocalContent find(String reference) {
+		if (null == reference) return null;
+		LocalContent content = resolve(reference);
+		if (null == content) content = resolve("ipfs://" + reference);
+		if (null == content) content = by_path.get(reference.replace('\\', '/'));
+		if ((null == content) && (null != root)) {
+			Path path = Paths.get(reference).toAbsolutePath().normalize();
+			Path base = root.toAbsolutePath().normalize();
+			if (path.startsWith(base)) content = by_path.get(base.relativize(path).toString().replace('\\', '/'));
+		}
+		return content;
+	}
+
+	public byte[] read(LocalContent content) throws IOException {
+		if (null != root) return Files.readAllBytes(root.resolve(content.getPath()));
+		List<byte[]> parts = new ArrayList<byte[]>();
+		int size = append(car_cids.get(content), parts);
+		byte[] bytes = new byte[size];
+		int offset = 0;
+		for (byte[] part: parts) {
+			System.arraycopy(part, 0, bytes, offset, part.length);
+			offset += part.length;
+		}
+		return bytes;
+	}
+
+	public String readString(LocalContent content) {
+		try {
+			return new String(read(content), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read " + content.getPath() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * All indexed files sorted by path
+	 */
+	public List<LocalContent> getContents() {
+		return contents;
+	}
+
+	/**
+	 * CIDs of the folder itself (CIDv0 and CIDv1) or of the archive roots
+	 */
+	public List<String> getRoot_cids() {
+		return root_cids;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (null != car) car.close();
+	}
+
+	private void add(LocalContent content, byte[] car_cid) {
+		contents.add(content);
+		by_path.put(content.getPath(), content);
+		by_sha256.putIfAbsent(content.getSha256(), content);
+		for (String cid: content.getCids()) by_cid.put(cid, content);
+		if (null != car_cid) car_cids.put(content, car_cid);
+	}
+
+	private static LocalContent hashFile(Path root, Path file, ConcurrentHashMap<Path, UnixFSImporter.Node[]> nodes) throws IOException {
+		MessageDigest sha256 = newSha256();
+		UnixFSImporter v0 = new UnixFSImporter(false);
+		UnixFSImporter v1 = new UnixFSImporter(true);
+		byte[] chunk = new byte[UnixFSImporter.CHUNK_SIZE];
+		long size = 0L;
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+				sha256.update(chunk, 0, read);
+				v0.write(chunk, read);
+				v1.write(chunk, read);
+				size += read;
+			}
+		}
+		UnixFSImporter.Node[] file_nodes = {v0.finish(), v1.finish()};
+		nodes.put(file, file_nodes);
+		LocalContent content = new LocalContent(root.relativize(file).toString().replace('\\', '/'), size, Base64.getEncoder().encodeToString(sha256.digest()));
+		for (UnixFSImporter.Node node: file_nodes) content.getCids().add(CIDUtils.toString(node.getCid()));
+		return content;
+	}
+
+	// ancestors holds the CID of every enclosing directory and the path of that directory
+	private void walk(byte[] cid, String path, List<String[]> ancestors) throws IOException {
+		byte[] block = car.readBlock(cid);
+		if (null == block) {
+			LOGGER.warn("The archive does not hold the block " + CIDUtils.toString(cid) + ((path.isEmpty()) ? "" : " for " + path));
+			return;
+		}
+		if (CIDUtils.getCodec(cid) == CIDUtils.CODEC_RAW) {
+			addCarFile(cid, path, ancestors);
+			return;
+		}
+		PBNode node = PBNode.decode(block);
+		int type = node.getUnixfsType();
+		if ((type == PBNode.UNIXFS_DIRECTORY) || (type == PBNode.UNIXFS_HAMT_SHARD)) {
+			List<String[]> enclosing = new ArrayList<String[]>(ancestors);
+			enclosing.add(new String[] {CIDUtils.toString(cid), path});
+			walkDirectory(node, type == PBNode.UNIXFS_HAMT_SHARD, path, enclosing);
+		} else if ((type == PBNode.UNIXFS_FILE) || (type == PBNode.UNIXFS_RAW)) {
+			addCarFile(cid, path, ancestors);
+		}
+	}
+
+	private void walkDirectory(PBNode node, boolean sharded, String path, List<String[]> ancestors) throws IOException {
+		for (PBNode.Link link: node.getLinks()) {
+			String name = (null == link.getName()) ? "" : link.getName();
+			if (sharded) {
+				// sharded entries are prefixed with their 2 hex digit bucket, a bare bucket is a sub shard
+				if (name.length() == 2) {
+					byte[] block = car.readBlock(link.getCid());
+					if (null != block) walkDirectory(PBNode.decode(block), true, path, ancestors);
+					continue;
+				}
+				name = name.substring(2);
+			}
+			walk(link.getCid(), path.isEmpty() ? name : path + "/" + name, ancestors);
+		}
+	}
+
+	private void addCarFile(byte[] cid, String path, List<String[]> ancestors) throws IOException {
+		String key = CIDUtils.toString(cid);
+		LocalContent content = by_cid.get(key);
+		if (null == content) {
+			MessageDigest sha256 = newSha256();
+			long size;
+			try {
+				size = digest(cid, sha256);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to index " + (path.isEmpty() ? key : path) + ": " + e.getMessage());
+				return;
+			}
+			content = new LocalContent(path.isEmpty() ? key : path, size, Base64.getEncoder().encodeToString(sha256.digest()));
+			content.getCids().add(key);
+			add(content, cid);
+		} else if (!path.isEmpty()) {
+			by_path.putIfAbsent(path, content);
+		}
+		for (String[] ancestor: ancestors) {
+			String relative = ancestor[1].isEmpty() ? path : path.substring(ancestor[1].length() + 1);
+			by_cid_path.put(ancestor[0] + "/" + relative, content);
+		}
+	}
+
+	private long digest(byte[] cid, MessageDigest sha256) throws IOException {
+		byte[] block = car.readBlock(cid);
+		if (null == block) throw new IOException("the archive does not hold the block " + CIDUtils.toString(cid));
+		if (CIDUtils.getCodec(cid) == CIDUtils.CODEC_RAW) {
+			sha256.update(block);
+			return block.length;
+		}
+		PBNode node = PBNode.decode(block);
+		byte[] content = node.getUnixfsContent();
+		sha256.update(content);
+		long size = content.length;
+		for (PBNode.Link link: node.getLinks()) size += digest(link.getCid(), sha256);
+		return size;
+	}
+
+	private int append(byte[] cid, List<byte[]> parts) throws IOException {
+		byte[] block = car.readBlock(cid);
+		if (null == block) throw new IOException("The archive does not hold the block " + CIDUtils.toString(cid));
+		if (CIDUtils.getCodec(cid) == CIDUtils.CODEC_RAW) {
+			parts.add(block);
+			return block.length;
+		}
+		PBNode node = PBNode.decode(block);
+		byte[] content = node.getUnixfsContent();
+		parts.add(content);
+		int size = content.length;
+		for (PBNode.Link link: node.getLinks()) size += append(link.getCid(), parts);
+		return size;
+	}
+
+	private static boolean isHidden(Path root, Path path) {
+		for (Path name: root.relativize(path)) {
+			if (name.toString().startsWith(".")) return true;
+		}
+		return false;
+	}
+
+	private static String decode(String path) {
+		try {
+			return URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return path;
+		}
+	}
+
+	private static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+
+/**
+ * SHA-256 of media content while it streams in, so a 200 MB animation costs one buffer instead of 200 MB
+ * of heap. Every thread reuses its own fixed size buffer and all threads share a budget of bytes in
+ * flight: a chunk is only read once its size could be taken from the budget, which bounds the memory
+ * used by concurrent downloads independently of the file sizes and the number of threads.
+ */
+public class MediaHasher {
+
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private final int buffer_size;
+	private final int max_inflight_bytes;
+	private final Semaphore inflight;
+	private final ThreadLocal<byte[]> buffers;
+
+	public MediaHasher(long max_inflight_bytes) {
+		super();
+		this.max_inflight_bytes = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, max_inflight_bytes));
+		this.buffer_size = Math.min(BUFFER_SIZE, this.max_inflight_bytes);
+		this.inflight = new Semaphore(this.max_inflight_bytes, true);
+		this.buffers = ThreadLocal.withInitial(() -> new byte[buffer_size]);
+	}
+
+	/**
+	 * Returns the base64 encoded SHA-256 of everything left in the stream, the stream is not closed
+	 */
+	public String sha256Base64(InputStream in) throws IOException, InterruptedException {
+		MessageDigest digest = newDigest();
+		byte[] buffer = buffers.get();
+		while (true) {
+			inflight.acquire(buffer_size);
+			try {
+				int read = in.read(buffer);
+				if (read < 0) break;
+				digest.update(buffer, 0, read);
+			} finally {
+				inflight.release(buffer_size);
+			}
+		}
+		return Base64.getEncoder().encodeToString(digest.digest());
+	}
+
+	public int getInflightBytes() {
+		return max_inflight_bytes - inflight.availablePermits();
+	}
+
+	public int getMax_inflight_bytes() {
+		return max_inflight_bytes;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+package algo.arctang.objects.ipfs;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * A dag-pb block and the UnixFS data it carries, encoded the way go-ipfs/kubo writes them (links first,
+ * then data) so the CIDs computed locally match the ones 'ipfs add' returns.
+ */
+public class PBNode {
+
+	public static final int UNIXFS_RAW = 0;
+	public static final int UNIXFS_DIRECTORY = 1;
+	public static final int UNIXFS_FILE = 2;
+	public static final int UNIXFS_METADATA = 3;
+	public static final int UNIXFS_SYMLINK = 4;
+	public static final int UNIXFS_HAMT_SHARD = 5;
+
+	public static class Link {
+
+		private final byte[] cid;
+		private final String name;
+		private final long tsize;
+
+		public Link(byte[] cid, String name, long tsize) {
+			super();
+			this.cid = cid;
+			this.name = name;
+			this.tsize = tsize;
+		}
+
+		public byte[] getCid() {
+			return cid;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getTsize() {
+			return tsize;
+		}
+
+	}
+
+	private final List<Link> links;
+	private final byte[] data;
+
+	public PBNode(List<Link> links, byte[] data) {
+		super();
+		this.links = links;
+		this.data = data;
+	}
+
+	public byte[] encode() {
+		ByteArrayOutputStream node = new ByteArrayOutputStream();
+		for (Link link: links) {
+			ByteArrayOutputStream pblink = new ByteArrayOutputStream();
+			writeBytes(pblink, 0x0a, link.getCid());
+			if (null != link.getName()) writeBytes(pblink, 0x12, link.getName().getBytes(StandardCharsets.UTF_8));
+			pblink.write(0x18);
+			CIDUtils.writeVarint(pblink, link.getTsize());
+			writeBytes(node, 0x12, pblink.toByteArray());
+		}
+		if (null != data) writeBytes(node, 0x0a, data);
+		return node.toByteArray();
+	}
+
+	public static PBNode decode(byte[] block) {
+		List<Link> links = new ArrayList<Link>();
+		byte[] data = null;
+		int[] pos = new int[1];
+		while (pos[0] < block.length) {
+			int tag = (int) CIDUtils.readVarint(block, pos);
+			if (tag == 0x12) {
+				byte[] pblink = readBytes(block, pos);
+				byte[] cid = null;
+				String name = null;
+				long tsize = 0L;
+				int[] lpos = new int[1];
+				while (lpos[0] < pblink.length) {
+					int ltag = (int) CIDUtils.readVarint(pblink, lpos);
+					if (ltag == 0x0a) {
+						cid = readBytes(pblink, lpos);
+					} else if (ltag == 0x12) {
+						name = new String(readBytes(pblink, lpos), StandardCharsets.UTF_8);
+					} else if (ltag == 0x18) {
+						tsize = CIDUtils.readVarint(pblink, lpos);
+					} else {
+						skip(pblink, lpos, ltag);
+					}
+				}
+				if (null == cid) throw new IllegalArgumentException("dag-pb link without a hash");
+				links.add(new Link(cid, name, tsize));
+			} else if (tag == 0x0a) {
+				data = readBytes(block, pos);
+			} else {
+				throw new IllegalArgumentException("Unexpected dag-pb field tag " + tag);
+			}
+		}
+		return new PBNode(links, data);
+	}
+
+	/**
+	 * UnixFS Data { Type, Data, filesize, blocksizes }, null fields are left out
+	 */
+	public static byte[] unixfs(int type, byte[] content, Long filesize, long[] blocksizes) {
+		ByteArrayOutputStream unixfs = new ByteArrayOutputStream();
+		unixfs.write(0x08);
+		CIDUtils.writeVarint(unixfs, type);
+		if ((null != content) && (content.length > 0)) writeBytes(unixfs, 0x12, content);
+		if (null != filesize) {
+			unixfs.write(0x18);
+			CIDUtils.writeVarint(unixfs, filesize);
+		}
+		if (null != blocksizes) {
+			for (long blocksize: blocksizes) {
+				unixfs.write(0x20);
+				CIDUtils.writeVarint(unixfs, blocksize);
+			}
+		}
+		return unixfs.toByteArray();
+	}
+
+	/**
+	 * Returns the UnixFS type of the node data, -1 if there is none
+	 */
+	public int getUnixfsType() {
+		if (null == data) return -1;
+		int[] pos = new int[1];
+		while (pos[0] < data.length) {
+			int tag = (int) CIDUtils.readVarint(data, pos);
+			if (tag == 0x08) return (int) CIDUtils.readVarint(data, pos);
+			skip(data, pos, tag);
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the file content carried in the UnixFS data of this node, an empty array if there is none
+	 */
+	public byte[] getUnixfsContent() {
+		if (null == data) return new byte[0];
+		int[] pos = new int[1];
+		while (pos[0] < data.length) {
+			int tag = (int) CIDUtils.readVarint(data, pos);
+			if (tag == 0x12) return readBytes(data, pos);
+			skip(data, pos, tag);
+		}
+		return new byte[0];
+	}
+
+	public List<Link> getLinks() {
+		return links;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	private static void writeBytes(ByteArrayOutputStream out, int tag, byte[] bytes) {
+		out.write(tag);
+		CIDUtils.writeVarint(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static byte[] readBytes(byte[] bytes, int[] pos) {
+		int length = (int) CIDUtils.readVarint(bytes, pos);
+		if ((length < 0) || (pos[0] + length > bytes.length)) throw new IllegalArgumentException("Truncated protobuf field");
+		byte[] value = Arrays.copyOfRange(bytes, pos[0], pos[0] + length);
+		pos[0] += length;
+		return value;
+	}
+
+	private static void skip(byte[] bytes, int[] pos, int tag) {
+		int wiretype = tag & 0x07;
+		if (wiretype == 0) {
+			CIDUtils.readVarint(bytes, pos);
+		} else if (wiretype == 2) {
+			readBytes(bytes, pos);
+		} else {
+			throw new IllegalArgumentException("Unsupported protobuf wire type " + wiretype);
+		}
+	}
+
+}
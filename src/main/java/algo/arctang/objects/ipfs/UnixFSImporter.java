@@ -0,0 +1,149 @@
+package algo.arctang.objects.ipfs;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import algo.arctang.utils.CIDUtils;
+
+/**
+ * Computes the CID 'ipfs add' would return for a file without storing any blocks, using the kubo defaults:
+ * fixed 256KiB chunks in a balanced DAG of at most 174 links per node. CIDv0 wraps every chunk in a UnixFS
+ * node, CIDv1 ('ipfs add --cid-version=1') uses raw leaves.
+ *
+ * Chunks are fed in order through write(). Only one pending node list per tree level is kept, so memory
+ * use stays small however large the file.
+ */
+public class UnixFSImporter {
+
+	public static final int CHUNK_SIZE = 262144;
+	public static final int MAX_LINKS = 174;
+
+	/**
+	 * CID, cumulative DAG size and content size of a node, what a parent needs to link to it
+	 */
+	public static class Node {
+
+		private final byte[] cid;
+		private final long tsize;
+		private final long filesize;
+
+		public Node(byte[] cid, long tsize, long filesize) {
+			super();
+			this.cid = cid;
+			this.tsize = tsize;
+			this.filesize = filesize;
+		}
+
+		public byte[] getCid() {
+			return cid;
+		}
+
+		public long getTsize() {
+			return tsize;
+		}
+
+		public long getFilesize() {
+			return filesize;
+		}
+
+	}
+
+	private final boolean cid_v1;
+	private final List<List<Node>> levels = new ArrayList<List<Node>>();
+	private long leaves = 0L;
+
+	public UnixFSImporter(boolean cid_v1) {
+		super();
+		this.cid_v1 = cid_v1;
+	}
+
+	/**
+	 * Adds the next chunk of the file, every chunk but the last must be CHUNK_SIZE bytes
+	 */
+	public void write(byte[] chunk, int length) {
+		byte[] content = Arrays.copyOf(chunk, length);
+		Node leaf;
+		if (cid_v1) {
+			leaf = new Node(CIDUtils.cidV1(CIDUtils.CODEC_RAW, sha256(content)), length, length);
+		} else {
+			// the first leaf doubles as the root of single chunk files so is a File node, the others are Raw
+			int type = (leaves == 0L) ? PBNode.UNIXFS_FILE : PBNode.UNIXFS_RAW;
+			byte[] block = new PBNode(new ArrayList<PBNode.Link>(), PBNode.unixfs(type, content, (long) length, null)).encode();
+			leaf = new Node(CIDUtils.cidV0(sha256(block)), block.length, length);
+		}
+		leaves++;
+		add(0, leaf);
+	}
+
+	/**
+	 * Returns the root node of the file
+	 */
+	public Node finish() {
+		if (leaves == 0L) write(new byte[0], 0);
+		for (int level=0; level<levels.size(); level++) {
+			List<Node> pending = levels.get(level);
+			if (pending.isEmpty()) continue;
+			// a lone node on the top level is the root
+			if ((level == levels.size() - 1) && (pending.size() == 1)) return pending.get(0);
+			Node parent = link(pending);
+			pending.clear();
+			add(level + 1, parent);
+		}
+		throw new IllegalStateException("No root node");
+	}
+
+	/**
+	 * Directory node over the given entries, which must be sorted by name
+	 */
+	public static Node directory(List<String> names, List<Node> entries, boolean cid_v1) {
+		List<PBNode.Link> links = new ArrayList<PBNode.Link>();
+		long tsize = 0L;
+		for (int i=0; i<names.size(); i++) {
+			links.add(new PBNode.Link(entries.get(i).getCid(), names.get(i), entries.get(i).getTsize()));
+			tsize += entries.get(i).getTsize();
+		}
+		byte[] block = new PBNode(links, PBNode.unixfs(PBNode.UNIXFS_DIRECTORY, null, null, null)).encode();
+		byte[] digest = sha256(block);
+		return new Node(cid_v1 ? CIDUtils.cidV1(CIDUtils.CODEC_DAG_PB, digest) : CIDUtils.cidV0(digest), tsize + block.length, 0L);
+	}
+
+	private void add(int level, Node node) {
+		while (levels.size() <= level) levels.add(new ArrayList<Node>());
+		List<Node> pending = levels.get(level);
+		pending.add(node);
+		if (pending.size() == MAX_LINKS) {
+			Node parent = link(pending);
+			pending.clear();
+			add(level + 1, parent);
+		}
+	}
+
+	private Node link(List<Node> children) {
+		List<PBNode.Link> links = new ArrayList<PBNode.Link>();
+		long[] blocksizes = new long[children.size()];
+		long filesize = 0L;
+		long tsize = 0L;
+		for (int i=0; i<children.size(); i++) {
+			Node child = children.get(i);
+			links.add(new PBNode.Link(child.getCid(), "", child.getTsize()));
+			blocksizes[i] = child.getFilesize();
+			filesize += child.getFilesize();
+			tsize += child.getTsize();
+		}
+		byte[] block = new PBNode(links, PBNode.unixfs(PBNode.UNIXFS_FILE, null, filesize, blocksizes)).encode();
+		byte[] digest = sha256(block);
+		return new Node(cid_v1 ? CIDUtils.cidV1(CIDUtils.CODEC_DAG_PB, digest) : CIDUtils.cidV0(digest), tsize + block.length, filesize);
+	}
+
+	private static byte[] sha256(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
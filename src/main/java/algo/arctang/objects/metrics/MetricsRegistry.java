@@ -0,0 +1,223 @@
+package algo.arctang.objects.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.enums.MetricsFormat;
+
+/**
+ * Process wide metrics of every remote algod, indexer and IPFS call. Remote calls are made from static
+ * utils and several threads, so there is a single registry rather than one threaded through every call
+ * site. Recording is lock free and always on, --metrics only decides whether and how it is reported.
+ */
+public class MetricsRegistry {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+
+	public static final String ALGOD = "algod";
+	public static final String INDEXER = "indexer";
+	public static final String IPFS = "ipfs";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final double[] QUANTILES = {0.5d, 0.9d, 0.99d, 0.999d};
+
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+	private final long started = System.currentTimeMillis();
+
+	public interface RemoteCall<T> {
+		T call() throws Exception;
+	}
+
+	public static MetricsRegistry get() {
+		return REGISTRY;
+	}
+
+	public OperationMetrics getOperation(String service, String operation) {
+		return operations.computeIfAbsent(service + " " + operation, key -> new OperationMetrics(service, operation));
+	}
+
+	/**
+	 * Times a call which reports failure by returning null (the forestfish convention) or an unsuccessful
+	 * algod/indexer response. A String result (ie a raw JSON response) counts its UTF-8 length as the bytes
+	 * received, other results are parsed by forestfish or algosdk and count 0 bytes.
+	 */
+	public <T> T time(String service, String operation, Supplier<T> call) {
+		long start = System.nanoTime();
+		boolean error = true;
+		long bytes = 0L;
+		try {
+			T result = call.get();
+			error = isError(result);
+			if (result instanceof String) bytes = ((String) result).getBytes(StandardCharsets.UTF_8).length;
+			return result;
+		} finally {
+			getOperation(service, operation).record(System.nanoTime() - start, bytes, error);
+		}
+	}
+
+	/**
+	 * Same as time() for calls which throw, ie algosdk execute()
+	 */
+	public <T> T execute(String service, String operation, RemoteCall<T> call) throws Exception {
+		return execute(service, operation, 0L, call);
+	}
+
+	/**
+	 * Same as execute() for a call which sends 'bytes' bytes, ie a raw transaction submission
+	 */
+	public <T> T execute(String service, String operation, long bytes, RemoteCall<T> call) throws Exception {
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			T result = call.call();
+			error = isError(result);
+			return result;
+		} finally {
+			getOperation(service, operation).record(System.nanoTime() - start, bytes, error);
+		}
+	}
+
+	public void record(String service, String operation, long elapsed_ns, long bytes, boolean error) {
+		getOperation(service, operation).record(elapsed_ns, bytes, error);
+	}
+
+	public List<OperationMetrics> getOperations() {
+		List<OperationMetrics> sorted = new ArrayList<OperationMetrics>(operations.values());
+		sorted.sort(Comparator.comparing(OperationMetrics::getService).thenComparing(OperationMetrics::getOperation));
+		return sorted;
+	}
+
+	public ObjectNode toJSON() {
+		ObjectNode json = MAPPER.createObjectNode();
+		json.put("uptime_ms", System.currentTimeMillis() - started);
+		ArrayNode list = json.putArray("operations");
+		for (OperationMetrics op: getOperations()) {
+			ObjectNode entry = MAPPER.createObjectNode();
+			entry.put("service", op.getService());
+			entry.put("operation", op.getOperation());
+			entry.put("calls", op.getCalls());
+			entry.put("errors", op.getErrors());
+			entry.put("bytes", op.getBytes());
+			ObjectNode latency = MAPPER.createObjectNode();
+			latency.put("mean", toMillis(Math.round(op.getLatency().getMean_us())));
+			latency.put("p50", toMillis(op.getLatency().getValueAtPercentile(50.0d)));
+			latency.put("p90", toMillis(op.getLatency().getValueAtPercentile(90.0d)));
+			latency.put("p99", toMillis(op.getLatency().getValueAtPercentile(99.0d)));
+			latency.put("p999", toMillis(op.getLatency().getValueAtPercentile(99.9d)));
+			latency.put("max", toMillis(op.getLatency().getMax_us()));
+			entry.set("latency_ms", latency);
+			list.add(entry);
+		}
+		return json;
+	}
+
+	/**
+	 * Prometheus text exposition format (version 0.0.4), latencies as summaries with fixed quantiles
+	 */
+	public String toPrometheus() {
+		List<OperationMetrics> ops = getOperations();
+		StringBuilder sb = new StringBuilder();
+		sb.append("# HELP arctang_remote_calls_total Remote calls by service and operation\n");
+		sb.append("# TYPE arctang_remote_calls_total counter\n");
+		for (OperationMetrics op: ops) sb.append("arctang_remote_calls_total").append(labels(op, null)).append(' ').append(op.getCalls()).append('\n');
+		sb.append("# HELP arctang_remote_errors_total Remote calls which failed or returned nothing\n");
+		sb.append("# TYPE arctang_remote_errors_total counter\n");
+		for (OperationMetrics op: ops) sb.append("arctang_remote_errors_total").append(labels(op, null)).append(' ').append(op.getErrors()).append('\n');
+		sb.append("# HELP arctang_remote_bytes_total Bytes transferred by remote calls\n");
+		sb.append("# TYPE arctang_remote_bytes_total counter\n");
+		for (OperationMetrics op: ops) sb.append("arctang_remote_bytes_total").append(labels(op, null)).append(' ').append(op.getBytes()).append('\n');
+		sb.append("# HELP arctang_remote_call_duration_seconds Latency of remote calls\n");
+		sb.append("# TYPE arctang_remote_call_duration_seconds summary\n");
+		for (OperationMetrics op: ops) {
+			for (double quantile: QUANTILES) {
+				sb.append("arctang_remote_call_duration_seconds").append(labels(op, String.valueOf(quantile))).append(' ')
+				.append(toSeconds(op.getLatency().getValueAtPercentile(100.0d * quantile))).append('\n');
+			}
+			sb.append("arctang_remote_call_duration_seconds_sum").append(labels(op, null)).append(' ').append(toSeconds(op.getLatency().getSum_us())).append('\n');
+			sb.append("arctang_remote_call_duration_seconds_count").append(labels(op, null)).append(' ').append(op.getLatency().getCount()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * One aligned line per operation, for the log
+	 */
+	public List<String> getSummary() {
+		List<String> lines = new ArrayList<String>();
+		lines.add(String.format(Locale.ROOT, "%-8s %-20s %8s %7s %12s %9s %9s %9s %9s %9s", "service", "operation", "calls", "errors", "bytes", "mean_ms", "p50_ms", "p90_ms", "p99_ms", "max_ms"));
+		for (OperationMetrics op: getOperations()) {
+			LatencyHistogram latency = op.getLatency();
+			lines.add(String.format(Locale.ROOT, "%-8s %-20s %8d %7d %12d %9.1f %9.1f %9.1f %9.1f %9.1f", op.getService(), op.getOperation(), op.getCalls(), op.getErrors(), op.getBytes(),
+					latency.getMean_us() / 1000.0d, toMillis(latency.getValueAtPercentile(50.0d)), toMillis(latency.getValueAtPercentile(90.0d)), toMillis(latency.getValueAtPercentile(99.0d)), toMillis(latency.getMax_us())));
+		}
+		return lines;
+	}
+
+	/**
+	 * Logs the summary, or prints the JSON / Prometheus report to stdout or to 'filename' when set
+	 */
+	public void report(MetricsFormat format, String filename) {
+		if (format == MetricsFormat.SUMMARY) {
+			LOGGER.info("Remote calls after " + (System.currentTimeMillis() - started) + " ms:");
+			for (String line: getSummary()) LOGGER.info(line);
+			return;
+		}
+		String report = (format == MetricsFormat.JSON) ? toJSON().toString() + "\n" : toPrometheus();
+		if (null == filename) {
+			System.out.print(report);
+			return;
+		}
+		try {
+			Path path = Paths.get(filename).toAbsolutePath();
+			Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+			Files.writeString(tmp, report, StandardCharsets.UTF_8);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.error("Unable to write the metrics to " + filename + ": " + e.getMessage());
+		}
+	}
+
+	private static boolean isError(Object result) {
+		if (null == result) return true;
+		return (result instanceof Response) && !((Response<?>) result).isSuccessful();
+	}
+
+	private static String labels(OperationMetrics op, String quantile) {
+		StringBuilder sb = new StringBuilder("{service=\"").append(escape(op.getService())).append("\",operation=\"").append(escape(op.getOperation())).append('"');
+		if (null != quantile) sb.append(",quantile=\"").append(quantile).append('"');
+		return sb.append('}').toString();
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static double toMillis(long us) {
+		return us / 1000.0d;
+	}
+
+	private static double toSeconds(long us) {
+		return us / 1000000.0d;
+	}
+
+}
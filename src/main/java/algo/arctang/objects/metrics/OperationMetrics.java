@@ -0,0 +1,54 @@
+package algo.arctang.objects.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, errors, bytes transferred and latencies of one type of remote operation, ie 'algod asa_params'
+ */
+public class OperationMetrics {
+
+	private final String service;
+	private final String operation;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public OperationMetrics(String service, String operation) {
+		super();
+		this.service = service;
+		this.operation = operation;
+	}
+
+	public void record(long elapsed_ns, long transferred, boolean error) {
+		calls.increment();
+		if (error) errors.increment();
+		if (transferred > 0L) bytes.add(transferred);
+		latency.record(elapsed_ns / 1000L);
+	}
+
+	public String getService() {
+		return service;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+}
@@ -0,0 +1,111 @@
+package algo.arctang.objects.mint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One row of a bulk MINT manifest, first as read (metadata reference and overrides) and once validated
+ * with the resolved ASA params
+ */
+public class MintItem {
+
+	private int row;
+	private String metadata;
+	private String mediadata_url;
+	private String asset_name;
+	private String unit_name;
+	private String url;
+	private byte[] metadata_hash;
+	private String note;
+	private String error;
+
+	public MintItem() {
+		super();
+	}
+
+	public MintItem(int row, String metadata, String asset_name, String unit_name, String mediadata_url) {
+		super();
+		this.row = row;
+		this.metadata = metadata;
+		this.asset_name = asset_name;
+		this.unit_name = unit_name;
+		this.mediadata_url = mediadata_url;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public void setRow(int row) {
+		this.row = row;
+	}
+
+	public String getMetadata() {
+		return metadata;
+	}
+
+	public void setMetadata(String metadata) {
+		this.metadata = metadata;
+	}
+
+	public String getMediadata_url() {
+		return mediadata_url;
+	}
+
+	public void setMediadata_url(String mediadata_url) {
+		this.mediadata_url = mediadata_url;
+	}
+
+	public String getAsset_name() {
+		return asset_name;
+	}
+
+	public void setAsset_name(String asset_name) {
+		this.asset_name = asset_name;
+	}
+
+	public String getUnit_name() {
+		return unit_name;
+	}
+
+	public void setUnit_name(String unit_name) {
+		this.unit_name = unit_name;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public byte[] getMetadata_hash() {
+		return metadata_hash;
+	}
+
+	public void setMetadata_hash(byte[] metadata_hash) {
+		this.metadata_hash = metadata_hash;
+	}
+
+	public String getNote() {
+		return note;
+	}
+
+	public void setNote(String note) {
+		this.note = note;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	@JsonIgnore
+	public boolean isValid() {
+		return null == error;
+	}
+
+}
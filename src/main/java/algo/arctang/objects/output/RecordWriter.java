@@ -0,0 +1,108 @@
+package algo.arctang.objects.output;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.enums.OutputFormat;
+import algo.arctang.utils.CSVUtils;
+
+/**
+ * Writes one machine readable record per result as soon as it is available, either a compact JSON
+ * line or a CSV row. Nothing is kept once a record is written, the output is flushed every
+ * FLUSH_RECORDS records and on close. The CSV header is taken from the fields of the first record,
+ * nested values end up as compact JSON in their cell.
+ *
+ * Safe to call from several threads, close() flushes but leaves the underlying stream open. A failed
+ * write is thrown as an UncheckedIOException so records can be written from the result callbacks.
+ */
+public class RecordWriter implements Closeable {
+
+	public static final int FLUSH_RECORDS = 256;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final OutputFormat format;
+	private final Writer out;
+	private List<String> columns;
+	private int pending = 0;
+	private long count = 0L;
+
+	public RecordWriter(OutputFormat format, OutputStream out) {
+		super();
+		this.format = format;
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+	}
+
+	public static ObjectNode createRecord() {
+		return MAPPER.createObjectNode();
+	}
+
+	/**
+	 * Writes a POJO or a JsonNode as one record
+	 */
+	public synchronized void write(Object record) {
+		JsonNode node = (record instanceof JsonNode) ? (JsonNode) record : MAPPER.valueToTree(record);
+		try {
+			if (format == OutputFormat.CSV) {
+				if (null == columns) {
+					columns = new ArrayList<String>();
+					Iterator<String> names = node.fieldNames();
+					while (names.hasNext()) columns.add(names.next());
+					out.write(CSVUtils.toLine(columns.toArray()));
+					out.write('\n');
+				}
+				out.write(toCSVLine(node, columns));
+			} else {
+				out.write(MAPPER.writeValueAsString(node));
+			}
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		count++;
+		if (++pending >= FLUSH_RECORDS) flush();
+	}
+
+	public synchronized void flush() {
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		pending = 0;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	static String toCSVLine(JsonNode node, List<String> columns) {
+		Object[] cells = new Object[columns.size()];
+		for (int i=0; i<cells.length; i++) {
+			JsonNode value = node.get(columns.get(i));
+			if ((null == value) || value.isNull()) cells[i] = null;
+			else if (value.isContainerNode()) cells[i] = value.toString();
+			else cells[i] = value.asText();
+		}
+		return CSVUtils.toLine(cells);
+	}
+
+}
@@ -0,0 +1,194 @@
+package algo.arctang.objects.rarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.utils.TraitUtils;
+
+/**
+ * Trait rarity of a collection. add() is called from the metadata resolution threads, each thread counts
+ * into its own primitive arrays indexed by trait id and keeps the trait ids of its assets in flat int
+ * arrays, so no lock is taken per trait and the metadata JSON is dropped as soon as it is parsed. The
+ * per thread counts are merged once every asset is in.
+ *
+ * The score of an asset is the sum over all trait keys of N / (number of assets sharing its value),
+ * where an asset without the key counts as having the value 'none' for it. Rank 1 is the rarest asset,
+ * equal scores share a rank.
+ */
+public class RarityEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RarityEngine.class);
+
+	private static final char SEPARATOR = '\u0000';
+
+	private final ConcurrentHashMap<String, Integer> trait_ids = new ConcurrentHashMap<String, Integer>();
+	private final ConcurrentHashMap<String, Integer> key_ids = new ConcurrentHashMap<String, Integer>();
+	private final AtomicInteger next_trait_id = new AtomicInteger();
+	private final AtomicInteger next_key_id = new AtomicInteger();
+	private final LongAdder skipped = new LongAdder();
+
+	private final List<Partial> partials = Collections.synchronizedList(new ArrayList<Partial>());
+	private final ThreadLocal<Partial> partial = ThreadLocal.withInitial(() -> {
+		Partial p = new Partial();
+		partials.add(p);
+		return p;
+	});
+
+	/**
+	 * Counts of the assets seen by one thread
+	 */
+	private static class Partial {
+		private int[] trait_counts = new int[64];
+		private int[] key_counts = new int[16];
+		private long[] assetids = new long[256];
+		// the trait ids of asset i are traits[offsets[i] .. offsets[i + 1]]
+		private int[] offsets = new int[257];
+		private int[] traits = new int[1024];
+		private int size = 0;
+
+		private void add(long assetid, int[] asset_traits, int trait_count, int[] asset_keys, int key_count) {
+			for (int i=0; i<trait_count; i++) {
+				if (asset_traits[i] >= trait_counts.length) trait_counts = Arrays.copyOf(trait_counts, Math.max(trait_counts.length * 2, asset_traits[i] + 1));
+				trait_counts[asset_traits[i]]++;
+			}
+			for (int i=0; i<key_count; i++) {
+				if (asset_keys[i] >= key_counts.length) key_counts = Arrays.copyOf(key_counts, Math.max(key_counts.length * 2, asset_keys[i] + 1));
+				key_counts[asset_keys[i]]++;
+			}
+			if (size == assetids.length) {
+				assetids = Arrays.copyOf(assetids, size * 2);
+				offsets = Arrays.copyOf(offsets, size * 2 + 1);
+			}
+			int offset = offsets[size];
+			if (offset + trait_count > traits.length) traits = Arrays.copyOf(traits, Math.max(traits.length * 2, offset + trait_count));
+			System.arraycopy(asset_traits, 0, traits, offset, trait_count);
+			assetids[size] = assetid;
+			offsets[size + 1] = offset + trait_count;
+			size++;
+		}
+	}
+
+	/**
+	 * Adds an asset with its metadata, safe to call from several threads. Assets whose metadata is not a
+	 * JSON object are skipped.
+	 */
+	public void add(Long assetid, String metajson) {
+		ArrayList<String> traits = new ArrayList<String>();
+		if (!TraitUtils.getTraits(metajson, (key, value) -> traits.add(key + SEPARATOR + value))) {
+			LOGGER.warn("Skipping assetID " + assetid + ", its metadata is not JSON");
+			skipped.increment();
+			return;
+		}
+
+		int[] asset_traits = new int[traits.size()];
+		int[] asset_keys = new int[traits.size()];
+		for (int i=0; i<traits.size(); i++) {
+			String trait = traits.get(i);
+			asset_traits[i] = trait_ids.computeIfAbsent(trait, t -> next_trait_id.getAndIncrement());
+			asset_keys[i] = key_ids.computeIfAbsent(trait.substring(0, trait.indexOf(SEPARATOR)), k -> next_key_id.getAndIncrement());
+		}
+		// an asset listing the same trait twice (ie in an array) counts once
+		Arrays.sort(asset_traits);
+		Arrays.sort(asset_keys);
+		int trait_count = distinct(asset_traits);
+		int key_count = distinct(asset_keys);
+
+		partial.get().add(assetid, asset_traits, trait_count, asset_keys, key_count);
+	}
+
+	/**
+	 * Merges the per thread counts and hands out the result of every asset in rank order
+	 */
+	public void score(Consumer<RarityResult> consumer) {
+		int trait_total = next_trait_id.get();
+		int key_total = next_key_id.get();
+		int[] trait_counts = new int[trait_total];
+		int[] key_counts = new int[key_total];
+		int assets = 0;
+		for (Partial p: partials) {
+			for (int t=0; t<Math.min(trait_total, p.trait_counts.length); t++) trait_counts[t] += p.trait_counts[t];
+			for (int k=0; k<Math.min(key_total, p.key_counts.length); k++) key_counts[k] += p.key_counts[k];
+			assets += p.size;
+		}
+		if (assets == 0) return;
+
+		int[] trait_key = new int[trait_total];
+		for (Map.Entry<String, Integer> entry: trait_ids.entrySet()) {
+			String trait = entry.getKey();
+			trait_key[entry.getValue()] = key_ids.get(trait.substring(0, trait.indexOf(SEPARATOR)));
+		}
+
+		// every asset starts with the 'none' score of every key and trades it for its value for the keys it has
+		double n = assets;
+		double[] none_score = new double[key_total];
+		double base = 0.0d;
+		for (int k=0; k<key_total; k++) {
+			if (key_counts[k] < assets) none_score[k] = n / (assets - key_counts[k]);
+			base += none_score[k];
+		}
+
+		long[] assetids = new long[assets];
+		double[] scores = new double[assets];
+		int[] counts = new int[assets];
+		int[] seen = new int[key_total];
+		Arrays.fill(seen, -1);
+		int a = 0;
+		for (Partial p: partials) {
+			for (int i=0; i<p.size; i++, a++) {
+				double score = base;
+				for (int j=p.offsets[i]; j<p.offsets[i + 1]; j++) {
+					int trait = p.traits[j];
+					score += n / trait_counts[trait];
+					int key = trait_key[trait];
+					if (seen[key] != a) {
+						seen[key] = a;
+						score -= none_score[key];
+					}
+				}
+				assetids[a] = p.assetids[i];
+				scores[a] = score;
+				counts[a] = p.offsets[i + 1] - p.offsets[i];
+			}
+		}
+
+		Integer[] order = new Integer[assets];
+		for (int i=0; i<assets; i++) order[i] = i;
+		Arrays.sort(order, (x, y) -> (scores[x] != scores[y]) ? Double.compare(scores[y], scores[x]) : Long.compare(assetids[x], assetids[y]));
+		int rank = 0;
+		for (int i=0; i<assets; i++) {
+			if ((i == 0) || (scores[order[i]] != scores[order[i - 1]])) rank = i + 1;
+			int x = order[i];
+			consumer.accept(new RarityResult(assetids[x], rank, Math.round(scores[x] * 10000.0d) / 10000.0d, counts[x]));
+		}
+	}
+
+	public int getTraitCount() {
+		return next_trait_id.get();
+	}
+
+	public long getSkipped() {
+		return skipped.sum();
+	}
+
+	/**
+	 * Removes repeated values of a sorted array in place, returns the number of distinct values
+	 */
+	private static int distinct(int[] sorted) {
+		int count = 0;
+		for (int i=0; i<sorted.length; i++) {
+			if ((count == 0) || (sorted[i] != sorted[count - 1])) sorted[count++] = sorted[i];
+		}
+		return count;
+	}
+
+}
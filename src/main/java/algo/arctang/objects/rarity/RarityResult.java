@@ -0,0 +1,54 @@
+package algo.arctang.objects.rarity;
+
+public class RarityResult {
+
+	private Long assetid;
+	private int rank;
+	private double score;
+	private int trait_count;
+
+	public RarityResult() {
+		super();
+	}
+
+	public RarityResult(Long assetid, int rank, double score, int trait_count) {
+		super();
+		this.assetid = assetid;
+		this.rank = rank;
+		this.score = score;
+		this.trait_count = trait_count;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	public void setRank(int rank) {
+		this.rank = rank;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public void setScore(double score) {
+		this.score = score;
+	}
+
+	public int getTrait_count() {
+		return trait_count;
+	}
+
+	public void setTrait_count(int trait_count) {
+		this.trait_count = trait_count;
+	}
+
+}
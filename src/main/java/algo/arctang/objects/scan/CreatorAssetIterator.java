@@ -0,0 +1,135 @@
+package algo.arctang.objects.scan;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.Asset;
+import com.algorand.algosdk.v2.client.model.AssetsResponse;
+
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+
+/**
+ * Walks the indexer created-assets pages of a creator address. As soon as page N is handed out the request
+ * for page N+1 is started in the background, so at most two pages are held in memory regardless of the
+ * size of the collection and the indexer round trip overlaps with processing of the current page.
+ *
+ * A page which still fails after MAX_ATTEMPTS is not the end of the collection: hasNext() throws an
+ * IllegalStateException from then on, and isComplete() tells a full listing from one cut short.
+ */
+public class CreatorAssetIterator implements Iterator<Asset>, AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CreatorAssetIterator.class);
+
+	public static final long PAGE_SIZE = 1000L;
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final AVMBlockChainConnector connector;
+	private final String creator;
+	private final ExecutorService prefetcher;
+
+	private Iterator<Asset> page = null;
+	private CompletableFuture<AssetsResponse> pending = null;
+	private boolean last_page = false;
+	private boolean complete = false;
+	private boolean failed = false;
+	private long pages = 0L;
+
+	public CreatorAssetIterator(AVMBlockChainConnector connector, String creator) {
+		super();
+		this.connector = connector;
+		this.creator = creator;
+		this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "creator-scan-prefetch");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (failed) throw new IllegalStateException("Unable to list all assets created by " + creator + ", gave up after " + pages + " pages");
+		while (((null == page) || !page.hasNext()) && !last_page) advance();
+		return (null != page) && page.hasNext();
+	}
+
+	@Override
+	public Asset next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		return page.next();
+	}
+
+	public long getPages() {
+		return pages;
+	}
+
+	/**
+	 * True once the last page of the creator has been read
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public void close() {
+		last_page = true;
+		if (null != pending) pending.cancel(true);
+		prefetcher.shutdownNow();
+	}
+
+	private void advance() {
+		if (null == pending) pending = fetchPageAsync(null);
+		AssetsResponse body = pending.join();
+		pending = null;
+		if (null == body) {
+			failed = true;
+			close();
+			throw new IllegalStateException("Unable to list all assets created by " + creator + ", gave up after " + pages + " pages");
+		}
+		pages++;
+		page = body.assets.iterator();
+		if ((null == body.nextToken) || body.nextToken.isEmpty() || body.assets.isEmpty()) {
+			complete = true;
+			close();
+			return;
+		}
+		pending = fetchPageAsync(body.nextToken);
+	}
+
+	private CompletableFuture<AssetsResponse> fetchPageAsync(String next_token) {
+		return CompletableFuture.supplyAsync(() -> fetchPage(next_token), prefetcher);
+	}
+
+	private AssetsResponse fetchPage(String next_token) {
+		for (int attempt=1; attempt<=MAX_ATTEMPTS; attempt++) {
+			try {
+				Response<AssetsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "creator_assets", () -> connector.getIndexer_instance().searchForAssets()
+						.creator(creator)
+						.limit(PAGE_SIZE)
+						.next(next_token)
+						.execute());
+				if (response.isSuccessful()) return response.body();
+				LOGGER.warn("Unable to list assets created by " + creator + " (attempt " + attempt + "): " + response.message());
+			} catch (Exception e) {
+				LOGGER.warn("Unable to list assets created by " + creator + " (attempt " + attempt + "): " + e.getMessage());
+			}
+			try {
+				Thread.sleep(1000L * attempt);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		LOGGER.error("Giving up listing assets created by " + creator + " after " + pages + " pages");
+		return null;
+	}
+
+}
@@ -0,0 +1,100 @@
+package algo.arctang.objects.scan;
+
+import java.math.BigInteger;
+
+import com.algorand.algosdk.v2.client.model.Asset;
+
+public class ScannedAsset {
+
+	private Long assetid;
+	private String name;
+	private String unit_name;
+	private String url;
+	private BigInteger total;
+	private Long decimals;
+	private Long created_at_round;
+	private boolean deleted;
+
+	public ScannedAsset() {
+		super();
+	}
+
+	public ScannedAsset(Asset asset) {
+		super();
+		this.assetid = asset.index;
+		this.created_at_round = asset.createdAtRound;
+		this.deleted = Boolean.TRUE.equals(asset.deleted);
+		if (null != asset.params) {
+			this.name = asset.params.name;
+			this.unit_name = asset.params.unitName;
+			this.url = asset.params.url;
+			this.total = asset.params.total;
+			this.decimals = asset.params.decimals;
+		}
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getUnit_name() {
+		return unit_name;
+	}
+
+	public void setUnit_name(String unit_name) {
+		this.unit_name = unit_name;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public BigInteger getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigInteger total) {
+		this.total = total;
+	}
+
+	public Long getDecimals() {
+		return decimals;
+	}
+
+	public void setDecimals(Long decimals) {
+		this.decimals = decimals;
+	}
+
+	public Long getCreated_at_round() {
+		return created_at_round;
+	}
+
+	public void setCreated_at_round(Long created_at_round) {
+		this.created_at_round = created_at_round;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public void setDeleted(boolean deleted) {
+		this.deleted = deleted;
+	}
+
+}
@@ -0,0 +1,232 @@
+package algo.arctang.objects.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import algo.arctang.objects.ARCAssetHolding;
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.verify.VerifyPipeline;
+import algo.arctang.utils.ARCUtils;
+import algo.arctang.utils.ListUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.AlgoLocalWallet;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * Long running HTTP front for the read-only actions, sharing one connector, the ASA params cache and
+ * the IPFS blob store across all requests. Requests are handled concurrently on a fixed pool.
+ *
+ *   GET /health
+ *   GET /query/raw?assetid=N
+ *   GET /query/parsed?assetid=N
+ *   GET /query/metadata?assetid=N
+ *   GET /query/imageurl?assetid=N
+ *   GET /verify?assetid=N
+ *   GET /list?address=A or /list?walletname=W
+ */
+public class ArctangServer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArctangServer.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final AVMBlockChainConnector connector;
+	private final ASAParamsCache asa_cache;
+	private final CachedIPFSConnector ipfs_connector;
+	private final VerifyPipeline verifier;
+	private final int concurrency;
+	private final InetSocketAddress bind_address;
+	private final int threads;
+
+	// wallet name -> address, wallets are read from disk once
+	private final ConcurrentHashMap<String, String> wallet_addresses = new ConcurrentHashMap<String, String>();
+
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public ArctangServer(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, int concurrency, InetSocketAddress bind_address, int threads) {
+		super();
+		this.connector = connector;
+		this.asa_cache = asa_cache;
+		this.ipfs_connector = ipfs_connector;
+		this.concurrency = concurrency;
+		this.bind_address = bind_address;
+		this.threads = threads;
+		this.verifier = new VerifyPipeline(connector, asa_cache, ipfs_connector, VerifyPipeline.getDefaultStageConcurrency(concurrency), 1);
+	}
+
+	public void start() throws IOException {
+		server = HttpServer.create(bind_address, 0);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/health", exchange -> handle(exchange, params -> {
+			ObjectNode health = MAPPER.createObjectNode();
+			health.put("status", "ok");
+			return health.toString();
+		}));
+		server.createContext("/query/raw", exchange -> handle(exchange, params -> getASAJSON(getAssetid(params))));
+		server.createContext("/query/parsed", exchange -> handle(exchange, params -> {
+			Long assetid = getAssetid(params);
+			String asa_json = getASAJSON(assetid);
+			ObjectNode parsed = MAPPER.createObjectNode();
+			parsed.put("assetid", assetid);
+			parsed.put("standard", ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json).toString());
+			parsed.set("asa", MAPPER.readTree(asa_json));
+			return parsed.toString();
+		}));
+		server.createContext("/query/metadata", exchange -> handle(exchange, params -> {
+			Long assetid = getAssetid(params);
+			String asa_json = getASAJSON(assetid);
+			AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+			String metadata = ARCUtils.getARCMetadataFromASAJSON(connector, ipfs_connector, assetid, asa_json, standard);
+			if ((null == metadata) || metadata.isEmpty()) throw new ServerException(404, "No metadata found for assetid " + assetid);
+			return metadata;
+		}));
+		server.createContext("/query/imageurl", exchange -> handle(exchange, params -> {
+			Long assetid = getAssetid(params);
+			ObjectNode imageurl = MAPPER.createObjectNode();
+			imageurl.put("assetid", assetid);
+			imageurl.put("imageurl", MetricsRegistry.get().time(MetricsRegistry.ALGOD, "imageurl", () -> AVMUtils.getARCImageURL(connector, assetid)));
+			return imageurl.toString();
+		}));
+		server.createContext("/verify", exchange -> handle(exchange, params -> JSONUtils.createJSONFromPOJO(verifier.verify(getAssetid(params)))));
+		server.createContext("/list", exchange -> handle(exchange, params -> {
+			String address = params.get("address");
+			if ((null == address) && (null != params.get("walletname"))) address = getWalletAddress(params.get("walletname"));
+			if (null == address) throw new ServerException(400, "Need to provide address or walletname");
+			ArrayList<ARCAssetHolding> holdings = new ArrayList<ARCAssetHolding>();
+			ListUtils.getARCAssetHoldings(connector, asa_cache, address, concurrency, holding -> holdings.add(holding));
+			return JSONUtils.createJSONFromPOJO(holdings);
+		}));
+		// Prometheus scrape endpoint for the remote calls made while serving
+		server.createContext("/metrics", exchange -> handle(exchange, "text/plain; version=0.0.4", params -> MetricsRegistry.get().toPrometheus()));
+		server.start();
+		LOGGER.info("arctang server listening on " + server.getAddress());
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		if (null != server) server.stop(1);
+		if (null != executor) executor.shutdownNow();
+		stopped.countDown();
+	}
+
+	/**
+	 * Blocks until stop() has been called
+	 */
+	public void join() {
+		try {
+			stopped.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private interface Endpoint {
+		String respond(HashMap<String, String> params) throws Exception;
+	}
+
+	private static class ServerException extends Exception {
+		private static final long serialVersionUID = 1L;
+		private final int status;
+
+		ServerException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+
+	private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+		handle(exchange, "application/json", endpoint);
+	}
+
+	private void handle(HttpExchange exchange, String content_type, Endpoint endpoint) throws IOException {
+		int status = 200;
+		String body;
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) throw new ServerException(405, "Only GET is supported");
+			body = endpoint.respond(getQueryParams(exchange.getRequestURI().getRawQuery()));
+		} catch (ServerException e) {
+			status = e.status;
+			body = error(e.getMessage());
+		} catch (Exception e) {
+			LOGGER.warn("Request " + exchange.getRequestURI() + " failed: " + e.getMessage());
+			status = 500;
+			body = error(e.getMessage());
+		}
+		byte[] response = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", (status == 200) ? content_type : "application/json");
+		exchange.sendResponseHeaders(status, response.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(response);
+		}
+	}
+
+	private static String error(String message) {
+		ObjectNode error = MAPPER.createObjectNode();
+		error.put("error", (null == message) ? "unknown error" : message);
+		return error.toString();
+	}
+
+	private static HashMap<String, String> getQueryParams(String query) {
+		HashMap<String, String> params = new HashMap<String, String>();
+		if ((null == query) || query.isEmpty()) return params;
+		for (String pair: query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq <= 0) continue;
+			params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+	private static Long getAssetid(HashMap<String, String> params) throws ServerException {
+		if (null == params.get("assetid")) throw new ServerException(400, "Need to provide assetid");
+		try {
+			return Long.parseLong(params.get("assetid"));
+		} catch (NumberFormatException e) {
+			throw new ServerException(400, "Invalid assetid " + params.get("assetid"));
+		}
+	}
+
+	private String getASAJSON(Long assetid) throws ServerException {
+		String asa_json = asa_cache.getASARawJSONResponse(connector, assetid);
+		if ((null == asa_json) || asa_json.isEmpty()) throw new ServerException(404, "Unable to find assetid " + assetid);
+		return asa_json;
+	}
+
+	private String getWalletAddress(String walletname) throws ServerException {
+		String address = wallet_addresses.computeIfAbsent(walletname, name -> {
+			AlgoLocalWallet wallet = AVMUtils.getWalletWithName(name);
+			return (null == wallet) ? null : wallet.getAddress();
+		});
+		if (null == address) throw new ServerException(404, "Unable to find wallet with name " + walletname);
+		return address;
+	}
+
+}
@@ -0,0 +1,341 @@
+package algo.arctang.objects.traits;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index of the traits of a collection: for every trait key=value the sorted list of assets
+ * having it. Keys and values are interned into two string tables, an asset is its position in the sorted
+ * assetid table, so a posting list is a sorted int[] and a filter on several traits is an intersection
+ * of those.
+ *
+ * Stored as a small binary file: the tables, then each posting list delta encoded as varints, which is
+ * a byte or two per entry for any collection minted in sequence. The header holds the indexer round the
+ * index is current up to, so it can be brought up to date from the assetconfig transactions after it.
+ */
+public class TraitIndex {
+
+	private static final int MAGIC = 0x41544958; // ATIX
+	private static final int VERSION = 2;
+
+	private final long[] assetids;
+	private final String[] keys;
+	private final String[] values;
+	// (key << 32 | value) -> positions into assetids
+	private final HashMap<Long, int[]> postings;
+	private final long built_ms;
+	private final long round;
+
+	private TraitIndex(long[] assetids, String[] keys, String[] values, HashMap<Long, int[]> postings, long built_ms, long round) {
+		super();
+		this.assetids = assetids;
+		this.keys = keys;
+		this.values = values;
+		this.postings = postings;
+		this.built_ms = built_ms;
+		this.round = round;
+	}
+
+	/**
+	 * Collects the traits of a collection, add() may be called from several threads
+	 */
+	public static class Builder {
+
+		private final HashMap<String, String> interned = new HashMap<String, String>();
+		private final TreeMap<String, TreeMap<String, AssetList>> traits = new TreeMap<String, TreeMap<String, AssetList>>();
+		private final ArrayList<Long> assetids = new ArrayList<Long>();
+		private long built_ms = 0L;
+		private long round = 0L;
+
+		public synchronized void add(Long assetid, String key, String value) {
+			traits.computeIfAbsent(intern(key), k -> new TreeMap<String, AssetList>()).computeIfAbsent(intern(value), v -> new AssetList()).add(assetid);
+		}
+
+		/**
+		 * Registers an asset even if it has no traits, so it counts towards the collection
+		 */
+		public synchronized void addAsset(Long assetid) {
+			assetids.add(assetid);
+		}
+
+		/**
+		 * The indexer round the assets were read at, taken before they were listed
+		 */
+		public synchronized void setRound(long round) {
+			this.round = round;
+		}
+
+		public synchronized TraitIndex build() {
+			long[] sorted = assetids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+			String[] key_table = traits.keySet().toArray(new String[0]);
+			TreeMap<String, Integer> value_ids = new TreeMap<String, Integer>();
+			for (TreeMap<String, AssetList> key_values: traits.values()) {
+				for (String value: key_values.keySet()) value_ids.put(value, 0);
+			}
+			String[] value_table = value_ids.keySet().toArray(new String[0]);
+			for (int i=0; i<value_table.length; i++) value_ids.put(value_table[i], i);
+
+			HashMap<Long, int[]> postings = new HashMap<Long, int[]>();
+			for (int k=0; k<key_table.length; k++) {
+				for (Map.Entry<String, AssetList> entry: traits.get(key_table[k]).entrySet()) {
+					AssetList list = entry.getValue();
+					int[] positions = new int[list.size];
+					int count = 0;
+					for (int i=0; i<list.size; i++) {
+						int position = Arrays.binarySearch(sorted, list.assetids[i]);
+						if (position >= 0) positions[count++] = position;
+					}
+					// an asset listing the same trait twice (ie in an array) is posted once
+					postings.put(toTrait(k, value_ids.get(entry.getKey())), Arrays.stream(positions, 0, count).sorted().distinct().toArray());
+				}
+			}
+			return new TraitIndex(sorted, key_table, value_table, postings, (built_ms == 0L) ? System.currentTimeMillis() : built_ms, round);
+		}
+
+		private String intern(String s) {
+			String existing = interned.putIfAbsent(s, s);
+			return (null == existing) ? s : existing;
+		}
+
+	}
+
+	private static class AssetList {
+		private long[] assetids = new long[4];
+		private int size = 0;
+
+		private void add(long assetid) {
+			if (size == assetids.length) assetids = Arrays.copyOf(assetids, size * 2);
+			assetids[size++] = assetid;
+		}
+	}
+
+	/**
+	 * The sorted assetids having every trait, each filter in the form key=value
+	 */
+	public long[] query(List<String> filters) {
+		List<int[]> lists = new ArrayList<int[]>();
+		for (String filter: filters) {
+			int eq = filter.indexOf('=');
+			if (eq < 0) throw new IllegalArgumentException("Invalid trait filter " + filter + ", expected key=value");
+			int[] list = getPostings(filter.substring(0, eq).trim(), filter.substring(eq + 1).trim());
+			if (null == list) return new long[0];
+			lists.add(list);
+		}
+		if (lists.isEmpty()) return assetids.clone();
+
+		// intersect starting from the rarest trait, the result only shrinks
+		lists.sort((a, b) -> Integer.compare(a.length, b.length));
+		int[] result = lists.get(0);
+		for (int i=1; i<lists.size(); i++) result = intersect(result, lists.get(i));
+
+		long[] matches = new long[result.length];
+		for (int i=0; i<result.length; i++) matches[i] = assetids[result[i]];
+		return matches;
+	}
+
+	/**
+	 * Number of assets per value of the key, in value order
+	 */
+	public TreeMap<String, Integer> getValueCounts(String key) {
+		TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+		int k = Arrays.binarySearch(keys, key);
+		if (k < 0) return counts;
+		for (int v=0; v<values.length; v++) {
+			int[] list = postings.get(toTrait(k, v));
+			if (null != list) counts.put(values[v], list.length);
+		}
+		return counts;
+	}
+
+	public List<String> getKeys() {
+		return Arrays.asList(keys);
+	}
+
+	public int getAssetCount() {
+		return assetids.length;
+	}
+
+	public int getTraitCount() {
+		return postings.size();
+	}
+
+	public long getBuilt_ms() {
+		return built_ms;
+	}
+
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * The same index marked as current up to a later round
+	 */
+	public TraitIndex withRound(long round) {
+		return new TraitIndex(assetids, keys, values, postings, built_ms, round);
+	}
+
+	public boolean contains(long assetid) {
+		return Arrays.binarySearch(assetids, assetid) >= 0;
+	}
+
+	/**
+	 * A builder holding this index without the 'excluded' assets, to add their current traits back. The
+	 * index keeps its build time, the round is set by the caller.
+	 */
+	public Builder toBuilder(Set<Long> excluded) {
+		Builder builder = new Builder();
+		builder.built_ms = built_ms;
+		for (long assetid: assetids) {
+			if (!excluded.contains(assetid)) builder.addAsset(assetid);
+		}
+		for (Map.Entry<Long, int[]> entry: postings.entrySet()) {
+			String key = keys[(int) (entry.getKey() >>> 32)];
+			String value = values[(int) (entry.getKey() & 0xffffffffL)];
+			for (int position: entry.getValue()) {
+				if (!excluded.contains(assetids[position])) builder.add(assetids[position], key, value);
+			}
+		}
+		return builder;
+	}
+
+	private int[] getPostings(String key, String value) {
+		int k = Arrays.binarySearch(keys, key);
+		int v = Arrays.binarySearch(values, value);
+		if ((k < 0) || (v < 0)) return null;
+		return postings.get(toTrait(k, v));
+	}
+
+	static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < a.length) && (j < b.length)) {
+			if (a[i] < b[j]) i++;
+			else if (a[i] > b[j]) j++;
+			else {
+				result[count++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	private static long toTrait(int key, int value) {
+		return ((long) key << 32) | (value & 0xffffffffL);
+	}
+
+	public void write(Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(built_ms);
+			out.writeLong(round);
+			writeVarLong(out, assetids.length);
+			long previous = 0L;
+			for (long assetid: assetids) {
+				writeVarLong(out, assetid - previous);
+				previous = assetid;
+			}
+			writeStrings(out, keys);
+			writeStrings(out, values);
+			writeVarLong(out, postings.size());
+			for (Map.Entry<Long, int[]> entry: postings.entrySet()) {
+				writeVarLong(out, entry.getKey() >>> 32);
+				writeVarLong(out, entry.getKey() & 0xffffffffL);
+				writeVarLong(out, entry.getValue().length);
+				int last = 0;
+				for (int position: entry.getValue()) {
+					writeVarLong(out, position - last);
+					last = position;
+				}
+			}
+		}
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public static TraitIndex read(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) throw new IOException("Not a trait index: " + path);
+			long built_ms = in.readLong();
+			long round = in.readLong();
+			long[] assetids = new long[(int) readVarLong(in)];
+			long previous = 0L;
+			for (int i=0; i<assetids.length; i++) {
+				previous += readVarLong(in);
+				assetids[i] = previous;
+			}
+			String[] keys = readStrings(in);
+			String[] values = readStrings(in);
+			int size = (int) readVarLong(in);
+			HashMap<Long, int[]> postings = new HashMap<Long, int[]>(size * 2);
+			for (int p=0; p<size; p++) {
+				int key = (int) readVarLong(in);
+				int value = (int) readVarLong(in);
+				int[] list = new int[(int) readVarLong(in)];
+				int last = 0;
+				for (int i=0; i<list.length; i++) {
+					last += (int) readVarLong(in);
+					list[i] = last;
+				}
+				postings.put(toTrait(key, value), list);
+			}
+			return new TraitIndex(assetids, keys, values, postings, built_ms, round);
+		}
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		writeVarLong(out, strings.length);
+		for (String s: strings) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(out, bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings = new String[(int) readVarLong(in)];
+		for (int i=0; i<strings.length; i++) {
+			byte[] bytes = new byte[(int) readVarLong(in)];
+			in.readFully(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return strings;
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7fL) != 0L) {
+			out.writeByte((int) ((value & 0x7fL) | 0x80L));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0L;
+		for (int shift=0; shift<64; shift+=7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed varint");
+	}
+
+}
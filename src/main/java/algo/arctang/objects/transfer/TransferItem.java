@@ -0,0 +1,107 @@
+package algo.arctang.objects.transfer;
+
+import java.math.BigInteger;
+
+import algo.arctang.enums.TransferStatus;
+
+/**
+ * One row of a bulk TRANSFER file and its outcome
+ */
+public class TransferItem {
+
+	private int row;
+	private String receiver;
+	private Long assetid;
+	private BigInteger amount;
+	private TransferStatus status = TransferStatus.PENDING;
+	private String txid;
+	private Long confirmed_round;
+	private String reason;
+
+	public TransferItem() {
+		super();
+	}
+
+	public TransferItem(int row, String receiver, Long assetid, BigInteger amount) {
+		super();
+		this.row = row;
+		this.receiver = receiver;
+		this.assetid = assetid;
+		this.amount = amount;
+	}
+
+	public void skip(String reason) {
+		this.status = TransferStatus.SKIPPED;
+		this.reason = reason;
+	}
+
+	public void fail(String reason) {
+		this.status = TransferStatus.FAILED;
+		this.reason = reason;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public void setRow(int row) {
+		this.row = row;
+	}
+
+	public String getReceiver() {
+		return receiver;
+	}
+
+	public void setReceiver(String receiver) {
+		this.receiver = receiver;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public BigInteger getAmount() {
+		return amount;
+	}
+
+	public void setAmount(BigInteger amount) {
+		this.amount = amount;
+	}
+
+	public TransferStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(TransferStatus status) {
+		this.status = status;
+	}
+
+	public String getTxid() {
+		return txid;
+	}
+
+	public void setTxid(String txid) {
+		this.txid = txid;
+	}
+
+	public Long getConfirmed_round() {
+		return confirmed_round;
+	}
+
+	public void setConfirmed_round(Long confirmed_round) {
+		this.confirmed_round = confirmed_round;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	public void setReason(String reason) {
+		this.reason = reason;
+	}
+
+}
@@ -0,0 +1,240 @@
+package algo.arctang.objects.txn;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.account.Account;
+import com.algorand.algosdk.transaction.SignedTransaction;
+import com.algorand.algosdk.transaction.Transaction;
+import com.algorand.algosdk.transaction.TxGroup;
+import com.algorand.algosdk.util.Encoder;
+import com.algorand.algosdk.v2.client.common.AlgodClient;
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.PendingTransactionResponse;
+import com.algorand.algosdk.v2.client.model.PostTransactionsResponse;
+import com.algorand.algosdk.v2.client.model.TransactionParametersResponse;
+import com.algorand.algosdk.v2.client.model.TransactionsResponse;
+
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.objects.avm.AlgoLocalWallet;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+
+/**
+ * Signs and submits transactions from a single wallet as atomic groups of up to 16, back to back without
+ * waiting in between. Confirmation comes from the ConfirmationTracker, which resolves all outstanding
+ * groups once per round rather than polling per transaction. A group either confirms or fails as a whole,
+ * so all results of a group share the same outcome.
+ *
+ * The ids of created assets are looked up as soon as their group confirms, while algod still has the
+ * pending info of the transaction, with a fallback to the indexer. Groups without asset creations need no
+ * lookups at all.
+ */
+public class AtomicGroupSubmitter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AtomicGroupSubmitter.class);
+
+	public static final int MAX_GROUP_SIZE = 16;
+
+	// suggested params are shared by consecutive groups, refreshed well within their validity window
+	private static final long PARAMS_MAX_AGE_MS = 30000L;
+
+	// the indexer can be a few rounds behind algod when a group confirms
+	private static final int INDEXER_ATTEMPTS = 5;
+	private static final long INDEXER_RETRY_DELAY_MS = 2000L;
+	private static final int LOOKUP_THREADS = 4;
+
+	public interface TxBuilder {
+		Transaction build(TransactionParametersResponse params) throws Exception;
+	}
+
+	private final AVMBlockChainConnector connector;
+	private final AlgodClient algod;
+	private final ConfirmationTracker tracker;
+	private final Account account;
+	private final int group_size;
+
+	private TransactionParametersResponse params;
+	private long params_fetched_at = 0L;
+
+	public AtomicGroupSubmitter(AVMBlockChainConnector connector, ConfirmationTracker tracker, AlgoLocalWallet wallet, int group_size) {
+		this(connector, tracker, wallet.fetchAccount(), group_size);
+	}
+
+	public AtomicGroupSubmitter(AVMBlockChainConnector connector, ConfirmationTracker tracker, Account account, int group_size) {
+		super();
+		this.connector = connector;
+		this.algod = connector.getProvider_instance();
+		this.tracker = tracker;
+		this.account = account;
+		this.group_size = Math.max(1, Math.min(MAX_GROUP_SIZE, group_size));
+	}
+
+	/**
+	 * Submits all transactions and waits for them to confirm, returns one result per builder in the same order
+	 */
+	public List<TxResult> submit(List<TxBuilder> builders) {
+		List<TxResult> results = new ArrayList<TxResult>();
+		for (int i=0; i<builders.size(); i++) results.add(new TxResult());
+
+		// groups are tracked as soon as they are submitted, confirmation overlaps with the next submissions
+		List<PendingGroup> pending = new ArrayList<PendingGroup>();
+		ExecutorService lookups = Executors.newFixedThreadPool(LOOKUP_THREADS, r -> {
+			Thread t = new Thread(r, "group-confirm");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			for (int first=0; first<builders.size(); first+=group_size) {
+				int last = Math.min(first + group_size, builders.size()) - 1;
+				PendingGroup group = submitGroup(builders, results, first, last, lookups);
+				if (null != group) pending.add(group);
+			}
+			LOGGER.info("Submitted " + pending.size() + " groups with " + builders.size() + " transactions, waiting for confirmation");
+
+			for (PendingGroup group: pending) {
+				try {
+					group.confirmed.get();
+				} catch (InterruptedException e) {
+					fail(results, group.first, group.last, "Interrupted while waiting for confirmation");
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					fail(results, group.first, group.last, "Group not confirmed: " + e.getCause().getMessage());
+				}
+			}
+		} finally {
+			lookups.shutdownNow();
+		}
+		return results;
+	}
+
+	private PendingGroup submitGroup(List<TxBuilder> builders, List<TxResult> results, int first, int last, ExecutorService lookups) {
+		try {
+			TransactionParametersResponse params = getParams();
+			Transaction[] txns = new Transaction[last - first + 1];
+			for (int i=first; i<=last; i++) txns[i - first] = builders.get(i).build(params);
+			if (txns.length > 1) txns = TxGroup.assignGroupID(txns);
+
+			boolean[] creations = new boolean[txns.length];
+			ByteArrayOutputStream raw = new ByteArrayOutputStream();
+			for (int i=0; i<txns.length; i++) {
+				creations[i] = isAssetCreation(txns[i]);
+				SignedTransaction stx = account.signTransaction(txns[i]);
+				results.get(first + i).setTxid(stx.transactionID);
+				raw.write(Encoder.encodeToMsgPack(stx));
+			}
+
+			byte[] signed = raw.toByteArray();
+			Response<PostTransactionsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "send_group", signed.length, () -> algod.RawTransaction().rawtxn(signed).execute());
+			if (!response.isSuccessful()) {
+				fail(results, first, last, "Group rejected: " + response.message());
+				return null;
+			}
+			// a group confirms as a whole, tracking its first tx is enough
+			PendingGroup group = new PendingGroup(first, last, creations);
+			group.confirmed = tracker.track(results.get(first).getTxid(), txns[0].lastValid.longValue())
+					.thenAcceptAsync(confirmed_round -> confirm(group, confirmed_round, results), lookups);
+			return group;
+		} catch (Exception e) {
+			fail(results, first, last, "Unable to submit group: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private void confirm(PendingGroup group, Long confirmed_round, List<TxResult> results) {
+		for (int i=group.first; i<=group.last; i++) {
+			TxResult result = results.get(i);
+			result.setConfirmed_round(confirmed_round);
+			// every asset creation of the group carries its own new asset id
+			if (group.creations[i - group.first]) result.setAsset_index(getCreatedAssetIndex(result.getTxid()));
+		}
+	}
+
+	static boolean isAssetCreation(Transaction txn) {
+		return (txn.type == Transaction.Type.AssetConfig) && ((null == txn.assetIndex) || (txn.assetIndex == 0L)) && (null != txn.assetParams);
+	}
+
+	private Long getCreatedAssetIndex(String txid) {
+		PendingTransactionResponse info = getPendingInfo(txid);
+		if ((null != info) && (null != info.assetIndex) && (info.assetIndex > 0L)) return info.assetIndex;
+
+		// algod only keeps the pending info for a while after confirmation, the indexer keeps it for good
+		for (int attempt=1; attempt<=INDEXER_ATTEMPTS; attempt++) {
+			try {
+				Response<TransactionsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "tx_lookup", () -> connector.getIndexer_instance().searchForTransactions()
+						.txid(txid)
+						.execute());
+				if (!response.isSuccessful()) {
+					LOGGER.warn("Unable to look up txid " + txid + " on the indexer: " + response.message());
+					break;
+				}
+				List<com.algorand.algosdk.v2.client.model.Transaction> transactions = response.body().transactions;
+				if ((null != transactions) && !transactions.isEmpty()) {
+					Long created = transactions.get(0).createdAssetIndex;
+					if ((null != created) && (created > 0L)) return created;
+					break;
+				}
+			} catch (Exception e) {
+				LOGGER.warn("Unable to look up txid " + txid + " on the indexer: " + e.getMessage());
+				break;
+			}
+			if (attempt < INDEXER_ATTEMPTS) {
+				try {
+					Thread.sleep(INDEXER_RETRY_DELAY_MS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		LOGGER.warn("Unable to get the id of the asset created by txid " + txid);
+		return null;
+	}
+
+	private static void fail(List<TxResult> results, int first, int last, String error) {
+		LOGGER.warn(error);
+		for (int i=first; i<=last; i++) results.get(i).setError(error);
+	}
+
+	private TransactionParametersResponse getParams() throws Exception {
+		if ((null == params) || ((System.currentTimeMillis() - params_fetched_at) > PARAMS_MAX_AGE_MS)) {
+			Response<TransactionParametersResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "tx_params", () -> algod.TransactionParams().execute());
+			if (!response.isSuccessful()) throw new IllegalStateException("Unable to get the suggested transaction params: " + response.message());
+			params = response.body();
+			params_fetched_at = System.currentTimeMillis();
+		}
+		return params;
+	}
+
+	private PendingTransactionResponse getPendingInfo(String txid) {
+		try {
+			Response<PendingTransactionResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "pending_tx", () -> algod.PendingTransactionInformation(txid).execute());
+			if (response.isSuccessful()) return response.body();
+		} catch (Exception e) {
+			LOGGER.debug("Unable to get the pending info for txid " + txid + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private static class PendingGroup {
+		private final int first;
+		private final int last;
+		private final boolean[] creations;
+		// completes once the group is confirmed and the ids of its created assets are known
+		private CompletableFuture<Void> confirmed;
+
+		PendingGroup(int first, int last, boolean[] creations) {
+			this.first = first;
+			this.last = last;
+			this.creations = creations;
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+package algo.arctang.objects.txn;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.AlgodClient;
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.BlockTxidsResponse;
+import com.algorand.algosdk.v2.client.model.NodeStatusResponse;
+import com.algorand.algosdk.v2.client.model.PendingTransactionResponse;
+
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+
+/**
+ * Follows the chain on a single daemon thread with one wait-for-block call per round and resolves every
+ * tracked txid included in that block at once, so any number of pending transactions costs the same as
+ * one. Tracked txids complete their future with the confirmed round, or exceptionally once the chain has
+ * passed their last valid round. The thread only runs while there is something to track.
+ */
+public class ConfirmationTracker implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConfirmationTracker.class);
+
+	// validity window of transactions built from the suggested params
+	public static final long DEFAULT_VALIDITY_ROUNDS = 1000L;
+
+	private static final long RETRY_DELAY_MS = 3000L;
+
+	private final AlgodClient algod;
+	private final ConcurrentHashMap<String, PendingTx> pending = new ConcurrentHashMap<String, PendingTx>();
+	// txids tracked since the last round, they may have confirmed in a round which was already processed
+	private final ConcurrentLinkedQueue<String> fresh = new ConcurrentLinkedQueue<String>();
+	private final Object lock = new Object();
+
+	private Thread follower;
+	private boolean closed = false;
+	private boolean block_txids_supported = true;
+	// last round processed, 0 when not following the chain
+	private long round = 0L;
+
+	public ConfirmationTracker(AVMBlockChainConnector connector) {
+		super();
+		this.algod = connector.getProvider_instance();
+	}
+
+	/**
+	 * Tracks a submitted txid, the future completes with the round it was confirmed in
+	 */
+	public CompletableFuture<Long> track(String txid, long last_valid) {
+		PendingTx tx = pending.computeIfAbsent(txid, id -> new PendingTx(last_valid));
+		fresh.add(txid);
+		synchronized (lock) {
+			if (closed) {
+				tx.future.completeExceptionally(new IllegalStateException("The confirmation tracker is closed"));
+				return tx.future;
+			}
+			if ((null == follower) || !follower.isAlive()) {
+				follower = new Thread(this::follow, "confirmation-tracker");
+				follower.setDaemon(true);
+				follower.start();
+			}
+			lock.notifyAll();
+		}
+		return tx.future;
+	}
+
+	/**
+	 * Tracks a txid submitted elsewhere (ie through AVMUtils) with the default validity window
+	 */
+	public CompletableFuture<Long> track(String txid) {
+		long last_round = getLastRound();
+		return track(txid, (last_round == 0L) ? Long.MAX_VALUE : last_round + DEFAULT_VALIDITY_ROUNDS);
+	}
+
+	public void track(String txid, long last_valid, BiConsumer<Long, Throwable> callback) {
+		track(txid, last_valid).whenComplete(callback);
+	}
+
+	/**
+	 * Blocks until the txid is confirmed, returns the confirmed round or null if it failed
+	 */
+	public Long await(String txid) {
+		if (null == txid) return null;
+		try {
+			return track(txid).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOGGER.error("Transaction " + txid + " was not confirmed: " + e.getCause().getMessage());
+		}
+		return null;
+	}
+
+	public int getPending() {
+		return pending.size();
+	}
+
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+		for (PendingTx tx: pending.values()) tx.future.completeExceptionally(new IllegalStateException("The confirmation tracker is closed"));
+		pending.clear();
+	}
+
+	private void follow() {
+		while (true) {
+			synchronized (lock) {
+				while (pending.isEmpty() && !closed) {
+					// resync with the chain on the next track(), an idle tracker does not follow the chain
+					round = 0L;
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (closed) return;
+			}
+
+			if (round == 0L) {
+				long last_round = getLastRound();
+				if (last_round == 0L) {
+					sleep();
+					continue;
+				}
+				// the latest block may already hold txs submitted just before they were tracked
+				resolveRound(last_round);
+				round = last_round;
+			} else {
+				long last_round = waitForBlockAfter(round);
+				if (last_round <= round) {
+					sleep();
+					continue;
+				}
+				for (long r=round + 1L; r<=last_round; r++) resolveRound(r);
+				round = last_round;
+			}
+			checkFresh();
+			expire();
+		}
+	}
+
+	private void resolveRound(long r) {
+		List<String> txids = getBlockTxids(r);
+		int confirmed = 0;
+		if (null != txids) {
+			for (String txid: txids) {
+				PendingTx tx = pending.remove(txid);
+				if (null == tx) continue;
+				tx.future.complete(r);
+				confirmed++;
+			}
+		} else {
+			// nodes without the block txids endpoint, fall back to one lookup per pending tx
+			for (Map.Entry<String, PendingTx> entry: new ArrayList<Map.Entry<String, PendingTx>>(pending.entrySet())) {
+				if (checkPendingInfo(entry.getKey(), entry.getValue())) confirmed++;
+			}
+		}
+		if (confirmed > 0) LOGGER.info("Round " + r + ": " + confirmed + " tracked transactions confirmed, " + pending.size() + " pending");
+	}
+
+	private void checkFresh() {
+		String txid;
+		while (null != (txid = fresh.poll())) {
+			PendingTx tx = pending.get(txid);
+			if ((null != tx) && !tx.checked) {
+				tx.checked = true;
+				checkPendingInfo(txid, tx);
+			}
+		}
+	}
+
+	// returns true if the tx was resolved
+	private boolean checkPendingInfo(String txid, PendingTx tx) {
+		PendingTransactionResponse info = getPendingInfo(txid);
+		if (null == info) return false;
+		if ((null != info.confirmedRound) && (info.confirmedRound > 0L)) {
+			pending.remove(txid);
+			tx.future.complete(info.confirmedRound);
+			return true;
+		}
+		if ((null != info.poolError) && !info.poolError.isEmpty()) {
+			pending.remove(txid);
+			tx.future.completeExceptionally(new IllegalStateException("Dropped from the pool: " + info.poolError));
+			return true;
+		}
+		return false;
+	}
+
+	private void expire() {
+		Iterator<Map.Entry<String, PendingTx>> it = pending.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, PendingTx> entry = it.next();
+			if (round <= entry.getValue().last_valid) continue;
+			it.remove();
+			entry.getValue().future.completeExceptionally(new IllegalStateException("Expired unconfirmed after round " + entry.getValue().last_valid));
+		}
+	}
+
+	private List<String> getBlockTxids(long r) {
+		if (!block_txids_supported) return null;
+		try {
+			Response<BlockTxidsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "block_txids", () -> algod.GetBlockTxids(r).execute());
+			if (response.isSuccessful()) return response.body().blockTxids;
+			if (response.code() == 404) {
+				LOGGER.info("The node does not support block txid lookups, checking each pending transaction per round instead");
+				block_txids_supported = false;
+			}
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the txids of round " + r + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private PendingTransactionResponse getPendingInfo(String txid) {
+		try {
+			Response<PendingTransactionResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "pending_tx", () -> algod.PendingTransactionInformation(txid).execute());
+			if (response.isSuccessful()) return response.body();
+		} catch (Exception e) {
+			LOGGER.debug("Unable to get the pending info for txid " + txid + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private long getLastRound() {
+		try {
+			Response<NodeStatusResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "status", () -> algod.GetStatus().execute());
+			if (response.isSuccessful()) return response.body().lastRound;
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the node status: " + e.getMessage());
+		}
+		return 0L;
+	}
+
+	private long waitForBlockAfter(long r) {
+		try {
+			Response<NodeStatusResponse> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "wait_for_block", () -> algod.WaitForBlock(r).execute());
+			if (response.isSuccessful()) return response.body().lastRound;
+		} catch (Exception e) {
+			LOGGER.warn("Unable to wait for the block after round " + r + ": " + e.getMessage());
+		}
+		return r;
+	}
+
+	private void sleep() {
+		try {
+			Thread.sleep(RETRY_DELAY_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class PendingTx {
+		private final long last_valid;
+		private final CompletableFuture<Long> future = new CompletableFuture<Long>();
+		private volatile boolean checked = false;
+
+		PendingTx(long last_valid) {
+			this.last_valid = last_valid;
+		}
+	}
+
+}
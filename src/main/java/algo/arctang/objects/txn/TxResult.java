@@ -0,0 +1,53 @@
+package algo.arctang.objects.txn;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class TxResult {
+
+	private String txid;
+	private Long confirmed_round;
+	private Long asset_index;
+	private String error;
+
+	public TxResult() {
+		super();
+	}
+
+	public String getTxid() {
+		return txid;
+	}
+
+	public void setTxid(String txid) {
+		this.txid = txid;
+	}
+
+	public Long getConfirmed_round() {
+		return confirmed_round;
+	}
+
+	public void setConfirmed_round(Long confirmed_round) {
+		this.confirmed_round = confirmed_round;
+	}
+
+	public Long getAsset_index() {
+		return asset_index;
+	}
+
+	public void setAsset_index(Long asset_index) {
+		this.asset_index = asset_index;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	@JsonIgnore
+	public boolean isConfirmed() {
+		return (null != confirmed_round) && (null == error);
+	}
+
+}
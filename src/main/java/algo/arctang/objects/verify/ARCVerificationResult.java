@@ -0,0 +1,97 @@
+package algo.arctang.objects.verify;
+
+import java.util.ArrayList;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+public class ARCVerificationResult {
+
+	private Long assetid;
+	private AVMNFTStandard standard;
+	private boolean verified = true;
+	private int score = 10;
+	private ArrayList<String> warnings = new ArrayList<String>();
+	private ArrayList<String> verified_parameters = new ArrayList<String>();
+	private ArrayList<String> errors = new ArrayList<String>();
+
+	public ARCVerificationResult() {
+		super();
+	}
+
+	public ARCVerificationResult(Long assetid) {
+		super();
+		this.assetid = assetid;
+	}
+
+	public void addWarning(String warning, int penalty) {
+		this.warnings.add(warning);
+		this.score = Math.max(0, this.score - penalty);
+	}
+
+	public void addVerified(String verified_parameter) {
+		this.verified_parameters.add(verified_parameter);
+	}
+
+	public void addError(String error) {
+		this.errors.add(error);
+		this.verified = false;
+		this.score = 0;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public void setAssetid(Long assetid) {
+		this.assetid = assetid;
+	}
+
+	public AVMNFTStandard getStandard() {
+		return standard;
+	}
+
+	public void setStandard(AVMNFTStandard standard) {
+		this.standard = standard;
+	}
+
+	public boolean isVerified() {
+		return verified;
+	}
+
+	public void setVerified(boolean verified) {
+		this.verified = verified;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	public ArrayList<String> getWarnings() {
+		return warnings;
+	}
+
+	public void setWarnings(ArrayList<String> warnings) {
+		this.warnings = warnings;
+	}
+
+	public ArrayList<String> getVerified_parameters() {
+		return verified_parameters;
+	}
+
+	public void setVerified_parameters(ArrayList<String> verified_parameters) {
+		this.verified_parameters = verified_parameters;
+	}
+
+	public ArrayList<String> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(ArrayList<String> errors) {
+		this.errors = errors;
+	}
+
+}
@@ -0,0 +1,46 @@
+package algo.arctang.objects.verify;
+
+public class MediaReference {
+
+	private String key;
+	private String url;
+	private String integrity;
+	private String sha256;
+	private String error;
+
+	public MediaReference(String key, String url, String integrity) {
+		super();
+		this.key = key;
+		this.url = url;
+		this.integrity = integrity;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getIntegrity() {
+		return integrity;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
@@ -0,0 +1,181 @@
+package algo.arctang.objects.verify;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.ipfs.LocalContent;
+import algo.arctang.objects.ipfs.LocalContentIndex;
+import algo.arctang.objects.mint.MintItem;
+import algo.arctang.utils.MintUtils;
+import algo.arctang.utils.VerifyUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+/**
+ * VERIFY of a collection which is not minted (or not pinned) yet, against a local folder or CAR archive
+ * and without any network access. Every item is validated the way the MINT action would, the ASA params
+ * MINT would create are derived from it and the result is scored with the same checks as a minted asset,
+ * with the media hashed from the local content instead of fetched from IPFS.
+ */
+public class OfflineVerifier {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OfflineVerifier.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// MINT sets the creator as manager, reserve, freeze and clawback, its address is not known offline
+	private static final String MINT_CREATOR = "CREATOR";
+
+	private final LocalContentIndex index;
+	private final AVMNFTStandard standard;
+	private final int concurrency;
+
+	public OfflineVerifier(LocalContentIndex index, AVMNFTStandard standard, int concurrency) {
+		super();
+		this.index = index;
+		this.standard = standard;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Manifest items for all .json files of the local content, by CID for ARC3 and by path for ARC69
+	 */
+	public static List<MintItem> getItems(LocalContentIndex index, AVMNFTStandard standard) {
+		List<MintItem> items = new ArrayList<MintItem>();
+		for (LocalContent content: index.getContents()) {
+			if (!content.getPath().toLowerCase().endsWith(".json")) continue;
+			String metadata = (standard == AVMNFTStandard.ARC3) ? "ipfs://" + content.getCids().get(0) : content.getPath();
+			items.add(new MintItem(items.size() + 1, metadata, null, null, null));
+		}
+		return items;
+	}
+
+	public VerifySummary run(List<MintItem> items, BiConsumer<MintItem, ARCVerificationResult> consumer) {
+		long start = System.currentTimeMillis();
+		VerifySummary summary = new VerifySummary();
+		MintUtils.prepare(items, standard, reference -> {
+			LocalContent content = index.find(reference);
+			return (null == content) ? null : index.readString(content);
+		}, concurrency);
+		for (MintItem item: items) {
+			ARCVerificationResult result = verify(item);
+			summary.add(result);
+			consumer.accept(item, result);
+		}
+		summary.finish(System.currentTimeMillis() - start);
+		return summary;
+	}
+
+	/**
+	 * Scores an item which went through MintUtils.prepare()
+	 */
+	public ARCVerificationResult verify(MintItem item) {
+		VerifyTask task = new VerifyTask(null);
+		task.setStandard(standard);
+		if (!item.isValid()) {
+			task.setError(item.getError());
+			return VerifyUtils.score(task);
+		}
+
+		ObjectNode params = MAPPER.createObjectNode();
+		params.put("name", item.getAsset_name());
+		params.put("unit-name", item.getUnit_name());
+		params.put("url", item.getUrl());
+		if (null != item.getMetadata_hash()) params.put("metadata-hash", Base64.getEncoder().encodeToString(item.getMetadata_hash()));
+		params.put("manager", MINT_CREATOR);
+		params.put("reserve", MINT_CREATOR);
+		params.put("freeze", MINT_CREATOR);
+		params.put("clawback", MINT_CREATOR);
+		ObjectNode asa = MAPPER.createObjectNode();
+		asa.set("params", params);
+		task.setAsa_json(asa.toString());
+
+		List<String> warnings = new ArrayList<String>();
+		if (standard == AVMNFTStandard.ARC3) {
+			LocalContent metadata = index.find(item.getMetadata());
+			task.setMetadata_json((null == metadata) ? null : index.readString(metadata));
+		} else {
+			// the ARC69 metadata is the note MINT attaches
+			task.setMetadata_json(item.getNote());
+		}
+		if (null != task.getMetadata_json()) task.setMetadata_sha256(VerifyUtils.sha256Base64(task.getMetadata_json()));
+
+		task.setMedia(VerifyUtils.getMediaReferences(null, standard, task.getMetadata_json()));
+		List<String> checked = new ArrayList<String>();
+		for (MediaReference media: task.getMedia()) {
+			checked.add(media.getUrl());
+			LocalContent content = findMedia(media, warnings);
+			if (null == content) {
+				media.setError("not in the local content");
+			} else {
+				media.setSha256(content.getSha256());
+			}
+		}
+
+		ARCVerificationResult result = VerifyUtils.score(task);
+		for (String url: getOtherMediaUrls(item, task.getMetadata_json())) {
+			if (checked.contains(url) || (null == CachedIPFSConnector.getIPFSPath(url))) continue;
+			if ((null == index.resolve(url)) && (null == index.resolvePath(url))) result.addWarning("The media " + url + " is not in the local content, make sure it is pinned", 1);
+		}
+		for (String warning: warnings) result.addWarning(warning, 1);
+		return result;
+	}
+
+	public static String toJSONLine(MintItem item, ARCVerificationResult result) {
+		return toRecord(item, result).toString();
+	}
+
+	public static ObjectNode toRecord(MintItem item, ARCVerificationResult result) {
+		ObjectNode record = MAPPER.createObjectNode();
+		record.put("row", item.getRow());
+		record.put("metadata", item.getMetadata());
+		record.set("result", MAPPER.valueToTree(result));
+		return record;
+	}
+
+	// exact CID first, then the path below an unknown directory CID, then the content hash
+	private LocalContent findMedia(MediaReference media, List<String> warnings) {
+		LocalContent content = index.resolve(media.getUrl());
+		if (null != content) return content;
+		content = index.resolvePath(media.getUrl());
+		if (null != content) {
+			warnings.add("The " + media.getKey() + " at " + media.getUrl() + " was matched by path, its directory CID was not checked");
+			return content;
+		}
+		if (media.getIntegrity().startsWith("sha256-")) {
+			content = index.findSha256(media.getIntegrity().substring("sha256-".length()));
+			if (null != content) {
+				warnings.add("The " + media.getKey() + " at " + media.getUrl() + " was matched by sha256 to " + content.getPath() + ", its CID was not found locally");
+				LOGGER.debug("No local CID match for " + media.getUrl() + ", content added with other settings?");
+				return content;
+			}
+		}
+		return null;
+	}
+
+	private List<String> getOtherMediaUrls(MintItem item, String metadata_json) {
+		List<String> urls = new ArrayList<String>();
+		if (null != item.getMediadata_url()) urls.add(item.getMediadata_url());
+		if ((standard != AVMNFTStandard.ARC3) || (null == metadata_json)) return urls;
+		try {
+			JsonNode metadata = MAPPER.readTree(metadata_json);
+			for (String key: VerifyUtils.ARC3_MEDIA_KEYS) {
+				String url = metadata.path(key).asText("");
+				if (!url.isEmpty()) urls.add(url);
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Unable to parse metadata for " + item.getMetadata() + ": " + e.getMessage());
+		}
+		return urls;
+	}
+
+}
@@ -0,0 +1,216 @@
+package algo.arctang.objects.verify;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.utils.ARCUtils;
+import algo.arctang.utils.VerifyUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * Batch verification of ARC assets as a staged pipeline:
+ *
+ *   fetch params -> resolve metadata -> fetch and hash media -> hash metadata -> score
+ *
+ * Each of the first four stages runs on its own pool and hands work to the next stage through a bounded
+ * queue, so a slow stage (typically IPFS) applies backpressure instead of buffering the whole collection.
+ * Scoring runs on the calling thread, which means results are handed to the consumer one at a time.
+ */
+public class VerifyPipeline {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VerifyPipeline.class);
+
+	public static final String[] STAGE_NAMES = {"params", "metadata", "media", "hash"};
+
+	private static final VerifyTask POISON = new VerifyTask(-1L);
+
+	private final AVMBlockChainConnector connector;
+	private final ASAParamsCache asa_cache;
+	private final CachedIPFSConnector ipfs_connector;
+	private final int[] stage_concurrency;
+	private final int queue_capacity;
+
+	public VerifyPipeline(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, int[] stage_concurrency, int queue_capacity) {
+		super();
+		this.connector = connector;
+		this.asa_cache = asa_cache;
+		this.ipfs_connector = ipfs_connector;
+		this.stage_concurrency = stage_concurrency;
+		this.queue_capacity = queue_capacity;
+	}
+
+	/**
+	 * Default stage concurrency derived from the overall --concurrency setting. Media downloads are the
+	 * slowest to complete so get half, their memory use is capped by the MediaHasher budget. The hash
+	 * stage (metadata) is CPU bound so gets one thread per core.
+	 */
+	public static int[] getDefaultStageConcurrency(int concurrency) {
+		return new int[] {concurrency, concurrency, Math.max(1, concurrency / 2), Runtime.getRuntime().availableProcessors()};
+	}
+
+	public VerifySummary run(Iterator<Long> assetids, Consumer<ARCVerificationResult> consumer) {
+		long start = System.currentTimeMillis();
+		VerifySummary summary = new VerifySummary();
+
+		List<BlockingQueue<VerifyTask>> queues = new ArrayList<BlockingQueue<VerifyTask>>();
+		for (int i=0; i<=STAGE_NAMES.length; i++) queues.add(new ArrayBlockingQueue<VerifyTask>(queue_capacity));
+
+		ExecutorService[] pools = new ExecutorService[STAGE_NAMES.length];
+		for (int i=0; i<STAGE_NAMES.length; i++) {
+			pools[i] = Executors.newFixedThreadPool(stage_concurrency[i]);
+			AtomicInteger remaining = new AtomicInteger(stage_concurrency[i]);
+			for (int w=0; w<stage_concurrency[i]; w++) {
+				final int stage = i;
+				pools[i].submit(() -> work(stage, queues.get(stage), queues.get(stage + 1), remaining));
+			}
+		}
+
+		// the asset id source may itself be remote (creator scan), so it gets its own feeder thread
+		AtomicBoolean complete = new AtomicBoolean(true);
+		Thread feeder = new Thread(() -> feed(assetids, queues.get(0), complete), "verify-feeder");
+		feeder.setDaemon(true);
+		feeder.start();
+
+		try {
+			while (true) {
+				VerifyTask task = queues.get(STAGE_NAMES.length).take();
+				if (task == POISON) break;
+				ARCVerificationResult result = VerifyUtils.score(task);
+				summary.add(result);
+				consumer.accept(result);
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while verifying assets");
+			Thread.currentThread().interrupt();
+		} finally {
+			feeder.interrupt();
+			for (ExecutorService pool: pools) pool.shutdownNow();
+		}
+
+		summary.setComplete(complete.get());
+		summary.finish(System.currentTimeMillis() - start);
+		return summary;
+	}
+
+	/**
+	 * Runs all stages for a single asset on the calling thread
+	 */
+	public ARCVerificationResult verify(Long assetid) {
+		VerifyTask task = new VerifyTask(assetid);
+		for (int stage=0; (stage<STAGE_NAMES.length) && !task.isFailed(); stage++) {
+			try {
+				process(stage, task);
+			} catch (Exception e) {
+				task.setError("Stage " + STAGE_NAMES[stage] + " failed: " + e.getMessage());
+			}
+		}
+		return VerifyUtils.score(task);
+	}
+
+	private void feed(Iterator<Long> assetids, BlockingQueue<VerifyTask> queue, AtomicBoolean complete) {
+		try {
+			try {
+				while (assetids.hasNext()) queue.put(new VerifyTask(assetids.next()));
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (Exception e) {
+				LOGGER.error("Unable to read the list of assetids: " + e.getMessage());
+				complete.set(false);
+			}
+			queue.put(POISON);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void work(int stage, BlockingQueue<VerifyTask> in, BlockingQueue<VerifyTask> out, AtomicInteger remaining) {
+		try {
+			while (true) {
+				VerifyTask task = in.take();
+				if (task == POISON) {
+					// let the sibling workers see it too, the last one out closes the next stage
+					in.put(POISON);
+					if (remaining.decrementAndGet() == 0) out.put(POISON);
+					return;
+				}
+				if (!task.isFailed()) {
+					try {
+						process(stage, task);
+					} catch (Exception e) {
+						task.setError("Stage " + STAGE_NAMES[stage] + " failed: " + e.getMessage());
+					}
+				}
+				out.put(task);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void process(int stage, VerifyTask task) {
+		switch (stage) {
+		case 0:
+			fetchParams(task);
+			break;
+		case 1:
+			resolveMetadata(task);
+			break;
+		case 2:
+			fetchMedia(task);
+			break;
+		case 3:
+			hash(task);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void fetchParams(VerifyTask task) {
+		String asa_json = asa_cache.getASARawJSONResponse(connector, task.getAssetid());
+		if ((null == asa_json) || asa_json.isEmpty()) {
+			task.setError("Asset does not exist");
+			return;
+		}
+		task.setAsa_json(asa_json);
+		task.setStandard(ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json));
+		if (task.getStandard() == AVMNFTStandard.UNKNOWN) task.setError("Asset is not an ARC3, ARC19 or ARC69 asset");
+	}
+
+	private void resolveMetadata(VerifyTask task) {
+		task.setMetadata_json(ARCUtils.getARCMetadataFromASAJSON(connector, ipfs_connector, task.getAssetid(), task.getAsa_json(), task.getStandard()));
+		task.setMedia(VerifyUtils.getMediaReferences(task.getAssetid(), task.getStandard(), task.getMetadata_json()));
+	}
+
+	private void fetchMedia(VerifyTask task) {
+		// media is hashed as it streams in, no stage ever holds the media content
+		for (MediaReference media: task.getMedia()) {
+			String sha256 = ipfs_connector.getSha256Base64(media.getUrl());
+			if (null == sha256) {
+				media.setError("fetch failed");
+			} else {
+				media.setSha256(sha256);
+			}
+		}
+	}
+
+	private void hash(VerifyTask task) {
+		if (null != task.getMetadata_json()) task.setMetadata_sha256(VerifyUtils.sha256Base64(task.getMetadata_json()));
+	}
+
+}
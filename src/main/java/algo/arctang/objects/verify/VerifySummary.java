@@ -0,0 +1,89 @@
+package algo.arctang.objects.verify;
+
+public class VerifySummary {
+
+	private long total = 0L;
+	private long verified = 0L;
+	private long not_verified = 0L;
+	private long[] score_distribution = new long[11];
+	private long elapsed_ms = 0L;
+	private double assets_per_second = 0.0d;
+	// false when the list of assetids was cut short, ie by a failing creator listing
+	private boolean complete = true;
+
+	public VerifySummary() {
+		super();
+	}
+
+	public void add(ARCVerificationResult result) {
+		total++;
+		if (result.isVerified()) {
+			verified++;
+		} else {
+			not_verified++;
+		}
+		score_distribution[Math.max(0, Math.min(10, result.getScore()))]++;
+	}
+
+	public void finish(long elapsed_ms) {
+		this.elapsed_ms = elapsed_ms;
+		if (elapsed_ms > 0L) this.assets_per_second = (1000.0d * total) / elapsed_ms;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public long getVerified() {
+		return verified;
+	}
+
+	public void setVerified(long verified) {
+		this.verified = verified;
+	}
+
+	public long getNot_verified() {
+		return not_verified;
+	}
+
+	public void setNot_verified(long not_verified) {
+		this.not_verified = not_verified;
+	}
+
+	public long[] getScore_distribution() {
+		return score_distribution;
+	}
+
+	public void setScore_distribution(long[] score_distribution) {
+		this.score_distribution = score_distribution;
+	}
+
+	public long getElapsed_ms() {
+		return elapsed_ms;
+	}
+
+	public void setElapsed_ms(long elapsed_ms) {
+		this.elapsed_ms = elapsed_ms;
+	}
+
+	public double getAssets_per_second() {
+		return assets_per_second;
+	}
+
+	public void setAssets_per_second(double assets_per_second) {
+		this.assets_per_second = assets_per_second;
+	}
+
+	public boolean isComplete() {
+		return complete;
+	}
+
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+}
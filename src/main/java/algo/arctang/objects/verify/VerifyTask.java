@@ -0,0 +1,81 @@
+package algo.arctang.objects.verify;
+
+import java.util.ArrayList;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+/**
+ * Work item handed between the VerifyPipeline stages
+ */
+public class VerifyTask {
+
+	private final Long assetid;
+	private String asa_json;
+	private AVMNFTStandard standard;
+	private String metadata_json;
+	private String metadata_sha256;
+	private ArrayList<MediaReference> media = new ArrayList<MediaReference>();
+	private String error;
+
+	public VerifyTask(Long assetid) {
+		super();
+		this.assetid = assetid;
+	}
+
+	public boolean isFailed() {
+		return null != error;
+	}
+
+	public Long getAssetid() {
+		return assetid;
+	}
+
+	public String getAsa_json() {
+		return asa_json;
+	}
+
+	public void setAsa_json(String asa_json) {
+		this.asa_json = asa_json;
+	}
+
+	public AVMNFTStandard getStandard() {
+		return standard;
+	}
+
+	public void setStandard(AVMNFTStandard standard) {
+		this.standard = standard;
+	}
+
+	public String getMetadata_json() {
+		return metadata_json;
+	}
+
+	public void setMetadata_json(String metadata_json) {
+		this.metadata_json = metadata_json;
+	}
+
+	public String getMetadata_sha256() {
+		return metadata_sha256;
+	}
+
+	public void setMetadata_sha256(String metadata_sha256) {
+		this.metadata_sha256 = metadata_sha256;
+	}
+
+	public ArrayList<MediaReference> getMedia() {
+		return media;
+	}
+
+	public void setMedia(ArrayList<MediaReference> media) {
+		this.media = media;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
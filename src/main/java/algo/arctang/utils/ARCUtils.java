@@ -0,0 +1,66 @@
+package algo.arctang.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.objects.avm.model.nft.ARC19Asset;
+import crypto.forestfish.objects.avm.model.nft.ARC3Asset;
+import crypto.forestfish.utils.AVMUtils;
+
+public class ARCUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ARCUtils.class);
+
+	/**
+	 * Same resolution as AVMUtils.getARCMetadataFromASAAssetID() but with ASA params and IPFS content
+	 * served from the local caches when possible.
+	 */
+	public static String getARCMetadataFromASAAssetID(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, Long assetid) {
+		String asa_json = asa_cache.getASARawJSONResponse(connector, assetid);
+		if ((null == asa_json) || asa_json.isEmpty()) {
+			LOGGER.error("Unable to get the ASA params for assetID " + assetid);
+			return null;
+		}
+		AVMNFTStandard standard = identifyARCStandardFromASAJSON(connector, asa_json);
+		return getARCMetadataFromASAJSON(connector, ipfs_connector, assetid, asa_json, standard);
+	}
+
+	/**
+	 * Timed AVMUtils.identifyARCStandardFromASAJSON(), telling ARC69 apart takes an indexer lookup of the
+	 * latest assetconfig note
+	 */
+	public static AVMNFTStandard identifyARCStandardFromASAJSON(AVMBlockChainConnector connector, String asa_json) {
+		return MetricsRegistry.get().time(MetricsRegistry.INDEXER, "asa_standard", () -> AVMUtils.identifyARCStandardFromASAJSON(connector, asa_json));
+	}
+
+	public static String getARCMetadataFromASAJSON(AVMBlockChainConnector connector, CachedIPFSConnector ipfs_connector, Long assetid, String asa_json, AVMNFTStandard standard) {
+
+		// ARC3 metadata is found at the asset URL (with optional {id} substitution)
+		if (standard == AVMNFTStandard.ARC3) {
+			ARC3Asset arc3asset = AVMUtils.createARC3Asset(asa_json);
+			String url = arc3asset.getAssetURL().replace("{id}", assetid.toString());
+			return ipfs_connector.getStringContent(url);
+		}
+
+		// ARC19 metadata is found at the CID encoded in the reserve address
+		if (standard == AVMNFTStandard.ARC19) {
+			ARC19Asset arc19asset = AVMUtils.createARC19Asset(asa_json);
+			String cid = AVMUtils.extractCIDFromARC19URLAndReserveAddress(arc19asset.getAssetURL(), arc19asset.getReserve().toString());
+			LOGGER.debug("Resolved cid from ARC19 template to: " + cid);
+			return ipfs_connector.getStringContent("ipfs://" + cid);
+		}
+
+		// ARC69 metadata is the note of the latest assetconfig tx
+		if (standard == AVMNFTStandard.ARC69) {
+			return MetricsRegistry.get().time(MetricsRegistry.INDEXER, "asa_latest_note", () -> AVMUtils.getASALatestConfigTransactionNote(connector, assetid));
+		}
+
+		return MetricsRegistry.get().time(MetricsRegistry.ALGOD, "arc_metadata", () -> AVMUtils.getARCMetadataFromASAAssetID(connector, assetid));
+	}
+
+}
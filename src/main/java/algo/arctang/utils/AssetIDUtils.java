@@ -0,0 +1,100 @@
+package algo.arctang.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import algo.arctang.objects.scan.CreatorAssetIterator;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+
+/**
+ * Lazy sources of assetids for the batch actions, so large collections are never held in memory
+ */
+public class AssetIDUtils {
+
+	/**
+	 * One assetid per line, blank lines and lines starting with # are skipped
+	 */
+	public static Iterator<Long> fromFile(String filename) throws IOException {
+		BufferedReader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8);
+		return new Iterator<Long>() {
+			private Long next = null;
+
+			@Override
+			public boolean hasNext() {
+				if (null != next) return true;
+				try {
+					String line;
+					while (null != (line = reader.readLine())) {
+						line = line.trim();
+						if (line.isEmpty() || line.startsWith("#")) continue;
+						next = Long.parseLong(line);
+						return true;
+					}
+					reader.close();
+					return false;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+
+			@Override
+			public Long next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				Long current = next;
+				next = null;
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Inclusive range in the form 'first-last'
+	 */
+	public static Iterator<Long> fromRange(String range) {
+		String[] bounds = range.split("-");
+		if (bounds.length != 2) throw new IllegalArgumentException("Invalid assetid range " + range + ", expected first-last");
+		long first = Long.parseLong(bounds[0].trim());
+		long last = Long.parseLong(bounds[1].trim());
+		if (first > last) throw new IllegalArgumentException("Invalid assetid range " + range + ", first is larger than last");
+		return new Iterator<Long>() {
+			private long current = first;
+
+			@Override
+			public boolean hasNext() {
+				return current <= last;
+			}
+
+			@Override
+			public Long next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return current++;
+			}
+		};
+	}
+
+	/**
+	 * All assets created by the address, hasNext() throws an IllegalStateException if the listing is cut
+	 * short by a failing indexer
+	 */
+	public static Iterator<Long> fromCreator(AVMBlockChainConnector connector, String creator) {
+		CreatorAssetIterator assets = new CreatorAssetIterator(connector, creator);
+		return new Iterator<Long>() {
+			@Override
+			public boolean hasNext() {
+				return assets.hasNext();
+			}
+
+			@Override
+			public Long next() {
+				return assets.next().index;
+			}
+		};
+	}
+
+}
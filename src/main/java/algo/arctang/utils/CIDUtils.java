@@ -0,0 +1,230 @@
+package algo.arctang.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Checks content fetched from a gateway against the CID it was requested by, so a gateway returning
+ * something else (an error page with status 200, stale or tampered content) can be told apart.
+ *
+ * Only CIDs whose hash can be recomputed from the content alone are checked: sha2-256 CIDs with the raw
+ * codec (the content itself is hashed) and dag-pb CIDs of content which fits in a single default sized
+ * UnixFS chunk (the content wrapped in a single UnixFS file node is hashed). Anything else, including
+ * paths into a directory CID, can not be checked.
+ */
+public class CIDUtils {
+
+	private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+	private static final String BASE32_ALPHABET = "abcdefghijklmnopqrstuvwxyz234567";
+
+	public static final int CODEC_RAW = 0x55;
+	public static final int CODEC_DAG_PB = 0x70;
+	private static final int MULTIHASH_SHA2_256 = 0x12;
+
+	// default UnixFS chunk size, larger content is split into several blocks
+	private static final int UNIXFS_CHUNK_SIZE = 262144;
+
+	/**
+	 * Returns TRUE or FALSE if the content was checked against the CID, null if the CID can not be checked
+	 */
+	public static Boolean matches(String cid, byte[] content) {
+		if ((null == cid) || cid.contains("/")) return null;
+		int[] codec = new int[1];
+		byte[] digest = getSha256Digest(cid, codec);
+		if (null == digest) return null;
+		if (codec[0] == CODEC_RAW) return Arrays.equals(digest, sha256(content));
+		if ((codec[0] == CODEC_DAG_PB) && (content.length <= UNIXFS_CHUNK_SIZE)) return Arrays.equals(digest, sha256(wrapUnixFSFile(content)));
+		return null;
+	}
+
+	/**
+	 * Same as matches() for content which was hashed as it streamed in, only raw codec CIDs can be checked
+	 */
+	public static Boolean matchesRaw(String cid, String sha256_base64) {
+		if ((null == cid) || cid.contains("/")) return null;
+		int[] codec = new int[1];
+		byte[] digest = getSha256Digest(cid, codec);
+		if ((null == digest) || (codec[0] != CODEC_RAW)) return null;
+		return Base64.getEncoder().encodeToString(digest).equals(sha256_base64);
+	}
+
+	/**
+	 * Returns the sha2-256 digest of a CIDv0 or base32 CIDv1 and sets codec[0], null for anything else
+	 */
+	public static byte[] getSha256Digest(String cid, int[] codec) {
+		try {
+			byte[] multihash;
+			if ((cid.length() == 46) && cid.startsWith("Qm")) {
+				codec[0] = CODEC_DAG_PB;
+				multihash = decodeBase58(cid);
+			} else if (cid.startsWith("b")) {
+				byte[] bytes = decodeBase32(cid.substring(1));
+				int[] pos = new int[1];
+				if (readVarint(bytes, pos) != 1) return null;
+				codec[0] = (int) readVarint(bytes, pos);
+				multihash = Arrays.copyOfRange(bytes, pos[0], bytes.length);
+			} else {
+				return null;
+			}
+			if ((multihash.length != 34) || ((multihash[0] & 0xff) != MULTIHASH_SHA2_256) || (multihash[1] != 32)) return null;
+			return Arrays.copyOfRange(multihash, 2, 34);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Binary CIDv0 (a bare sha2-256 multihash of a dag-pb block)
+	 */
+	public static byte[] cidV0(byte[] sha256) {
+		byte[] cid = new byte[34];
+		cid[0] = MULTIHASH_SHA2_256;
+		cid[1] = 32;
+		System.arraycopy(sha256, 0, cid, 2, 32);
+		return cid;
+	}
+
+	/**
+	 * Binary CIDv1 with a sha2-256 multihash
+	 */
+	public static byte[] cidV1(int codec, byte[] sha256) {
+		ByteArrayOutputStream cid = new ByteArrayOutputStream();
+		writeVarint(cid, 1);
+		writeVarint(cid, codec);
+		cid.write(MULTIHASH_SHA2_256);
+		cid.write(32);
+		cid.write(sha256, 0, 32);
+		return cid.toByteArray();
+	}
+
+	/**
+	 * String form of a binary CID, base58 for CIDv0 and base32 for CIDv1
+	 */
+	public static String toString(byte[] cid) {
+		if ((cid.length == 34) && ((cid[0] & 0xff) == MULTIHASH_SHA2_256) && (cid[1] == 32)) return encodeBase58(cid);
+		return "b" + encodeBase32(cid);
+	}
+
+	/**
+	 * Returns the codec of a binary CID, CIDv0 is always dag-pb
+	 */
+	public static int getCodec(byte[] cid) {
+		if ((cid.length == 34) && ((cid[0] & 0xff) == MULTIHASH_SHA2_256) && (cid[1] == 32)) return CODEC_DAG_PB;
+		int[] pos = new int[1];
+		readVarint(cid, pos);
+		return (int) readVarint(cid, pos);
+	}
+
+	// PBNode { Data: UnixFS Data { Type: File, Data: content, filesize: length } }
+	private static byte[] wrapUnixFSFile(byte[] content) {
+		ByteArrayOutputStream unixfs = new ByteArrayOutputStream();
+		unixfs.write(0x08);
+		unixfs.write(0x02);
+		if (content.length > 0) {
+			unixfs.write(0x12);
+			writeVarint(unixfs, content.length);
+			unixfs.write(content, 0, content.length);
+		}
+		unixfs.write(0x18);
+		writeVarint(unixfs, content.length);
+
+		ByteArrayOutputStream node = new ByteArrayOutputStream();
+		node.write(0x0a);
+		writeVarint(node, unixfs.size());
+		node.write(unixfs.toByteArray(), 0, unixfs.size());
+		return node.toByteArray();
+	}
+
+	public static void writeVarint(ByteArrayOutputStream out, long value) {
+		while (value >= 0x80) {
+			out.write((int) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	public static long readVarint(byte[] bytes, int[] pos) {
+		long value = 0L;
+		for (int shift=0; shift<63; shift+=7) {
+			int b = bytes[pos[0]++] & 0xff;
+			value |= ((long) (b & 0x7f)) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IllegalArgumentException("Invalid varint");
+	}
+
+	private static byte[] decodeBase58(String s) {
+		BigInteger value = BigInteger.ZERO;
+		for (char c: s.toCharArray()) {
+			int digit = BASE58_ALPHABET.indexOf(c);
+			if (digit < 0) throw new IllegalArgumentException("Invalid base58 character " + c);
+			value = value.multiply(BigInteger.valueOf(58L)).add(BigInteger.valueOf(digit));
+		}
+		byte[] bytes = value.toByteArray();
+		if ((bytes.length > 1) && (bytes[0] == 0)) bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		int zeros = 0;
+		while ((zeros < s.length()) && (s.charAt(zeros) == '1')) zeros++;
+		byte[] result = new byte[zeros + bytes.length];
+		System.arraycopy(bytes, 0, result, zeros, bytes.length);
+		return result;
+	}
+
+	private static String encodeBase58(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		BigInteger value = new BigInteger(1, bytes);
+		BigInteger base = BigInteger.valueOf(58L);
+		while (value.signum() > 0) {
+			BigInteger[] qr = value.divideAndRemainder(base);
+			sb.append(BASE58_ALPHABET.charAt(qr[1].intValue()));
+			value = qr[0];
+		}
+		for (int i=0; (i<bytes.length) && (bytes[i] == 0); i++) sb.append('1');
+		return sb.reverse().toString();
+	}
+
+	private static String encodeBase32(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		int buffer = 0;
+		int bits = 0;
+		for (byte b: bytes) {
+			buffer = (buffer << 8) | (b & 0xff);
+			bits += 8;
+			while (bits >= 5) {
+				sb.append(BASE32_ALPHABET.charAt((buffer >> (bits - 5)) & 0x1f));
+				bits -= 5;
+			}
+		}
+		if (bits > 0) sb.append(BASE32_ALPHABET.charAt((buffer << (5 - bits)) & 0x1f));
+		return sb.toString();
+	}
+
+	private static byte[] decodeBase32(String s) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int buffer = 0;
+		int bits = 0;
+		for (char c: s.toLowerCase().toCharArray()) {
+			int digit = BASE32_ALPHABET.indexOf(c);
+			if (digit < 0) throw new IllegalArgumentException("Invalid base32 character " + c);
+			buffer = (buffer << 5) | digit;
+			bits += 5;
+			if (bits >= 8) {
+				out.write((buffer >> (bits - 8)) & 0xff);
+				bits -= 8;
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] sha256(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package algo.arctang.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 style CSV handling for manifests and reports, quoted fields may contain commas and
+ * doubled quotes but not line breaks.
+ */
+public class CSVUtils {
+
+	public static List<String> parseLine(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i=0; i<line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if ((c == '"') && (i + 1 < line.length()) && (line.charAt(i + 1) == '"')) {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString().trim());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString().trim());
+		return fields;
+	}
+
+	/**
+	 * Maps the header names (lowercased) to their column index
+	 */
+	public static HashMap<String, Integer> parseHeader(String line) {
+		HashMap<String, Integer> columns = new HashMap<String, Integer>();
+		List<String> names = parseLine(line);
+		for (int i=0; i<names.size(); i++) columns.put(names.get(i).toLowerCase(), i);
+		return columns;
+	}
+
+	/**
+	 * Returns the named column of the row, null when the column is missing or empty
+	 */
+	public static String get(List<String> row, HashMap<String, Integer> columns, String name) {
+		Integer index = columns.get(name);
+		if ((null == index) || (index >= row.size())) return null;
+		String value = row.get(index);
+		return value.isEmpty() ? null : value;
+	}
+
+	public static String escape(Object value) {
+		if (null == value) return "";
+		String str = value.toString();
+		if ((str.indexOf(',') < 0) && (str.indexOf('"') < 0) && (str.indexOf('\n') < 0) && (str.indexOf('\r') < 0)) return str;
+		return "\"" + str.replace("\"", "\"\"") + "\"";
+	}
+
+	public static String toLine(Object... values) {
+		StringBuilder line = new StringBuilder();
+		for (int i=0; i<values.length; i++) {
+			if (i > 0) line.append(',');
+			line.append(escape(values[i]));
+		}
+		return line.toString();
+	}
+
+}
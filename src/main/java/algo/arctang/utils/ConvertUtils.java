@@ -0,0 +1,81 @@
+package algo.arctang.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+/**
+ * Conversion of a single ERC-721/1155 metadata file to ARC3 or ARC69. The ERC 'attributes' list becomes
+ * the ARC 'properties' object, ARC3 gets a '<key>_integrity' field for every media URL and ARC69 keeps the
+ * ERC fields as they are.
+ *
+ * Unlike the forestfish conversion arctang used before, the checksums go to the ARC3 'image_integrity'
+ * field (not 'image_data_integrity'), the other ERC fields are copied through for ARC3 as well, and a
+ * media URL which can not be fetched fails the file instead of leaving out its integrity field.
+ */
+public class ConvertUtils {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// ARC3 media keys which get a matching '<key>_integrity' field
+	public static final String[] ARC3_INTEGRITY_KEYS = {"image", "animation_url"};
+
+	/**
+	 * Returns the ARC version of the ERC metadata. 'media_sha256' returns the base64 SHA-256 of the content
+	 * behind a media URL and null when it can not be fetched, an ARC3 conversion fails with an
+	 * IllegalStateException in that case.
+	 */
+	public static ObjectNode convertERC721ToARC(String erc_json, AVMNFTStandard standard, Function<String, String> media_sha256) throws Exception {
+		JsonNode erc = MAPPER.readTree(erc_json);
+		if ((null == erc) || !erc.isObject()) throw new IllegalArgumentException("The ERC metadata is not a JSON object");
+		ObjectNode arc = ((ObjectNode) erc).deepCopy();
+
+		ObjectNode properties = getProperties(erc);
+		if (standard == AVMNFTStandard.ARC3) {
+			arc.remove("attributes");
+			for (String key: ARC3_INTEGRITY_KEYS) {
+				String url = erc.path(key).asText("");
+				if (url.isEmpty() || arc.has(key + "_integrity")) continue;
+				String sha256 = media_sha256.apply(url);
+				if (null == sha256) throw new IllegalStateException("Unable to fetch the " + key + " content at " + url);
+				arc.put(key + "_integrity", "sha256-" + sha256);
+			}
+			if (properties.size() > 0) arc.set("properties", properties);
+		} else if (standard == AVMNFTStandard.ARC69) {
+			if (properties.size() > 0) arc.set("properties", properties);
+			arc.put("standard", "arc69");
+		} else {
+			throw new IllegalArgumentException("Conversion to " + standard + " is not supported");
+		}
+		return arc;
+	}
+
+	/**
+	 * Maps the ERC [{"trait_type": t, "value": v}] attributes to {t: v}, merged with any existing properties
+	 */
+	public static ObjectNode getProperties(JsonNode erc) {
+		ObjectNode properties = MAPPER.createObjectNode();
+		JsonNode existing = erc.path("properties");
+		if (existing.isObject()) {
+			Iterator<Map.Entry<String, JsonNode>> fields = existing.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				properties.set(field.getKey(), field.getValue());
+			}
+		}
+		for (JsonNode attribute: erc.path("attributes")) {
+			JsonNode trait_type = attribute.get("trait_type");
+			JsonNode value = attribute.get("value");
+			if ((null == trait_type) || (null == value) || trait_type.asText("").isEmpty()) continue;
+			properties.set(trait_type.asText(), value);
+		}
+		return properties;
+	}
+
+}
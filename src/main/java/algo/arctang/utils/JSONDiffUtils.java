@@ -0,0 +1,148 @@
+package algo.arctang.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Structural diff of two JSON trees. Both trees are walked side by side and every differing leaf is
+ * reported to the listener as it is found (JSON pointer path), nothing is collected in between.
+ */
+public class JSONDiffUtils {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	public static final char ADDED = '+';
+	public static final char REMOVED = '-';
+	public static final char CHANGED = '~';
+
+	public interface DiffListener {
+		void change(char op, String path, JsonNode before, JsonNode after);
+	}
+
+	/**
+	 * Parses the JSON, metadata which is not valid JSON is kept as a single text value
+	 */
+	public static JsonNode parse(String json) {
+		if (null == json) return TextNode.valueOf("");
+		try {
+			return MAPPER.readTree(json);
+		} catch (Exception e) {
+			return TextNode.valueOf(json);
+		}
+	}
+
+	/**
+	 * Reports the changes from 'before' to 'after', a null 'before' reports every leaf of 'after' as added.
+	 * Returns the number of changes reported.
+	 */
+	public static int diff(JsonNode before, JsonNode after, DiffListener listener) {
+		int[] count = new int[1];
+		DiffListener counting = (op, path, b, a) -> {
+			count[0]++;
+			listener.change(op, path, b, a);
+		};
+		StringBuilder path = new StringBuilder();
+		if (null == before) {
+			leaves(ADDED, after, path, counting);
+		} else {
+			compare(before, after, path, counting);
+		}
+		return count[0];
+	}
+
+	public static String toCompactString(JsonNode node) {
+		return (null == node) ? "" : node.toString();
+	}
+
+	private static void compare(JsonNode before, JsonNode after, StringBuilder path, DiffListener listener) {
+		if (before.isObject() && after.isObject()) {
+			Iterator<Map.Entry<String, JsonNode>> fields = before.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				int mark = push(path, field.getKey());
+				JsonNode other = after.get(field.getKey());
+				if (null == other) {
+					leaves(REMOVED, field.getValue(), path, listener);
+				} else {
+					compare(field.getValue(), other, path, listener);
+				}
+				path.setLength(mark);
+			}
+			fields = after.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				if (before.has(field.getKey())) continue;
+				int mark = push(path, field.getKey());
+				leaves(ADDED, field.getValue(), path, listener);
+				path.setLength(mark);
+			}
+			return;
+		}
+		if (before.isArray() && after.isArray()) {
+			int common = Math.min(before.size(), after.size());
+			for (int i=0; i<Math.max(before.size(), after.size()); i++) {
+				int mark = push(path, Integer.toString(i));
+				if (i < common) {
+					compare(before.get(i), after.get(i), path, listener);
+				} else if (i < before.size()) {
+					leaves(REMOVED, before.get(i), path, listener);
+				} else {
+					leaves(ADDED, after.get(i), path, listener);
+				}
+				path.setLength(mark);
+			}
+			return;
+		}
+		if (!before.equals(after)) listener.change(CHANGED, path.length() == 0 ? "/" : path.toString(), before, after);
+	}
+
+	private static void leaves(char op, JsonNode node, StringBuilder path, DiffListener listener) {
+		// empty containers have no leaves but are still a change worth reporting
+		if (node.isContainerNode() && (node.size() > 0)) {
+			if (node.isObject()) {
+				Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+				while (fields.hasNext()) {
+					Map.Entry<String, JsonNode> field = fields.next();
+					int mark = push(path, field.getKey());
+					leaves(op, field.getValue(), path, listener);
+					path.setLength(mark);
+				}
+			} else {
+				for (int i=0; i<node.size(); i++) {
+					int mark = push(path, Integer.toString(i));
+					leaves(op, node.get(i), path, listener);
+					path.setLength(mark);
+				}
+			}
+			return;
+		}
+		String p = path.length() == 0 ? "/" : path.toString();
+		if (op == REMOVED) {
+			listener.change(op, p, node, null);
+		} else {
+			listener.change(op, p, null, node);
+		}
+	}
+
+	// appends an escaped JSON pointer token, returns the length to restore
+	private static int push(StringBuilder path, String token) {
+		int mark = path.length();
+		path.append('/');
+		for (int i=0; i<token.length(); i++) {
+			char c = token.charAt(i);
+			if (c == '~') {
+				path.append("~0");
+			} else if (c == '/') {
+				path.append("~1");
+			} else {
+				path.append(c);
+			}
+		}
+		return mark;
+	}
+
+}
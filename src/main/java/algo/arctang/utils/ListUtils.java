@@ -0,0 +1,99 @@
+package algo.arctang.utils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.model.AssetHolding;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.objects.ARCAssetHolding;
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.objects.avm.model.asa.ASAContentOnchainReply;
+import crypto.forestfish.utils.AVMUtils;
+
+public class ListUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ListUtils.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * Resolves the ARC holdings of an account, running the per asset lookups on a pool of at most
+	 * 'concurrency' threads. Holdings are handed to the consumer in account order as they resolve.
+	 * Returns false if the account or any of its assets could not be looked up.
+	 */
+	public static boolean getARCAssetHoldings(AVMBlockChainConnector connector, ASAParamsCache asa_cache, String address, int concurrency, Consumer<ARCAssetHolding> consumer) {
+		List<AssetHolding> asa_holdings = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_assets", () -> AVMUtils.getASAOwnershipInfoForAccount(connector, AVMUtils.createAddressFromSTR(address)));
+		if (null == asa_holdings) {
+			LOGGER.error("Unable to get the ASA holdings for account " + address);
+			return false;
+		}
+		return getARCAssetHoldings(connector, asa_cache, asa_holdings, concurrency, consumer);
+	}
+
+	/**
+	 * Same as above for holdings which are already known, ie the assets a holdings index needs to refresh
+	 */
+	public static boolean getARCAssetHoldings(AVMBlockChainConnector connector, ASAParamsCache asa_cache, List<AssetHolding> asa_holdings, int concurrency, Consumer<ARCAssetHolding> consumer) {
+		boolean complete = true;
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<AssetHolding> resolved = new ArrayList<AssetHolding>();
+			List<Future<ARCAssetHolding>> lookups = new ArrayList<Future<ARCAssetHolding>>();
+			for (AssetHolding asa: asa_holdings) {
+				// opt-ins without a balance never make it to the output, skip them before any remote call
+				if ((null == asa.amount) || asa.amount.equals(BigInteger.ZERO)) continue;
+				resolved.add(asa);
+				lookups.add(executor.submit(() -> getARCAssetHolding(connector, asa_cache, asa)));
+			}
+			for (int i=0; i<lookups.size(); i++) {
+				try {
+					ARCAssetHolding holding = lookups.get(i).get();
+					if (null != holding) consumer.accept(holding);
+				} catch (ExecutionException e) {
+					LOGGER.warn("Unable to lookup assetID " + resolved.get(i).assetId + ": " + e.getCause().getMessage());
+					complete = false;
+				}
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while listing ARC holdings");
+			Thread.currentThread().interrupt();
+			complete = false;
+		} finally {
+			executor.shutdownNow();
+		}
+		return complete;
+	}
+
+	/**
+	 * Returns null for assets which no longer exist or follow no ARC standard
+	 */
+	private static ARCAssetHolding getARCAssetHolding(AVMBlockChainConnector connector, ASAParamsCache asa_cache, AssetHolding asa) throws IOException {
+		// A missing params response doubles as the existence check
+		String json = asa_cache.getASARawJSONResponse(connector, asa.assetId);
+		if ((null == json) || json.isEmpty()) {
+			LOGGER.warn("Asset no longer exists! assetID: " + asa.assetId);
+			return null;
+		}
+		AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, json);
+		if (standard == AVMNFTStandard.UNKNOWN) return null;
+		ASAContentOnchainReply reply = AVMUtils.getASAJSON(json);
+		JsonNode params = MAPPER.readTree(json).path("params");
+		return new ARCAssetHolding(asa.assetId, asa.amount, standard, params.path("name").asText(null), params.path("unit-name").asText(null), AVMUtils.printASAAssetOwnership(asa.amount, reply, standard));
+	}
+
+}
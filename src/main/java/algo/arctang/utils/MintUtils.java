@@ -0,0 +1,272 @@
+package algo.arctang.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.crypto.Address;
+import com.algorand.algosdk.transaction.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.mint.MintItem;
+import algo.arctang.objects.txn.AtomicGroupSubmitter;
+import algo.arctang.objects.txn.TxResult;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.model.nft.metadata.ARC3MetaData;
+import crypto.forestfish.objects.avm.model.nft.metadata.ARC69ARC19MetaData;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.CryptUtils;
+import crypto.forestfish.utils.FilesUtils;
+import crypto.forestfish.utils.JSONUtils;
+import crypto.forestfish.utils.NFTUtils;
+
+/**
+ * Bulk MINT from a manifest. Every item is validated up front with the same rules as a single MINT, and
+ * since one invalid transaction fails its whole atomic group the protocol field limits are checked too.
+ */
+public class MintUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MintUtils.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final int MAX_UNIT_NAME_BYTES = 8;
+	private static final int MAX_ASSET_NAME_BYTES = 32;
+	private static final int MAX_URL_BYTES = 96;
+	private static final int MAX_NOTE_BYTES = 1024;
+
+	// every created asset raises the minimum balance of the creator by 0.1 ALGO
+	public static final long CREATE_MIN_BALANCE_MICROALGOS = 100000L;
+
+	/**
+	 * Reads the manifest, either a CSV file with a header row using the columns metadata (the metadata CID
+	 * for ARC3, the metadata file path for ARC69), asset_name, unit_name and mediadata_url, or a folder of
+	 * ARC69 metadata files using the media_url of each file.
+	 */
+	public static List<MintItem> readManifest(String manifest) throws IOException {
+		List<MintItem> items = new ArrayList<MintItem>();
+		Path path = Paths.get(manifest);
+		if (Files.isDirectory(path)) {
+			List<Path> files = new ArrayList<Path>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.json")) {
+				for (Path file: stream) files.add(file);
+			}
+			files.sort(null);
+			for (Path file: files) items.add(new MintItem(items.size() + 1, file.toString(), null, null, null));
+			return items;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			if (null == line) return items;
+			HashMap<String, Integer> columns = CSVUtils.parseHeader(line);
+			if (!columns.containsKey("metadata")) throw new IOException("The manifest " + manifest + " has no metadata column");
+			int row = 0;
+			while (null != (line = reader.readLine())) {
+				row++;
+				if (line.isBlank() || line.startsWith("#")) continue;
+				List<String> fields = CSVUtils.parseLine(line);
+				items.add(new MintItem(row, CSVUtils.get(fields, columns, "metadata"), CSVUtils.get(fields, columns, "asset_name"), CSVUtils.get(fields, columns, "unit_name"), CSVUtils.get(fields, columns, "mediadata_url")));
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Validates all items on a pool of at most 'concurrency' threads, invalid items get their error set
+	 */
+	public static void prepare(List<MintItem> items, AVMNFTStandard standard, CachedIPFSConnector ipfs_connector, int concurrency) {
+		prepare(items, standard, getMetadataReader(ipfs_connector), concurrency);
+	}
+
+	/**
+	 * Same as above with the metadata read through 'metadata_reader', which is handed ipfs://cid for ARC3
+	 * items and the metadata file path for ARC69 items and returns null if the metadata can not be read
+	 */
+	public static void prepare(List<MintItem> items, AVMNFTStandard standard, Function<String, String> metadata_reader, int concurrency) {
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<?>> validations = new ArrayList<Future<?>>();
+			for (MintItem item: items) validations.add(executor.submit(() -> prepare(item, standard, metadata_reader)));
+			for (Future<?> validation: validations) validation.get();
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while validating the manifest");
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOGGER.error("Unable to validate the manifest: " + e.getCause().getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public static void prepare(MintItem item, AVMNFTStandard standard, CachedIPFSConnector ipfs_connector) {
+		prepare(item, standard, getMetadataReader(ipfs_connector));
+	}
+
+	public static void prepare(MintItem item, AVMNFTStandard standard, Function<String, String> metadata_reader) {
+		try {
+			if (null == item.getMetadata()) {
+				item.setError("No metadata specified");
+				return;
+			}
+			if (standard == AVMNFTStandard.ARC3) {
+				prepareARC3(item, metadata_reader);
+			} else if (standard == AVMNFTStandard.ARC69) {
+				prepareARC69(item, metadata_reader);
+			} else {
+				item.setError("Bulk mints support ARC3 and ARC69, not " + standard);
+			}
+		} catch (Exception e) {
+			item.setError("Unable to validate: " + e.getMessage());
+		}
+	}
+
+	private static Function<String, String> getMetadataReader(CachedIPFSConnector ipfs_connector) {
+		return metadata -> metadata.startsWith("ipfs://") ? ipfs_connector.getStringContent(metadata) : FilesUtils.readAllFromFileWithPath(metadata);
+	}
+
+	private static void prepareARC3(MintItem item, Function<String, String> metadata_reader) {
+		String metadata_cid = item.getMetadata().replace("ipfs://", "");
+		String metadata_json = metadata_reader.apply("ipfs://" + metadata_cid);
+		if ((null == metadata_json) || metadata_json.isEmpty()) {
+			item.setError("Unable to fetch the metadata for CID " + metadata_cid);
+			return;
+		}
+		AVMNFTStandard identified_standard = AVMUtils.identifyARCStandardFromMetadata(metadata_json);
+		if (identified_standard != AVMNFTStandard.ARC3) {
+			item.setError("ARC standard mismatch, ARC standard identified as " + identified_standard + " but specified as ARC3");
+			return;
+		}
+
+		// the manifest name wins over the metadata name, same as --asset_name
+		ARC3MetaData arc3_metadata = JSONUtils.createPOJOFromJSON(metadata_json, ARC3MetaData.class);
+		String assetName = item.getAsset_name();
+		if ((null == assetName) && (null != arc3_metadata)) assetName = arc3_metadata.getName();
+		if (!setNames(item, assetName)) return;
+
+		item.setUrl("ipfs://" + metadata_cid + "#arc3");
+		item.setMetadata_hash(CryptUtils.calculateSHA256(metadata_json));
+		checkLength(item, "URL", item.getUrl(), MAX_URL_BYTES);
+	}
+
+	private static void prepareARC69(MintItem item, Function<String, String> metadata_reader) throws IOException {
+		String metajson = metadata_reader.apply(item.getMetadata());
+		if ((null == metajson) || metajson.isEmpty()) {
+			item.setError("Unable to read the metadata file " + item.getMetadata());
+			return;
+		}
+		AVMNFTStandard identified_standard = AVMUtils.identifyARCStandardFromMetadata(metajson);
+		if (identified_standard != AVMNFTStandard.ARC69) {
+			item.setError("ARC standard mismatch, ARC standard identified as " + identified_standard + " but specified as ARC69");
+			return;
+		}
+
+		// the metadata name wins over the manifest name, same as --asset_name
+		ARC69ARC19MetaData arcmetadata = JSONUtils.createPOJOFromJSON(metajson, ARC69ARC19MetaData.class);
+		String assetName = ((null != arcmetadata) && (null != arcmetadata.getName())) ? arcmetadata.getName() : item.getAsset_name();
+		if (!setNames(item, assetName)) return;
+
+		String mediadata_url = item.getMediadata_url();
+		if (null == mediadata_url) {
+			JsonNode media_url = MAPPER.readTree(metajson).get("media_url");
+			if ((null != media_url) && media_url.isTextual()) mediadata_url = media_url.asText();
+		}
+		if (null == mediadata_url) {
+			item.setError("No mediadata_url in the manifest and no media_url in the metadata");
+			return;
+		}
+		String fragment = "";
+		String url_mimetype = NFTUtils.determine_mimetype_from_ext(mediadata_url);
+		if (null != url_mimetype) fragment = NFTUtils.determinefragmentFromMimetype(url_mimetype);
+		if ((null == fragment) || "".equals(fragment)) {
+			item.setError("Unsure what fragment to set for this assetURL: " + mediadata_url);
+			return;
+		}
+		item.setMediadata_url(mediadata_url);
+		item.setUrl(mediadata_url + fragment);
+		item.setNote(JSONUtils.compactPrint(metajson));
+		if (!checkLength(item, "URL", item.getUrl(), MAX_URL_BYTES)) return;
+		checkLength(item, "Metadata note", item.getNote(), MAX_NOTE_BYTES);
+	}
+
+	private static boolean setNames(MintItem item, String assetName) {
+		if ((null == assetName) || "".equals(assetName)) {
+			item.setError("Unable to determine suitable assetName for ARC asset");
+			return false;
+		}
+		String unitName = item.getUnit_name();
+		if (null == unitName) unitName = NFTUtils.createUnitNameFromName(assetName);
+		if ((null == unitName) || "".equals(unitName)) {
+			item.setError("Unable to determine suitable unitName for ARC asset");
+			return false;
+		}
+		item.setAsset_name(assetName);
+		item.setUnit_name(unitName);
+		return checkLength(item, "AssetName", assetName, MAX_ASSET_NAME_BYTES) && checkLength(item, "UnitName", unitName, MAX_UNIT_NAME_BYTES);
+	}
+
+	private static boolean checkLength(MintItem item, String field, String value, int max_bytes) {
+		if (value.getBytes(StandardCharsets.UTF_8).length <= max_bytes) return true;
+		item.setError(field + " for ARC asset needs to be at most " + max_bytes + " bytes");
+		return false;
+	}
+
+	/**
+	 * Creation of a single 1/1 ARC asset with the wallet as manager, reserve, freeze and clawback
+	 */
+	public static AtomicGroupSubmitter.TxBuilder createTransactionBuilder(MintItem item, Address creator) {
+		return params -> Transaction.AssetCreateTransactionBuilder()
+				.sender(creator)
+				.assetTotal(BigInteger.ONE)
+				.assetDecimals(0)
+				.defaultFrozen(false)
+				.assetName(item.getAsset_name())
+				.assetUnitName(item.getUnit_name())
+				.url(item.getUrl())
+				.metadataHash(item.getMetadata_hash())
+				.manager(creator)
+				.reserve(creator)
+				.freeze(creator)
+				.clawback(creator)
+				.note((null == item.getNote()) ? null : item.getNote().getBytes(StandardCharsets.UTF_8))
+				.suggestedParams(params)
+				.build();
+	}
+
+	/**
+	 * Writes one CSV line per manifest row, 'results' holds the outcome of the valid items in manifest order
+	 */
+	public static void writeResults(String filename, List<MintItem> items, List<TxResult> results) throws IOException {
+		int next = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+			writer.write(CSVUtils.toLine("row", "metadata", "asset_name", "unit_name", "assetid", "txid", "confirmed_round", "error"));
+			writer.newLine();
+			for (MintItem item: items) {
+				TxResult result = item.isValid() ? results.get(next++) : new TxResult();
+				String error = item.isValid() ? result.getError() : item.getError();
+				writer.write(CSVUtils.toLine(item.getRow(), item.getMetadata(), item.getAsset_name(), item.getUnit_name(), result.getAsset_index(), result.getTxid(), result.getConfirmed_round(), error));
+				writer.newLine();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package algo.arctang.utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.crypto.Address;
+import com.algorand.algosdk.transaction.Transaction;
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.Account;
+import com.algorand.algosdk.v2.client.model.AssetHolding;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.txn.AtomicGroupSubmitter;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * Bulk OPTIN of one account to many assets. The existing opt-ins come from a single holdings lookup and
+ * the ARC check of the remaining assets runs in parallel, only the missing ARC opt-ins are sent.
+ */
+public class OptinUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OptinUtils.class);
+
+	// every opt-in raises the minimum balance of the account by 0.1 ALGO
+	public static final long OPTIN_MIN_BALANCE_MICROALGOS = 100000L;
+	public static final long MIN_FEE_MICROALGOS = 1000L;
+
+	/**
+	 * Returns the assetids the account still needs to opt in to, in source order, leaving out assets the
+	 * account already holds and assets which are not ARC3, ARC19 or ARC69. Returns null if the holdings of
+	 * the account or the full list of assetids could not be read.
+	 */
+	public static List<Long> getMissingARCOptins(AVMBlockChainConnector connector, ASAParamsCache asa_cache, String address, Iterator<Long> assetids, int concurrency) {
+		List<AssetHolding> holdings = MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_assets", () -> AVMUtils.getASAOwnershipInfoForAccount(connector, AVMUtils.createAddressFromSTR(address)));
+		if (null == holdings) {
+			LOGGER.error("Unable to get the ASA holdings for account " + address);
+			return null;
+		}
+		HashSet<Long> optins = new HashSet<Long>();
+		for (AssetHolding holding: holdings) {
+			if (!Boolean.TRUE.equals(holding.deleted)) optins.add(holding.assetId);
+		}
+
+		LinkedHashSet<Long> candidates = new LinkedHashSet<Long>();
+		int existing = 0;
+		try {
+			while (assetids.hasNext()) {
+				Long assetid = assetids.next();
+				if (optins.contains(assetid)) {
+					existing++;
+				} else {
+					candidates.add(assetid);
+				}
+			}
+		} catch (Exception e) {
+			// a partial opt-in to a collection is worse than none, refuse it
+			LOGGER.error("Unable to read the assetids to opt-in to: " + e.getMessage());
+			return null;
+		}
+		LOGGER.info("Account " + address + " already has an opt-in for " + existing + " of the assets, checking the ARC standard of the other " + candidates.size());
+
+		List<Long> missing = new ArrayList<Long>();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<AVMNFTStandard>> lookups = new ArrayList<Future<AVMNFTStandard>>();
+			for (Long assetid: candidates) lookups.add(executor.submit(() -> getARCStandard(connector, asa_cache, assetid)));
+			int i = 0;
+			for (Long assetid: candidates) {
+				AVMNFTStandard standard = lookups.get(i++).get();
+				if ((standard == AVMNFTStandard.ARC3) || (standard == AVMNFTStandard.ARC19) || (standard == AVMNFTStandard.ARC69)) {
+					missing.add(assetid);
+				} else {
+					LOGGER.warn("Skipping assetid " + assetid + ", it does not seem to represent an ARC");
+				}
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while checking the ARC standard of the assets");
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOGGER.error("Unable to check the ARC standard of the assets: " + e.getCause().getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+		return missing;
+	}
+
+	private static AVMNFTStandard getARCStandard(AVMBlockChainConnector connector, ASAParamsCache asa_cache, Long assetid) {
+		try {
+			String asa_json = asa_cache.getASARawJSONResponse(connector, assetid);
+			if ((null == asa_json) || asa_json.isEmpty()) return AVMNFTStandard.UNKNOWN;
+			return ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+		} catch (Exception e) {
+			LOGGER.warn("Unable to lookup assetID " + assetid + ": " + e.getMessage());
+			return AVMNFTStandard.UNKNOWN;
+		}
+	}
+
+	/**
+	 * ALGO balance above the minimum balance of the account in microalgos, null if the account lookup fails
+	 */
+	public static Long getSpendableMicroAlgos(AVMBlockChainConnector connector, Address address) {
+		try {
+			Response<Account> response = MetricsRegistry.get().execute(MetricsRegistry.ALGOD, "account", () -> connector.getProvider_instance().AccountInformation(address).execute());
+			if (response.isSuccessful()) return response.body().amount - response.body().minBalance;
+			LOGGER.warn("Unable to get the account information: " + response.message());
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the account information: " + e.getMessage());
+		}
+		return null;
+	}
+
+	public static AtomicGroupSubmitter.TxBuilder createTransactionBuilder(Long assetid, Address account) {
+		return params -> Transaction.AssetAcceptTransactionBuilder()
+				.acceptingAccount(account)
+				.assetIndex(assetid)
+				.suggestedParams(params)
+				.build();
+	}
+
+}
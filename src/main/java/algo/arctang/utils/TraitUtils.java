@@ -0,0 +1,294 @@
+package algo.arctang.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.v2.client.common.Response;
+import com.algorand.algosdk.v2.client.model.Enums;
+import com.algorand.algosdk.v2.client.model.Transaction;
+import com.algorand.algosdk.v2.client.model.TransactionsResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.traits.TraitIndex;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.DateUtils;
+
+public class TraitUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TraitUtils.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// a stored trait index is rebuilt from scratch once it is this old
+	private static final long MAX_INDEX_AGE_MS = 7L * 24L * 3600L * 1000L;
+
+	private static final long PAGE_SIZE = 1000L;
+
+	/**
+	 * Hands out the traits of ARC3, ARC19 and ARC69 metadata as key/value pairs. Traits are the fields of
+	 * the 'properties' object, nested objects are flattened to dotted keys (ie traits.Background) and
+	 * arrays give one trait per element. Returns false if the metadata is not a JSON object.
+	 */
+	public static boolean getTraits(String metajson, BiConsumer<String, String> consumer) {
+		if (null == metajson) return false;
+		JsonNode metadata;
+		try {
+			metadata = MAPPER.readTree(metajson);
+		} catch (Exception e) {
+			return false;
+		}
+		if ((null == metadata) || !metadata.isObject()) return false;
+		addTraits("", metadata.path("properties"), consumer);
+		return true;
+	}
+
+	private static void addTraits(String key, JsonNode node, BiConsumer<String, String> consumer) {
+		if (node.isObject()) {
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				addTraits(key.isEmpty() ? field.getKey() : key + "." + field.getKey(), field.getValue(), consumer);
+			}
+		} else if (node.isArray()) {
+			for (JsonNode element: node) addTraits(key, element, consumer);
+		} else if (!key.isEmpty() && !node.isNull() && !node.isMissingNode()) {
+			consumer.accept(key, node.asText());
+		}
+	}
+
+	/**
+	 * The stored trait index of the collection made by 'creator' as is, without any remote call. Returns
+	 * null if there is none, it is unreadable or older than MAX_INDEX_AGE_MS.
+	 */
+	public static TraitIndex readTraitIndex(AVMChain chain, String creator) {
+		Path path = getIndexPath(chain, creator);
+		if (!Files.exists(path)) return null;
+		try {
+			TraitIndex index = TraitIndex.read(path);
+			LOGGER.debug("Read the trait index of " + creator + " built " + DateUtils.epochInSecondsToUTC(index.getBuilt_ms() / 1000L) + " at round " + index.getRound());
+			if ((System.currentTimeMillis() - index.getBuilt_ms()) > MAX_INDEX_AGE_MS) {
+				LOGGER.info("The trait index of " + creator + " is more than " + (MAX_INDEX_AGE_MS / 86400000L) + " days old, rebuilding it");
+				return null;
+			}
+			return index;
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read the trait index " + path + ", rebuilding it: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * The trait index of the collection made by 'creator', brought up to date. A stored index (see
+	 * readTraitIndex) is refreshed from the assetconfig transactions the creator sent after its round:
+	 * new assets are added, reconfigured assets are read again and destroyed assets are dropped.
+	 * Reconfigurations sent by another manager account are not seen this way, so an index older than
+	 * MAX_INDEX_AGE_MS is rebuilt from scratch. An index is only stored when every asset of the creator
+	 * could be listed and resolved.
+	 */
+	public static TraitIndex getTraitIndex(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, AVMChain chain, String creator, int concurrency, boolean cache) {
+		Path path = getIndexPath(chain, creator);
+		TraitIndex stored = cache ? readTraitIndex(chain, creator) : null;
+		if (null != stored) {
+			TraitIndex refreshed = refreshTraitIndex(connector, asa_cache, ipfs_connector, stored, creator, concurrency, path);
+			if (null != refreshed) return refreshed;
+			LOGGER.warn("Unable to bring the trait index of " + creator + " up to date, it may miss changes after round " + stored.getRound());
+			return stored;
+		}
+
+		long start = System.currentTimeMillis();
+		// the round is taken before the listing so changes made while it runs are picked up on the next refresh
+		Long round = MetricsRegistry.get().time(MetricsRegistry.INDEXER, "health", () -> AVMUtils.getIndexerHealthCheck(connector));
+		TraitIndex.Builder builder = new TraitIndex.Builder();
+		if (null != round) builder.setRound(round);
+		boolean complete = resolveMetadata(connector, asa_cache, ipfs_connector, AssetIDUtils.fromCreator(connector, creator), concurrency, (assetid, metajson) -> {
+			builder.addAsset(assetid);
+			getTraits(metajson, (key, value) -> builder.add(assetid, key, value));
+		});
+		TraitIndex index = builder.build();
+		LOGGER.info("Indexed " + index.getTraitCount() + " traits of " + index.getAssetCount() + " assets created by " + creator + " in " + (System.currentTimeMillis() - start) + " ms");
+		if (!complete || (null == round)) {
+			LOGGER.warn("The trait index of " + creator + " is incomplete and was not stored, the results only cover the assets read");
+		} else if (cache) {
+			write(index, path);
+		}
+		return index;
+	}
+
+	/**
+	 * Applies the assetconfig transactions the creator sent after the round of the index. Returns null if
+	 * they could not be listed, the refreshed index is only stored if every changed asset was resolved.
+	 */
+	static TraitIndex refreshTraitIndex(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, TraitIndex index, String creator, int concurrency, Path path) {
+		TreeSet<Long> changed = new TreeSet<Long>();
+		TreeSet<Long> destroyed = new TreeSet<Long>();
+		Long current_round = null;
+		String next_token = null;
+		do {
+			TransactionsResponse page = getConfigTransactions(connector, creator, index.getRound() + 1L, next_token);
+			if (null == page) return null;
+			if (null == current_round) current_round = page.currentRound;
+			addChangedAssets(index, page.transactions, changed, destroyed);
+			next_token = ((null == page.transactions) || page.transactions.isEmpty()) ? null : page.nextToken;
+		} while (null != next_token);
+		changed.removeAll(destroyed);
+		if (changed.isEmpty() && destroyed.isEmpty()) {
+			LOGGER.debug("The trait index of " + creator + " is up to date at round " + current_round);
+			if ((null == current_round) || (current_round <= index.getRound())) return index;
+			TraitIndex current = index.withRound(current_round);
+			write(current, path);
+			return current;
+		}
+
+		TreeSet<Long> excluded = new TreeSet<Long>(changed);
+		excluded.addAll(destroyed);
+		TraitIndex.Builder builder = index.toBuilder(excluded);
+		builder.setRound((null == current_round) ? index.getRound() : current_round);
+		for (Long assetid: changed) asa_cache.invalidate(assetid);
+		boolean complete = resolveMetadata(connector, asa_cache, ipfs_connector, changed.iterator(), concurrency, (assetid, metajson) -> {
+			builder.addAsset(assetid);
+			getTraits(metajson, (key, value) -> builder.add(assetid, key, value));
+		});
+		TraitIndex refreshed = builder.build();
+		LOGGER.info("Refreshed the trait index of " + creator + ": " + changed.size() + " new or changed and " + destroyed.size() + " destroyed assets since round " + index.getRound());
+		if (complete && (null != current_round)) write(refreshed, path);
+		return refreshed;
+	}
+
+	/**
+	 * Creations by the creator and reconfigurations or destructions of assets in the index, assetconfig
+	 * transactions for assets outside the collection are ignored
+	 */
+	static void addChangedAssets(TraitIndex index, List<Transaction> transactions, TreeSet<Long> changed, TreeSet<Long> destroyed) {
+		if (null == transactions) return;
+		for (Transaction tx: transactions) {
+			if ((null != tx.createdAssetIndex) && (tx.createdAssetIndex > 0L)) {
+				changed.add(tx.createdAssetIndex);
+			} else if ((null != tx.assetConfigTransaction) && (null != tx.assetConfigTransaction.assetId) && index.contains(tx.assetConfigTransaction.assetId)) {
+				// an assetconfig without params destroys the asset
+				if (null == tx.assetConfigTransaction.params) destroyed.add(tx.assetConfigTransaction.assetId);
+				else changed.add(tx.assetConfigTransaction.assetId);
+			}
+			addChangedAssets(index, tx.innerTxns, changed, destroyed);
+		}
+	}
+
+	private static Path getIndexPath(AVMChain chain, String creator) {
+		return Paths.get(".avm/cache/" + chain.toString() + "/traits", creator + ".idx");
+	}
+
+	private static TransactionsResponse getConfigTransactions(AVMBlockChainConnector connector, String creator, long min_round, String next_token) {
+		try {
+			Response<TransactionsResponse> response = MetricsRegistry.get().execute(MetricsRegistry.INDEXER, "creator_acfg", () -> connector.getIndexer_instance().searchForTransactions()
+					.address(AVMUtils.createAddressFromSTR(creator))
+					.addressRole(Enums.AddressRole.SENDER)
+					.txType(Enums.TxType.ACFG)
+					.minRound(min_round)
+					.limit(PAGE_SIZE)
+					.next(next_token)
+					.execute());
+			if (response.isSuccessful()) return response.body();
+			LOGGER.warn("Unable to get the assetconfig transactions of " + creator + ": " + response.message());
+		} catch (Exception e) {
+			LOGGER.warn("Unable to get the assetconfig transactions of " + creator + ": " + e.getMessage());
+		}
+		return null;
+	}
+
+	private static void write(TraitIndex index, Path path) {
+		try {
+			index.write(path);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write the trait index " + path + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Resolves the current metadata of every asset through the cached ARC3/ARC19/ARC69 paths on
+	 * 'concurrency' threads pulling from the iterator, so only the assets in flight are held in memory.
+	 * The consumer is called from the worker threads. Assets which are not ARC3, ARC19 or ARC69 are
+	 * skipped. Returns false if not every assetid could be read, or if the params or metadata of an ARC
+	 * asset could not be resolved.
+	 */
+	public static boolean resolveMetadata(AVMBlockChainConnector connector, ASAParamsCache asa_cache, CachedIPFSConnector ipfs_connector, Iterator<Long> assetids, int concurrency, BiConsumer<Long, String> consumer) {
+		AtomicBoolean failed = new AtomicBoolean(false);
+		AtomicLong unresolved = new AtomicLong();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		for (int i=0; i<concurrency; i++) {
+			executor.submit(() -> {
+				Long assetid;
+				while (null != (assetid = next(assetids, failed))) {
+					try {
+						String asa_json = asa_cache.getASARawJSONResponse(connector, assetid);
+						if ((null == asa_json) || asa_json.isEmpty()) {
+							LOGGER.warn("Unable to get the ASA params for assetID " + assetid);
+							unresolved.incrementAndGet();
+							continue;
+						}
+						AVMNFTStandard standard = ARCUtils.identifyARCStandardFromASAJSON(connector, asa_json);
+						if (standard == AVMNFTStandard.UNKNOWN) continue;
+						String metajson = ARCUtils.getARCMetadataFromASAJSON(connector, ipfs_connector, assetid, asa_json, standard);
+						if (null == metajson) {
+							LOGGER.warn("Unable to resolve the " + standard + " metadata for assetID " + assetid);
+							unresolved.incrementAndGet();
+							continue;
+						}
+						consumer.accept(assetid, metajson);
+					} catch (Exception e) {
+						LOGGER.warn("Unable to resolve the metadata for assetID " + assetid + ": " + e.getMessage());
+						unresolved.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1L, TimeUnit.MINUTES)) {
+				LOGGER.debug("Still resolving metadata ..");
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while resolving metadata");
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		if (unresolved.get() > 0L) LOGGER.warn("The metadata of " + unresolved.get() + " assets could not be resolved");
+		return !failed.get() && (unresolved.get() == 0L);
+	}
+
+	private static Long next(Iterator<Long> assetids, AtomicBoolean failed) {
+		synchronized (assetids) {
+			if (failed.get()) return null;
+			try {
+				return assetids.hasNext() ? assetids.next() : null;
+			} catch (Exception e) {
+				// ie the creator iterator failing on a page, the assets so far are still resolved
+				LOGGER.error("Unable to read the next assetid: " + e.getMessage());
+				failed.set(true);
+				return null;
+			}
+		}
+	}
+
+}
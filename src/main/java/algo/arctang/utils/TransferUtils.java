@@ -0,0 +1,224 @@
+package algo.arctang.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.crypto.Address;
+import com.algorand.algosdk.transaction.Transaction;
+import com.algorand.algosdk.v2.client.model.AssetHolding;
+
+import algo.arctang.enums.TransferStatus;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.transfer.TransferItem;
+import algo.arctang.objects.txn.AtomicGroupSubmitter;
+import algo.arctang.objects.txn.TxResult;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * Airdrop style bulk TRANSFER. Every receiver account is looked up once, however many rows it has, and all
+ * rows which cannot succeed are sorted out before anything is signed, so no atomic group fails because of
+ * a missing opt-in or an exhausted balance.
+ */
+public class TransferUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TransferUtils.class);
+
+	/**
+	 * Reads receiver,assetid,amount rows. A header row naming these columns is optional, the amount column
+	 * is optional and defaults to 1.
+	 */
+	public static List<TransferItem> readTransfers(String filename) throws IOException {
+		List<TransferItem> items = new ArrayList<TransferItem>();
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+			HashMap<String, Integer> columns = null;
+			String line;
+			int row = 0;
+			boolean first = true;
+			while (null != (line = reader.readLine())) {
+				row++;
+				if (line.isBlank() || line.startsWith("#")) continue;
+				// the header, if any, is the first line which is not blank or a comment
+				boolean header = first && line.toLowerCase().contains("receiver");
+				first = false;
+				if (header) {
+					columns = CSVUtils.parseHeader(line);
+					continue;
+				}
+				List<String> fields = CSVUtils.parseLine(line);
+				String receiver = (null == columns) ? fields.get(0) : CSVUtils.get(fields, columns, "receiver");
+				String assetid = (null == columns) ? ((fields.size() > 1) ? fields.get(1) : null) : CSVUtils.get(fields, columns, "assetid");
+				String amount = (null == columns) ? ((fields.size() > 2) ? fields.get(2) : null) : CSVUtils.get(fields, columns, "amount");
+				TransferItem item = new TransferItem(row, receiver, null, BigInteger.ONE);
+				try {
+					item.setAssetid(Long.parseLong(assetid));
+					if ((null != amount) && !amount.isEmpty()) item.setAmount(new BigInteger(amount));
+					if (item.getAmount().signum() <= 0) item.fail("Amount needs to be positive");
+				} catch (Exception e) {
+					item.fail("Unable to parse the assetid or amount");
+				}
+				items.add(item);
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Skips the rows whose receiver has not opted in and fails the rows which can not succeed (invalid
+	 * receiver, frozen holdings, not enough of the asset or of ALGO for the fee left in the sending account).
+	 * Returns the rows to send.
+	 */
+	public static List<TransferItem> precheck(AVMBlockChainConnector connector, String sender, List<TransferItem> items, int concurrency) {
+
+		// one holdings lookup per distinct account
+		LinkedHashSet<String> accounts = new LinkedHashSet<String>();
+		accounts.add(sender);
+		for (TransferItem item: items) {
+			if (item.getStatus() != TransferStatus.PENDING) continue;
+			if ((null == item.getReceiver()) || !AVMUtils.isValidAlgorandAddress(item.getReceiver())) {
+				item.fail("Invalid receiver address");
+				continue;
+			}
+			accounts.add(item.getReceiver());
+		}
+		HashMap<String, HashMap<Long, AssetHolding>> holdings = getHoldings(connector, accounts, concurrency);
+
+		HashMap<Long, AssetHolding> sender_holdings = holdings.get(sender);
+		if (null == sender_holdings) {
+			for (TransferItem item: items) if (item.getStatus() == TransferStatus.PENDING) item.fail("Unable to get the holdings of the sending account");
+			return new ArrayList<TransferItem>();
+		}
+		HashMap<Long, BigInteger> remaining = new HashMap<Long, BigInteger>();
+		for (AssetHolding holding: sender_holdings.values()) {
+			if (!Boolean.TRUE.equals(holding.isFrozen) && (null != holding.amount)) remaining.put(holding.assetId, holding.amount);
+		}
+
+		// every transfer costs the sender a fee, rows past what the ALGO balance covers are not sent
+		Long spendable = OptinUtils.getSpendableMicroAlgos(connector, AVMUtils.createAddressFromSTR(sender));
+		if (null == spendable) {
+			for (TransferItem item: items) if (item.getStatus() == TransferStatus.PENDING) item.fail("Unable to get the ALGO balance of the sending account");
+			return new ArrayList<TransferItem>();
+		}
+		long fees_left = spendable;
+
+		List<TransferItem> pending = new ArrayList<TransferItem>();
+		for (TransferItem item: items) {
+			if (item.getStatus() != TransferStatus.PENDING) continue;
+			HashMap<Long, AssetHolding> receiver_holdings = holdings.get(item.getReceiver());
+			if (null == receiver_holdings) {
+				item.fail("Unable to get the holdings of the receiver");
+				continue;
+			}
+			AssetHolding receiver_holding = receiver_holdings.get(item.getAssetid());
+			if (null == receiver_holding) {
+				item.skip("Receiver has not opted in to assetid " + item.getAssetid());
+				continue;
+			}
+			if (Boolean.TRUE.equals(receiver_holding.isFrozen)) {
+				item.fail("Receiver holding of assetid " + item.getAssetid() + " is frozen");
+				continue;
+			}
+			BigInteger balance = remaining.getOrDefault(item.getAssetid(), BigInteger.ZERO);
+			if (balance.compareTo(item.getAmount()) < 0) {
+				item.fail("Not enough of assetid " + item.getAssetid() + " left in the sending account");
+				continue;
+			}
+			if (fees_left < OptinUtils.MIN_FEE_MICROALGOS) {
+				item.fail("Not enough ALGO left in the sending account for the fee");
+				continue;
+			}
+			remaining.put(item.getAssetid(), balance.subtract(item.getAmount()));
+			fees_left -= OptinUtils.MIN_FEE_MICROALGOS;
+			pending.add(item);
+		}
+		return pending;
+	}
+
+	private static HashMap<String, HashMap<Long, AssetHolding>> getHoldings(AVMBlockChainConnector connector, LinkedHashSet<String> accounts, int concurrency) {
+		HashMap<String, HashMap<Long, AssetHolding>> holdings = new HashMap<String, HashMap<Long, AssetHolding>>();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			HashMap<String, Future<List<AssetHolding>>> lookups = new HashMap<String, Future<List<AssetHolding>>>();
+			for (String account: accounts) lookups.put(account, executor.submit(() -> MetricsRegistry.get().time(MetricsRegistry.ALGOD, "account_assets", () -> AVMUtils.getASAOwnershipInfoForAccount(connector, AVMUtils.createAddressFromSTR(account)))));
+			for (String account: accounts) {
+				List<AssetHolding> account_holdings = null;
+				try {
+					account_holdings = lookups.get(account).get();
+				} catch (ExecutionException e) {
+					LOGGER.warn("Unable to get the holdings of account " + account + ": " + e.getCause().getMessage());
+				}
+				if (null == account_holdings) continue;
+				HashMap<Long, AssetHolding> by_assetid = new HashMap<Long, AssetHolding>();
+				for (AssetHolding holding: account_holdings) {
+					if (!Boolean.TRUE.equals(holding.deleted)) by_assetid.put(holding.assetId, holding);
+				}
+				holdings.put(account, by_assetid);
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while getting the account holdings");
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		return holdings;
+	}
+
+	public static AtomicGroupSubmitter.TxBuilder createTransactionBuilder(TransferItem item, Address sender) {
+		return params -> Transaction.AssetTransferTransactionBuilder()
+				.sender(sender)
+				.assetReceiver(new Address(item.getReceiver()))
+				.assetAmount(item.getAmount())
+				.assetIndex(item.getAssetid())
+				.suggestedParams(params)
+				.build();
+	}
+
+	/**
+	 * Records the outcome of the submitted rows, 'results' is in the same order as 'pending'
+	 */
+	public static void applyResults(List<TransferItem> pending, List<TxResult> results) {
+		for (int i=0; i<pending.size(); i++) {
+			TransferItem item = pending.get(i);
+			TxResult result = results.get(i);
+			item.setTxid(result.getTxid());
+			if (result.isConfirmed()) {
+				item.setStatus(TransferStatus.SENT);
+				item.setConfirmed_round(result.getConfirmed_round());
+			} else {
+				item.fail(result.getError());
+			}
+		}
+	}
+
+	public static void writeResults(String filename, List<TransferItem> items) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+			writer.write(CSVUtils.toLine("row", "receiver", "assetid", "amount", "status", "txid", "confirmed_round", "reason"));
+			writer.newLine();
+			for (TransferItem item: items) {
+				writer.write(CSVUtils.toLine(item.getRow(), item.getReceiver(), item.getAssetid(), item.getAmount(), item.getStatus(), item.getTxid(), item.getConfirmed_round(), item.getReason()));
+				writer.newLine();
+			}
+		}
+	}
+
+	public static long count(List<TransferItem> items, TransferStatus status) {
+		return items.stream().filter(item -> item.getStatus() == status).count();
+	}
+
+}
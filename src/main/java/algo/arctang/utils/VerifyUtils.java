@@ -0,0 +1,254 @@
+package algo.arctang.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.objects.verify.ARCVerificationResult;
+import algo.arctang.objects.verify.MediaReference;
+import algo.arctang.objects.verify.VerifyTask;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+/**
+ * ARC checks used by the batch and offline VERIFY and the /verify endpoint. Each warning lowers the 0-10
+ * score by its weight, any error (mismatching hash or integrity, missing metadata) marks the asset as not
+ * verified with score 0.
+ *
+ * The weights follow the forestfish verifyARCAsset scoring: a mutable ASA and an unrelated or missing name
+ * cost 2, URL conventions 1. Like forestfish, the clawback and freeze addresses are not scored.
+ */
+public class VerifyUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VerifyUtils.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final Pattern ARC19_TEMPLATE = Pattern.compile("^template-ipfs://\\{ipfscid:([^:]*):([^:]*):([^:]*):([^}]*)\\}.*$");
+
+	// ARC3 media keys which may carry a matching '<key>_integrity' field
+	public static final String[] ARC3_MEDIA_KEYS = {"image", "animation_url", "external_url"};
+
+	private static final double NAME_RELATION_THRESHOLD = 0.5d;
+
+	/**
+	 * Collects the ARC3 media URLs with an integrity field from the metadata, with {id} substituted unless
+	 * the asset is not minted yet (null assetid)
+	 */
+	public static ArrayList<MediaReference> getMediaReferences(Long assetid, AVMNFTStandard standard, String metadata_json) {
+		ArrayList<MediaReference> media = new ArrayList<MediaReference>();
+		if ((standard != AVMNFTStandard.ARC3) || (null == metadata_json)) return media;
+		try {
+			JsonNode metadata = MAPPER.readTree(metadata_json);
+			for (String key: ARC3_MEDIA_KEYS) {
+				String url = metadata.path(key).asText("");
+				String integrity = metadata.path(key + "_integrity").asText("");
+				if (url.isEmpty() || integrity.isEmpty()) continue;
+				media.add(new MediaReference(key, (null == assetid) ? url : url.replace("{id}", assetid.toString()), integrity));
+			}
+		} catch (Exception e) {
+			LOGGER.debug("Unable to parse metadata for assetID " + assetid + ": " + e.getMessage());
+		}
+		return media;
+	}
+
+	public static ARCVerificationResult score(VerifyTask task) {
+		ARCVerificationResult result = new ARCVerificationResult(task.getAssetid());
+		result.setStandard(task.getStandard());
+		if (task.isFailed()) {
+			result.addError(task.getError());
+			return result;
+		}
+
+		JsonNode params;
+		try {
+			params = MAPPER.readTree(task.getAsa_json()).path("params");
+		} catch (Exception e) {
+			result.addError("Unable to parse the ASA params JSON");
+			return result;
+		}
+
+		checkMutables(params, result);
+
+		if (task.getStandard() == AVMNFTStandard.ARC3) checkARC3(params, task, result);
+		if (task.getStandard() == AVMNFTStandard.ARC19) checkARC19(params, result);
+		if (task.getStandard() == AVMNFTStandard.ARC69) checkARC69(params, task, result);
+
+		if ((null == task.getMetadata_json()) || task.getMetadata_json().isEmpty()) {
+			result.addError("Unable to resolve the ARC metadata");
+			return result;
+		}
+		checkNameRelation(params, task.getMetadata_json(), result);
+
+		for (MediaReference media: task.getMedia()) {
+			if (null != media.getError()) {
+				result.addError("Unable to fetch " + media.getKey() + " at " + media.getUrl() + ": " + media.getError());
+			} else if (media.getIntegrity().equals("sha256-" + media.getSha256())) {
+				result.addVerified("The " + media.getKey() + "_integrity field matches the " + media.getKey() + " content");
+			} else {
+				result.addError("The " + media.getKey() + "_integrity field " + media.getIntegrity() + " does not match the " + media.getKey() + " content (sha256-" + media.getSha256() + ")");
+			}
+		}
+
+		return result;
+	}
+
+	private static void checkMutables(JsonNode params, ARCVerificationResult result) {
+		if (params.path("manager").asText("").isEmpty()) {
+			result.addVerified("ASA is immutable since the manager address is not set");
+		} else {
+			result.addWarning("Manager address is set, ASA is mutable", 2);
+		}
+	}
+
+	private static void checkARC3(JsonNode params, VerifyTask task, ARCVerificationResult result) {
+		String name = params.path("name").asText("");
+		String url = params.path("url").asText("");
+		if (url.endsWith("#arc3")) {
+			result.addVerified("Asset URL ends with #arc3");
+		} else if (name.equals("arc3") || name.endsWith("@arc3")) {
+			result.addVerified("Asset name is arc3 or ends with @arc3");
+		}
+		if (url.startsWith("ipfs://")) {
+			result.addVerified("Asset URL uses ipfs://");
+		} else {
+			result.addWarning("Asset URL does not use ipfs://", 1);
+		}
+
+		String metadata_hash = params.path("metadata-hash").asText("");
+		if (metadata_hash.isEmpty()) {
+			result.addWarning("No metadata hash specified in the ASA", 1);
+		} else if (null != task.getMetadata_sha256()) {
+			if (metadata_hash.equals(task.getMetadata_sha256())) {
+				result.addVerified("ASA metadata hash matches the metadata sha256");
+			} else if (hasExtraMetadata(task.getMetadata_json())) {
+				result.addWarning("ASA metadata hash not verified since the metadata uses extra_metadata", 1);
+			} else {
+				result.addError("ASA metadata hash " + metadata_hash + " does not match the metadata sha256 " + task.getMetadata_sha256());
+			}
+		}
+	}
+
+	private static void checkARC19(JsonNode params, ARCVerificationResult result) {
+		Matcher m = ARC19_TEMPLATE.matcher(params.path("url").asText(""));
+		if (!m.matches()) {
+			result.addError("Asset URL is not a valid ARC19 template");
+			return;
+		}
+		if (m.group(1).equals("0") || m.group(1).equals("1")) {
+			result.addVerified("ARC19 template CID version is " + m.group(1));
+		} else {
+			result.addError("ARC19 template CID version " + m.group(1) + " is invalid");
+		}
+		if (m.group(2).equals("raw") || m.group(2).equals("dag-pb")) {
+			result.addVerified("ARC19 template multicodec is " + m.group(2));
+		} else {
+			result.addError("ARC19 template multicodec " + m.group(2) + " is invalid");
+		}
+		if (m.group(3).equals("reserve")) {
+			result.addVerified("ARC19 template field name is reserve");
+		} else {
+			result.addError("ARC19 template field name " + m.group(3) + " is invalid");
+		}
+		if (m.group(4).equals("sha2-256")) {
+			result.addVerified("ARC19 template hash type is sha2-256");
+		} else {
+			result.addError("ARC19 template hash type " + m.group(4) + " is invalid");
+		}
+	}
+
+	private static void checkARC69(JsonNode params, VerifyTask task, ARCVerificationResult result) {
+		String url = params.path("url").asText("");
+		if (url.startsWith("ipfs://")) {
+			result.addVerified("ARC69 media URL uses ipfs://");
+		} else {
+			result.addWarning("ARC69 media URL does not use ipfs://", 1);
+		}
+		if (url.matches("^.*#[ivaph]$")) {
+			result.addVerified("ARC69 media URL has a media type fragment");
+		} else {
+			result.addWarning("ARC69 media URL has no media type fragment (#i, #v, #a, #p or #h)", 1);
+		}
+		try {
+			if ((null != task.getMetadata_json()) && MAPPER.readTree(task.getMetadata_json()).path("standard").asText("").equals("arc69")) {
+				result.addVerified("ARC69 metadata standard field is arc69");
+			}
+		} catch (Exception e) {
+			result.addError("ARC69 metadata note is not valid JSON");
+		}
+	}
+
+	private static void checkNameRelation(JsonNode params, String metadata_json, ARCVerificationResult result) {
+		String unitname = params.path("unit-name").asText("");
+		String metadata_name;
+		try {
+			metadata_name = MAPPER.readTree(metadata_json).path("name").asText("");
+		} catch (Exception e) {
+			return;
+		}
+		if (unitname.isEmpty() || metadata_name.isEmpty()) {
+			result.addWarning("Unable to relate the metadata name to the ASA unit name", 2);
+		} else if (isRelated(unitname, metadata_name)) {
+			result.addVerified("Metadata name (" + metadata_name + ") is related to the ASA unit name (" + unitname + ")");
+		} else {
+			result.addWarning("Metadata name (" + metadata_name + ") is not related to the ASA unit name (" + unitname + ")", 2);
+		}
+	}
+
+	private static boolean hasExtraMetadata(String metadata_json) {
+		try {
+			return MAPPER.readTree(metadata_json).has("extra_metadata");
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * True if the longest common subsequence covers at least half of the shorter name (case insensitive)
+	 */
+	public static boolean isRelated(String a, String b) {
+		int shortest = Math.min(a.length(), b.length());
+		if (shortest == 0) return false;
+		return longestCommonSubsequence(a.toLowerCase(), b.toLowerCase()) >= (NAME_RELATION_THRESHOLD * shortest);
+	}
+
+	public static int longestCommonSubsequence(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int i=1; i<=a.length(); i++) {
+			for (int j=1; j<=b.length(); j++) {
+				if (a.charAt(i - 1) == b.charAt(j - 1)) {
+					current[j] = previous[j - 1] + 1;
+				} else {
+					current[j] = Math.max(previous[j], current[j - 1]);
+				}
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	public static String sha256Base64(String content) {
+		return sha256Base64(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static String sha256Base64(byte[] content) {
+		try {
+			return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package algo.arctang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.ipfs.GatewayScoreboard;
+import algo.arctang.objects.ipfs.MediaHasher;
+import algo.arctang.standin.StandinServer;
+import algo.arctang.utils.ARCUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+import crypto.forestfish.objects.avm.model.nft.ARC19Asset;
+import crypto.forestfish.objects.avm.model.nft.ARC3Asset;
+import crypto.forestfish.objects.avm.model.nft.ARC69Asset;
+import crypto.forestfish.utils.AVMUtils;
+import crypto.forestfish.utils.JSONUtils;
+
+/**
+ * The checks of MainnetARCTests against the recorded MAINNET responses served by the stand-in server, so
+ * they run offline and do not break when one of the (still mutable) assets is updated on chain.
+ */
+public class RecordedMainnetARCTests {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private StandinServer server;
+	private AVMBlockChainConnector connector;
+	private ASAParamsCache asa_cache;
+	private CachedIPFSConnector ipfs_connector;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StandinServer().start().addRecordedMainnet();
+		connector = new AVMBlockChainConnector(server.getChainInfo());
+		asa_cache = new ASAParamsCache(tmp.newFolder().getAbsolutePath(), false);
+		GatewayScoreboard scoreboard = new GatewayScoreboard(new File(tmp.newFolder(), "gateways.json").getAbsolutePath(), new String[] {server.getGateway("recorded")}, false);
+		ipfs_connector = new CachedIPFSConnector(null, new MediaHasher(CachedIPFSConnector.DEFAULT_MAX_INFLIGHT_BYTES), scoreboard);
+	}
+
+	@After
+	public void tearDown() {
+		ipfs_connector.close();
+		server.close();
+	}
+
+	@Test
+	public void testARC3Metadata() {
+		String asa_json = AVMUtils.getASARawJSONResponse(connector, StandinServer.RECORDED_ARC3_ASSETID);
+		assertEquals("Raw JSON response check", JSONUtils.compactPrint(StandinServer.readFixture(StandinServer.RECORDED_ARC3_ASSETID + ".asa.json")), JSONUtils.compactPrint(asa_json));
+
+		ARC3Asset arcasset = AVMUtils.createARC3Asset(asa_json);
+		assertTrue("Verify the assetID is parsed correctly", arcasset.getAssetID().equals(StandinServer.RECORDED_ARC3_ASSETID));
+		assertEquals("Verify the asset name is parsed correctly", "ARC3", arcasset.getAssetName());
+		assertEquals("Verify the unit name is parsed correctly", "NFTARC3", arcasset.getUnitName());
+		assertEquals("Verify the URL is parsed correctly", "ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3", arcasset.getAssetURL());
+
+		String metajson = ARCUtils.getARCMetadataFromASAAssetID(connector, asa_cache, ipfs_connector, StandinServer.RECORDED_ARC3_ASSETID);
+		assertEquals("Metadata JSON response check", JSONUtils.compactPrint(StandinServer.readFixture(StandinServer.RECORDED_ARC3_ASSETID + ".metadata.json")), JSONUtils.compactPrint(metajson));
+	}
+
+	@Test
+	public void testARC19Metadata() {
+		String asa_json = AVMUtils.getASARawJSONResponse(connector, StandinServer.RECORDED_ARC19_ASSETID);
+		ARC19Asset arcasset = AVMUtils.createARC19Asset(asa_json);
+		assertEquals("Verify the asset name is parsed correctly", "Anon 220", arcasset.getAssetName());
+		assertEquals("Verify the unit name is parsed correctly", "S1ANON", arcasset.getUnitName());
+
+		String cid = AVMUtils.extractCIDFromARC19URLAndReserveAddress(arcasset.getAssetURL(), arcasset.getReserve().toString());
+		assertEquals("Verify the cid is resolved properly", "bafkreihxpwumraqrlafdxldjitba7gkvwh2vaos4z6uscbodopqnee6gpa", cid);
+
+		String metajson = ARCUtils.getARCMetadataFromASAAssetID(connector, asa_cache, ipfs_connector, StandinServer.RECORDED_ARC19_ASSETID);
+		assertEquals("Metadata JSON response check", JSONUtils.compactPrint(StandinServer.readFixture(StandinServer.RECORDED_ARC19_ASSETID + ".metadata.json")), JSONUtils.compactPrint(metajson));
+	}
+
+	@Test
+	public void testARC69Metadata() {
+		String asa_json = AVMUtils.getASARawJSONResponse(connector, StandinServer.RECORDED_ARC69_ASSETID);
+		ARC69Asset arcasset = AVMUtils.createARC69Asset(asa_json);
+		assertEquals("Verify the asset name is parsed correctly", "Zip", arcasset.getAssetName());
+		assertEquals("Verify the unit name is parsed correctly", "ALCH0046", arcasset.getUnitName());
+
+		String latesttxnote = AVMUtils.getASALatestConfigTransactionNote(connector, arcasset.getAssetID());
+		assertEquals("Verify metadata JSON content is correct", JSONUtils.compactPrint(StandinServer.readFixture(StandinServer.RECORDED_ARC69_ASSETID + ".metadata.json")), JSONUtils.compactPrint(latesttxnote));
+	}
+
+	@Test
+	public void testARCStandardIdentify() {
+		assertEquals("Verify ARC3 for 387411719", AVMNFTStandard.ARC3, AVMUtils.identifyARCStandardFromASAAssetID(connector, StandinServer.RECORDED_ARC3_ASSETID));
+		assertEquals("Verify ARC19 for 865610737", AVMNFTStandard.ARC19, AVMUtils.identifyARCStandardFromASAAssetID(connector, StandinServer.RECORDED_ARC19_ASSETID));
+		assertEquals("Verify ARC69 for 490139078", AVMNFTStandard.ARC69, AVMUtils.identifyARCStandardFromASAAssetID(connector, StandinServer.RECORDED_ARC69_ASSETID));
+	}
+
+}
@@ -0,0 +1,45 @@
+package algo.arctang.objects.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.forestfish.utils.JSONUtils;
+
+public class ASAParamsCacheTest {
+
+	private static final String MUTABLE_ASA_JSON = "{\"index\":387411719,\"params\":{\"creator\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"decimals\":0,\"default-frozen\":false,\"manager\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"name\":\"ARC3\",\"reserve\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"total\":1,\"unit-name\":\"NFTARC3\",\"url\":\"ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3\"}}";
+	private static final String IMMUTABLE_ASA_JSON = "{\"index\":387411719,\"params\":{\"creator\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"decimals\":0,\"default-frozen\":false,\"name\":\"ARC3\",\"total\":1,\"unit-name\":\"NFTARC3\",\"url\":\"ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3\"}}";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testImmutableDetection() {
+		assertFalse("Manager and reserve set", ASAParamsCache.isAllImmutable(MUTABLE_ASA_JSON));
+		assertTrue("All four addresses cleared", ASAParamsCache.isAllImmutable(IMMUTABLE_ASA_JSON));
+	}
+
+	@Test
+	public void testImmutableEntryServedFromDisk() throws Exception {
+		File cachedir = tmp.newFolder();
+		ASAParamsCacheEntry entry = new ASAParamsCacheEntry(387411719L, IMMUTABLE_ASA_JSON, true, 0L, 0L);
+		Files.writeString(new File(cachedir, "387411719.json").toPath(), JSONUtils.createJSONFromPOJO(entry), StandardCharsets.UTF_8);
+
+		// no connector, an immutable entry must never trigger a remote call
+		ASAParamsCache cache = new ASAParamsCache(cachedir.getAbsolutePath(), true);
+		assertEquals("Cached raw JSON returned", IMMUTABLE_ASA_JSON, cache.getASARawJSONResponse(null, 387411719L));
+
+		cache.invalidate(387411719L);
+		assertFalse("Entry removed on invalidate", new File(cachedir, "387411719.json").exists());
+	}
+
+}
@@ -0,0 +1,82 @@
+package algo.arctang.objects.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.algorand.algosdk.v2.client.model.Transaction;
+import com.algorand.algosdk.v2.client.model.TransactionAssetConfig;
+import com.algorand.algosdk.v2.client.model.TransactionAssetTransfer;
+
+import algo.arctang.objects.ARCAssetHolding;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+public class HoldingsIndexTest {
+
+	private static final String ADDRESS = "TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testAffectedAssets() {
+		Transaction axfer = new Transaction();
+		axfer.assetTransferTransaction = new TransactionAssetTransfer();
+		axfer.assetTransferTransaction.assetId = 387411719L;
+
+		// an asset creation has no asset id in the acfg itself
+		Transaction create = new Transaction();
+		create.assetConfigTransaction = new TransactionAssetConfig();
+		create.assetConfigTransaction.assetId = 0L;
+		create.createdAssetIndex = 865610737L;
+
+		// a marketplace sale pays out the asset from an app call
+		Transaction inner = new Transaction();
+		inner.assetTransferTransaction = new TransactionAssetTransfer();
+		inner.assetTransferTransaction.assetId = 490139078L;
+		Transaction appl = new Transaction();
+		appl.innerTxns = new ArrayList<Transaction>(Arrays.asList(inner));
+
+		TreeSet<Long> assetids = new TreeSet<Long>();
+		HoldingsIndex.addAffectedAssets(Arrays.asList(axfer, create, appl, new Transaction()), assetids);
+		assertEquals(Arrays.asList(387411719L, 490139078L, 865610737L), new ArrayList<Long>(assetids));
+	}
+
+	@Test
+	public void testStoredIndex() throws Exception {
+		File indexdir = tmp.newFolder();
+		HoldingsIndex index = new HoldingsIndex(indexdir.getAbsolutePath(), true);
+		assertNull("No index before the first LIST", index.read(ADDRESS));
+
+		ArrayList<ARCAssetHolding> holdings = new ArrayList<ARCAssetHolding>();
+		holdings.add(new ARCAssetHolding(490139078L, BigInteger.ONE, AVMNFTStandard.ARC69, "ARC69", "NFTARC69", "ownership of 490139078"));
+		holdings.add(new ARCAssetHolding(387411719L, BigInteger.TWO, AVMNFTStandard.ARC3, "ARC3", "NFTARC3", "ownership of 387411719"));
+		index.write(new AccountHoldings(ADDRESS, 30000000L, holdings));
+
+		AccountHoldings stored = index.read(ADDRESS);
+		assertEquals(Long.valueOf(30000000L), stored.getRound());
+		List<ARCAssetHolding> read = stored.getHoldings();
+		assertEquals("Account order is kept", Long.valueOf(490139078L), read.get(0).getAssetid());
+		assertEquals(BigInteger.TWO, read.get(1).getAmount());
+		assertEquals(AVMNFTStandard.ARC3, read.get(1).getStandard());
+		assertEquals("NFTARC3", read.get(1).getUnit_name());
+
+		Files.writeString(new File(indexdir, ADDRESS + ".json").toPath(), "{\"address\":", StandardCharsets.UTF_8);
+		assertNull("A truncated index is rebuilt", index.read(ADDRESS));
+		index.invalidate(ADDRESS);
+		assertEquals(0, indexdir.list().length);
+	}
+
+}
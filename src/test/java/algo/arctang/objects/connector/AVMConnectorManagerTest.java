@@ -0,0 +1,41 @@
+package algo.arctang.objects.connector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import crypto.forestfish.utils.JSONUtils;
+
+public class AVMConnectorManagerTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testHealthServedFromCacheWithinTTL() throws Exception {
+		File healthfile = new File(tmp.newFolder(), "MAINNET.json");
+		Files.writeString(healthfile.toPath(), JSONUtils.createJSONFromPOJO(new NodeHealth(1000L, 998L, System.currentTimeMillis())), StandardCharsets.UTF_8);
+
+		// no chainInfo, a fresh cached result must not require a connector
+		AVMConnectorManager manager = new AVMConnectorManager(null, healthfile.getAbsolutePath(), true);
+		assertEquals(Long.valueOf(998L), manager.getCachedIndexerRound());
+		assertEquals(Long.valueOf(1000L), manager.checkHealth().getAlgod_round());
+	}
+
+	@Test
+	public void testStaleHealthIgnored() throws Exception {
+		File healthfile = new File(tmp.newFolder(), "MAINNET.json");
+		Files.writeString(healthfile.toPath(), JSONUtils.createJSONFromPOJO(new NodeHealth(1000L, 998L, 0L)), StandardCharsets.UTF_8);
+
+		AVMConnectorManager manager = new AVMConnectorManager(null, healthfile.getAbsolutePath(), true);
+		assertNull(manager.getCachedIndexerRound());
+	}
+
+}
@@ -0,0 +1,111 @@
+package algo.arctang.objects.connector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NodeRouterTest {
+
+	private ExecutorService executor;
+	private NodeRouter<String> router;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+		router = new NodeRouter<String>("ALGOD", () -> executor);
+		router.add("a", "a");
+		router.add("b", "b");
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private static void seed(NodeLatency latency, long latency_ms, int samples) {
+		for (int i=0; i<samples; i++) latency.record(latency_ms);
+	}
+
+	@Test
+	public void testLowestEwmaRanksFirst() {
+		seed(router.getLatency("a"), 50L, 20);
+		seed(router.getLatency("b"), 10L, 20);
+		assertEquals("b", router.rank().get(0).name);
+		assertEquals("b", router.call("asa_params", node -> node));
+
+		// a run of slow answers moves the ewma past the other node
+		seed(router.getLatency("b"), 200L, 5);
+		assertEquals("a", router.rank().get(0).name);
+	}
+
+	@Test
+	public void testUntriedNodeFirst() {
+		seed(router.getLatency("a"), 1L, 20);
+		assertEquals("b", router.rank().get(0).name);
+		assertEquals("b", router.call("asa_params", node -> node));
+		assertEquals(1, router.getLatency("b").getCount());
+	}
+
+	@Test
+	public void testHedgeAfterP95() {
+		seed(router.getLatency("a"), 5L, 20);
+		seed(router.getLatency("b"), 50L, 20);
+		assertEquals(5L, router.getLatency("a").getP95_ms());
+
+		long start = System.currentTimeMillis();
+		String result = router.call("asa_params", node -> {
+			if (node.equals("a")) {
+				try {
+					Thread.sleep(5000L);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return node;
+		});
+		assertEquals("the hedged call on the second node wins", "b", result);
+		assertTrue("did not wait for the slow node", (System.currentTimeMillis() - start) < 2000L);
+	}
+
+	@Test
+	public void testRetryOnThrow() {
+		seed(router.getLatency("a"), 5L, 20);
+		seed(router.getLatency("b"), 50L, 20);
+
+		String result = router.call("asa_params", node -> {
+			if (node.equals("a")) throw new IllegalStateException("connection reset");
+			return node;
+		});
+		assertEquals("b", result);
+		assertEquals(1L, router.getLatency("a").getFailures());
+		assertEquals(0L, router.getLatency("b").getFailures());
+	}
+
+	@Test
+	public void testRetryOnNull() {
+		seed(router.getLatency("a"), 5L, 20);
+		seed(router.getLatency("b"), 50L, 20);
+
+		String result = router.call("asa_params", node -> node.equals("a") ? null : node);
+		assertEquals("b", result);
+		assertEquals(1L, router.getLatency("a").getFailures());
+		assertEquals("a fast null answer is not a fast node", "b", router.rank().get(0).name);
+	}
+
+	@Test
+	public void testBothNodesFail() {
+		String result = router.call("asa_params", node -> {
+			throw new IllegalStateException("connection reset");
+		});
+		assertEquals(null, result);
+		assertEquals(1L, router.getLatency("a").getFailures());
+		assertEquals(1L, router.getLatency("b").getFailures());
+	}
+
+}
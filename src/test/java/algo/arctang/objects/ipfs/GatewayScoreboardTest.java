@@ -0,0 +1,52 @@
+package algo.arctang.objects.ipfs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GatewayScoreboardTest {
+
+	private static final String[] GATEWAYS = {"https://a/ipfs/", "https://b/ipfs/", "https://c/ipfs/"};
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testRankingAndDemotion() throws Exception {
+		GatewayScoreboard scoreboard = new GatewayScoreboard(new File(tmp.newFolder(), "gateways.json").getAbsolutePath(), GATEWAYS, false);
+		List<GatewayStats> all = scoreboard.getGateways();
+		all.get(0).recordSuccess(900L);
+		all.get(1).recordSuccess(100L);
+		all.get(2).recordSuccess(50L);
+		all.get(2).recordMismatch();
+
+		List<GatewayStats> top = scoreboard.getTop(2, new ArrayList<GatewayStats>());
+		assertEquals("https://b/ipfs/", top.get(0).getGateway());
+		assertEquals("https://a/ipfs/", top.get(1).getGateway());
+
+		List<GatewayStats> rest = scoreboard.getTop(2, top);
+		assertEquals("demoted gateway is tried last", 1, rest.size());
+		assertEquals("https://c/ipfs/", rest.get(0).getGateway());
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		String scorepath = new File(tmp.newFolder(), "gateways.json").getAbsolutePath();
+		GatewayScoreboard scoreboard = new GatewayScoreboard(scorepath, GATEWAYS, true);
+		scoreboard.getGateways().get(0).recordFailure();
+		scoreboard.getGateways().get(1).recordSuccess(200L);
+		scoreboard.save();
+
+		GatewayScoreboard reloaded = new GatewayScoreboard(scorepath, GATEWAYS, true);
+		assertEquals(1L, reloaded.getGateways().get(0).getFailures());
+		assertEquals(200L, Math.round(reloaded.getGateways().get(1).getEwma_ms()));
+		assertEquals("failed gateway ranks last", "https://a/ipfs/", reloaded.getTop(3, new ArrayList<GatewayStats>()).get(2).getGateway());
+	}
+
+}
@@ -0,0 +1,118 @@
+package algo.arctang.objects.ipfs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IPFSBlobStoreTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testPutGetAndReopen() throws Exception {
+		File storedir = tmp.newFolder();
+		byte[] metadata = "{\"name\":\"ARC3\",\"description\":\"First ARC3 NFT?\"}".getBytes(StandardCharsets.UTF_8);
+
+		IPFSBlobStore store = new IPFSBlobStore(storedir.getAbsolutePath(), 1024L * 1024L);
+		assertNull("Empty store", store.get("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e"));
+		store.put("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e", metadata);
+		assertArrayEquals("Blob read back", metadata, store.get("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e"));
+		store.close();
+
+		IPFSBlobStore reopened = new IPFSBlobStore(storedir.getAbsolutePath(), 1024L * 1024L);
+		assertArrayEquals("Blob read back after reopen", metadata, reopened.get("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e"));
+		reopened.close();
+	}
+
+	@Test
+	public void testLRUEviction() throws Exception {
+		File storedir = tmp.newFolder();
+		IPFSBlobStore store = new IPFSBlobStore(storedir.getAbsolutePath(), 4096L);
+		byte[] blob = new byte[1000];
+
+		store.put("cid1", blob);
+		store.put("cid2", blob);
+		store.put("cid3", blob);
+		store.put("cid4", blob);
+		assertNotNull("Touch cid1 so cid2 becomes the eldest", store.get("cid1"));
+		store.put("cid5", blob);
+
+		assertEquals("Live size within the limit", 4000L, store.getLiveBytes());
+		assertNull("Least recently used blob evicted", store.get("cid2"));
+		assertNotNull("Recently used blob kept", store.get("cid1"));
+		assertNotNull("Newest blob kept", store.get("cid5"));
+		store.close();
+	}
+
+	@Test
+	public void testCorruptIndexLineAndPack() throws Exception {
+		File storedir = tmp.newFolder();
+		byte[] metadata = "{\"name\":\"ARC3\",\"description\":\"First ARC3 NFT?\"}".getBytes(StandardCharsets.UTF_8);
+		IPFSBlobStore store = new IPFSBlobStore(storedir.getAbsolutePath(), 1024L * 1024L);
+		store.put("cid1", new byte[10]);
+		store.put("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e", metadata);
+		store.close();
+
+		// a corrupt record only loses itself, the records after it still load
+		Path indexpath = storedir.toPath().resolve("blobs.idx");
+		List<String> lines = new ArrayList<String>(Files.readAllLines(indexpath, StandardCharsets.UTF_8));
+		lines.add(1, "cid0\tnot-a-number\t10");
+		Files.write(indexpath, lines, StandardCharsets.UTF_8);
+		// damage the stored metadata in place
+		try (RandomAccessFile pack = new RandomAccessFile(new File(storedir, "blobs.pack"), "rw")) {
+			pack.seek(12L);
+			pack.write('X');
+		}
+
+		IPFSBlobStore reopened = new IPFSBlobStore(storedir.getAbsolutePath(), 1024L * 1024L);
+		assertEquals(2, reopened.size());
+		assertNotNull(reopened.get("cid1"));
+		assertNull("content not matching its CID is never served", reopened.get("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e"));
+		assertFalse(reopened.contains("bafkreic2t2ztvyiq4tmmq7gew6ont44qlguj4ok6p7r7i3qhlfpync7k7e"));
+		reopened.close();
+	}
+
+	@Test
+	public void testLockSurvivesCompaction() throws Exception {
+		File storedir = tmp.newFolder();
+		IPFSBlobStore store = new IPFSBlobStore(storedir.getAbsolutePath(), 4096L);
+		byte[] blob = new byte[1000];
+		// enough evictions to force a compaction of the pack
+		for (int i=0; i<20; i++) store.put("cid" + i, blob);
+		assertTrue(new File(storedir, "blobs.pack").length() <= 4096L + 2048L);
+
+		IPFSBlobStore second = new IPFSBlobStore(storedir.getAbsolutePath(), 4096L);
+		second.put("other", blob);
+		assertFalse("the store is still locked after compaction", second.contains("other"));
+		second.close();
+
+		store.put("cid20", blob);
+		assertNotNull(store.get("cid20"));
+		store.close();
+	}
+
+	@Test
+	public void testIPFSPath() {
+		assertEquals("bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm", CachedIPFSConnector.getIPFSPath("ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3"));
+		assertEquals("QmVxZFeLHtbrdtFabb46ToSvegpKyva1jzTkR61a8uM7qT", CachedIPFSConnector.getIPFSPath("https://gateway.pinata.cloud/ipfs/QmVxZFeLHtbrdtFabb46ToSvegpKyva1jzTkR61a8uM7qT"));
+		assertEquals("Qmd95Cm5QAoDmtXRD7dD2PZox8EU19wfLXPVasm3fzNTYe/4044.json", CachedIPFSConnector.getIPFSPath("ipfs://Qmd95Cm5QAoDmtXRD7dD2PZox8EU19wfLXPVasm3fzNTYe/4044.json#arc3"));
+		assertNull(CachedIPFSConnector.getIPFSPath("https://luchadores.io/luchador/4044"));
+	}
+
+}
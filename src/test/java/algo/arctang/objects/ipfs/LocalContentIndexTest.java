@@ -0,0 +1,109 @@
+package algo.arctang.objects.ipfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import algo.arctang.utils.CIDUtils;
+import algo.arctang.utils.VerifyUtils;
+
+public class LocalContentIndexTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testFolderCIDs() throws Exception {
+		File root = tmp.newFolder();
+		Files.writeString(new File(root, "hello.txt").toPath(), "hello world\n");
+		Files.writeString(new File(root, "raw.txt").toPath(), "hello world");
+		Files.writeString(new File(root, "empty.txt").toPath(), "");
+		new File(root, "sub").mkdir();
+		Files.writeString(new File(root, ".hidden").toPath(), "skipped");
+
+		try (LocalContentIndex index = LocalContentIndex.fromFolder(root.toPath(), 2)) {
+			assertEquals(3, index.getContents().size());
+			assertEquals("hello.txt", index.resolve("ipfs://QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o").getPath());
+			assertEquals("raw.txt", index.resolve("ipfs://bafkreifzjut3te2nhyekklss27nh3k72ysco7y32koao5eei66wof36n5e").getPath());
+			assertEquals("empty.txt", index.resolve("https://ipfs.io/ipfs/QmbFMke1KXqnYyBBWxB74N4c5SBnJMVAiMNRcGu6x1AwQH").getPath());
+			assertEquals("empty.txt", index.resolve("ipfs://bafkreihdwdcefgh4dqkjv67uzcmw7ojee6xedzdetojuzjevtenxquvyku").getPath());
+			assertEquals(VerifyUtils.sha256Base64("hello world"), index.findSha256(VerifyUtils.sha256Base64("hello world")).getSha256());
+
+			// the folder CID resolves its files by path, an unknown directory CID only by path lookup
+			String folder_cid = index.getRoot_cids().get(0);
+			assertEquals("hello.txt", index.resolve("ipfs://" + folder_cid + "/hello.txt").getPath());
+			assertNull(index.resolve("ipfs://QmUNLLsPACCz1vLxQVkXqqLX5R1X345qqfHbsf67hvA3Nn/hello.txt"));
+			assertEquals("hello.txt", index.resolvePath("ipfs://QmUNLLsPACCz1vLxQVkXqqLX5R1X345qqfHbsf67hvA3Nn/hello.txt").getPath());
+		}
+	}
+
+	@Test
+	public void testEmptyDirectoryCID() {
+		UnixFSImporter.Node directory = UnixFSImporter.directory(new ArrayList<String>(), new ArrayList<UnixFSImporter.Node>(), false);
+		assertEquals("QmUNLLsPACCz1vLxQVkXqqLX5R1X345qqfHbsf67hvA3Nn", CIDUtils.toString(directory.getCid()));
+	}
+
+	@Test
+	public void testMultiChunkFile() {
+		// 3 chunks: a root linking 3 leaves, v0 and v1 differ in their leaves but agree on the sizes
+		byte[] chunk = new byte[UnixFSImporter.CHUNK_SIZE];
+		UnixFSImporter v0 = new UnixFSImporter(false);
+		UnixFSImporter v1 = new UnixFSImporter(true);
+		for (int i=0; i<3; i++) {
+			v0.write(chunk, (i < 2) ? chunk.length : 10);
+			v1.write(chunk, (i < 2) ? chunk.length : 10);
+		}
+		UnixFSImporter.Node root0 = v0.finish();
+		UnixFSImporter.Node root1 = v1.finish();
+		assertEquals(2L * UnixFSImporter.CHUNK_SIZE + 10L, root0.getFilesize());
+		assertEquals(2L * UnixFSImporter.CHUNK_SIZE + 10L, root1.getFilesize());
+		assertEquals(CIDUtils.CODEC_DAG_PB, CIDUtils.getCodec(root0.getCid()));
+		assertEquals(CIDUtils.CODEC_DAG_PB, CIDUtils.getCodec(root1.getCid()));
+	}
+
+	@Test
+	public void testCarArchive() throws Exception {
+		byte[] file_block = new PBNode(new ArrayList<PBNode.Link>(), PBNode.unixfs(PBNode.UNIXFS_FILE, "hello world\n".getBytes(StandardCharsets.UTF_8), 12L, null)).encode();
+		byte[] file_cid = CIDUtils.cidV0(sha256(file_block));
+		byte[] directory_block = new PBNode(Arrays.asList(new PBNode.Link(file_cid, "a.txt", file_block.length)), PBNode.unixfs(PBNode.UNIXFS_DIRECTORY, null, null, null)).encode();
+		byte[] directory_cid = CIDUtils.cidV1(CIDUtils.CODEC_DAG_PB, sha256(directory_block));
+
+		ByteArrayOutputStream car = new ByteArrayOutputStream();
+		byte[] header = {(byte) 0xa2, 0x65, 'r', 'o', 'o', 't', 's', (byte) 0x80, 0x67, 'v', 'e', 'r', 's', 'i', 'o', 'n', 0x01};
+		CIDUtils.writeVarint(car, header.length);
+		car.write(header);
+		for (byte[][] section: new byte[][][] {{directory_cid, directory_block}, {file_cid, file_block}}) {
+			CIDUtils.writeVarint(car, section[0].length + section[1].length);
+			car.write(section[0]);
+			car.write(section[1]);
+		}
+		File archive = tmp.newFile("content.car");
+		Files.write(archive.toPath(), car.toByteArray());
+
+		try (LocalContentIndex index = LocalContentIndex.fromCar(archive.toPath())) {
+			assertEquals(CIDUtils.toString(directory_cid), index.getRoot_cids().get(0));
+			LocalContent content = index.resolve("ipfs://" + CIDUtils.toString(directory_cid) + "/a.txt");
+			assertNotNull(content);
+			assertEquals("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o", content.getCids().get(0));
+			assertEquals(VerifyUtils.sha256Base64("hello world\n"), content.getSha256());
+			assertEquals("hello world\n", index.readString(content));
+		}
+	}
+
+	private static byte[] sha256(byte[] content) throws Exception {
+		return MessageDigest.getInstance("SHA-256").digest(content);
+	}
+
+}
@@ -0,0 +1,34 @@
+package algo.arctang.objects.ipfs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import algo.arctang.utils.VerifyUtils;
+
+public class MediaHasherTest {
+
+	@Test
+	public void testStreamedHashMatchesBufferedHash() throws Exception {
+		byte[] content = new byte[3 * MediaHasher.BUFFER_SIZE + 123];
+		new Random(42L).nextBytes(content);
+
+		MediaHasher hasher = new MediaHasher(1024L * 1024L);
+		assertEquals(VerifyUtils.sha256Base64(content), hasher.sha256Base64(new ByteArrayInputStream(content)));
+		assertEquals("budget released after hashing", 0, hasher.getInflightBytes());
+	}
+
+	@Test
+	public void testBudgetSmallerThanBuffer() throws Exception {
+		byte[] content = new byte[10000];
+		new Random(7L).nextBytes(content);
+
+		MediaHasher hasher = new MediaHasher(1000L);
+		assertEquals(VerifyUtils.sha256Base64(content), hasher.sha256Base64(new ByteArrayInputStream(content)));
+		assertEquals(1000, hasher.getMax_inflight_bytes());
+	}
+
+}
@@ -0,0 +1,62 @@
+package algo.arctang.objects.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void testHistogramBuckets() {
+		// every value falls in the bucket reported for it, within 1/16 above it
+		for (long value: new long[] {0L, 1L, 31L, 32L, 33L, 63L, 64L, 1000L, 123456L, 987654321L}) {
+			long highest = LatencyHistogram.getHighestValue(LatencyHistogram.getIndex(value));
+			assertTrue(value + " <= " + highest, value <= highest);
+			assertTrue(value + " ~ " + highest, (highest - value) <= (value / 16L));
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long ms=1L; ms<=1000L; ms++) histogram.record(ms * 1000L);
+		assertEquals(1000L, histogram.getCount());
+		assertEquals(500000.0d, histogram.getValueAtPercentile(50.0d), 500000.0d / 16.0d);
+		assertEquals(990000.0d, histogram.getValueAtPercentile(99.0d), 990000.0d / 16.0d);
+		assertEquals(1000000L, histogram.getValueAtPercentile(100.0d));
+		assertEquals(1000000L, histogram.getMax_us());
+		assertEquals(500500.0d, histogram.getMean_us(), 0.001d);
+	}
+
+	@Test
+	public void testReports() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.record(MetricsRegistry.IPFS, "content", 20000000L, 1024L, false);
+		registry.time(MetricsRegistry.ALGOD, "asa_params", () -> null);
+
+		JsonNode json = registry.toJSON();
+		assertEquals(2, json.path("operations").size());
+		assertEquals("algod", json.path("operations").get(0).path("service").asText());
+		assertEquals(1L, json.path("operations").get(0).path("errors").asLong());
+		assertEquals(1024L, json.path("operations").get(1).path("bytes").asLong());
+
+		String prometheus = registry.toPrometheus();
+		assertTrue(prometheus.contains("# TYPE arctang_remote_call_duration_seconds summary\n"));
+		assertTrue(prometheus.contains("arctang_remote_bytes_total{service=\"ipfs\",operation=\"content\"} 1024\n"));
+		assertTrue(prometheus.contains("arctang_remote_call_duration_seconds_count{service=\"ipfs\",operation=\"content\"} 1\n"));
+		assertEquals(3, registry.getSummary().size());
+	}
+
+	@Test
+	public void testRawJSONBytes() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.time(MetricsRegistry.ALGOD, "asa_params", () -> "{\"index\":1,\"name\":\"Zip \u26a1\"}");
+		registry.time(MetricsRegistry.ALGOD, "status", () -> Long.valueOf(1L));
+		assertEquals("UTF-8 length of the raw JSON", 28L, registry.getOperation(MetricsRegistry.ALGOD, "asa_params").getBytes());
+		assertEquals(0L, registry.getOperation(MetricsRegistry.ALGOD, "status").getBytes());
+	}
+
+}
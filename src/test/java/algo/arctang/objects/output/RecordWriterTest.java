@@ -0,0 +1,71 @@
+package algo.arctang.objects.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.enums.OutputFormat;
+import algo.arctang.objects.rarity.RarityResult;
+import algo.arctang.utils.JSONDiffUtils;
+
+public class RecordWriterTest {
+
+	@Test
+	public void testJSONL() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (RecordWriter output = new RecordWriter(OutputFormat.JSONL, bytes)) {
+			output.write(new RarityResult(1001L, 1, 8.0d, 2));
+			ObjectNode record = RecordWriter.createRecord();
+			record.put("assetid", 1002L);
+			record.set("metadata", JSONDiffUtils.parse("{\n  \"name\" : \"Cat #2\"\n}"));
+			output.write(record);
+		}
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("{\"assetid\":1001,\"rank\":1,\"score\":8.0,\"trait_count\":2}", lines[0]);
+		assertEquals("embedded JSON is written compact", "{\"assetid\":1002,\"metadata\":{\"name\":\"Cat #2\"}}", lines[1]);
+	}
+
+	@Test
+	public void testCSV() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (RecordWriter output = new RecordWriter(OutputFormat.CSV, bytes)) {
+			ObjectNode first = RecordWriter.createRecord();
+			first.put("assetid", 1001L);
+			first.put("name", "Cat, the \"first\"");
+			first.set("metadata", JSONDiffUtils.parse("{\"tags\":[\"a\"]}"));
+			output.write(first);
+			ObjectNode second = RecordWriter.createRecord();
+			second.put("assetid", 1002L);
+			second.put("extra", "not in the header");
+			output.write(second);
+		}
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("assetid,name,metadata", lines[0]);
+		assertEquals("1001,\"Cat, the \"\"first\"\"\",\"{\"\"tags\"\":[\"\"a\"\"]}\"", lines[1]);
+		assertEquals("missing fields are empty", "1002,,", lines[2]);
+	}
+
+	@Test
+	public void testFlushInBatches() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		RecordWriter output = new RecordWriter(OutputFormat.JSONL, bytes);
+		ObjectNode record = RecordWriter.createRecord();
+		record.put("assetid", 1L);
+		for (int i=0; i<RecordWriter.FLUSH_RECORDS - 1; i++) output.write(record);
+		assertEquals("buffered until a batch is full", 0, bytes.size());
+		output.write(record);
+		assertEquals(RecordWriter.FLUSH_RECORDS * "{\"assetid\":1}\n".length(), bytes.size());
+		output.write(record);
+		output.close();
+		assertEquals(RecordWriter.FLUSH_RECORDS + 1, output.getCount());
+		assertEquals((RecordWriter.FLUSH_RECORDS + 1) * "{\"assetid\":1}\n".length(), bytes.size());
+	}
+
+}
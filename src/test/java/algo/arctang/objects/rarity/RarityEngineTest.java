@@ -0,0 +1,74 @@
+package algo.arctang.objects.rarity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RarityEngineTest {
+
+	@Test
+	public void testScores() {
+		RarityEngine rarity = new RarityEngine();
+		rarity.add(1L, "{\"properties\":{\"Background\":\"grey\",\"Hat\":\"none\"}}");
+		rarity.add(2L, "{\"properties\":{\"Background\":\"grey\"}}");
+		rarity.add(3L, "{\"properties\":{\"Background\":\"grey\"}}");
+		rarity.add(4L, "{\"properties\":{\"Background\":\"gold\",\"Hat\":\"crown\"}}");
+		rarity.add(5L, "not json");
+
+		List<RarityResult> results = new ArrayList<RarityResult>();
+		rarity.score(results::add);
+		assertEquals(4, results.size());
+		assertEquals(1L, rarity.getSkipped());
+
+		// gold 4/1 + crown 4/1
+		assertEquals(Long.valueOf(4L), results.get(0).getAssetid());
+		assertEquals(1, results.get(0).getRank());
+		assertEquals(8.0d, results.get(0).getScore(), 0.0001d);
+		// grey 4/3 + an explicit Hat none 4/1, which is not the same as having no Hat
+		assertEquals(Long.valueOf(1L), results.get(1).getAssetid());
+		assertEquals(4.0d / 3.0d + 4.0d, results.get(1).getScore(), 0.0001d);
+		assertEquals(2, results.get(1).getRank());
+		assertEquals(2, results.get(0).getTrait_count());
+
+		// grey 4/3 + no Hat 4/2, equal traits share a rank in assetid order
+		assertEquals(4.0d / 3.0d + 2.0d, results.get(2).getScore(), 0.0001d);
+		assertEquals(Long.valueOf(2L), results.get(2).getAssetid());
+		assertEquals(Long.valueOf(3L), results.get(3).getAssetid());
+		assertEquals(3, results.get(2).getRank());
+		assertEquals(3, results.get(3).getRank());
+	}
+
+	@Test
+	public void testParallelAdd() throws Exception {
+		String[] backgrounds = {"grey", "grey", "grey", "blue", "blue", "gold"};
+		RarityEngine rarity = new RarityEngine();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t=0; t<4; t++) {
+			int first = t * 2500;
+			Thread thread = new Thread(() -> {
+				for (long assetid=first; assetid<first + 2500; assetid++) {
+					String hat = ((assetid % 100) == 0) ? ",\"hat\":\"crown\"" : "";
+					rarity.add(assetid, "{\"properties\":{\"background\":\"" + backgrounds[(int) (assetid % backgrounds.length)] + "\"" + hat + "}}");
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread: threads) thread.join();
+
+		List<RarityResult> results = new ArrayList<RarityResult>();
+		rarity.score(results::add);
+		assertEquals(10000, results.size());
+		assertEquals(4, rarity.getTraitCount());
+
+		// the 100 crowns are the rarest whatever thread counted them, blue crowns first
+		for (int i=0; i<100; i++) assertEquals(0L, results.get(i).getAssetid() % 100L);
+		assertEquals(1, results.get(32).getRank());
+		assertEquals(34, results.get(33).getRank());
+		assertEquals(10000.0d / 3333.0d + 100.0d, results.get(0).getScore(), 0.0001d);
+	}
+
+}
@@ -0,0 +1,69 @@
+package algo.arctang.objects.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.cache.ASAParamsCacheEntry;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import crypto.forestfish.utils.JSONUtils;
+
+public class ArctangServerTest {
+
+	private static final String IMMUTABLE_ASA_JSON = "{\"index\":387411719,\"params\":{\"creator\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"decimals\":0,\"default-frozen\":false,\"name\":\"ARC3\",\"total\":1,\"unit-name\":\"NFTARC3\",\"url\":\"ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3\"}}";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testQueryRawFromWarmCache() throws Exception {
+		File cachedir = tmp.newFolder();
+		ASAParamsCacheEntry entry = new ASAParamsCacheEntry(387411719L, IMMUTABLE_ASA_JSON, true, 0L, 0L);
+		Files.writeString(new File(cachedir, "387411719.json").toPath(), JSONUtils.createJSONFromPOJO(entry), StandardCharsets.UTF_8);
+
+		// no connector, everything asked for here is served from the warm cache or rejected up front
+		ArctangServer server = new ArctangServer(null, new ASAParamsCache(cachedir.getAbsolutePath(), true), new CachedIPFSConnector(null), 1, new InetSocketAddress("127.0.0.1", 0), 4);
+		server.start();
+		try {
+			HttpClient client = HttpClient.newHttpClient();
+			String base = "http://127.0.0.1:" + server.getPort();
+
+			HttpResponse<String> health = client.send(HttpRequest.newBuilder(URI.create(base + "/health")).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, health.statusCode());
+
+			HttpResponse<String> raw = client.send(HttpRequest.newBuilder(URI.create(base + "/query/raw?assetid=387411719")).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, raw.statusCode());
+			assertEquals(IMMUTABLE_ASA_JSON, raw.body());
+
+			HttpResponse<String> missing = client.send(HttpRequest.newBuilder(URI.create(base + "/query/raw")).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(400, missing.statusCode());
+			assertTrue(missing.body().contains("assetid"));
+
+			MetricsRegistry.get().record(MetricsRegistry.ALGOD, "asa_params", 2000000L, 0L, false);
+			HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(URI.create(base + "/metrics")).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, metrics.statusCode());
+			assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+			assertTrue(metrics.body().contains("arctang_remote_calls_total{service=\"algod\",operation=\"asa_params\"}"));
+
+			HttpResponse<String> post = client.send(HttpRequest.newBuilder(URI.create(base + "/health")).POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(405, post.statusCode());
+		} finally {
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package algo.arctang.objects.traits;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import algo.arctang.utils.TraitUtils;
+
+public class TraitIndexTest {
+
+	private static final String[] METADATA = {
+			"{\"standard\":\"arc69\",\"properties\":{\"Background\":\"RVT01#11 Dusty Pink Portal\",\"Eyes\":\"RVT04#02 Blue\",\"Hair\":\"none\"}}",
+			"{\"standard\":\"arc69\",\"properties\":{\"Background\":\"none\",\"Eyes\":\"RVT04#02 Blue\",\"Hair\":\"none\"}}",
+			"{\"name\":\"ARC3 #3\",\"properties\":{\"traits\":{\"Background\":\"gold\"},\"tags\":[\"rare\",\"gold\"],\"level\":7}}",
+			"{\"standard\":\"arc69\",\"properties\":{\"Background\":\"RVT01#11 Dusty Pink Portal\",\"Eyes\":\"RVT04#03 Green\",\"Hair\":\"none\"}}",
+			"{\"standard\":\"arc69\",\"description\":\"no traits\"}"
+	};
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testQuery() throws Exception {
+		TraitIndex index = build();
+		assertEquals(5, index.getAssetCount());
+		assertArrayEquals(new long[] {1001L, 1004L}, index.query(Arrays.asList("Background=RVT01#11 Dusty Pink Portal")));
+		assertArrayEquals("filters are combined", new long[] {1001L}, index.query(Arrays.asList("Background=RVT01#11 Dusty Pink Portal", "Eyes=RVT04#02 Blue")));
+		assertArrayEquals(new long[0], index.query(Arrays.asList("Background=RVT01#11 Dusty Pink Portal", "Eyes=unknown")));
+		assertArrayEquals(new long[] {1002L}, index.query(Arrays.asList("Background=none")));
+
+		// nested ARC3 properties, arrays and numbers
+		assertArrayEquals(new long[] {1003L}, index.query(Arrays.asList("traits.Background=gold", "tags=rare", "tags=gold", "level=7")));
+		assertArrayEquals("no filter lists the whole collection", new long[] {1001L, 1002L, 1003L, 1004L, 1005L}, index.query(Collections.emptyList()));
+
+		assertEquals(Integer.valueOf(2), index.getValueCounts("Background").get("RVT01#11 Dusty Pink Portal"));
+		assertEquals(Integer.valueOf(3), index.getValueCounts("Hair").get("none"));
+	}
+
+	@Test
+	public void testStoredIndex() throws Exception {
+		TraitIndex index = build();
+		File file = new File(tmp.newFolder(), "creator.idx");
+		index.write(file.toPath());
+
+		TraitIndex stored = TraitIndex.read(file.toPath());
+		assertEquals(index.getAssetCount(), stored.getAssetCount());
+		assertEquals(index.getTraitCount(), stored.getTraitCount());
+		assertEquals(index.getKeys(), stored.getKeys());
+		assertEquals(index.getBuilt_ms(), stored.getBuilt_ms());
+		assertArrayEquals(new long[] {1001L}, stored.query(Arrays.asList("Background=RVT01#11 Dusty Pink Portal", "Eyes=RVT04#02 Blue")));
+	}
+
+	@Test
+	public void testRefreshedIndex() throws Exception {
+		TraitIndex index = build().withRound(30000000L);
+		File file = new File(tmp.newFolder(), "creator.idx");
+		index.write(file.toPath());
+		assertEquals(30000000L, TraitIndex.read(file.toPath()).getRound());
+
+		// asset 1001 changed its traits, 1002 was destroyed
+		TraitIndex.Builder builder = index.toBuilder(new TreeSet<Long>(Arrays.asList(1001L, 1002L)));
+		builder.setRound(30000100L);
+		builder.addAsset(1001L);
+		builder.add(1001L, "Background", "gold");
+		TraitIndex refreshed = builder.build();
+		assertEquals(4, refreshed.getAssetCount());
+		assertEquals(30000100L, refreshed.getRound());
+		assertEquals("the build time of the full index is kept", index.getBuilt_ms(), refreshed.getBuilt_ms());
+		assertArrayEquals(new long[] {1004L}, refreshed.query(Arrays.asList("Background=RVT01#11 Dusty Pink Portal")));
+		assertArrayEquals(new long[] {1001L}, refreshed.query(Arrays.asList("Background=gold")));
+		assertArrayEquals(new long[] {1003L}, refreshed.query(Arrays.asList("traits.Background=gold")));
+		assertArrayEquals(new long[0], refreshed.query(Arrays.asList("Eyes=RVT04#02 Blue")));
+	}
+
+	@Test
+	public void testIntersect() {
+		assertArrayEquals(new int[] {3, 9}, TraitIndex.intersect(new int[] {1, 3, 5, 9}, new int[] {2, 3, 9, 11}));
+		assertArrayEquals(new int[0], TraitIndex.intersect(new int[] {1, 2}, new int[0]));
+		assertFalse("not JSON", TraitUtils.getTraits("ipfs://not-json", (key, value) -> {}));
+	}
+
+	private static TraitIndex build() {
+		TraitIndex.Builder builder = new TraitIndex.Builder();
+		for (int i=0; i<METADATA.length; i++) {
+			Long assetid = 1001L + i;
+			builder.addAsset(assetid);
+			TraitUtils.getTraits(METADATA[i], (key, value) -> builder.add(assetid, key, value));
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,67 @@
+package algo.arctang.standin;
+
+/**
+ * Latency and failures the stand-in server injects into the responses of one service (algod, indexer or
+ * an IPFS gateway). Every response is delayed by latency_ms plus a uniform random 0..jitter_ms, then
+ * answered with a 429 (throttle_rate) or a 500 (error_rate) instead of the real response.
+ */
+public class FaultProfile {
+
+	private long latency_ms = 0L;
+	private long jitter_ms = 0L;
+	private double error_rate = 0.0d;
+	private double throttle_rate = 0.0d;
+
+	public FaultProfile() {
+		super();
+	}
+
+	public FaultProfile(long latency_ms, long jitter_ms, double error_rate, double throttle_rate) {
+		super();
+		this.latency_ms = latency_ms;
+		this.jitter_ms = jitter_ms;
+		this.error_rate = error_rate;
+		this.throttle_rate = throttle_rate;
+	}
+
+	public static FaultProfile down() {
+		return new FaultProfile(0L, 0L, 1.0d, 0.0d);
+	}
+
+	public static FaultProfile throttled() {
+		return new FaultProfile(0L, 0L, 0.0d, 1.0d);
+	}
+
+	public long getLatency_ms() {
+		return latency_ms;
+	}
+
+	public void setLatency_ms(long latency_ms) {
+		this.latency_ms = latency_ms;
+	}
+
+	public long getJitter_ms() {
+		return jitter_ms;
+	}
+
+	public void setJitter_ms(long jitter_ms) {
+		this.jitter_ms = jitter_ms;
+	}
+
+	public double getError_rate() {
+		return error_rate;
+	}
+
+	public void setError_rate(double error_rate) {
+		this.error_rate = error_rate;
+	}
+
+	public double getThrottle_rate() {
+		return throttle_rate;
+	}
+
+	public void setThrottle_rate(double throttle_rate) {
+		this.throttle_rate = throttle_rate;
+	}
+
+}
@@ -0,0 +1,181 @@
+package algo.arctang.standin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.algorand.algosdk.account.Account;
+
+import algo.arctang.objects.ARCAssetHolding;
+import algo.arctang.objects.cache.ASAParamsCache;
+import algo.arctang.objects.cache.HoldingsIndex;
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.ipfs.GatewayScoreboard;
+import algo.arctang.objects.ipfs.MediaHasher;
+import algo.arctang.objects.metrics.MetricsRegistry;
+import algo.arctang.objects.mint.MintItem;
+import algo.arctang.objects.scan.CreatorAssetIterator;
+import algo.arctang.objects.txn.AtomicGroupSubmitter;
+import algo.arctang.objects.txn.ConfirmationTracker;
+import algo.arctang.objects.txn.TxResult;
+import algo.arctang.objects.verify.VerifyPipeline;
+import algo.arctang.objects.verify.VerifySummary;
+import algo.arctang.utils.ListUtils;
+import algo.arctang.utils.MintUtils;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+import crypto.forestfish.objects.avm.connector.AVMBlockChainConnector;
+
+/**
+ * LIST, VERIFY and MINT against a synthetic collection on the stand-in server, with realistic latency and
+ * a share of throttled and failing requests. No network is needed, throughput is logged for comparison
+ * between runs.
+ */
+public class StandinLoadTest {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StandinLoadTest.class);
+
+	private static final int COLLECTION_SIZE = 500;
+	private static final long FIRST_ASSETID = 100000000L;
+	private static final int CONCURRENCY = 16;
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private StandinServer server;
+	private AVMBlockChainConnector connector;
+	private CachedIPFSConnector ipfs_connector;
+	private List<Long> assetids;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StandinServer(100L, 42L).start();
+		assetids = new SyntheticCollection(42L).addARC3(server, SyntheticCollection.CREATOR, FIRST_ASSETID, COLLECTION_SIZE, 64 * 1024);
+		server.setFaults(StandinServer.ALGOD, new FaultProfile(5L, 10L, 0.0d, 0.0d));
+		server.setFaults(StandinServer.INDEXER, new FaultProfile(20L, 30L, 0.0d, 0.0d));
+		server.setFaults("fast", new FaultProfile(20L, 20L, 0.05d, 0.05d));
+		server.setFaults("slow", new FaultProfile(200L, 100L, 0.0d, 0.0d));
+		server.setFaults("down", FaultProfile.down());
+
+		connector = new AVMBlockChainConnector(server.getChainInfo());
+		String[] gateways = {server.getGateway("down"), server.getGateway("slow"), server.getGateway("fast")};
+		GatewayScoreboard scoreboard = new GatewayScoreboard(new File(tmp.newFolder(), "gateways.json").getAbsolutePath(), gateways, false);
+		ipfs_connector = new CachedIPFSConnector(null, new MediaHasher(CachedIPFSConnector.DEFAULT_MAX_INFLIGHT_BYTES), scoreboard);
+	}
+
+	@After
+	public void tearDown() {
+		ipfs_connector.close();
+		server.close();
+	}
+
+	@Test
+	public void testVerifyLoad() throws Exception {
+		ASAParamsCache asa_cache = new ASAParamsCache(tmp.newFolder().getAbsolutePath(), true);
+		VerifyPipeline pipeline = new VerifyPipeline(connector, asa_cache, ipfs_connector, VerifyPipeline.getDefaultStageConcurrency(CONCURRENCY), 64);
+		AtomicInteger scored = new AtomicInteger();
+		VerifySummary summary = pipeline.run(assetids.iterator(), result -> {
+			if (result.getScore() == 10) scored.incrementAndGet();
+		});
+		LOGGER.info("VERIFY of " + summary.getTotal() + " assets in " + summary.getElapsed_ms() + " ms, " + String.format("%.1f", summary.getAssets_per_second()) + " assets/s");
+		assertEquals(COLLECTION_SIZE, summary.getTotal());
+		assertEquals("every synthetic asset scores 10 despite the injected faults", COLLECTION_SIZE, scored.get());
+	}
+
+	@Test
+	public void testListLoad() throws Exception {
+		ASAParamsCache asa_cache = new ASAParamsCache(tmp.newFolder().getAbsolutePath(), true);
+		AtomicInteger arc3 = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		ListUtils.getARCAssetHoldings(connector, asa_cache, SyntheticCollection.CREATOR, CONCURRENCY, holding -> {
+			if (holding.getStandard() == AVMNFTStandard.ARC3) arc3.incrementAndGet();
+		});
+		long elapsed_ms = System.currentTimeMillis() - start;
+		LOGGER.info("LIST of " + arc3.get() + " holdings in " + elapsed_ms + " ms");
+		assertEquals(COLLECTION_SIZE, arc3.get());
+	}
+
+	@Test
+	public void testListIndexLoad() throws Exception {
+		ASAParamsCache asa_cache = new ASAParamsCache(tmp.newFolder().getAbsolutePath(), true);
+		HoldingsIndex index = new HoldingsIndex(tmp.newFolder().getAbsolutePath(), true);
+		List<ARCAssetHolding> holdings = new ArrayList<ARCAssetHolding>();
+		index.streamARCAssetHoldings(connector, asa_cache, SyntheticCollection.CREATOR, CONCURRENCY, holdings::add);
+		assertEquals(COLLECTION_SIZE, holdings.size());
+
+		// a new round with one asset sent away, only that asset is looked up again
+		server.advanceRound();
+		server.addHolding(SyntheticCollection.CREATOR, FIRST_ASSETID, 0L);
+		server.advanceRound();
+		long lookups = MetricsRegistry.get().getOperation(MetricsRegistry.INDEXER, "account_asset").getCalls();
+		long start = System.currentTimeMillis();
+		holdings.clear();
+		index.streamARCAssetHoldings(connector, asa_cache, SyntheticCollection.CREATOR, CONCURRENCY, holdings::add);
+		LOGGER.info("LIST of " + holdings.size() + " indexed holdings in " + (System.currentTimeMillis() - start) + " ms");
+		assertEquals(COLLECTION_SIZE - 1, holdings.size());
+		assertEquals(1L, MetricsRegistry.get().getOperation(MetricsRegistry.INDEXER, "account_asset").getCalls() - lookups);
+	}
+
+	@Test
+	public void testCreatorScanFailure() throws Exception {
+		long count = 0L;
+		try (CreatorAssetIterator assets = new CreatorAssetIterator(connector, SyntheticCollection.CREATOR)) {
+			while (assets.hasNext()) {
+				assets.next();
+				count++;
+			}
+			assertTrue(assets.isComplete());
+		}
+		assertEquals(COLLECTION_SIZE, count);
+
+		// a listing the indexer cuts short is not the end of the collection
+		server.setFaults(StandinServer.INDEXER, FaultProfile.down());
+		try (CreatorAssetIterator assets = new CreatorAssetIterator(connector, SyntheticCollection.CREATOR)) {
+			assets.hasNext();
+			fail("expected the failed page to be reported");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains(SyntheticCollection.CREATOR));
+		}
+	}
+
+	@Test
+	public void testMintLoad() throws Exception {
+		// an in-memory account, the stand-in does not check signatures and no wallet is written to disk
+		Account account = new Account();
+
+		// mint copies of the synthetic collection from its metadata
+		List<MintItem> items = new ArrayList<MintItem>();
+		for (Long assetid: assetids) {
+			String url = server.getAsset(assetid).path("params").path("url").asText();
+			items.add(new MintItem(items.size() + 1, url.substring(0, url.indexOf('#')), null, null, null));
+		}
+		MintUtils.prepare(items, AVMNFTStandard.ARC3, ipfs_connector, CONCURRENCY);
+		List<AtomicGroupSubmitter.TxBuilder> builders = new ArrayList<AtomicGroupSubmitter.TxBuilder>();
+		for (MintItem item: items) {
+			assertTrue(item.getError(), item.isValid());
+			builders.add(MintUtils.createTransactionBuilder(item, account.getAddress()));
+		}
+
+		long start = System.currentTimeMillis();
+		List<TxResult> results;
+		try (ConfirmationTracker tracker = new ConfirmationTracker(connector)) {
+			results = new AtomicGroupSubmitter(connector, tracker, account, AtomicGroupSubmitter.MAX_GROUP_SIZE).submit(builders);
+		}
+		long elapsed_ms = System.currentTimeMillis() - start;
+		LOGGER.info("MINT of " + results.size() + " assets in " + elapsed_ms + " ms, " + server.getSubmitted() + " groups submitted");
+		assertEquals(COLLECTION_SIZE, results.stream().filter(TxResult::isConfirmed).count());
+	}
+
+}
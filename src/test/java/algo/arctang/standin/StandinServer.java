@@ -0,0 +1,556 @@
+package algo.arctang.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import algo.arctang.utils.CIDUtils;
+import algo.arctang.utils.VerifyUtils;
+import crypto.forestfish.enums.avm.AVMChain;
+import crypto.forestfish.objects.avm.AlgoIndexerNode;
+import crypto.forestfish.objects.avm.AlgoRelayNode;
+import crypto.forestfish.objects.avm.model.chain.AVMChainInfo;
+import crypto.forestfish.utils.AVMUtils;
+
+/**
+ * Embeddable stand-in for an algod node, an indexer and any number of IPFS gateways, serving recorded or
+ * synthetic assets from memory so tests and load tests run offline and repeatably. Every service can be
+ * given a FaultProfile to inject latency, jitter, 500s and 429s.
+ *
+ * Each service listens on its own loopback port, the gateways share one port as http://host:port/NAME/ipfs/.
+ * Only the endpoints arctang uses are served:
+ *
+ *   algod:   /health, /v2/status, /v2/status/wait-for-block-after/R, /v2/transactions/params,
+ *            POST /v2/transactions, /v2/transactions/pending/TXID, /v2/assets/ID, /v2/accounts/ADDR
+ *   indexer: /health, /v2/assets?creator=ADDR, /v2/assets/ID/transactions, /v2/accounts/ADDR/assets,
+ *            /v2/transactions?address=ADDR
+ *   ipfs:    /NAME/ipfs/CID[/PATH]
+ *
+ * Submitted transactions are not decoded: every txid confirms in the current round, and gets a new asset
+ * id the first time its pending info is asked for, which is what a MINT needs. Rounds advance every
+ * round_ms, or right away with advanceRound().
+ */
+public class StandinServer implements AutoCloseable {
+
+	public static final String ALGOD = "algod";
+	public static final String INDEXER = "indexer";
+
+	public static final long RECORDED_ARC3_ASSETID = 387411719L;
+	public static final long RECORDED_ARC19_ASSETID = 865610737L;
+	public static final long RECORDED_ARC69_ASSETID = 490139078L;
+	private static final long[] RECORDED_ASSETIDS = {RECORDED_ARC3_ASSETID, RECORDED_ARC19_ASSETID, RECORDED_ARC69_ASSETID};
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// the stand-in accepts any token
+	private static final String API_TOKEN = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+	private static final String API_TOKEN_KEY = "X-Algo-API-Token";
+
+	private static final long FIRST_ROUND = 30000000L;
+	private static final long FIRST_MINTED_ASSETID = 2000000000L;
+	private static final int INDEXER_PAGE_LIMIT = 100;
+	private static final long MAX_BLOCK_WAIT_MS = 5000L;
+
+	private final long round_ms;
+	private final long started = System.currentTimeMillis();
+	private final Random random;
+
+	// assetid -> {"index":..,"params":{..}}, insertion ordered per creator through creator_assets
+	private final ConcurrentHashMap<Long, JsonNode> assets = new ConcurrentHashMap<Long, JsonNode>();
+	private final ConcurrentHashMap<String, List<Long>> creator_assets = new ConcurrentHashMap<String, List<Long>>();
+	private final ConcurrentHashMap<Long, List<String>> config_notes = new ConcurrentHashMap<Long, List<String>>();
+	private final ConcurrentHashMap<String, Map<Long, Long>> holdings = new ConcurrentHashMap<String, Map<Long, Long>>();
+	private final List<ObjectNode> transfers = new ArrayList<ObjectNode>();
+	private final ConcurrentHashMap<String, byte[]> content = new ConcurrentHashMap<String, byte[]>();
+	private final ConcurrentHashMap<String, Long> minted = new ConcurrentHashMap<String, Long>();
+	private final AtomicLong next_minted_assetid = new AtomicLong(FIRST_MINTED_ASSETID);
+	private final AtomicLong skipped_rounds = new AtomicLong();
+	private final LongAdder submitted = new LongAdder();
+
+	private final ConcurrentHashMap<String, FaultProfile> faults = new ConcurrentHashMap<String, FaultProfile>();
+	private final ConcurrentHashMap<String, LongAdder> requests = new ConcurrentHashMap<String, LongAdder>();
+
+	private final List<HttpServer> servers = new ArrayList<HttpServer>();
+	private ExecutorService executor;
+	private HttpServer algod;
+	private HttpServer indexer;
+	private HttpServer ipfs;
+
+	public StandinServer() {
+		this(200L, 42L);
+	}
+
+	public StandinServer(long round_ms, long seed) {
+		super();
+		this.round_ms = round_ms;
+		this.random = new Random(seed);
+	}
+
+	public StandinServer start() throws IOException {
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "standin-server");
+			t.setDaemon(true);
+			return t;
+		});
+		algod = listen(exchange -> handle(exchange, ALGOD, this::algod));
+		indexer = listen(exchange -> handle(exchange, INDEXER, this::indexer));
+		ipfs = listen(exchange -> {
+			// the gateway name is the first path segment, faults are injected per gateway
+			String path = exchange.getRequestURI().getRawPath();
+			int slash = path.indexOf('/', 1);
+			handle(exchange, (slash < 0) ? path.substring(1) : path.substring(1, slash), this::ipfs);
+		});
+		return this;
+	}
+
+	@Override
+	public void close() {
+		for (HttpServer server: servers) server.stop(0);
+		if (null != executor) executor.shutdownNow();
+	}
+
+	/**
+	 * Serves the recorded MAINNET assets of src/test/resources/fixtures, the ARC3 and ARC19 metadata under
+	 * their real CIDs and the ARC69 metadata as the latest acfg note
+	 */
+	public StandinServer addRecordedMainnet() {
+		for (long assetid: RECORDED_ASSETIDS) addAsset(readFixture(assetid + ".asa.json"));
+		addContent(readFixture(RECORDED_ARC3_ASSETID + ".metadata.json").getBytes(StandardCharsets.UTF_8));
+		addContent(readFixture(RECORDED_ARC19_ASSETID + ".metadata.json").getBytes(StandardCharsets.UTF_8));
+		addConfigNote(RECORDED_ARC69_ASSETID, readFixture(RECORDED_ARC69_ASSETID + ".metadata.json"));
+		return this;
+	}
+
+	public static String readFixture(String name) {
+		try (InputStream in = StandinServer.class.getResourceAsStream("/fixtures/" + name)) {
+			if (null == in) throw new IllegalStateException("Missing fixture " + name);
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Adds an asset from its algod response, {"index":..,"params":{..}}
+	 */
+	public void addAsset(String asa_json) {
+		try {
+			JsonNode asset = MAPPER.readTree(asa_json);
+			long assetid = asset.path("index").asLong();
+			assets.put(assetid, asset);
+			String creator = asset.path("params").path("creator").asText("");
+			creator_assets.computeIfAbsent(creator, c -> new ArrayList<Long>());
+			synchronized (creator_assets.get(creator)) {
+				creator_assets.get(creator).add(assetid);
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid asset JSON: " + e.getMessage(), e);
+		}
+	}
+
+	public JsonNode getAsset(long assetid) {
+		return assets.get(assetid);
+	}
+
+	/**
+	 * Adds an acfg transaction with this note, ARC69 metadata is the note of the latest one
+	 */
+	public void addConfigNote(long assetid, String note) {
+		List<String> notes = config_notes.computeIfAbsent(assetid, id -> new ArrayList<String>());
+		synchronized (notes) {
+			notes.add(note);
+		}
+	}
+
+	/**
+	 * Sets the balance of the address and records an axfer to it in the current round, a zero amount
+	 * removes the holding
+	 */
+	public void addHolding(String address, long assetid, long amount) {
+		Map<Long, Long> account = holdings.computeIfAbsent(address, a -> new ConcurrentHashMap<Long, Long>());
+		if (amount == 0L) account.remove(assetid);
+		else account.put(assetid, amount);
+		ObjectNode txn = MAPPER.createObjectNode();
+		synchronized (transfers) {
+			txn.put("id", "STANDINAXFER" + transfers.size());
+			txn.put("tx-type", "axfer");
+			txn.put("confirmed-round", getRound());
+			txn.put("round-time", 1700000000L + transfers.size());
+			txn.put("sender", address);
+			ObjectNode axfer = txn.putObject("asset-transfer-transaction");
+			axfer.put("asset-id", assetid);
+			axfer.put("amount", amount);
+			axfer.put("receiver", address);
+			transfers.add(txn);
+		}
+	}
+
+	/**
+	 * Serves the content under 'cid', or 'cid/path' for content inside a directory
+	 */
+	public void addContent(String cid, byte[] bytes) {
+		content.put(cid, bytes);
+	}
+
+	/**
+	 * Serves the content under its raw CIDv1 and returns that CID
+	 */
+	public String addContent(byte[] bytes) {
+		String cid = CIDUtils.toString(CIDUtils.cidV1(CIDUtils.CODEC_RAW, Base64.getDecoder().decode(VerifyUtils.sha256Base64(bytes))));
+		content.put(cid, bytes);
+		return cid;
+	}
+
+	/**
+	 * Sets the faults of ALGOD, INDEXER or a gateway name
+	 */
+	public void setFaults(String service, FaultProfile profile) {
+		faults.put(service, profile);
+	}
+
+	public void clearFaults() {
+		faults.clear();
+	}
+
+	public String getHost() {
+		return "http://" + InetAddress.getLoopbackAddress().getHostAddress();
+	}
+
+	public int getAlgodPort() {
+		return algod.getAddress().getPort();
+	}
+
+	public int getIndexerPort() {
+		return indexer.getAddress().getPort();
+	}
+
+	/**
+	 * Gateway URL prefix in the form CachedIPFSConnector expects, ie http://127.0.0.1:port/NAME/ipfs/
+	 */
+	public String getGateway(String name) {
+		return getHost() + ":" + ipfs.getAddress().getPort() + "/" + name + "/ipfs/";
+	}
+
+	/**
+	 * MAINNET chain info with its nodes replaced by the stand-in, for new AVMBlockChainConnector(..)
+	 */
+	public AVMChainInfo getChainInfo() {
+		AVMChainInfo chainInfo = AVMUtils.getAVMChainInfo(AVMChain.MAINNET);
+		ArrayList<AlgoRelayNode> nodes = new ArrayList<AlgoRelayNode>();
+		nodes.add(new AlgoRelayNode(getHost(), getAlgodPort(), API_TOKEN, API_TOKEN_KEY));
+		chainInfo.setNodes(nodes);
+		ArrayList<AlgoIndexerNode> idxnodes = new ArrayList<AlgoIndexerNode>();
+		idxnodes.add(new AlgoIndexerNode(getHost(), getIndexerPort(), API_TOKEN, API_TOKEN_KEY));
+		chainInfo.setIdxnodes(idxnodes);
+		return chainInfo;
+	}
+
+	public long getRound() {
+		return FIRST_ROUND + skipped_rounds.get() + ((System.currentTimeMillis() - started) / round_ms);
+	}
+
+	/**
+	 * Moves the chain to the next round without waiting for round_ms, returns the new round
+	 */
+	public long advanceRound() {
+		skipped_rounds.incrementAndGet();
+		return getRound();
+	}
+
+	/**
+	 * Number of responses a service answered with this status
+	 */
+	public long getRequests(String service, int status) {
+		LongAdder count = requests.get(service + " " + status);
+		return (null == count) ? 0L : count.sum();
+	}
+
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	private interface Route {
+		Response respond(String method, String path, HashMap<String, String> params, byte[] body) throws IOException;
+	}
+
+	private static class Response {
+		private final int status;
+		private final String content_type;
+		private final byte[] body;
+
+		Response(int status, String content_type, byte[] body) {
+			this.status = status;
+			this.content_type = content_type;
+			this.body = body;
+		}
+
+		static Response json(int status, JsonNode json) {
+			return new Response(status, "application/json", json.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		static Response notFound(String message) {
+			ObjectNode error = MAPPER.createObjectNode();
+			error.put("message", message);
+			return json(404, error);
+		}
+	}
+
+	private HttpServer listen(com.sun.net.httpserver.HttpHandler handler) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/", handler);
+		server.start();
+		servers.add(server);
+		return server;
+	}
+
+	private void handle(HttpExchange exchange, String service, Route route) throws IOException {
+		Response response;
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] body = in.readAllBytes();
+			response = inject(service);
+			if (null == response) response = route.respond(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(), getQueryParams(exchange.getRequestURI().getRawQuery()), body);
+		} catch (Exception e) {
+			ObjectNode error = MAPPER.createObjectNode();
+			error.put("message", String.valueOf(e.getMessage()));
+			response = Response.json(500, error);
+		}
+		requests.computeIfAbsent(service + " " + response.status, k -> new LongAdder()).increment();
+		exchange.getResponseHeaders().set("Content-Type", response.content_type);
+		if (response.status == 429) exchange.getResponseHeaders().set("Retry-After", "1");
+		exchange.sendResponseHeaders(response.status, (response.body.length == 0) ? -1 : response.body.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(response.body);
+		}
+	}
+
+	// returns the injected failure, null if the request is to be served
+	private Response inject(String service) throws InterruptedException {
+		FaultProfile profile = faults.get(service);
+		if (null == profile) return null;
+		double dice;
+		long jitter;
+		synchronized (random) {
+			dice = random.nextDouble();
+			jitter = (profile.getJitter_ms() > 0L) ? (long) (random.nextDouble() * profile.getJitter_ms()) : 0L;
+		}
+		if ((profile.getLatency_ms() + jitter) > 0L) Thread.sleep(profile.getLatency_ms() + jitter);
+		ObjectNode error = MAPPER.createObjectNode();
+		if (dice < profile.getThrottle_rate()) {
+			error.put("message", "Too Many Requests");
+			return Response.json(429, error);
+		}
+		if (dice < (profile.getThrottle_rate() + profile.getError_rate())) {
+			error.put("message", "Injected failure");
+			return Response.json(500, error);
+		}
+		return null;
+	}
+
+	private Response algod(String method, String path, HashMap<String, String> params, byte[] body) throws IOException {
+		String[] parts = path.split("/");
+		if (path.equals("/health")) return new Response(200, "application/json", new byte[0]);
+		if (path.equals("/v2/status")) return Response.json(200, getStatus());
+		if (path.startsWith("/v2/status/wait-for-block-after/")) {
+			long after = Long.parseLong(parts[5]);
+			long deadline = System.currentTimeMillis() + MAX_BLOCK_WAIT_MS;
+			while ((getRound() <= after) && (System.currentTimeMillis() < deadline)) {
+				try {
+					Thread.sleep(Math.min(round_ms, 50L));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			return Response.json(200, getStatus());
+		}
+		if (path.equals("/v2/transactions/params")) {
+			ObjectNode txparams = MAPPER.createObjectNode();
+			txparams.put("consensus-version", "https://github.com/algorandfoundation/specs/tree/standin");
+			txparams.put("fee", 0L);
+			txparams.put("min-fee", 1000L);
+			txparams.put("genesis-id", "standin-v1.0");
+			txparams.put("genesis-hash", Base64.getEncoder().encodeToString(new byte[32]));
+			txparams.put("last-round", getRound());
+			return Response.json(200, txparams);
+		}
+		if (path.equals("/v2/transactions") && "POST".equals(method)) {
+			submitted.increment();
+			ObjectNode txid = MAPPER.createObjectNode();
+			txid.put("txId", CIDUtils.toString(CIDUtils.cidV1(CIDUtils.CODEC_RAW, Base64.getDecoder().decode(VerifyUtils.sha256Base64(body)))).substring(1, 53).toUpperCase());
+			return Response.json(200, txid);
+		}
+		if (path.startsWith("/v2/transactions/pending/") && (parts.length == 5)) {
+			ObjectNode pending = MAPPER.createObjectNode();
+			pending.put("confirmed-round", getRound());
+			pending.put("asset-index", minted.computeIfAbsent(parts[4], t -> next_minted_assetid.getAndIncrement()));
+			pending.put("pool-error", "");
+			return Response.json(200, pending);
+		}
+		if (path.startsWith("/v2/assets/") && (parts.length == 4)) {
+			JsonNode asset = assets.get(Long.parseLong(parts[3]));
+			if (null == asset) return Response.notFound("asset does not exist");
+			return Response.json(200, asset);
+		}
+		if (path.startsWith("/v2/accounts/") && (parts.length == 4)) {
+			ObjectNode account = MAPPER.createObjectNode();
+			account.put("address", parts[3]);
+			account.put("amount", 100000000L);
+			account.put("amount-without-pending-rewards", 100000000L);
+			account.put("min-balance", 100000L);
+			account.put("pending-rewards", 0L);
+			account.put("rewards", 0L);
+			account.put("round", getRound());
+			account.put("status", "Offline");
+			account.set("assets", getHoldings(parts[3], null));
+			return Response.json(200, account);
+		}
+		return Response.notFound("unknown endpoint " + path);
+	}
+
+	private Response indexer(String method, String path, HashMap<String, String> params, byte[] body) throws IOException {
+		String[] parts = path.split("/");
+		if (path.equals("/health")) {
+			ObjectNode health = MAPPER.createObjectNode();
+			health.put("round", getRound());
+			health.put("db-available", true);
+			health.put("is-migrating", false);
+			health.put("message", String.valueOf(getRound()));
+			health.put("version", "standin");
+			return Response.json(200, health);
+		}
+		if (path.equals("/v2/assets")) {
+			// the next token is the offset into the creator's assets
+			List<Long> created = creator_assets.getOrDefault(params.getOrDefault("creator", ""), new ArrayList<Long>());
+			int limit = Math.min(INDEXER_PAGE_LIMIT, Integer.parseInt(params.getOrDefault("limit", String.valueOf(INDEXER_PAGE_LIMIT))));
+			int offset = Integer.parseInt(params.getOrDefault("next", "0"));
+			ObjectNode page = MAPPER.createObjectNode();
+			ArrayNode list = page.putArray("assets");
+			synchronized (created) {
+				for (int i=offset; (i<created.size()) && (i<offset + limit); i++) {
+					ObjectNode asset = (ObjectNode) assets.get(created.get(i)).deepCopy();
+					asset.put("deleted", false);
+					asset.put("created-at-round", FIRST_ROUND);
+					list.add(asset);
+				}
+				if (offset + limit < created.size()) page.put("next-token", String.valueOf(offset + limit));
+			}
+			page.put("current-round", getRound());
+			return Response.json(200, page);
+		}
+		if (path.startsWith("/v2/assets/") && path.endsWith("/transactions") && (parts.length == 5)) {
+			long assetid = Long.parseLong(parts[3]);
+			ObjectNode page = MAPPER.createObjectNode();
+			ArrayNode list = page.putArray("transactions");
+			List<String> notes = config_notes.getOrDefault(assetid, new ArrayList<String>());
+			synchronized (notes) {
+				for (int i=0; i<notes.size(); i++) {
+					ObjectNode txn = list.addObject();
+					txn.put("id", "STANDINACFG" + assetid + "N" + i);
+					txn.put("tx-type", "acfg");
+					txn.put("confirmed-round", FIRST_ROUND + i);
+					txn.put("round-time", 1700000000L + i);
+					txn.put("note", Base64.getEncoder().encodeToString(notes.get(i).getBytes(StandardCharsets.UTF_8)));
+					JsonNode asset = assets.get(assetid);
+					txn.put("sender", (null == asset) ? "" : asset.path("params").path("manager").asText(""));
+					txn.putObject("asset-config-transaction").put("asset-id", assetid);
+				}
+			}
+			page.put("current-round", getRound());
+			return Response.json(200, page);
+		}
+		if (path.equals("/v2/transactions")) {
+			// only the transfers recorded by addHolding, in a single page
+			String address = params.getOrDefault("address", "");
+			long min_round = Long.parseLong(params.getOrDefault("min-round", "0"));
+			int limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+			ObjectNode page = MAPPER.createObjectNode();
+			ArrayNode list = page.putArray("transactions");
+			synchronized (transfers) {
+				for (ObjectNode txn: transfers) {
+					if (list.size() >= limit) break;
+					if (txn.path("sender").asText().equals(address) && (txn.path("confirmed-round").asLong() >= min_round)) list.add(txn);
+				}
+			}
+			page.put("current-round", getRound());
+			return Response.json(200, page);
+		}
+		if (path.startsWith("/v2/accounts/") && path.endsWith("/assets") && (parts.length == 5)) {
+			ObjectNode page = MAPPER.createObjectNode();
+			page.set("assets", getHoldings(parts[3], params.containsKey("asset-id") ? Long.valueOf(params.get("asset-id")) : null));
+			page.put("current-round", getRound());
+			return Response.json(200, page);
+		}
+		return Response.notFound("unknown endpoint " + path);
+	}
+
+	private Response ipfs(String method, String path, HashMap<String, String> params, byte[] body) {
+		int start = path.indexOf("/ipfs/");
+		if (start < 0) return Response.notFound("not a gateway path " + path);
+		String key = URLDecoder.decode(path.substring(start + "/ipfs/".length()), StandardCharsets.UTF_8);
+		while (key.endsWith("/")) key = key.substring(0, key.length() - 1);
+		byte[] bytes = content.get(key);
+		if (null == bytes) return new Response(404, "text/plain", ("no link named " + key).getBytes(StandardCharsets.UTF_8));
+		return new Response(200, "application/octet-stream", bytes);
+	}
+
+	private ObjectNode getStatus() {
+		ObjectNode status = MAPPER.createObjectNode();
+		status.put("last-round", getRound());
+		status.put("last-version", "https://github.com/algorandfoundation/specs/tree/standin");
+		status.put("next-version", "https://github.com/algorandfoundation/specs/tree/standin");
+		status.put("next-version-round", getRound() + 1L);
+		status.put("next-version-supported", true);
+		status.put("time-since-last-round", 0L);
+		status.put("catchup-time", 0L);
+		status.put("stopped-at-unsupported-round", false);
+		return status;
+	}
+
+	private ArrayNode getHoldings(String address, Long assetid) {
+		ArrayNode list = MAPPER.createArrayNode();
+		for (Map.Entry<Long, Long> holding: holdings.getOrDefault(address, new HashMap<Long, Long>()).entrySet()) {
+			if ((null != assetid) && !assetid.equals(holding.getKey())) continue;
+			ObjectNode asset = list.addObject();
+			asset.put("asset-id", holding.getKey());
+			asset.put("amount", holding.getValue());
+			asset.put("is-frozen", false);
+		}
+		return list;
+	}
+
+	private static HashMap<String, String> getQueryParams(String query) {
+		HashMap<String, String> params = new HashMap<String, String>();
+		if ((null == query) || query.isEmpty()) return params;
+		for (String pair: query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq <= 0) continue;
+			params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+}
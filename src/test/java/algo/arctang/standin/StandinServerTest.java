@@ -0,0 +1,116 @@
+package algo.arctang.standin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import algo.arctang.objects.ipfs.CachedIPFSConnector;
+import algo.arctang.objects.ipfs.GatewayScoreboard;
+import algo.arctang.objects.ipfs.GatewayStats;
+import algo.arctang.objects.ipfs.MediaHasher;
+import algo.arctang.utils.CIDUtils;
+
+public class StandinServerTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private StandinServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new StandinServer().start().addRecordedMainnet();
+	}
+
+	@After
+	public void tearDown() {
+		server.close();
+	}
+
+	@Test
+	public void testRecordedAssets() throws Exception {
+		String asa_json = get(server.getHost() + ":" + server.getAlgodPort() + "/v2/assets/" + StandinServer.RECORDED_ARC3_ASSETID).body();
+		assertEquals(StandinServer.readFixture(StandinServer.RECORDED_ARC3_ASSETID + ".asa.json"), asa_json);
+		assertEquals(404, get(server.getHost() + ":" + server.getAlgodPort() + "/v2/assets/1").statusCode());
+
+		// the ARC69 metadata is the note of the acfg transaction
+		JsonNode txns = MAPPER.readTree(get(server.getHost() + ":" + server.getIndexerPort() + "/v2/assets/" + StandinServer.RECORDED_ARC69_ASSETID + "/transactions?tx-type=acfg").body());
+		String note = new String(Base64.getDecoder().decode(txns.path("transactions").get(0).path("note").asText()), StandardCharsets.UTF_8);
+		assertEquals(StandinServer.readFixture(StandinServer.RECORDED_ARC69_ASSETID + ".metadata.json"), note);
+	}
+
+	@Test
+	public void testIndexerPaging() throws Exception {
+		new SyntheticCollection(1L).addARC3(server, SyntheticCollection.CREATOR, 1000L, 150, 16);
+		JsonNode first = MAPPER.readTree(get(server.getHost() + ":" + server.getIndexerPort() + "/v2/assets?creator=" + SyntheticCollection.CREATOR + "&limit=100").body());
+		assertEquals(100, first.path("assets").size());
+		JsonNode second = MAPPER.readTree(get(server.getHost() + ":" + server.getIndexerPort() + "/v2/assets?creator=" + SyntheticCollection.CREATOR + "&limit=100&next=" + first.path("next-token").asText()).body());
+		assertEquals(50, second.path("assets").size());
+		assertTrue(second.path("next-token").isMissingNode());
+		assertEquals(1149L, second.path("assets").get(49).path("index").asLong());
+	}
+
+	@Test
+	public void testGatewayFaults() throws Exception {
+		server.setFaults("down", FaultProfile.down());
+		server.setFaults("throttled", FaultProfile.throttled());
+		server.setFaults("slow", new FaultProfile(100L, 20L, 0.0d, 0.0d));
+		String[] gateways = {server.getGateway("down"), server.getGateway("throttled"), server.getGateway("slow")};
+		GatewayScoreboard scoreboard = new GatewayScoreboard(new File(tmp.newFolder(), "gateways.json").getAbsolutePath(), gateways, false);
+		CachedIPFSConnector connector = new CachedIPFSConnector(null, new MediaHasher(CachedIPFSConnector.DEFAULT_MAX_INFLIGHT_BYTES), scoreboard);
+
+		// the recorded ARC3 metadata is served under its real CID, only by the slow gateway
+		String metadata = connector.getStringContent("ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm");
+		assertEquals(StandinServer.readFixture(StandinServer.RECORDED_ARC3_ASSETID + ".metadata.json"), metadata);
+		assertEquals("NWgQYgRRTYAb7p28MJDhQLe5adSeZivMUBGl/cZtdWM=", connector.getSha256Base64("ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm"));
+
+		List<GatewayStats> stats = scoreboard.getGateways();
+		assertTrue("failing gateways are recorded", stats.get(0).getFailures() > 0L);
+		assertTrue("throttling gateways are recorded", stats.get(1).getFailures() > 0L);
+		assertEquals(0L, stats.get(2).getFailures());
+		assertTrue(server.getRequests("throttled", 429) > 0L);
+
+		// unknown content is a 404, not a gateway failure
+		assertNull(connector.getStringContent("ipfs://bafkreihdwdcefgh4dqkjv67uzcmw7ojee6xedzdetojuzjevtenxquvyku"));
+		assertEquals(0L, stats.get(2).getFailures());
+		connector.close();
+	}
+
+	@Test
+	public void testSyntheticMedia() throws Exception {
+		List<Long> assetids = new SyntheticCollection(7L).addARC69(server, SyntheticCollection.CREATOR, 5000L, 3, 1024);
+		JsonNode asset = MAPPER.readTree(get(server.getHost() + ":" + server.getAlgodPort() + "/v2/assets/" + assetids.get(2)).body());
+		String url = asset.path("params").path("url").asText();
+		CachedIPFSConnector connector = new CachedIPFSConnector(null, new MediaHasher(CachedIPFSConnector.DEFAULT_MAX_INFLIGHT_BYTES), new GatewayScoreboard(new File(tmp.newFolder(), "gateways.json").getAbsolutePath(), new String[] {server.getGateway("local")}, false));
+		assertEquals(Boolean.TRUE, CIDUtils.matchesRaw(CachedIPFSConnector.getIPFSPath(url), connector.getSha256Base64(url)));
+
+		JsonNode account = MAPPER.readTree(get(server.getHost() + ":" + server.getAlgodPort() + "/v2/accounts/" + SyntheticCollection.CREATOR).body());
+		assertEquals(3, account.path("assets").size());
+		connector.close();
+	}
+
+	private static HttpResponse<String> get(String url) throws Exception {
+		return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+}
@@ -0,0 +1,120 @@
+package algo.arctang.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import algo.arctang.utils.VerifyUtils;
+
+/**
+ * Generates collections of well formed ARC3 and ARC69 assets of any size into a StandinServer, with random
+ * media served by the stand-in gateways. The same seed always generates the same collection.
+ */
+public class SyntheticCollection {
+
+	// the zero address, nobody holds its key which is what a synthetic creator wants
+	public static final String CREATOR = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAY5HFKQ";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Random random;
+
+	public SyntheticCollection(long seed) {
+		super();
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Adds 'count' immutable ARC3 assets from first_assetid on, all held by the creator, with metadata and
+	 * media_bytes of random media on IPFS. Returns the assetids.
+	 */
+	public List<Long> addARC3(StandinServer server, String creator, long first_assetid, int count, int media_bytes) {
+		List<Long> assetids = new ArrayList<Long>();
+		for (int i=0; i<count; i++) {
+			long assetid = first_assetid + i;
+			byte[] media = randomMedia(media_bytes);
+			String media_cid = server.addContent(media);
+
+			ObjectNode metadata = MAPPER.createObjectNode();
+			metadata.put("name", "Synthetic #" + (i + 1));
+			metadata.put("description", "Synthetic ARC3 asset " + assetid);
+			metadata.put("image", "ipfs://" + media_cid);
+			metadata.put("image_integrity", "sha256-" + VerifyUtils.sha256Base64(media));
+			metadata.put("image_mimetype", "image/png");
+			addProperties(metadata.putObject("properties"), i);
+			String metadata_json = metadata.toString();
+			String metadata_cid = server.addContent(metadata_json.getBytes(StandardCharsets.UTF_8));
+
+			ObjectNode params = createParams(creator, "Synthetic #" + (i + 1), "SYN" + (i + 1), "ipfs://" + metadata_cid + "#arc3");
+			params.put("metadata-hash", VerifyUtils.sha256Base64(metadata_json));
+			server.addAsset(createAsset(assetid, params));
+			server.addHolding(creator, assetid, 1L);
+			assetids.add(assetid);
+		}
+		return assetids;
+	}
+
+	/**
+	 * Adds 'count' immutable ARC69 assets from first_assetid on, all held by the creator, with the metadata
+	 * in an acfg note and media_bytes of random media on IPFS. Returns the assetids.
+	 */
+	public List<Long> addARC69(StandinServer server, String creator, long first_assetid, int count, int media_bytes) {
+		List<Long> assetids = new ArrayList<Long>();
+		for (int i=0; i<count; i++) {
+			long assetid = first_assetid + i;
+			String media_cid = server.addContent(randomMedia(media_bytes));
+
+			ObjectNode note = MAPPER.createObjectNode();
+			note.put("standard", "arc69");
+			note.put("description", "Synthetic ARC69 asset " + assetid);
+			note.put("media_url", "ipfs://" + media_cid + "#i");
+			note.put("mime_type", "image/png");
+			addProperties(note.putObject("properties"), i);
+
+			server.addAsset(createAsset(assetid, createParams(creator, "Synthetic #" + (i + 1), "SYN" + (i + 1), "ipfs://" + media_cid + "#i")));
+			server.addConfigNote(assetid, note.toString());
+			server.addHolding(creator, assetid, 1L);
+			assetids.add(assetid);
+		}
+		return assetids;
+	}
+
+	private byte[] randomMedia(int media_bytes) {
+		byte[] media = new byte[media_bytes];
+		random.nextBytes(media);
+		return media;
+	}
+
+	// a few traits with skewed frequencies so every collection has common and rare values
+	private void addProperties(ObjectNode properties, int i) {
+		String[] backgrounds = {"grey", "grey", "grey", "blue", "blue", "gold"};
+		properties.put("background", backgrounds[random.nextInt(backgrounds.length)]);
+		properties.put("level", String.valueOf(1 + random.nextInt(10)));
+		if ((i % 10) == 0) properties.put("hat", "crown");
+	}
+
+	private static ObjectNode createParams(String creator, String name, String unit_name, String url) {
+		ObjectNode params = MAPPER.createObjectNode();
+		params.put("creator", creator);
+		params.put("decimals", 0);
+		params.put("default-frozen", false);
+		params.put("name", name);
+		params.put("reserve", creator);
+		params.put("total", 1);
+		params.put("unit-name", unit_name);
+		params.put("url", url);
+		return params;
+	}
+
+	private static String createAsset(long assetid, ObjectNode params) {
+		ObjectNode asset = MAPPER.createObjectNode();
+		asset.put("index", assetid);
+		asset.set("params", params);
+		return asset.toString();
+	}
+
+}
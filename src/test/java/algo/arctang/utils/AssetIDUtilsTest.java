@@ -0,0 +1,21 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class AssetIDUtilsTest {
+
+	@Test
+	public void testAssetIDRange() {
+		Iterator<Long> it = AssetIDUtils.fromRange("10-12");
+		assertEquals(Long.valueOf(10L), it.next());
+		assertEquals(Long.valueOf(11L), it.next());
+		assertEquals(Long.valueOf(12L), it.next());
+		assertFalse(it.hasNext());
+	}
+
+}
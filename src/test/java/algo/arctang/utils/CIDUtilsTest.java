@@ -0,0 +1,33 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class CIDUtilsTest {
+
+	private static final byte[] HELLO = "hello world\n".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	public void testDagPbCIDv0() {
+		assertEquals(Boolean.TRUE, CIDUtils.matches("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o", HELLO));
+		assertEquals(Boolean.FALSE, CIDUtils.matches("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o", "<html>rate limited</html>".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testRawCIDv1() {
+		byte[] content = "hello world".getBytes(StandardCharsets.UTF_8);
+		assertEquals(Boolean.TRUE, CIDUtils.matches("bafkreifzjut3te2nhyekklss27nh3k72ysco7y32koao5eei66wof36n5e", content));
+		assertEquals(Boolean.FALSE, CIDUtils.matches("bafkreifzjut3te2nhyekklss27nh3k72ysco7y32koao5eei66wof36n5e", HELLO));
+	}
+
+	@Test
+	public void testUncheckable() {
+		assertNull("path into a directory", CIDUtils.matches("QmT78zSuBmuS4z925WZfrqQ1qHaJ56DQaTfyMUF7F8ff5o/1.json", HELLO));
+		assertNull("not a CID", CIDUtils.matches("notacid", HELLO));
+	}
+
+}
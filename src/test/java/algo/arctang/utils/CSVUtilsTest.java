@@ -0,0 +1,32 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CSVUtilsTest {
+
+	@Test
+	public void testQuotedFields() {
+		List<String> row = CSVUtils.parseLine("meta/1.json,\"Cat, the \"\"first\"\"\",,https://x.io/1.png");
+		assertEquals(4, row.size());
+		assertEquals("Cat, the \"first\"", row.get(1));
+
+		HashMap<String, Integer> columns = CSVUtils.parseHeader("metadata,Asset_Name,unit_name,mediadata_url");
+		assertEquals("meta/1.json", CSVUtils.get(row, columns, "metadata"));
+		assertNull(CSVUtils.get(row, columns, "unit_name"));
+		assertNull(CSVUtils.get(row, columns, "missing"));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		String line = CSVUtils.toLine(1, "Cat, the \"first\"", null, 42L);
+		assertEquals("1,\"Cat, the \"\"first\"\"\",,42", line);
+		assertEquals("Cat, the \"first\"", CSVUtils.parseLine(line).get(1));
+	}
+
+}
@@ -0,0 +1,47 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+public class ConvertUtilsTest {
+
+	private static final String ERC721_METADATA = "{\"name\":\"Ape #1\",\"image\":\"ipfs://QmRRPWG96cmgTn2qSzjwr2qvfNEuhunv6FNeMFGa9bx6mQ\",\"attributes\":[{\"trait_type\":\"Fur\",\"value\":\"Robot\"},{\"trait_type\":\"Attributes\",\"value\":2}]}";
+
+	@Test
+	public void testARC3Conversion() throws Exception {
+		String image_sha256 = VerifyUtils.sha256Base64("image");
+		ObjectNode arc3 = ConvertUtils.convertERC721ToARC(ERC721_METADATA, AVMNFTStandard.ARC3, url -> image_sha256);
+		assertFalse("attributes moved to properties", arc3.has("attributes"));
+		assertEquals("Robot", arc3.path("properties").path("Fur").asText());
+		assertEquals(2, arc3.path("properties").path("Attributes").asInt());
+		assertEquals("sha256-" + image_sha256, arc3.path("image_integrity").asText());
+		assertFalse("no arc69 standard field", arc3.has("standard"));
+	}
+
+	@Test
+	public void testARC3ConversionFailsWithoutMedia() {
+		try {
+			ConvertUtils.convertERC721ToARC(ERC721_METADATA, AVMNFTStandard.ARC3, url -> null);
+			assertTrue("conversion should fail when the image can not be fetched", false);
+		} catch (Exception e) {
+			assertTrue(e instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testARC69Conversion() throws Exception {
+		ObjectNode arc69 = ConvertUtils.convertERC721ToARC(ERC721_METADATA, AVMNFTStandard.ARC69, url -> null);
+		assertTrue("attributes kept", arc69.has("attributes"));
+		assertEquals("Robot", arc69.path("properties").path("Fur").asText());
+		assertEquals("arc69", arc69.path("standard").asText());
+		assertFalse("no integrity fields for ARC69", arc69.has("image_integrity"));
+	}
+
+}
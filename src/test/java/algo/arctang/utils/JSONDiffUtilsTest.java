@@ -0,0 +1,49 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class JSONDiffUtilsTest {
+
+	private static final String V1 = "{\"standard\":\"arc69\",\"properties\":{\"Background\":\"none\",\"Back\":\"none\",\"Hair\":\"none\"}}";
+	private static final String V2 = "{\"standard\":\"arc69\",\"properties\":{\"Background\":\"RVT01#11 Dusty Pink Portal\",\"Back\":\"none\",\"Eyes\":\"RVT04#02 Blue\"}}";
+
+	@Test
+	public void testTraitChanges() {
+		ArrayList<String> changes = new ArrayList<String>();
+		int count = JSONDiffUtils.diff(JSONDiffUtils.parse(V1), JSONDiffUtils.parse(V2), (op, path, before, after) -> changes.add(op + " " + path));
+		assertEquals(3, count);
+		assertEquals("~ /properties/Background", changes.get(0));
+		assertEquals("- /properties/Hair", changes.get(1));
+		assertEquals("+ /properties/Eyes", changes.get(2));
+	}
+
+	@Test
+	public void testFirstVersionAndArrays() {
+		ArrayList<String> changes = new ArrayList<String>();
+		JsonNode v1 = JSONDiffUtils.parse("{\"a/b\":[1,2],\"c\":{}}");
+		JSONDiffUtils.diff(null, v1, (op, path, before, after) -> changes.add(op + " " + path + " " + JSONDiffUtils.toCompactString(after)));
+		assertEquals(3, changes.size());
+		assertEquals("+ /a~1b/0 1", changes.get(0));
+		assertEquals("+ /c {}", changes.get(2));
+
+		changes.clear();
+		JSONDiffUtils.diff(v1, JSONDiffUtils.parse("{\"a/b\":[1],\"c\":{}}"), (op, path, before, after) -> changes.add(op + " " + path));
+		assertEquals(1, changes.size());
+		assertEquals("- /a~1b/1", changes.get(0));
+	}
+
+	@Test
+	public void testNonJSONMetadata() {
+		ArrayList<String> changes = new ArrayList<String>();
+		JSONDiffUtils.diff(JSONDiffUtils.parse("not json"), JSONDiffUtils.parse("{\"a\":1}"), (op, path, before, after) -> changes.add(op + " " + path));
+		assertEquals(1, changes.size());
+		assertEquals("~ /", changes.get(0));
+	}
+
+}
@@ -0,0 +1,50 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.algorand.algosdk.v2.client.model.AssetParams;
+import com.algorand.algosdk.v2.client.model.Transaction;
+import com.algorand.algosdk.v2.client.model.TransactionAssetConfig;
+
+import algo.arctang.objects.traits.TraitIndex;
+
+public class TraitUtilsTest {
+
+	@Test
+	public void testChangedAssets() {
+		TraitIndex.Builder builder = new TraitIndex.Builder();
+		builder.addAsset(1001L);
+		builder.addAsset(1002L);
+		TraitIndex index = builder.build();
+
+		List<Transaction> transactions = new ArrayList<Transaction>();
+		transactions.add(config(1001L, new AssetParams()));
+		transactions.add(config(1002L, null));
+		transactions.add(config(2001L, new AssetParams()));
+		Transaction creation = config(null, new AssetParams());
+		creation.createdAssetIndex = 1003L;
+		transactions.add(creation);
+
+		TreeSet<Long> changed = new TreeSet<Long>();
+		TreeSet<Long> destroyed = new TreeSet<Long>();
+		TraitUtils.addChangedAssets(index, transactions, changed, destroyed);
+		assertEquals("reconfigured and new assets, not those outside the collection", new TreeSet<Long>(Arrays.asList(1001L, 1003L)), changed);
+		assertEquals(new TreeSet<Long>(Arrays.asList(1002L)), destroyed);
+	}
+
+	private static Transaction config(Long assetid, AssetParams params) {
+		Transaction tx = new Transaction();
+		tx.assetConfigTransaction = new TransactionAssetConfig();
+		tx.assetConfigTransaction.assetId = assetid;
+		tx.assetConfigTransaction.params = params;
+		return tx;
+	}
+
+}
@@ -0,0 +1,51 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import algo.arctang.enums.TransferStatus;
+import algo.arctang.objects.transfer.TransferItem;
+
+public class TransferUtilsTest {
+
+	private static final String RECEIVER = "LYWOMKBPOTRSBVJQKYYHPNWIDMHMM6DVIVJSBXZWFWGU4G7HCP64TKO7AU";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testHeaderAfterComments() throws Exception {
+		File csv = tmp.newFile("airdrop.csv");
+		Files.writeString(csv.toPath(), "# spring airdrop\n\namount,assetid,receiver\n3," + 805168778L + "," + RECEIVER + "\n", StandardCharsets.UTF_8);
+
+		List<TransferItem> items = TransferUtils.readTransfers(csv.getAbsolutePath());
+		assertEquals("the header is not read as a row", 1, items.size());
+		TransferItem item = items.get(0);
+		assertEquals(TransferStatus.PENDING, item.getStatus());
+		assertEquals(4, item.getRow());
+		assertEquals(RECEIVER, item.getReceiver());
+		assertEquals(Long.valueOf(805168778L), item.getAssetid());
+		assertEquals(BigInteger.valueOf(3L), item.getAmount());
+	}
+
+	@Test
+	public void testNoHeader() throws Exception {
+		File csv = tmp.newFile("airdrop.csv");
+		Files.writeString(csv.toPath(), "# receiver,assetid\n" + RECEIVER + "," + 805168778L + "\n", StandardCharsets.UTF_8);
+
+		List<TransferItem> items = TransferUtils.readTransfers(csv.getAbsolutePath());
+		assertEquals(1, items.size());
+		assertEquals(RECEIVER, items.get(0).getReceiver());
+		assertEquals(BigInteger.ONE, items.get(0).getAmount());
+	}
+
+}
@@ -0,0 +1,72 @@
+package algo.arctang.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+import org.junit.Test;
+
+import algo.arctang.objects.verify.ARCVerificationResult;
+import algo.arctang.objects.verify.VerifyTask;
+import crypto.forestfish.enums.avm.AVMNFTStandard;
+
+public class VerifyUtilsTest {
+
+	private static final String ARC3_ASA_JSON = "{\"index\":387411719,\"params\":{\"creator\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"decimals\":0,\"default-frozen\":false,\"manager\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"name\":\"ARC3\",\"total\":1,\"unit-name\":\"NFTARC3\",\"url\":\"ipfs://bafkreibvnaigebcrjwabx3u5xqyjbykaw64wtve6myv4yuarux64m3lvmm#arc3\"}}";
+	private static final String ARC3_METADATA = "{\"name\":\"ARC3\",\"image\":\"ipfs://bafkreihnvwvazmrmkbmkcmrruyadqnqyeyd3hdb2wz43m6gvx7bfwpkxhu\",\"image_integrity\":\"sha256-abc\"}";
+
+	@Test
+	public void testNameRelation() {
+		assertEquals(4, VerifyUtils.longestCommonSubsequence("arc3", "nftarc3"));
+		assertTrue("ARC3 related to NFTARC3", VerifyUtils.isRelated("NFTARC3", "ARC3"));
+		assertFalse("Unrelated names", VerifyUtils.isRelated("ALCH0046", "Raven"));
+	}
+
+	@Test
+	public void testARC3Score() {
+		VerifyTask task = new VerifyTask(387411719L);
+		task.setAsa_json(ARC3_ASA_JSON);
+		task.setStandard(AVMNFTStandard.ARC3);
+		task.setMetadata_json(ARC3_METADATA);
+		task.setMetadata_sha256(VerifyUtils.sha256Base64(ARC3_METADATA));
+		task.setMedia(VerifyUtils.getMediaReferences(387411719L, AVMNFTStandard.ARC3, ARC3_METADATA));
+		assertEquals("image with integrity field", 1, task.getMedia().size());
+
+		task.getMedia().get(0).setSha256("abc");
+		ARCVerificationResult result = VerifyUtils.score(task);
+		assertTrue(result.isVerified());
+		// manager set (2) and no metadata hash (1)
+		assertEquals(7, result.getScore());
+
+		task.getMedia().get(0).setSha256("def");
+		result = VerifyUtils.score(task);
+		assertFalse("integrity mismatch", result.isVerified());
+		assertEquals(0, result.getScore());
+	}
+
+	@Test
+	public void testFreezeAndClawbackNotScored() {
+		// MINT sets the creator as freeze and clawback address
+		String minted = ARC3_ASA_JSON.replace("\"name\":\"ARC3\"", "\"freeze\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"clawback\":\"TEST7FVOHRUCBH25UARE34XE5PVKKDANYWAPCLPQNGSOTLNBYC64C67B74\",\"name\":\"ARC3\"");
+		VerifyTask task = new VerifyTask(387411719L);
+		task.setAsa_json(minted);
+		task.setStandard(AVMNFTStandard.ARC3);
+		task.setMetadata_json(ARC3_METADATA);
+		task.setMedia(VerifyUtils.getMediaReferences(387411719L, AVMNFTStandard.ARC3, ARC3_METADATA));
+		task.getMedia().get(0).setSha256("abc");
+		ARCVerificationResult result = VerifyUtils.score(task);
+		assertTrue(result.isVerified());
+		assertEquals(7, result.getScore());
+	}
+
+	@Test
+	public void testFailedTask() {
+		VerifyTask task = new VerifyTask(1L);
+		task.setError("Asset does not exist");
+		ARCVerificationResult result = VerifyUtils.score(task);
+		assertFalse(result.isVerified());
+		assertEquals(1, result.getErrors().size());
+	}
+
+}